@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.collections15.Transformer;
+
+import de.tuilmenau.ics.fog.importer.ITopologyParser;
+import de.tuilmenau.ics.fog.importer.parser.TopologyParserBRITE;
+import de.tuilmenau.ics.fog.importer.parser.TopologyParserInet;
+import de.tuilmenau.ics.fog.ui.Logging.Level;
+import de.tuilmenau.ics.fog.util.Logger;
+import de.tuilmenau.ics.graph.LinkTransformer;
+import de.tuilmenau.ics.graph.RoutableGraph;
+import edu.uci.ics.jung.algorithms.shortestpath.DijkstraShortestPath;
+import edu.uci.ics.jung.graph.SparseMultigraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+
+/**
+ * Command line benchmark comparing the route calculations for a topology
+ * imported from a BRITE or Inet file:
+ * <ul>
+ * <li>JUNG: Dijkstra of JUNG, which is reset after each query like
+ *     {@link RoutableGraph} did before it cached shortest path trees</li>
+ * <li>Graph objects: {@link RoutableGraph} with its cache of shortest path trees</li>
+ * <li>Compact engine: {@link RoutableGraph} with the compact routing engine</li>
+ * </ul>
+ * Each link of the file is added in both directions with its delay as
+ * weight (1 if the file does not contain delays). Route queries between
+ * random nodes are measured, first for the static topology and then
+ * interleaved with topology changes (added nodes, added and removed
+ * links). The lengths of the routes are compared with the ones of JUNG.
+ * 
+ * Usage: CompactRoutingBenchmark &lt;topology file&gt; &lt;brite|inet&gt; [number of queries] [queries per change]
+ */
+public class CompactRoutingBenchmark
+{
+	public static final int DEFAULT_QUERIES = 5000;
+	public static final int DEFAULT_QUERIES_PER_CHANGE = 4;
+	
+	/**
+	 * Link with a weight; equal only to itself.
+	 */
+	private static class Link
+	{
+		public Link(double weight)
+		{
+			this.weight = weight;
+		}
+		
+		private final double weight;
+	}
+	
+	
+	public static void main(String[] args) throws IOException
+	{
+		int queries = DEFAULT_QUERIES;
+		int queriesPerChange = DEFAULT_QUERIES_PER_CHANGE;
+		boolean brite = false;
+		
+		try {
+			if((args.length < 2) || !(args[1].equals("brite") || args[1].equals("inet"))) {
+				throw new NumberFormatException("Missing topology file or format");
+			}
+			brite = args[1].equals("brite");
+			if(args.length > 2) queries = Integer.parseInt(args[2]);
+			if(args.length > 3) queriesPerChange = Math.max(1, Integer.parseInt(args[3]));
+		}
+		catch(NumberFormatException exc) {
+			System.err.println("Usage: " +CompactRoutingBenchmark.class.getName() +" <topology file> <brite|inet> [number of queries] [queries per change]");
+			return;
+		}
+		
+		CompactRoutingBenchmark benchmark = new CompactRoutingBenchmark();
+		Logger logger = new Logger(null);
+		
+		// parsers log each line
+		logger.setLogLevel(Level.WARN);
+		benchmark.importTopology(brite ? new TopologyParserBRITE(logger, args[0], false) : new TopologyParserInet(logger, args[0], false));
+		benchmark.run(queries, queriesPerChange);
+	}
+	
+	private CompactRoutingBenchmark()
+	{
+		jung = new SparseMultigraph<String, Link>();
+		jungRouting = new DijkstraShortestPath<String, Link>(jung, new Transformer<Link, Number>() {
+			@Override
+			public Number transform(Link input)
+			{
+				return input.weight;
+			}
+		}, false);
+		plain = createGraph(false);
+		compact = createGraph(true);
+	}
+	
+	private void importTopology(ITopologyParser parser)
+	{
+		try {
+			while(parser.readNextNodeEntry()) {
+				addNode(parser.getNode());
+			}
+			while(parser.readNextEdgeEntry()) {
+				double delay = parser.getDelay();
+				
+				addLink(parser.getEdgeNodeOne(), parser.getEdgeNodeTwo(), (delay > 0) ? delay : 1);
+			}
+		}
+		finally {
+			parser.close();
+		}
+	}
+	
+	private void run(int queries, int queriesPerChange)
+	{
+		System.out.println("Graph: " +plain.getNumberVertices() +" nodes, " +plain.getNumberEdges() +" links");
+		if(names.isEmpty()) {
+			return;
+		}
+		
+		// static topology
+		int differences = compare(new Random(1), queries);
+		long jungTime = measureJung(new Random(1), queries);
+		long plainTime = measure(new Random(1), queries, plain);
+		long compactTime = measure(new Random(1), queries, compact);
+		
+		System.out.println("Static topology:");
+		System.out.println("  JUNG: " +rate(queries, jungTime) +" routes per second");
+		System.out.println("  Graph objects: " +rate(queries, plainTime) +" routes per second");
+		System.out.println("  Compact engine: " +rate(queries, compactTime) +" routes per second");
+		
+		// changing topology
+		Random random = new Random(0);
+		Random queryRandom = new Random(2);
+		jungTime = 0;
+		plainTime = 0;
+		compactTime = 0;
+		for(int i = 0; i < queries; i += queriesPerChange) {
+			switch(random.nextInt(3)) {
+			case 0:
+				String name = "added" +names.size();
+				
+				addNode(name);
+				addLink(name, names.get(random.nextInt(names.size())), 1 +random.nextInt(100));
+				break;
+			case 1:
+				addLink(names.get(random.nextInt(names.size())), names.get(random.nextInt(names.size())), 1 +random.nextInt(100));
+				break;
+			default:
+				if(!links.isEmpty()) {
+					Link link = links.remove(random.nextInt(links.size()));
+					
+					jung.removeEdge(link);
+					plain.unlink(link);
+					compact.unlink(link);
+				}
+			}
+			
+			long seed = queryRandom.nextLong();
+			jungTime += measureJung(new Random(seed), queriesPerChange);
+			plainTime += measure(new Random(seed), queriesPerChange, plain);
+			compactTime += measure(new Random(seed), queriesPerChange, compact);
+			differences += compare(new Random(seed), queriesPerChange);
+		}
+		
+		System.out.println("Changing topology (one change per " +queriesPerChange +" routes):");
+		System.out.println("  JUNG: " +rate(queries, jungTime) +" routes per second");
+		System.out.println("  Graph objects: " +rate(queries, plainTime) +" routes per second");
+		System.out.println("  Compact engine: " +rate(queries, compactTime) +" routes per second");
+		System.out.println("Routes with lengths different from JUNG: " +differences);
+	}
+	
+	private static RoutableGraph<String, Link> createGraph(boolean compactRouting)
+	{
+		RoutableGraph<String, Link> graph = new RoutableGraph<String, Link>(new LinkTransformer<Link>() {
+			@Override
+			public Number transform(Link input)
+			{
+				return input.weight;
+			}
+		});
+		
+		graph.setCompactRouting(compactRouting);
+		return graph;
+	}
+	
+	private void addNode(String name)
+	{
+		if(!jung.containsVertex(name)) {
+			names.add(name);
+			jung.addVertex(name);
+			plain.add(name);
+			compact.add(name);
+		}
+	}
+	
+	/**
+	 * Adds a link in both directions. Loops are ignored.
+	 */
+	private void addLink(String from, String to, double weight)
+	{
+		addNode(from);
+		addNode(to);
+		if(from.equals(to)) {
+			return;
+		}
+		
+		for(int i = 0; i < 2; i++) {
+			Link link = new Link(weight);
+			
+			links.add(link);
+			jung.addEdge(link, from, to, EdgeType.DIRECTED);
+			plain.link(from, to, link);
+			compact.link(from, to, link);
+			
+			String tmp = from;
+			from = to;
+			to = tmp;
+		}
+	}
+	
+	private List<Link> getJungRoute(String from, String to)
+	{
+		List<Link> route = jungRouting.getPath(from, to);
+		
+		// no caching between the queries
+		jungRouting.reset();
+		return route;
+	}
+	
+	private long measureJung(Random random, int queries)
+	{
+		long start = System.nanoTime();
+		
+		for(int i = 0; i < queries; i++) {
+			getJungRoute(names.get(random.nextInt(names.size())), names.get(random.nextInt(names.size())));
+		}
+		
+		return System.nanoTime() -start;
+	}
+	
+	private long measure(Random random, int queries, RoutableGraph<String, Link> graph)
+	{
+		long start = System.nanoTime();
+		
+		for(int i = 0; i < queries; i++) {
+			graph.getRoute(names.get(random.nextInt(names.size())), names.get(random.nextInt(names.size())));
+		}
+		
+		return System.nanoTime() -start;
+	}
+	
+	private int compare(Random random, int queries)
+	{
+		int differences = 0;
+		
+		for(int i = 0; i < queries; i++) {
+			String from = names.get(random.nextInt(names.size()));
+			String to = names.get(random.nextInt(names.size()));
+			double length = length(getJungRoute(from, to));
+			
+			if((length != length(plain.getRoute(from, to))) || (length != length(compact.getRoute(from, to)))) {
+				differences++;
+			}
+		}
+		
+		return differences;
+	}
+	
+	private static double length(List<Link> route)
+	{
+		double length = 0;
+		
+		if(route != null) {
+			for(Link link : route) {
+				length += link.weight;
+			}
+		}
+		
+		return length;
+	}
+	
+	private static long rate(int number, long timeNanoSec)
+	{
+		return number *1000000000L / Math.max(1, timeNanoSec);
+	}
+	
+	
+	private final SparseMultigraph<String, Link> jung;
+	private final DijkstraShortestPath<String, Link> jungRouting;
+	private final RoutableGraph<String, Link> plain;
+	private final RoutableGraph<String, Link> compact;
+	private final ArrayList<String> names = new ArrayList<String>();
+	private final ArrayList<Link> links = new ArrayList<Link>();
+}
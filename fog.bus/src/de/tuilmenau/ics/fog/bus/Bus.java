@@ -14,9 +14,11 @@
 package de.tuilmenau.ics.fog.bus;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Observable;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.rapi.Description;
 import net.rapi.properties.DatarateProperty;
@@ -59,8 +61,10 @@ public class Bus extends Observable implements ILowerLayer, ForwardingElement, I
 	 * It is static in order to enforce global unique bus IDs.
 	 * In reality it is not needed, but it makes debugging
 	 * in the simulation much easier.
+	 * Atomic, since buses of different autonomous systems might be
+	 * created and used by different threads in parallel.
 	 */
-	private static int lastUsedID = 0;
+	private static AtomicInteger lastUsedID = new AtomicInteger(0);
 	
 	/**
 	 * Dis-/Enables statistic information output. Just done in GUI mode,
@@ -77,6 +81,9 @@ public Bus(AutonomousSystem pAS, String pName, Description pDescr)
 		mName = pName;
 		mConfig = pAS.getSimulation().getConfig();
 		
+		// own generator, which does not depend on the creation order of the buses
+		randomGenerator = new Random(mConfig.Scenario.RANDOM_SEED +(pAS.getName() +"." +pName).hashCode());
+		
 		packetLog = PacketLogger.createLogger(getTimeBase(), this, null);
 		packetLog.addObserver(this);
 
@@ -127,14 +134,15 @@ public String getASName()
 	
 	public void init()
 	{
-		synchronized (busNumber) {
-			busID = busNumber;
-			busNumber++;
-		}
+		busID = busNumber.getAndIncrement();
 	}
 	
 	public void setBroken(boolean pBroken, boolean pErrorTypeVisible)
 	{
+		if(mCrossPartitionLink) {
+			EventHandler.accessSharedState();
+		}
+		
 		boolean stateChange = broken != pBroken;
 		
 		// is it a repair operation?
@@ -280,6 +288,32 @@ public void setDelayMSec(long newDelayMSec)
 		
 		// update description
 		mDescription.set(new DelayProperty((int)getDelayMSec(), Limit.MIN));
+		
+		if(mCrossPartitionLink) {
+			announceLookahead();
+		}
+	}
+	
+	/**
+	 * @return true, if the simulation is executed by several event handlers in parallel
+	 */
+	public static boolean isParallelExecution()
+	{
+		return Config.Simulator.PARALLEL_EXECUTION && (Config.Simulator.MODE == SimulatorMode.FAST_SIM);
+	}
+	
+	/**
+	 * Informs the time base about the minimal delay of packets to
+	 * receivers in other partitions of a parallel simulation.
+	 */
+	private void announceLookahead()
+	{
+		if(mDelayConstant) {
+			getTimeBase().announceLookahead(mDelaySec);
+		} else {
+			// delay depends on packet size; packets might be delivered without delay
+			getTimeBase().announceLookahead(0);
+		}
 	}
 	
 	/**
@@ -294,6 +328,22 @@ public synchronized NeighborInformation attach(String name, ILowerLayerReceive r
 			HigherLayerRegistration higherLayer = new HigherLayerRegistration(getTimeBase(), mDatarateMeasurement, getLogger(), name, getNewID(), receivingNode);
 			
 			nodelist.add(higherLayer);
+			mNeighborIndex.put(higherLayer.getNeighbor(), higherLayer);
+			
+			// link to another partition of a parallel simulation?
+			if(higherLayer.isInOtherPartition()) {
+				mCrossPartitionLink = true;
+				announceLookahead();
+			}
+			
+			// The state of the bus is shared with another partition.
+			// All receivers access it in the order of the sequential
+			// simulation.
+			if(mCrossPartitionLink) {
+				for(HigherLayerRegistration registration : nodelist) {
+					registration.setSharedQueue();
+				}
+			}
 			
 			for(LayerObserverCallback obs : observerList) {
 				try {
@@ -312,15 +362,19 @@ public synchronized NeighborInformation attach(String name, ILowerLayerReceive r
 		}
 	}
 	
-	private synchronized int getNewID()
+	private int getNewID()
 	{
-		lastUsedID++;
-		return lastUsedID;
+		return lastUsedID.incrementAndGet();
 	}
 	
 	@Override
 	public SendResult sendPacketTo(NeighborInformation destination, Packet packet, NeighborInformation from)
 	{
+		// senders and receivers in several partitions of a parallel simulation
+		if(mCrossPartitionLink) {
+			EventHandler.accessSharedState();
+		}
+		
 		if(destination != null) {
 			if(!broken) {
 				if(!isPacketLost(packet)) {
@@ -386,19 +440,29 @@ public SendResult sendPacketTo(NeighborInformation destination, Packet packet, N
 					//
 					int numberOfMatchingNeighbors = 0;
 					Status storeRes = Status.OK;
-					Envelope delivery = new Envelope(packet, from, tPacketDeliverTime, tPacketDeliverTime -tNow);
 					
 					packet.addBus(mName);
 					
 					// log packet for statistic
 					packetLog.add(packet);
 		
-					for(HigherLayerRegistration hl : nodelist) {
-						if(hl.getNeighbor().equals(destination) || (destination.equals(BROADCAST))) {
+					// Inform queue for higher layer about packet.
+					// The higher layers might modify the packet. Therefore,
+					// each of them gets its own copy. The packet of the sender
+					// stays with the packet log and the observers.
+					if(destination.equals(BROADCAST)) {
+						HigherLayerRegistration[] receivers = getRegistrations();
+						
+						for(int i = 0; i < receivers.length; i++) {
 							numberOfMatchingNeighbors++;
-							// Inform queue for higher layer about packet.
-							// Packet will be cloned later, during the delivery process. 
-							storeRes = hl.storePacket(delivery);
+							storeRes = receivers[i].storePacket(new Envelope(packet.clone(), from, tPacketDeliverTime, tPacketDeliverTime -tNow));
+						}
+					} else {
+						HigherLayerRegistration hl = getRegistration(destination);
+						
+						if(hl != null) {
+							numberOfMatchingNeighbors++;
+							storeRes = hl.storePacket(new Envelope(packet.clone(), from, tPacketDeliverTime, tPacketDeliverTime -tNow));
 						}
 					}
 					
@@ -481,6 +545,9 @@ public synchronized void detach(ILowerLayerReceive receivingNode)
 					
 					found = true;
 					nodelist.remove(hl);
+					if(mNeighborIndex.get(hl.getNeighbor()) == hl) {
+						mNeighborIndex.remove(hl.getNeighbor());
+					}
 					// iterator is invalid after removing -> leave for loop
 					break;
 				}
@@ -498,19 +565,32 @@ public synchronized void detach(ILowerLayerReceive receivingNode)
 	 * @return
 	 */
 	public synchronized ILowerLayerReceive getNeighborDetails(NeighborInformation forNeighbor)
+	{
+		HigherLayerRegistration hl = getRegistration(forNeighbor);
+		
+		if(hl != null) {
+			return hl.getLowerLayerReceive();
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * @param forNeighbor Identification of neighbor
+	 * @return Registration of the neighbor or null, if it is not attached
+	 */
+	private synchronized HigherLayerRegistration getRegistration(NeighborInformation forNeighbor)
 	{
 		if(forNeighbor != null) {
-			// search in list for this neighbor
-			for(HigherLayerRegistration hl : nodelist) {
-				NeighborInformation neighbor = hl.getNeighbor();
-				
-				if(forNeighbor.equals(neighbor)) {
-					return hl.getLowerLayerReceive();
-				}
-			}
+			return mNeighborIndex.get(forNeighbor);
+		} else {
+			return null;
 		}
-		
-		return null;
+	}
+	
+	private synchronized HigherLayerRegistration[] getRegistrations()
+	{
+		return nodelist.toArray(new HigherLayerRegistration[nodelist.size()]);
 	}
 	
 	@Override
@@ -564,6 +644,7 @@ public boolean unregisterObserverNeighborList(LayerObserverCallback observer)
 	public synchronized void close()
 	{
 		nodelist.clear();
+		mNeighborIndex.clear();
 		observerList.clear();
 		
 		setBroken(true, Config.Routing.ERROR_TYPE_VISIBLE);
@@ -683,13 +764,15 @@ private boolean generateByteErrors(Packet packet)
 	
 	private Logger mLogger;
 	private double mNextFreeTimeSlot = 0;
+	private boolean mCrossPartitionLink = false;
 	private Config mConfig;
 	
-	private static Integer busNumber = 0;
+	private static AtomicInteger busNumber = new AtomicInteger(0);
 	private PacketLogger packetLog;
 	private LinkedList<HigherLayerRegistration> nodelist = new LinkedList<HigherLayerRegistration>();
+	private HashMap<NeighborInformation, HigherLayerRegistration> mNeighborIndex = new HashMap<NeighborInformation, HigherLayerRegistration>();
 	private LinkedList<LayerObserverCallback> observerList = new LinkedList<LayerObserverCallback>();
-	private static Random randomGenerator = new Random();
+	private Random randomGenerator;
 	
 	@Viewable("ID")
 	private int busID;
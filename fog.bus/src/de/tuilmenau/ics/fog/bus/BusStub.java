@@ -88,6 +88,12 @@ public NeighborInformation attach(String name, ILowerLayerReceive receivingNode)
 			mSkeletons.put(receivingNode, skeleton);
 		}
 		
+		// Bus of another partition of a parallel simulation? It delivers
+		// the packets via the time base of the skeleton.
+		if(mRemoteBus instanceof Bus) {
+			return mRemoteBus.attach(name, skeleton);
+		}
+		
 		Remote proxy = getStubForObserver(skeleton, true);
 		mLogger.debug(this, "Attach receiving node " + proxy);
 		
@@ -105,6 +111,11 @@ public void detach(ILowerLayerReceive receivingNode) throws RemoteException
 	{
 		LowerLayerReceiveSkeleton skeleton = mSkeletons.get(receivingNode);
 		if(skeleton != null) {
+			if(mRemoteBus instanceof Bus) {
+				mRemoteBus.detach(skeleton);
+				return;
+			}
+			
 			ILowerLayerReceive proxy = (ILowerLayerReceive) getStubForObserver(skeleton, false);
 			
 			if(proxy != null) {
@@ -19,6 +19,7 @@
 import de.tuilmenau.ics.fog.Config;
 import de.tuilmenau.ics.fog.EventHandler;
 import de.tuilmenau.ics.fog.IEvent;
+import de.tuilmenau.ics.fog.ISharedStateEvent;
 import de.tuilmenau.ics.fog.Config.Simulator.SimulatorMode;
 import de.tuilmenau.ics.fog.packets.Packet;
 import de.tuilmenau.ics.fog.topology.Breakable.Status;
@@ -31,8 +32,9 @@
 /**
  * Represents a registration of a higher layer at a lower layer.
  * It stores packets, which should be processed by this higher
- * layer. The method deliverPackets must be called periodically
- * in order to deliver this packets.
+ * layer, in a queue sorted by the delivery time. Only a single
+ * event for the head of the queue is scheduled. It delivers all
+ * packets, which are due, and schedules itself for the next one.
  */
 public class HigherLayerRegistration extends RateLimitedAction<Packet>
 {
@@ -49,26 +51,58 @@ public HigherLayerRegistration(EventHandler timeBase, RateMeasurement measuremen
 		mHL = hl;
 		mLogger = logger;
 		mDatarateMeasurement = measurement;
+		
+		if(isInOtherPartition()) {
+			// Receiver belongs to another partition of a parallel simulation.
+			// The delivery is scheduled in its time base and the packets are
+			// passed directly to the receiver like in the sequential
+			// simulation.
+			LowerLayerReceiveSkeleton tSkeleton = (LowerLayerReceiveSkeleton) hl;
+			
+			mDeliveryTimeBase = tSkeleton.getTimeBase();
+			mReceiver = tSkeleton.getReceiver();
+		} else {
+			mDeliveryTimeBase = timeBase;
+			mReceiver = hl;
+		}
 	}
 	
 	private class PacketDeliveryEvent implements IEvent
 	{
-		public PacketDeliveryEvent(Envelope packet)
-		{
-			this.packet = packet;
-		}
-
 		@Override
 		public void fire()
 		{
-			deliverPacket(packet, getEventHandler().now());
+			deliverPackets();
+		}
+	}
+	
+	/**
+	 * Delivery accessing a queue shared by several partitions of a
+	 * parallel simulation
+	 */
+	private class SharedPacketDeliveryEvent extends PacketDeliveryEvent implements ISharedStateEvent
+	{
+	}
+	
+	/**
+	 * Marks the queue as shared by several partitions of a parallel
+	 * simulation. Afterwards, deliveries access the queue in the order
+	 * of the sequential simulation.
+	 */
+	public void setSharedQueue()
+	{
+		synchronized (packetlist) {
+			if(!(mDeliveryEvent instanceof SharedPacketDeliveryEvent)) {
+				mDeliveryEvent = new SharedPacketDeliveryEvent();
+			}
 		}
-		
-		private Envelope packet;
 	}
 	
 	/**
 	 * Stores an incoming packet in its queue. The content is not copied.
+	 * The lower layer has to pass a copy, which is not used by any
+	 * other entity (incl. packet logs and observers), since the higher
+	 * layer might modify it.
 	 * 
 	 * @param packet packet, which should be stored for delivery
 	 * @return Result of sending operation
@@ -77,17 +111,24 @@ public Status storePacket(Envelope packet)
 	{
 		if(packet != null) {
 			try {
-				Status tStatus = mHL.isBroken();
+				Status tStatus = mReceiver.isBroken();
 				
 				if(tStatus == Status.OK) {
 					//
-					// handling via event queue
-					// Note: It is important to sort packets with same time
-					//       in order of arrival. Otherwise higher layer
+					// handling via queue
+					// Note: It is important to deliver packets with same
+					//       time in order of arrival. Otherwise higher layer
 					//       protocols gets problems with packets not in
-					//       order. Therefore, use ">" and not ">="!
+					//       order. Since the lower layer assigns increasing
+					//       delivery times, appending keeps the order.
 					//
-					getEventHandler().scheduleIn(packet.mDeliverDuration, new PacketDeliveryEvent(packet));
+					synchronized (packetlist) {
+						packetlist.addLast(packet);
+						
+						if(!mDeliveryScheduled) {
+							scheduleDelivery(packet.mTimeToDeliver);
+						}
+					}
 				}
 
 				return tStatus;
@@ -102,52 +143,62 @@ public Status storePacket(Envelope packet)
 	}
 	
 	/**
-	 * Delivers packets from queue to higher layer. This method copies
-	 * packets.
+	 * Delivers the packets from the queue, which are due, to the higher
+	 * layer. If packets remain in the queue, the delivery is scheduled
+	 * again.
 	 * 
 	 * @return number of delivered packets
 	 */
 	public int deliverPackets()
 	{
 		int counter = 0;
+		double now = mDeliveryTimeBase.now();
 		
-		if(packetlist != null) {
-			while(!packetlist.isEmpty() && (counter < MAX_NO_DELIVERED_PACKETS_PER_STEP)) {
-				boolean deliver = true;
-				double now = getEventHandler().now();
-				
-				synchronized (packetlist) {
-					Envelope packet = packetlist.getFirst();
-					deliver = (packet.mTimeToDeliver <= now);
+		synchronized (packetlist) {
+			mDeliveryScheduled = false;
+		}
+		
+		while(counter < MAX_NO_DELIVERED_PACKETS_PER_STEP) {
+			Envelope packet = null;
+			
+			synchronized (packetlist) {
+				if(!packetlist.isEmpty() && (packetlist.getFirst().mTimeToDeliver <= now)) {
+					packet = packetlist.removeFirst();
 				}
-
-				if(deliver) {
-					Envelope packet = null;
-					synchronized (packetlist) {
-						packet = packetlist.removeFirst();
-					}
-					
-					if(deliverPacket(packet, now)) {
-						counter++;
-					}
-				} else {
-					// first packet needs some more time for delay
-					// skip this queue and try something else
-					break;
+			}
+			
+			if(packet != null) {
+				if(deliverPacket(packet, now)) {
+					counter++;
 				}
+			} else {
+				// first packet needs some more time for delay
+				break;
+			}
+		}
+		
+		synchronized (packetlist) {
+			if(!packetlist.isEmpty() && !mDeliveryScheduled) {
+				scheduleDelivery(packetlist.getFirst().mTimeToDeliver);
 			}
 		}
 		
 		return counter;
 	}
 	
+	private void scheduleDelivery(double time)
+	{
+		mDeliveryScheduled = true;
+		mDeliveryTimeBase.scheduleAt(Math.max(time, mDeliveryTimeBase.now()), mDeliveryEvent);
+	}
+	
 	private boolean deliverPacket(Envelope packet, double now)
 	{
 		// calculate difference between scheduled time and actual delivery time
 		double delayMSec = (packet.mTimeToDeliver -now) *1000.0d;
 		
 		if(Config.Transfer.DEBUG_PACKETS) {
-			mLogger.debug(this, "deliver " +packet.mPacket +" from " +packet.mFrom +" to " +mHL +" (delay [msec] = " +Math.round(delayMSec) +")");
+			mLogger.debug(this, "deliver " +packet.mPacket +" from " +packet.mFrom +" to " +mReceiver +" (delay [msec] = " +Math.round(delayMSec) +")");
 		}
 		
 		try {
@@ -156,7 +207,7 @@ private boolean deliverPacket(Envelope packet, double now)
 			}
 			
 			long time = System.currentTimeMillis();
-			mHL.handlePacket(packet.mPacket.clone(), packet.mFrom);
+			mReceiver.handlePacket(packet.mPacket, packet.mFrom);
 			lastPacketDurationMSec = System.currentTimeMillis() -time;
 			
 			if(Config.Transfer.DEBUG_PACKETS) {
@@ -181,6 +232,18 @@ private boolean deliverPacket(Envelope packet, double now)
 		return true;
 	}
 
+	/**
+	 * @return true, if the receiver is located in another partition of a parallel simulation
+	 */
+	public boolean isInOtherPartition()
+	{
+		if(mHL instanceof LowerLayerReceiveSkeleton) {
+			return ((LowerLayerReceiveSkeleton) mHL).getTimeBase() != getEventHandler();
+		} else {
+			return false;
+		}
+	}
+	
 	/**
 	 * @return Information about attached entity (!= null)
 	 */
@@ -219,8 +282,12 @@ protected void doAction(Packet packet)
 	
 	private NeighborInformation mNeighbor;
 	private Logger mLogger;
-	private LinkedList<Envelope> packetlist;	
+	private LinkedList<Envelope> packetlist = new LinkedList<Envelope>();
+	private boolean mDeliveryScheduled = false;
+	private PacketDeliveryEvent mDeliveryEvent = new PacketDeliveryEvent();
+	private final EventHandler mDeliveryTimeBase;
 	private ILowerLayerReceive mHL;
+	private final ILowerLayerReceive mReceiver;
 	private long lastPacketDurationMSec = -1;
 	private RateMeasurement mDatarateMeasurement;
 }
@@ -44,6 +44,12 @@ public enum SendResult { OK, LOWER_LAYER_BROKEN, NEIGHBOR_NOT_KNOWN, NEIGHBOR_NO
 	/**
 	 * Sends a packet to a neighbor reachable via this lower layer.
 	 * 
+	 * Ownership: The lower layer never passes the given packet object to a
+	 * receiver. Each receiver gets its own copy. However, the lower layer
+	 * might modify the packet (e.g. bit errors) and keep a reference to it
+	 * for logging and observers. Thus, the caller must not modify the packet
+	 * after the call.
+	 * 
 	 * @param destination Destination information (provided by the lower layer itself)
 	 * @param packet Packet to send
 	 * @param from Element, which sends the packet
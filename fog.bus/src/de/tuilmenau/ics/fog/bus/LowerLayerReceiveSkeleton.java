@@ -68,6 +68,19 @@ public void handlePacket(Packet packet, NeighborInformation from) throws RemoteE
 		}
 	}
 
+	public EventHandler getTimeBase()
+	{
+		return mTimeBase;
+	}
+	
+	/**
+	 * @return Receiver the packets are passed to (!= null)
+	 */
+	public ILowerLayerReceive getReceiver()
+	{
+		return mReceiver;
+	}
+	
 	@Override
 	public void closed() throws RemoteException
 	{
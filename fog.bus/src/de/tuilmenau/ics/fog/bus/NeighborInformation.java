@@ -51,6 +51,14 @@ public boolean equals(Object obj)
 		return false;
 	}
 	
+	@Override
+	public int hashCode()
+	{
+		// consistent with equals, which compares the lower layer names only
+		if(mLLName != null) return mLLName.hashCode();
+		else return 0;
+	}
+	
 	@Override
 	public String toString()
 	{
@@ -38,6 +38,15 @@ public ILowerLayer activate(EventHandler timeBase, Logger logger)
 	{
 		// is it the local object of a RMI proxy?
 		if(medium instanceof Bus) {
+			// Bus from another partition of a parallel simulation?
+			// Use stub in order to deliver packets via the time base
+			// of the receiver.
+			if(((Bus) medium).getTimeBase() != timeBase) {
+				if(Bus.isParallelExecution()) {
+					return new BusStub(timeBase, logger, medium);
+				}
+			}
+			
 			return medium;
 		} else {
 			// hide RMI stub behind a facade doing proxy creation
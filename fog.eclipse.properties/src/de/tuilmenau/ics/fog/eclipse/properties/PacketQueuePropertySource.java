@@ -41,7 +41,9 @@ public IPropertyDescriptor[] getPropertyDescriptors()
 				int i = 0;
 				
 				for(PacketQueueEntry entry : packetList) {
-					propertyDescriptors[i] = new TextPropertyDescriptor(entry.packet, entry.packet.toString());
+					// label based on the snapshot of the entry; the packet
+					// is copied only if its value is requested
+					propertyDescriptors[i] = new TextPropertyDescriptor(entry, entry.toString());
 					i++;
 				}
 			}
@@ -59,6 +61,15 @@ public Object getEditableValue()
 	@Override
 	public Object getPropertyValue(Object name)
 	{
+		if(name instanceof PacketQueueEntry) {
+			Packet packet = ((PacketQueueEntry) name).getPacket();
+			
+			// packet of entry might not be available anymore
+			if(packet != null) {
+				return packet;
+			}
+		}
+		
 		return name;
 	}
 
@@ -95,7 +95,7 @@ public boolean select(Viewer viewer, Object parentElement, Object element)
 			if(element instanceof PacketQueueEntry) {
 				PacketQueueEntry entry = (PacketQueueEntry) element;
 				
-				if(entry.packet.toString().matches(filterString)) return true;
+				if(entry.toString().matches(filterString)) return true;
 				if(entry.object.toString().matches(filterString)) return true;
 			} else {
 				if(element.toString().matches(filterString)) return true;
@@ -146,10 +146,10 @@ public int compare(Viewer viewer, Object e1, Object e2)
 				rc = p2.number -p1.number;
 				break;
 			case COLUMN_ID_NUMBER:
-				rc = (int) (p2.packet.getId() -p1.packet.getId());
+				rc = (int) (p2.getPacketId() -p1.getPacketId());
 				break;
 			case COLUMN_ID_PACKET:
-				rc = p1.packet.toString().compareTo(p2.packet.toString());
+				rc = p1.toString().compareTo(p2.toString());
 				break;
 			case COLUMN_ID_OBJECT:
 				rc = p1.object.toString().compareTo(p2.object.toString());
@@ -200,9 +200,9 @@ public String getColumnText(Object obj, int index)
 				
 				switch(index) {
 				case COLUMN_ID_NUMBER:
-					return Long.toString(entry.packet.getId());
+					return Long.toString(entry.getPacketId());
 				case COLUMN_ID_PACKET:
-					return entry.packet.toString();
+					return entry.toString();
 				case COLUMN_ID_OBJECT:
 					return entry.object.toString();
 				case COLUMN_ID_TIME:
@@ -331,9 +331,11 @@ public void selectionChanged(SelectionChangedEvent event)
 					Logging.log(this, "Selected object: " +obj);
 					
 					if(obj instanceof PacketQueueEntry) {
-						Packet packet = ((PacketQueueEntry) obj).packet;
+						Packet packet = ((PacketQueueEntry) obj).getPacket();
 						
-						selectionProvider.announceSelection(packet);
+						if(packet != null) {
+							selectionProvider.announceSelection(packet);
+						}
 					}
 				}
 			}
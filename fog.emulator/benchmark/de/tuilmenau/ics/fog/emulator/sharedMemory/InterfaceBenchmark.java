@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator - emulator interface
+ * Copyright (c) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.emulator.sharedMemory;
+
+import de.tuilmenau.ics.fog.emulator.Interface;
+import de.tuilmenau.ics.fog.emulator.Interface.ReceiveResult;
+import de.tuilmenau.ics.fog.emulator.localLoop.InterfaceLocalTest;
+
+/**
+ * Command line tool comparing the throughput and round trip time of
+ * {@link InterfaceLocalTest} and {@link InterfaceSharedMemory} within
+ * one process.
+ *
+ * Usage: InterfaceBenchmark [number of packets] [payload size in bytes]
+ */
+public class InterfaceBenchmark
+{
+	public static final int DEFAULT_PACKETS = 200000;
+	public static final int DEFAULT_PAYLOAD = 256;
+	
+	private static final int ROUND_TRIPS_DIVISOR = 10;
+	
+	
+	public static void main(String[] args) throws Exception
+	{
+		int tPackets = DEFAULT_PACKETS;
+		int tPayloadSize = DEFAULT_PAYLOAD;
+		
+		try {
+			if(args.length > 0) tPackets = Integer.parseInt(args[0]);
+			if(args.length > 1) tPayloadSize = Integer.parseInt(args[1]);
+		}
+		catch(NumberFormatException exc) {
+			System.err.println("Usage: " +InterfaceBenchmark.class.getName() +" [number of packets] [payload size in bytes]");
+			return;
+		}
+		
+		StringBuilder tPayload = new StringBuilder(tPayloadSize);
+		for(int i = 0; i < tPayloadSize; i++) {
+			tPayload.append((char) ('a' +(i % 26)));
+		}
+		
+		String tPrefix = "fog_benchmark_" +System.nanoTime();
+		
+		// first run warms up the JIT
+		for(int tRun = 0; tRun < 2; tRun++) {
+			System.out.println("Run " +tRun +": " +tPackets +" packets with " +tPayloadSize +" bytes payload");
+			
+			Interface tLocalA = new InterfaceLocalTest(tPrefix +"_local_a" +tRun, tPrefix +"_local_b" +tRun);
+			Interface tLocalB = new InterfaceLocalTest(tPrefix +"_local_b" +tRun, tPrefix +"_local_a" +tRun);
+			benchmark(tLocalA, tLocalB, tPackets, tPayload.toString());
+			
+			String tNameA = InterfaceSharedMemory.PREFIX +tPrefix +"_a" +tRun;
+			String tNameB = InterfaceSharedMemory.PREFIX +tPrefix +"_b" +tRun;
+			try {
+				InterfaceSharedMemory tShmA = new InterfaceSharedMemory(tNameA, tNameB);
+				InterfaceSharedMemory tShmB = new InterfaceSharedMemory(tNameB, tNameA);
+				benchmark(tShmA, tShmB, tPackets, tPayload.toString());
+				tShmA.close();
+				tShmB.close();
+			}
+			finally {
+				InterfaceSharedMemory.getFile(tNameA).delete();
+				InterfaceSharedMemory.getFile(tNameB).delete();
+			}
+		}
+	}
+	
+	private static void benchmark(final Interface pSender, Interface pReceiver, final int pPackets, final String pPayload) throws Exception
+	{
+		String tName = pSender.getClass().getSimpleName();
+		
+		// throughput with a sending thread
+		Thread tSender = new Thread() {
+			@Override
+			public void run()
+			{
+				try {
+					for(int i = 0; i < pPackets; i++) {
+						pSender.send(null, pPayload);
+					}
+				}
+				catch(Exception exc) {
+					exc.printStackTrace();
+				}
+			}
+		};
+		
+		long tStart = System.nanoTime();
+		tSender.start();
+		for(int i = 0; i < pPackets; i++) {
+			receive(pReceiver);
+		}
+		long tTime = System.nanoTime() -tStart;
+		tSender.join();
+		
+		System.out.println(tName +" throughput: " +(pPackets *1000000000L / Math.max(1, tTime)) +" packets/s");
+		
+		// round trip time with an echo thread
+		final int tRoundTrips = Math.max(1, pPackets / ROUND_TRIPS_DIVISOR);
+		final Interface tEchoIn = pReceiver;
+		Thread tEcho = new Thread() {
+			@Override
+			public void run()
+			{
+				try {
+					for(int i = 0; i < tRoundTrips; i++) {
+						tEchoIn.send(null, receive(tEchoIn).data);
+					}
+				}
+				catch(Exception exc) {
+					exc.printStackTrace();
+				}
+			}
+		};
+		
+		tEcho.start();
+		tStart = System.nanoTime();
+		for(int i = 0; i < tRoundTrips; i++) {
+			pSender.send(null, pPayload);
+			receive(pSender);
+		}
+		tTime = System.nanoTime() -tStart;
+		tEcho.join();
+		
+		System.out.println(tName +" round trip time: " +(tTime / tRoundTrips / 1000.0d) +" us");
+	}
+	
+	private static ReceiveResult receive(Interface pInterface) throws Exception
+	{
+		ReceiveResult tResult = pInterface.receive();
+		
+		if(tResult == null) {
+			throw new IllegalStateException("Interface " +pInterface +" closed during benchmark.");
+		}
+		return tResult;
+	}
+}
@@ -10,14 +10,18 @@
 package de.tuilmenau.ics.fog.emulator;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import net.rapi.NetworkException;
 
 import de.tuilmenau.ics.fog.emulator.ethernet.InterfaceMAC;
 import de.tuilmenau.ics.fog.emulator.ethernet.MACAddress;
 import de.tuilmenau.ics.fog.emulator.localLoop.InterfaceLocalTest;
+import de.tuilmenau.ics.fog.emulator.sharedMemory.InterfaceSharedMemory;
+import de.tuilmenau.ics.fog.packets.PacketCodec;
 import de.tuilmenau.ics.fog.util.Logger;
 import de.tuilmenau.ics.middleware.Serializer;
+import de.tuilmenau.ics.middleware.WireCodec;
 
 
 
@@ -26,8 +30,15 @@
  */
 public abstract class Interface
 {
+	static {
+		// encode packets with the binary codec instead of Java serialization
+		PacketCodec.register();
+	}
+	
 	/**
-	 * Factory method for creating interfaces via names.
+	 * Factory method for creating interfaces via names. Names starting with
+	 * {@link InterfaceSharedMemory#PREFIX} select shared memory ring buffers,
+	 * which can be used between processes on the same host.
 	 * 
 	 * @param inName Name of input interface (used for receiving)
 	 * @param outName Name of output interface (used for sending)
@@ -37,6 +48,9 @@ public static Interface get(String inName, String outName, Logger logger) throws
 	{
 		if((outName == null) || inName.equals(outName)) {
 			return new InterfaceMAC(inName, logger);
+		}
+		else if(inName.startsWith(InterfaceSharedMemory.PREFIX)) {
+			return new InterfaceSharedMemory(inName, outName);
 		} else {
 			return new InterfaceLocalTest(inName, outName);
 		}
@@ -63,33 +77,71 @@ public static Interface get(String inName, String outName, Logger logger) throws
 	 */
 	public abstract ReceiveResult receive() throws Exception;
 	
+	/**
+	 * Helper method for serializing objects. Objects with an encoder
+	 * registered at the {@link WireCodec} are encoded by it; all others
+	 * by the {@link Serializer}.
+	 */
+	protected static byte[] toBytes(Object object) throws IOException
+	{
+		WireCodec codec = WireCodec.getInstance();
+		
+		if(codec.canEncode(object)) {
+			return codec.toBytes(object);
+		} else {
+			return Serializer.getInstance().toBytes(object);
+		}
+	}
+	
 	/**
 	 * Helper method for deserializing objects.
 	 */
 	protected ReceiveResult toObject(byte[] bytes) throws Exception
 	{
-		Object obj = Serializer.getInstance().toObject(bytes);
+		return toResult(Serializer.getInstance().toObject(bytes), bytes.length);
+	}
 	
+	/**
+	 * Helper method for deserializing objects from the beginning of a
+	 * reused buffer.
+	 * 
+	 * @param length Number of valid bytes in buffer
+	 */
+	protected ReceiveResult toObject(byte[] bytes, int length) throws Exception
+	{
+		Object obj;
+		
+		if((length >= 2) && WireCodec.isEncoded(bytes)) {
+			obj = WireCodec.getInstance().toObject(bytes, 0, length);
+		} else {
+			obj = Serializer.getInstance().toObject(Arrays.copyOf(bytes, length));
+		}
+		
+		return toResult(obj, length);
+	}
+	
+	private ReceiveResult toResult(Object obj, int size) throws IOException
+	{
 		ReceiveResult result = new ReceiveResult();
 		if(obj instanceof Object[]) {
 			Object[] objs = (Object[]) obj;
 			if(objs.length == 1) {
 				result.data = objs[0];
-				result.size = bytes.length;
+				result.size = size;
 			}
 			else if(objs.length == 2) {
 				if(objs[0] instanceof MACAddress) {
 					result.source = (MACAddress) objs[0];
 				}
 				result.data = objs[1];
-				result.size = bytes.length;
+				result.size = size;
 			}
 			else {
 				throw new IOException("Invalid result after parsing byte stream. Got " +objs.length +" objects.");
 			}
 		} else {
 			result.data = obj;
-			result.size = bytes.length;
+			result.size = size;
 		}
 		
 		return result;
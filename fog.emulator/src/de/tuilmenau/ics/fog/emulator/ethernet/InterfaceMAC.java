@@ -30,7 +30,6 @@
 import de.tuilmenau.ics.fog.util.ARCHDetector;
 import de.tuilmenau.ics.fog.util.Logger;
 import de.tuilmenau.ics.fog.util.OSDetector;
-import de.tuilmenau.ics.middleware.Serializer;
 
 /**
  * Access wrapper for real Ethernet.
@@ -325,7 +324,7 @@ public synchronized int send(Address pDestination, Object data) throws IOExcepti
 		}
 
 		// create serialized FoG payload
-		byte[] tPayload = Serializer.getInstance().toBytes(data);
+		byte[] tPayload = toBytes(data);
 		
 		// payload fragmentation needed?
 		int tRemainingFragments = 1;
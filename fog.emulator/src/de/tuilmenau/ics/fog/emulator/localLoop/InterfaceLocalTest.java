@@ -16,7 +16,6 @@
 import de.tuilmenau.ics.fog.emulator.Address;
 import de.tuilmenau.ics.fog.emulator.Interface;
 import de.tuilmenau.ics.fog.emulator.ethernet.MACAddress;
-import de.tuilmenau.ics.middleware.Serializer;
 
 /**
  * Access wrapper for local queues. Class is for testing
@@ -78,7 +77,7 @@ public ReceiveResult receive() throws Exception
 	public int send(Address destination, Object data) throws IOException
 	{
 		// ignore destination, since data is just put in a single queue
-		byte[] nextBytes = Serializer.getInstance().toBytes(new Object[] {me, data});
+		byte[] nextBytes = toBytes(new Object[] {me, data});
 		
 		synchronized (out) {
 			out.addLast(nextBytes);
@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator - emulator interface
+ * Copyright (c) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.emulator.sharedMemory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+import net.rapi.NetworkException;
+
+import de.tuilmenau.ics.fog.emulator.Address;
+import de.tuilmenau.ics.fog.emulator.Interface;
+import de.tuilmenau.ics.fog.emulator.ethernet.MACAddress;
+import de.tuilmenau.ics.middleware.WireCodec;
+
+/**
+ * Interface using two shared memory ring buffers, one for each direction.
+ * In contrast to {@link de.tuilmenau.ics.fog.emulator.localLoop.InterfaceLocalTest}
+ * the peers can be in different processes on the same host. The names of
+ * the buffers start with {@link #PREFIX} and are mapped to files in
+ * /dev/shm, if available, or in the temp directory otherwise.
+ *
+ * Frames are encoded into and decoded from buffers, which are reused. Thus,
+ * the transport itself does not allocate objects per frame. Waiting for
+ * frames or free space is done by spinning, yielding and parking; there is
+ * no notification between the peers.
+ */
+public class InterfaceSharedMemory extends Interface
+{
+	public static final String PREFIX = "shm:";
+	public static final int DEFAULT_CAPACITY = 4 *1024 *1024;
+	
+	private static final int IDLE_SPINS = 100;
+	private static final int IDLE_YIELDS = 100;
+	private static final long IDLE_PARK_NANOS = 50 *1000;
+	
+	
+	public InterfaceSharedMemory(String inName, String outName) throws NetworkException
+	{
+		this(inName, outName, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * @param capacity Capacity of the ring buffers, if they have to be created
+	 */
+	public InterfaceSharedMemory(String inName, String outName, int capacity) throws NetworkException
+	{
+		if((outName == null) || inName.equals(outName)) {
+			throw new NetworkException(this, "Input and output buffer of interface " +inName +" must differ.");
+		}
+		
+		try {
+			in = new RingBuffer(getFile(inName), capacity, false);
+			out = new RingBuffer(getFile(outName), capacity, true);
+		}
+		catch(IOException exc) {
+			if(in != null) {
+				in.close();
+			}
+			throw new NetworkException(this, "Can not map ring buffers " +inName +" and " +outName +".", exc);
+		}
+		
+		receiveBuffer = new byte[in.getMaxFrameLength()];
+		sendBuffer = new FrameBuffer();
+		sendStream = new DataOutputStream(sendBuffer);
+		
+		// create dummy element with string name
+		me = new MACAddress(this.getClass().getSimpleName() +"_" +inName +"->" +outName);
+	}
+	
+	/**
+	 * @return File for the ring buffer with the name
+	 */
+	public static File getFile(String name)
+	{
+		if(name.startsWith(PREFIX)) {
+			name = name.substring(PREFIX.length());
+		}
+		
+		File dir = new File("/dev/shm");
+		if(!dir.isDirectory()) {
+			dir = new File(System.getProperty("java.io.tmpdir"));
+		}
+		
+		return new File(dir, name);
+	}
+	
+	@Override
+	public MACAddress getAddress()
+	{
+		return me;
+	}
+	
+	/**
+	 * @return Received packet and source or null, if interface was closed
+	 */
+	@Override
+	public ReceiveResult receive() throws Exception
+	{
+		synchronized (receiveLock) {
+			int length = waitForFrame();
+			
+			if(length >= 0) {
+				return toObject(receiveBuffer, length);
+			} else {
+				return null;
+			}
+		}
+	}
+	
+	/**
+	 * Blocks until at least one packet was received and receives all other
+	 * packets available without blocking.
+	 *
+	 * @param results Array for the received packets
+	 * @return Number of received packets; 0 if interface was closed
+	 */
+	public int receiveBatch(ReceiveResult[] results) throws Exception
+	{
+		synchronized (receiveLock) {
+			int number = 0;
+			int length = waitForFrame();
+			
+			while((length >= 0) && (number < results.length)) {
+				results[number] = toObject(receiveBuffer, length);
+				number++;
+				
+				if(number < results.length) {
+					length = in.read(receiveBuffer, 0);
+				}
+			}
+			
+			if(!closed) {
+				in.publishReads();
+			}
+			return number;
+		}
+	}
+	
+	private int waitForFrame()
+	{
+		int idle = 0;
+		
+		while(!closed) {
+			int length = in.read(receiveBuffer, 0);
+			
+			if(length >= 0) {
+				return length;
+			}
+			idle = idle(idle);
+		}
+		
+		return -1;
+	}
+	
+	@Override
+	public int send(Address destination, Object data) throws IOException
+	{
+		// ignore destination, since data is just put in a single buffer
+		synchronized (sendLock) {
+			checkOpen();
+			
+			int length = encode(data);
+			int idle = 0;
+			
+			while(!out.offer(sendBuffer.getBuffer(), 0, length)) {
+				if(closed) {
+					throw new IOException(this +" - Interface closed.");
+				}
+				idle = idle(idle);
+			}
+			
+			return length;
+		}
+	}
+	
+	/**
+	 * Sends several packets and makes them visible to the peer at once.
+	 *
+	 * @return Size of send data in bytes
+	 */
+	public int sendBatch(Address destination, Object[] data) throws IOException
+	{
+		synchronized (sendLock) {
+			int size = 0;
+			
+			checkOpen();
+			for(Object obj : data) {
+				int length = encode(obj);
+				int idle = 0;
+				
+				while(!out.write(sendBuffer.getBuffer(), 0, length)) {
+					if(closed) {
+						throw new IOException(this +" - Interface closed.");
+					}
+					
+					// peer might wait for the frames written so far
+					out.publishWrites();
+					idle = idle(idle);
+				}
+				size += length;
+			}
+			
+			out.publishWrites();
+			return size;
+		}
+	}
+	
+	private void checkOpen() throws IOException
+	{
+		if(closed) {
+			throw new IOException(this +" - Interface closed.");
+		}
+	}
+	
+	private int encode(Object data) throws IOException
+	{
+		sendBuffer.reset();
+		WireCodec.getInstance().encode(sendStream, new Object[] {me, data});
+		sendStream.flush();
+		
+		if(sendBuffer.size() > out.getMaxFrameLength()) {
+			throw new IOException(this +" - Packet with " +sendBuffer.size() +" bytes exceeds maximum of " +out.getMaxFrameLength() +" bytes.");
+		}
+		
+		return sendBuffer.size();
+	}
+	
+	/**
+	 * Backs off while waiting for the peer.
+	 *
+	 * @param idle Number of unsuccessful tries so far
+	 * @return Number of unsuccessful tries incl. this one
+	 */
+	private static int idle(int idle)
+	{
+		if(idle < IDLE_SPINS) {
+			// just spin
+		}
+		else if(idle < IDLE_SPINS +IDLE_YIELDS) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(IDLE_PARK_NANOS);
+		}
+		
+		return idle +1;
+	}
+	
+	/**
+	 * Closes both ring buffers. Their files are deleted if the peer closed
+	 * its interface, too.
+	 */
+	public void close()
+	{
+		closed = true;
+		
+		synchronized (receiveLock) {
+			in.close();
+		}
+		synchronized (sendLock) {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Output stream with access to its buffer in order to avoid copying it.
+	 */
+	private static class FrameBuffer extends ByteArrayOutputStream
+	{
+		public FrameBuffer()
+		{
+			super(1024);
+		}
+		
+		public byte[] getBuffer()
+		{
+			return buf;
+		}
+	}
+	
+	
+	private RingBuffer in;
+	private RingBuffer out;
+	
+	private final Object receiveLock = new Object();
+	private byte[] receiveBuffer;
+	
+	private final Object sendLock = new Object();
+	private FrameBuffer sendBuffer;
+	private DataOutputStream sendStream;
+	
+	private volatile boolean closed = false;
+	
+	private MACAddress me;
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator - emulator interface
+ * Copyright (c) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.emulator.sharedMemory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+
+/**
+ * Access to memory mapped files, which is not covered by the Java 6 API.
+ * The helper does not use internal classes of the VM at compile time.
+ * Thus, it compiles without warnings and works without them.
+ *
+ * Java 6 offers no fences for memory outside of the heap. A fence is built
+ * from a store and a subsequent load of a volatile field. The VM does not
+ * move memory accesses across such a pair and implements it with the
+ * corresponding fence of the CPU, which orders the accesses to mapped
+ * memory, too.
+ */
+final class MappedMemory
+{
+	private MappedMemory()
+	{
+	}
+	
+	/**
+	 * Orders all memory accesses before the call before all accesses after it.
+	 *
+	 * @return Dummy value; callers can ignore it
+	 */
+	public static int fullFence()
+	{
+		sFence = 0;
+		return sFence;
+	}
+	
+	/**
+	 * Releases the mapping without waiting for the garbage collector. If the
+	 * VM does not offer a way to do so, the mapping is released by the
+	 * garbage collector. The buffer must not be used afterwards.
+	 */
+	public static void unmap(MappedByteBuffer pBuffer)
+	{
+		try {
+			// Java 9 and later: sun.misc.Unsafe.invokeCleaner
+			Class<?> tUnsafeClass = Class.forName("sun.misc.Unsafe");
+			Field tField = tUnsafeClass.getDeclaredField("theUnsafe");
+			tField.setAccessible(true);
+			
+			tUnsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(tField.get(null), pBuffer);
+		}
+		catch(NoSuchMethodException exc) {
+			try {
+				// Java 8 and earlier
+				Method tCleanerMethod = pBuffer.getClass().getMethod("cleaner");
+				tCleanerMethod.setAccessible(true);
+				
+				Object tCleaner = tCleanerMethod.invoke(pBuffer);
+				tCleaner.getClass().getMethod("clean").invoke(tCleaner);
+			}
+			catch(Exception tExc) {
+				// mapping is released by the garbage collector
+			}
+		}
+		catch(Exception exc) {
+			// mapping is released by the garbage collector
+		}
+	}
+	
+	
+	private static volatile int sFence = 0;
+}
@@ -0,0 +1,468 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator - emulator interface
+ * Copyright (c) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.emulator.sharedMemory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+
+/**
+ * Single-producer/single-consumer ring buffer for frames in a memory-mapped
+ * file. Producer and consumer can be in different processes on the same host.
+ * Each of them has to use its own object for the file. Reading and writing
+ * frames do not allocate objects.
+ *
+ * File layout (native byte order):
+ * <pre>
+ *   0:   magic (int), capacity of data area (int)
+ *   64:  write position of producer (long)
+ *   128: read position of consumer (long)
+ *   192: data area
+ * </pre>
+ * The positions count all bytes written or read so far; their offset in the
+ * data area is the position modulo the capacity. Each of them is written by
+ * one side, only, and is on its own cache line. A frame is stored as its
+ * length (int) and its bytes, aligned to 8 bytes. If a frame does not fit
+ * at the end of the data area, a wrap marker is written and the frame starts
+ * at the beginning.
+ *
+ * The producer publishes its position after writing the frames and the
+ * consumer reads it before reading the frames. The read position is
+ * published the same way. The accesses to the positions are separated from
+ * the accesses to the frames by fences (see {@link MappedMemory}). The
+ * positions are read and written with single 8 byte accesses, which are
+ * atomic on platforms supporting unaligned accesses of direct buffers
+ * (e.g. x86, amd64, aarch64).
+ *
+ * While a side is attached, it holds a file lock on the region of its
+ * position. The lock is released by the OS if the process terminates. The
+ * first side attaching to a buffer resets the positions and the last side
+ * closing it deletes the file. Thus, stale positions of earlier runs are not
+ * used and frames not read before both sides detached are dropped.
+ */
+public class RingBuffer
+{
+	public static final int MAGIC = 0x466F4752; // "FoGR"
+	public static final int MIN_CAPACITY = 4096;
+	
+	private static final int OFFSET_MAGIC = 0;
+	private static final int OFFSET_CAPACITY = 4;
+	private static final int OFFSET_WRITE = 64;
+	private static final int OFFSET_READ = 128;
+	private static final int OFFSET_DATA = 192;
+	
+	private static final int LOCK_SIZE = 8;
+	
+	private static final int ALIGNMENT = 8;
+	private static final int FRAME_HEADER = 4;
+	private static final int WRAP = -1;
+	
+	
+	/**
+	 * Maps a ring buffer file. The file is created, if it does not exist.
+	 * If it exists, the capacity stored in the file is used.
+	 *
+	 * @param pFile File for the buffer (e.g. in /dev/shm on Linux)
+	 * @param pCapacity Capacity of data area for new files; rounded up to a power of two
+	 * @param pProducer true for the producer, false for the consumer
+	 * @throws IOException On error, if the file is not a ring buffer or if the side is already attached
+	 */
+	public RingBuffer(File pFile, int pCapacity, boolean pProducer) throws IOException
+	{
+		mPath = pFile;
+		mProducer = pProducer;
+		
+		// file locks of a VM do not block other threads of it
+		synchronized (RingBuffer.class) {
+			while(mFile == null) {
+				RandomAccessFile tFile = new RandomAccessFile(pFile, "rw");
+				
+				try {
+					if(attach(tFile.getChannel(), pCapacity)) {
+						mFile = tFile;
+					}
+				}
+				finally {
+					if(mFile == null) {
+						tFile.close();
+					}
+				}
+			}
+		}
+		
+		// own views for producer and consumer since bulk operations use the position
+		mWriteView = mBuffer.duplicate().order(ByteOrder.nativeOrder());
+		mReadView = mBuffer.duplicate().order(ByteOrder.nativeOrder());
+		
+		mWritePosition = getPosition(OFFSET_WRITE);
+		mReadPosition = getPosition(OFFSET_READ);
+		mReadPositionCache = mReadPosition;
+		mWritePositionCache = mWritePosition;
+		mPublishedReadPosition = mReadPosition;
+	}
+	
+	/**
+	 * Locks the region of the side and maps the file.
+	 *
+	 * @return false, if the file was deleted before it was locked
+	 */
+	private boolean attach(FileChannel pChannel, int pCapacity) throws IOException
+	{
+		FileLock tLock = pChannel.lock(OFFSET_MAGIC, LOCK_SIZE, false);
+		
+		try {
+			// last user might have deleted the file in the meantime
+			if(!mPath.exists()) {
+				return false;
+			}
+			
+			mSideLock = tryLock(pChannel, mProducer ? OFFSET_WRITE : OFFSET_READ);
+			if(mSideLock == null) {
+				throw new IOException(this +" - File " +mPath +" is already used by another " +(mProducer ? "producer." : "consumer."));
+			}
+			
+			boolean tPeerAttached = isLocked(pChannel, mProducer ? OFFSET_READ : OFFSET_WRITE);
+			int tCapacity;
+			
+			if(pChannel.size() == 0) {
+				tCapacity = MIN_CAPACITY;
+				while(tCapacity < pCapacity) {
+					tCapacity <<= 1;
+				}
+				
+				mBuffer = pChannel.map(FileChannel.MapMode.READ_WRITE, 0, OFFSET_DATA +tCapacity);
+				mBuffer.order(ByteOrder.nativeOrder());
+				mBuffer.putInt(OFFSET_CAPACITY, tCapacity);
+				mBuffer.putInt(OFFSET_MAGIC, MAGIC);
+			} else {
+				if(pChannel.size() < OFFSET_DATA) {
+					throw new IOException(this +" - File " +mPath +" is not a ring buffer.");
+				}
+				
+				mBuffer = pChannel.map(FileChannel.MapMode.READ_WRITE, 0, pChannel.size());
+				mBuffer.order(ByteOrder.nativeOrder());
+				tCapacity = mBuffer.getInt(OFFSET_CAPACITY);
+				
+				if((mBuffer.getInt(OFFSET_MAGIC) != MAGIC) || (Integer.bitCount(tCapacity) != 1) || (OFFSET_DATA +tCapacity != pChannel.size())) {
+					throw new IOException(this +" - File " +mPath +" is not a ring buffer.");
+				}
+			}
+			
+			// positions of an earlier run are not valid anymore
+			if(!tPeerAttached) {
+				mBuffer.putLong(OFFSET_WRITE, 0);
+				mBuffer.putLong(OFFSET_READ, 0);
+			}
+			
+			mCapacity = tCapacity;
+			mMask = tCapacity -1;
+			return true;
+		}
+		finally {
+			tLock.release();
+		}
+	}
+	
+	public int getCapacity()
+	{
+		return mCapacity;
+	}
+	
+	/**
+	 * @return Maximum length of a frame in bytes
+	 */
+	public int getMaxFrameLength()
+	{
+		return mCapacity /2 -FRAME_HEADER;
+	}
+	
+	/*
+	 * Producer
+	 */
+	
+	/**
+	 * Writes a frame and publishes it to the consumer.
+	 *
+	 * @return false, if there is not enough space
+	 */
+	public boolean offer(byte[] pFrame, int pOffset, int pLength)
+	{
+		if(write(pFrame, pOffset, pLength)) {
+			publishWrites();
+			return true;
+		} else {
+			return false;
+		}
+	}
+	
+	/**
+	 * Writes a frame without publishing it. Several frames can be written
+	 * before publishing all of them with {@link #publishWrites()}.
+	 *
+	 * @return false, if there is not enough space
+	 * @throws IllegalArgumentException If the frame is larger than {@link #getMaxFrameLength()}
+	 * @throws IllegalStateException If the buffer was closed
+	 */
+	public boolean write(byte[] pFrame, int pOffset, int pLength)
+	{
+		checkOpen();
+		if((pLength < 0) || (pLength > getMaxFrameLength())) {
+			throw new IllegalArgumentException(this +" - Invalid frame length " +pLength +" (max " +getMaxFrameLength() +").");
+		}
+		
+		int tSize = align(FRAME_HEADER +pLength);
+		int tIndex = (int) (mWritePosition & mMask);
+		int tToEnd = mCapacity -tIndex;
+		int tRequired = (tSize > tToEnd) ? tToEnd +tSize : tSize;
+		
+		if(mWritePosition +tRequired -mReadPositionCache > mCapacity) {
+			mReadPositionCache = getPosition(OFFSET_READ);
+			
+			if(mWritePosition +tRequired -mReadPositionCache > mCapacity) {
+				return false;
+			}
+		}
+		
+		if(tSize > tToEnd) {
+			mWriteView.putInt(OFFSET_DATA +tIndex, WRAP);
+			mWritePosition += tToEnd;
+			tIndex = 0;
+		}
+		
+		mWriteView.putInt(OFFSET_DATA +tIndex, pLength);
+		mWriteView.position(OFFSET_DATA +tIndex +FRAME_HEADER);
+		mWriteView.put(pFrame, pOffset, pLength);
+		mWritePosition += tSize;
+		
+		return true;
+	}
+	
+	/**
+	 * Makes the written frames visible to the consumer.
+	 */
+	public void publishWrites()
+	{
+		checkOpen();
+		setPosition(OFFSET_WRITE, mWritePosition);
+	}
+	
+	/*
+	 * Consumer
+	 */
+	
+	/**
+	 * Reads the next frame. The read position is published to the producer
+	 * if the buffer is empty or if a quarter of the buffer had been read.
+	 *
+	 * @param pFrame Array for the frame; must have space for {@link #getMaxFrameLength()} bytes
+	 * @return Length of the frame or -1, if the buffer is empty
+	 * @throws IllegalStateException If the buffer was closed
+	 */
+	public int read(byte[] pFrame, int pOffset)
+	{
+		checkOpen();
+		if(mReadPosition == mWritePositionCache) {
+			mWritePositionCache = getPosition(OFFSET_WRITE);
+			
+			if(mReadPosition == mWritePositionCache) {
+				publishReads();
+				return -1;
+			}
+		}
+		
+		int tIndex = (int) (mReadPosition & mMask);
+		int tLength = mReadView.getInt(OFFSET_DATA +tIndex);
+		
+		if(tLength == WRAP) {
+			mReadPosition += mCapacity -tIndex;
+			tIndex = 0;
+			tLength = mReadView.getInt(OFFSET_DATA);
+		}
+		
+		if((tLength < 0) || (tLength > getMaxFrameLength())) {
+			throw new IllegalStateException(this +" - Corrupted frame length " +tLength +".");
+		}
+		if(tLength > pFrame.length -pOffset) {
+			throw new IllegalArgumentException(this +" - Frame with " +tLength +" bytes does not fit into array.");
+		}
+		
+		mReadView.position(OFFSET_DATA +tIndex +FRAME_HEADER);
+		mReadView.get(pFrame, pOffset, tLength);
+		mReadPosition += align(FRAME_HEADER +tLength);
+		
+		if(mReadPosition -mPublishedReadPosition >= mCapacity /4) {
+			publishReads();
+		}
+		
+		return tLength;
+	}
+	
+	/**
+	 * Frees the space of the frames read so far for the producer.
+	 */
+	public void publishReads()
+	{
+		checkOpen();
+		if(mPublishedReadPosition != mReadPosition) {
+			setPosition(OFFSET_READ, mReadPosition);
+			mPublishedReadPosition = mReadPosition;
+		}
+	}
+	
+	/**
+	 * Detaches from the file and unmaps it. If the peer is not attached
+	 * anymore, the file is deleted. Afterwards, the buffer can not be used
+	 * anymore. The caller has to ensure that no other thread of this side
+	 * accesses the buffer concurrently.
+	 */
+	public void close()
+	{
+		synchronized (RingBuffer.class) {
+			if(mBuffer == null) {
+				return;
+			}
+			
+			if(!mProducer) {
+				publishReads();
+			}
+			
+			try {
+				FileChannel tChannel = mFile.getChannel();
+				FileLock tLock = tChannel.lock(OFFSET_MAGIC, LOCK_SIZE, false);
+				
+				try {
+					mSideLock.release();
+					
+					if(!isLocked(tChannel, mProducer ? OFFSET_READ : OFFSET_WRITE)) {
+						mPath.delete();
+					}
+				}
+				finally {
+					tLock.release();
+				}
+			}
+			catch(IOException exc) {
+				// file is not deleted; next side attaching resets it
+			}
+			finally {
+				try {
+					mFile.close();
+				}
+				catch(IOException exc) {
+					// ignore it since the mapping is released anyway
+				}
+				
+				MappedMemory.unmap(mBuffer);
+				mBuffer = null;
+				mWriteView = null;
+				mReadView = null;
+			}
+		}
+	}
+	
+	private void checkOpen()
+	{
+		if(mBuffer == null) {
+			throw new IllegalStateException(this +" - Buffer is closed.");
+		}
+	}
+	
+	/**
+	 * Load of a position, which happens before all later memory accesses
+	 */
+	private long getPosition(int pOffset)
+	{
+		long tPosition = mBuffer.getLong(pOffset);
+		
+		MappedMemory.fullFence();
+		return tPosition;
+	}
+	
+	/**
+	 * Store of a position, which happens after all previous memory accesses
+	 */
+	private void setPosition(int pOffset, long pPosition)
+	{
+		MappedMemory.fullFence();
+		mBuffer.putLong(pOffset, pPosition);
+	}
+	
+	/**
+	 * @return Exclusive lock of the region or null, if it is locked by another side
+	 */
+	private static FileLock tryLock(FileChannel pChannel, int pOffset) throws IOException
+	{
+		try {
+			return pChannel.tryLock(pOffset, LOCK_SIZE, false);
+		}
+		catch(OverlappingFileLockException exc) {
+			// locked by this VM
+			return null;
+		}
+	}
+	
+	/**
+	 * @return true, if the side with this region is attached
+	 */
+	private static boolean isLocked(FileChannel pChannel, int pOffset) throws IOException
+	{
+		FileLock tLock = tryLock(pChannel, pOffset);
+		
+		if(tLock != null) {
+			tLock.release();
+			return false;
+		} else {
+			return true;
+		}
+	}
+	
+	private static int align(int pSize)
+	{
+		return (pSize +ALIGNMENT -1) & ~(ALIGNMENT -1);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() +"(" +mCapacity +")";
+	}
+	
+	
+	private final File mPath;
+	private final boolean mProducer;
+	private RandomAccessFile mFile;
+	private FileLock mSideLock;
+	
+	private MappedByteBuffer mBuffer;
+	private ByteBuffer mWriteView;
+	private ByteBuffer mReadView;
+	private int mCapacity;
+	private int mMask;
+	
+	/**
+	 * Positions of the producer
+	 */
+	private long mWritePosition;
+	private long mReadPositionCache;
+	
+	/**
+	 * Positions of the consumer
+	 */
+	private long mReadPosition;
+	private long mWritePositionCache;
+	private long mPublishedReadPosition;
+}
@@ -13,14 +13,25 @@
  ******************************************************************************/
 package de.tuilmenau.ics.fog.importer;
 
+import java.io.File;
+import java.io.IOException;
+
 import de.tuilmenau.ics.fog.importer.parser.TopologyDistributor;
 import de.tuilmenau.ics.fog.importer.parser.TopologyDistributorAnalyser;
 import de.tuilmenau.ics.fog.importer.parser.TopologyParserBRITE;
+import de.tuilmenau.ics.fog.importer.parser.TopologySnapshotLoader;
+import de.tuilmenau.ics.fog.importer.parser.TopologySnapshotReader;
+import de.tuilmenau.ics.fog.importer.parser.TopologySnapshotWriter;
 import de.tuilmenau.ics.fog.topology.Simulation;
 
 
 public class BRITEImporter implements ScenarioImporter
 {
+	/**
+	 * Extension of the snapshot file, which is stored next to the imported file
+	 */
+	public static final String SNAPSHOT_EXTENSION = ".snapshot";
+	
 	@Override
 	public void importScenario(String importFilename, Simulation simulation, String parameters) throws Exception
 	{
@@ -29,6 +40,7 @@ public void importScenario(String importFilename, Simulation simulation, String
 		boolean check = false;
 		boolean clean = false;
 		boolean delegation = false;
+		boolean snapshot = false;
 		
 		if(parameters != null) {
 			flat = parameters.contains("flat");
@@ -36,16 +48,54 @@ public void importScenario(String importFilename, Simulation simulation, String
 			check = parameters.contains("check");
 			clean = parameters.contains("clean");
 			delegation = parameters.contains("delegation");
+			snapshot = parameters.contains("snapshot");
 			
 			distributorAnalysor = parameters.contains("variable");
 		}
 		
-		ITopologyParser parser = createParser(importFilename, simulation);
-		TopologyDistributor distributor;
-		if(distributorAnalysor) {
-			distributor = new TopologyDistributorAnalyser(parser, simulation, check, clean, delegation);
-		} else {
-			distributor = new TopologyDistributor(parser, simulation, flat);
+		File snapshotFile = new File(importFilename +SNAPSHOT_EXTENSION);
+		TopologyDistributor distributor = null;
+		
+		// settings influencing the result of the import
+		String importParameters = getClass().getSimpleName()
+				+" flat=" +flat +" meta=" +meta +" variable=" +distributorAnalysor
+				+" check=" +check +" clean=" +clean +" delegation=" +delegation
+				+" importedDelayAndBW=" +simulation.getConfig().Scenario.USE_IMPORTED_DELAY_AND_BW
+				+" partialRS=" +simulation.getConfig().Scenario.ENABLE_PARTIAL_RS_IN_IMPORT;
+		
+		if(snapshot && snapshotFile.exists() && (snapshotFile.lastModified() >= new File(importFilename).lastModified())) {
+			// reuse result of previous import, if it was done with the same settings
+			TopologySnapshotReader reader = null;
+			
+			try {
+				reader = new TopologySnapshotReader(snapshotFile.getPath());
+				
+				if(!importParameters.equals(reader.getImportParameters())) {
+					simulation.getLogger().info(this, "Ignoring snapshot " +snapshotFile +" created with other parameters (" +reader.getImportParameters() +")");
+					reader = null;
+				}
+			}
+			catch(IOException exc) {
+				simulation.getLogger().warn(this, "Ignoring invalid snapshot " +snapshotFile, exc);
+			}
+			
+			if(reader != null) {
+			simulation.getLogger().info(this, "Loading snapshot " +snapshotFile +" instead of parsing " +importFilename);
+				distributor = new TopologySnapshotLoader(reader, simulation);
+			}
+		}
+		
+		if(distributor == null) {
+			ITopologyParser parser = createParser(importFilename, simulation);
+			if(distributorAnalysor) {
+				distributor = new TopologyDistributorAnalyser(parser, simulation, check, clean, delegation);
+			} else {
+				distributor = new TopologyDistributor(parser, simulation, flat);
+			}
+			
+			if(snapshot) {
+				distributor.setSnapshotWriter(new TopologySnapshotWriter(snapshotFile.getPath(), parser.getNumberWorkers(), parser.getNumberAS(), importParameters));
+			}
 		}
 		
 		distributor.createNodes();
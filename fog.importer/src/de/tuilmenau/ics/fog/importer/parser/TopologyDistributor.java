@@ -15,17 +15,25 @@
 
 import java.io.IOException;
 import java.rmi.RemoteException;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 
-import de.tuilmenau.ics.fog.Config;
 import de.tuilmenau.ics.fog.IWorker;
 import de.tuilmenau.ics.fog.importer.ITopologyParser;
 import de.tuilmenau.ics.fog.routing.naming.HierarchicalNameMappingService;
 import de.tuilmenau.ics.fog.routing.naming.NameMappingService;
 import de.tuilmenau.ics.fog.topology.Simulation;
+import de.tuilmenau.ics.fog.topology.TopologyBatch;
 import de.tuilmenau.ics.fog.ui.Logging;
 import de.tuilmenau.ics.middleware.JiniHelper;
 
+/**
+ * Distributes the nodes and links of a parsed topology to AS.
+ * 
+ * Nodes, buses and attachments are collected in one {@link TopologyBatch}
+ * per AS and created in bulk by {@link #flush()}. This avoids the parsing
+ * of a command string and the pausing of the event handler per element.
+ */
 public class TopologyDistributor
 {
 	protected static final String DEFAULT_AS_NAME = "default";
@@ -45,6 +53,30 @@
 	
 	private boolean oneAS;
 	
+	private String mCurrentAS = null;
+	
+	/**
+	 * QoS parameters for the next bus (negative values for default values)
+	 */
+	private int mBusDataRateKbit = -1;
+	private int mBusDelayMSec = -1;
+	
+	/**
+	 * Batches with nodes and buses per AS name
+	 */
+	private LinkedHashMap<String, TopologyBatch> mElements = new LinkedHashMap<String, TopologyBatch>();
+	
+	/**
+	 * Batches with attachments per AS name. They are executed after all
+	 * elements, since they might refer to buses of other AS.
+	 */
+	private LinkedHashMap<String, TopologyBatch> mAttachments = new LinkedHashMap<String, TopologyBatch>();
+	
+	/**
+	 * Records the resolved scenario, if not null
+	 */
+	private TopologySnapshotWriter mSnapshot = null;
+	
 	
 	public TopologyDistributor(ITopologyParser parser, Simulation sim, boolean flat) throws IOException
 	{
@@ -95,6 +127,7 @@ protected boolean switchAS(String toName)
 			}
 		}
 		
+		mCurrentAS = toName;
 		return true;
 	}
 	
@@ -119,7 +152,16 @@ protected boolean createAS(String asName, boolean partialRouting, String routing
 				cmd.append(routingServiceName);
 			}
 			
-			return sim.executeCommand(cmd.toString());
+			boolean res = sim.executeCommand(cmd.toString());
+			
+			if(res && (mSnapshot != null)) {
+				try {
+					mSnapshot.writeAS(asName, partialRouting, routingServiceName);
+				} catch (IOException exc) {
+					snapshotFailed(exc);
+				}
+			}
+			return res;
 
 		} catch (RemoteException exc) {
 			sim.getLogger().err(this, "Can not switch to AS '" +asName +"'", exc);
@@ -164,7 +206,7 @@ private boolean createNodes(boolean asMode)
 
 			if(switchAS(as)) {
 				if(createNode(node, tParameter)) {
-					sim.getLogger().log(this, "Created node " + node + " in AS " + as + " with parameter " + tParameter);
+					sim.getLogger().log(this, "Added node " + node + " in AS " + as + " with parameter " + tParameter);
 			 		try {
 						mNMS.setNodeASName(node, as);
 					} catch (RemoteException tExc) {
@@ -174,20 +216,62 @@ private boolean createNodes(boolean asMode)
 					sim.getLogger().warn(this, "Failed to created node " + node + " in AS " + as);
 				}
 			} else {
+				flush();
 				return false;
 			}
 		}
- 		return true;
+ 		return flush();
  	}
 	
 	protected boolean createNode(String name, String pParameter)
 	{
-		String tCommand = "create node " +name;
-		if(pParameter != null) {
-			tCommand = tCommand + " " + pParameter;
+		getBatch(mElements).addNode(name, pParameter);
+		
+		if(mSnapshot != null) {
+			try {
+				mSnapshot.writeNode(name, mCurrentAS, pParameter);
+			} catch (IOException exc) {
+				snapshotFailed(exc);
+			}
 		}
-
-		return sim.executeCommand(tCommand);
+		return true;
+	}
+	
+	/**
+	 * @return Batch for the current AS from the given map (!= null)
+	 */
+	private TopologyBatch getBatch(LinkedHashMap<String, TopologyBatch> batches)
+	{
+		TopologyBatch batch = batches.get(mCurrentAS);
+		
+		if(batch == null) {
+			batch = new TopologyBatch();
+			batches.put(mCurrentAS, batch);
+		}
+		
+		return batch;
+	}
+	
+	/**
+	 * Creates all collected nodes, buses and attachments. Nodes and buses
+	 * of different AS are created in parallel, if enabled in the
+	 * configuration.
+	 * 
+	 * @return true, if all elements were created; false otherwise
+	 */
+	protected boolean flush()
+	{
+		int failures = sim.executeBatches(mElements, sim.getConfig().Scenario.PARALLEL_IMPORT);
+		mElements.clear();
+		
+		failures += sim.executeBatches(mAttachments, false);
+		mAttachments.clear();
+		
+		if(failures > 0) {
+			sim.getLogger().err(this, failures +" topology changes failed");
+		}
+		
+		return failures == 0;
 	}
 
 	private String getNextWorker() throws RemoteException
@@ -227,10 +311,10 @@ public boolean createEdges()
 				}
 				
 				String busName = nodeA + "-" + nodeB;
-				if(sim.getConfig().Scenario.USE_IMPORTED_DELAY_AND_BW) {
-					Config.getConfig().Scenario.DEFAULT_DATA_RATE_KBIT = (int)topoHandler.getBandWidth();
-					Config.getConfig().Scenario.DEFAULT_DELAY_MSEC = (int) (topoHandler.getDelay()*100);
-				}
+				float bandwidth = topoHandler.getBandWidth();
+				float delay = topoHandler.getDelay();
+				
+				setLinkParameters(bandwidth, delay);
 				if(createBus(busName)) {
 					String nodeBASname = null;
 					
@@ -238,7 +322,7 @@ public boolean createEdges()
 						nodeBASname = mNMS.getASNameByNode(nodeB);
 					}
 					
-					if(link(nodeA, nodeB, nodeBASname)) {
+					if(link(nodeA, nodeB, nodeBASname, bandwidth, delay)) {
 						sim.getLogger().log(this, "Created link between " +nodeA +" and " +nodeB);
 					} else {
 						sim.getLogger().err(this, "Can not connect " + nodeA + " and " +nodeB);
@@ -253,27 +337,68 @@ public boolean createEdges()
 			}
 		}
 		
+		res &= flush();
  		return res;
  	}
  	
+	/**
+	 * Sets the parameters for the next bus created, if the parameters
+	 * of the imported links are used.
+	 * 
+	 * @param bandwidth Bandwidth as reported by the topology parser
+	 * @param delay Delay as reported by the topology parser
+	 */
+	protected void setLinkParameters(float bandwidth, float delay)
+	{
+		if(sim.getConfig().Scenario.USE_IMPORTED_DELAY_AND_BW) {
+			mBusDataRateKbit = (int) bandwidth;
+			mBusDelayMSec = (int) (delay*100);
+		}
+	}
+	
 	protected boolean createBus(String name)
 	{
-		return sim.executeCommand("create bus " + name);
+		if((mBusDataRateKbit >= 0) || (mBusDelayMSec >= 0)) {
+			// use the bus defaults for parameters not set explicitly
+			int dataRateKbit = mBusDataRateKbit;
+			int delayMSec = mBusDelayMSec;
+			if(dataRateKbit < 0) dataRateKbit = sim.getConfig().Scenario.DEFAULT_DATA_RATE_KBIT;
+			if(delayMSec < 0) delayMSec = sim.getConfig().Scenario.DEFAULT_DELAY_MSEC;
+			
+			getBatch(mElements).addBus(name, dataRateKbit, delayMSec);
+		} else {
+			getBatch(mElements).addBus(name);
+		}
+		return true;
 	}
 
-	protected boolean link(String nodeName1, String nodeName2, String nodeName2ASname)
+	/**
+	 * @param bandwidth Bandwidth of the link as reported by the topology parser
+	 * @param delay Delay of the link as reported by the topology parser
+	 */
+	protected boolean link(String nodeName1, String nodeName2, String nodeName2ASname, float bandwidth, float delay)
 	{
 		boolean connectRes = true;
 		String busName = nodeName1 +"-" +nodeName2;
 		
+		if(mSnapshot != null) {
+			try {
+				mSnapshot.writeLink(nodeName1, nodeName2, bandwidth, delay);
+			} catch (IOException exc) {
+				snapshotFailed(exc);
+			}
+		}
+		
 		connectRes &= connect(nodeName1, busName);
 		
 		// OK we are doing inter AS routing, so we have to find the other node inside another autonomous system
 		if(nodeName2ASname != null) {
 			if(!switchAS(nodeName2ASname)) {
+				// still in AS of first node; drop changes for link
 				sim.getLogger().err(this, "Can not switch to AS '" +nodeName2ASname +"'");
-				sim.executeCommand("disconnect " +nodeName1 + " " +busName);
-				sim.executeCommand("remove bus " +busName);
+				getBatch(mAttachments).removeAttachment(nodeName1, busName);
+				getBatch(mElements).removeBus(busName);
+				return false;
 			}
 			
 		}
@@ -284,12 +409,67 @@ protected boolean link(String nodeName1, String nodeName2, String nodeName2ASnam
 
 	protected boolean connect(String nodeName, String busName)
 	{
-		return sim.executeCommand("connect "+ nodeName + " " + busName);
+		getBatch(mAttachments).addAttachment(nodeName, busName);
+		return true;
 	}
 
+	/**
+	 * Enables the recording of the resolved scenario. The snapshot can be
+	 * loaded with {@link TopologySnapshotLoader} later on.
+	 * 
+	 * @param snapshot Writer for the snapshot; null disables the recording
+	 */
+	public void setSnapshotWriter(TopologySnapshotWriter snapshot)
+	{
+		mSnapshot = snapshot;
+	}
+	
+	protected void recordDelegationMode()
+	{
+		if(mSnapshot != null) {
+			try {
+				mSnapshot.writeDelegationMode();
+			} catch (IOException exc) {
+				snapshotFailed(exc);
+			}
+		}
+	}
+	
+	protected void recordDelegation(String fromAS, String toAS)
+	{
+		if(mSnapshot != null) {
+			try {
+				mSnapshot.writeDelegation(fromAS, toAS);
+			} catch (IOException exc) {
+				snapshotFailed(exc);
+			}
+		}
+	}
+	
+	/**
+	 * Stops the recording after an error and drops the incomplete snapshot.
+	 */
+	private void snapshotFailed(IOException exc)
+	{
+		sim.getLogger().err(this, "Can not write snapshot. Recording stopped.", exc);
+		
+		mSnapshot.abort();
+		mSnapshot = null;
+	}
+	
 	public void close()
 	{
+		flush();
 		topoHandler.close();
+		
+		if(mSnapshot != null) {
+			try {
+				mSnapshot.close();
+				mSnapshot = null;
+			} catch (IOException exc) {
+				snapshotFailed(exc);
+			}
+		}
 	}
 	
 	protected Simulation getSim()
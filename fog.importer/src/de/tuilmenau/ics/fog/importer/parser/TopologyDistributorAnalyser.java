@@ -95,7 +95,7 @@ protected boolean createBus(String name)
  	}
  	
  	@Override
- 	protected boolean link(String nodeName1, String nodeName2, String nodeName2ASname)
+ 	protected boolean link(String nodeName1, String nodeName2, String nodeName2ASname, float bandwidth, float delay)
  	{
  		if(nodeName2ASname != null) {
  			if(!nodeName2ASname.equals(mNodeToAS.get(nodeName2))) {
@@ -117,12 +117,15 @@ protected boolean link(String nodeName1, String nodeName2, String nodeName2ASnam
  			}
  		}
  		
- 		boolean res = mGraph.addEdge(nodeName1 +"-" +nodeName2, nodeName1, nodeName2);
+ 		String linkName = nodeName1 +"-" +nodeName2;
+ 		boolean res = mGraph.addEdge(linkName, nodeName1, nodeName2);
  		
  		// check, if negative result was caused by an already existing edge
  		if(!res) {
  			return mGraph.isNeighbor(nodeName1, nodeName2);
  		} else {
+ 			// parser does not offer the values after the analysis
+ 			mLinkParameters.put(linkName, new float[] { bandwidth, delay });
  			return res;
  		}
  	}
@@ -211,10 +214,12 @@ private void createAll()
 			Pair<String> ep = mGraph.getEndpoints(link);
 			String asNameFirst = mNodeToAS.get(ep.getFirst());
 			String busName = ep.getFirst() +"-" +ep.getSecond();
+			float[] linkParameters = mLinkParameters.get(link);
 			
 			if(super.switchAS(asNameFirst)) {
+				super.setLinkParameters(linkParameters[0], linkParameters[1]);
 				if(super.createBus(busName)) {
-					if(!super.link(ep.getFirst(), ep.getSecond(), mNodeToAS.get(ep.getSecond()))) {
+					if(!super.link(ep.getFirst(), ep.getSecond(), mNodeToAS.get(ep.getSecond()), linkParameters[0], linkParameters[1])) {
 						throw new RuntimeException(this +" - can not link " +ep +" with link " +busName);
 					}
 				} else {
@@ -224,6 +229,10 @@ private void createAll()
 				throw new RuntimeException(this +" - can not switch to AS " +asNameFirst);
 			}
 		}
+		
+		if(!flush()) {
+			getSim().getLogger().warn(this, "Not all nodes and links were created. See error log for details.");
+		}
 	}
 	
 	private int decideAboutRS()
@@ -276,6 +285,7 @@ private int decideAboutDelegation()
 	{
 		// switch to delegation routing service
 		RoutingServiceInstanceRegister.getInstance(getSim()).setRoutingServiceType(true);
+		recordDelegationMode();
 		
 		// create ASs in order to create RS entities
 		Collection<String> asSet = mASGraph.getVertices();
@@ -305,13 +315,23 @@ private int decideAboutDelegation()
 	
 	private void delegateFrom(String as, String neighbor)
 	{
-		RoutingServiceInstanceRegister register = RoutingServiceInstanceRegister.getInstance(getSim());
+		delegate(getSim(), as, neighbor);
+		recordDelegation(as, neighbor);
+	}
+	
+	/**
+	 * Registers the routing service of a neighbor AS as delegation destination
+	 * for the routing service of an AS.
+	 */
+	static void delegate(Simulation sim, String as, String neighbor)
+	{
+		RoutingServiceInstanceRegister register = RoutingServiceInstanceRegister.getInstance(sim);
 		DelegationPartialRoutingService rsFrom = (DelegationPartialRoutingService) register.get(as);
 		DelegationPartialRoutingService rsTo   = (DelegationPartialRoutingService) register.get(neighbor);
 		
 		// debug check
 		if((rsFrom == null) || (rsTo == null)) {
-			throw new RuntimeException(this +": Can not delegate from " +as +" (" +rsFrom +") to " +neighbor +"(" +rsTo +").");
+			throw new RuntimeException(TopologyDistributorAnalyser.class.getSimpleName() +": Can not delegate from " +as +" (" +rsFrom +") to " +neighbor +"(" +rsTo +").");
 		}
 		
 		rsFrom.registerDelegationDestination(rsTo);
@@ -451,6 +471,9 @@ private int removeStandAloneNodes(SparseMultigraph<String, String> graph)
 	private HashMap<String, String> mNodeToAS = new HashMap<String, String>();
 	private HashMap<String, String> mASToRS = new HashMap<String, String>();
 
+	// bandwidth and delay of the links
+	private HashMap<String, float[]> mLinkParameters = new HashMap<String, float[]>();
+	
 	private boolean passToSuper = false;
 	
 	private boolean checkGraph;
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator - Importer
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.importer.parser;
+
+import java.io.IOException;
+
+import de.tuilmenau.ics.fog.routing.RoutingServiceInstanceRegister;
+import de.tuilmenau.ics.fog.topology.Simulation;
+
+
+/**
+ * Re-creates a scenario from a snapshot written during a previous import.
+ * The AS are created with the recorded routing services and delegations.
+ * Afterwards, the nodes and links are created as for a parsed topology.
+ * Thus, the analysis of the topology and the random decisions about
+ * routing services are not repeated.
+ */
+public class TopologySnapshotLoader extends TopologyDistributor
+{
+	public TopologySnapshotLoader(TopologySnapshotReader reader, Simulation sim) throws IOException
+	{
+		super(reader, sim, false);
+		
+		if(reader.isDelegationMode()) {
+			RoutingServiceInstanceRegister.getInstance(sim).setRoutingServiceType(true);
+		}
+		
+		for(int i = 0; i < reader.getNumberASEntries(); i++) {
+			String asName = reader.getASName(i);
+			
+			// AS might be created by the constructor already
+			if(!sim.switchToAS(asName)) {
+				if(!createAS(asName, reader.isPartialRouting(i), reader.getRoutingServiceName(i))) {
+					sim.getLogger().err(this, "Can not create AS " +asName +" from snapshot.");
+				}
+			}
+		}
+		
+		for(int i = 0; i < reader.getNumberDelegations(); i++) {
+			TopologyDistributorAnalyser.delegate(sim, reader.getDelegationFrom(i), reader.getDelegationTo(i));
+		}
+		
+		sim.getLogger().info(this, "Loaded snapshot with " +reader.getNumberASEntries() +" AS and " +reader.getNumberDelegations() +" delegations");
+	}
+}
@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator - Importer
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.importer.parser;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/**
+ * Reads snapshot files written by {@link TopologySnapshotWriter}.
+ *
+ * The file is mapped into memory and decoded in one pass into primitive
+ * arrays. Nodes and links are provided via the parser interface; the
+ * AS and delegation records are replayed by {@link TopologySnapshotLoader}.
+ */
+public class TopologySnapshotReader extends TopologyParser
+{
+	public TopologySnapshotReader(String pFilename) throws IOException
+	{
+		RandomAccessFile tFile = new RandomAccessFile(pFilename, "r");
+		MappedByteBuffer tBuffer;
+		
+		try {
+			FileChannel tChannel = tFile.getChannel();
+			
+			if(tChannel.size() > Integer.MAX_VALUE) {
+				throw new IOException(this +" - File " +pFilename +" is too large for mapping it.");
+			}
+			
+			tBuffer = tChannel.map(FileChannel.MapMode.READ_ONLY, 0, tChannel.size());
+		}
+		finally {
+			// mapping stays valid after closing the file
+			tFile.close();
+		}
+		
+		try {
+			read(tBuffer, pFilename);
+		}
+		catch(BufferUnderflowException exc) {
+			throw new IOException(this +" - File " +pFilename +" is truncated.", exc);
+		}
+		catch(IndexOutOfBoundsException exc) {
+			throw new IOException(this +" - File " +pFilename +" refers to unknown strings.", exc);
+		}
+	}
+	
+	/**
+	 * @return Settings used for the import, which created the snapshot
+	 */
+	public String getImportParameters()
+	{
+		return mImportParameters;
+	}
+	
+	/*
+	 * AS and delegations
+	 */
+	
+	/**
+	 * @return true, if the AS use delegating routing services
+	 */
+	public boolean isDelegationMode()
+	{
+		return mDelegationMode;
+	}
+	
+	public int getNumberASEntries()
+	{
+		return mASCount;
+	}
+	
+	public String getASName(int pEntry)
+	{
+		return getString(mASs[pEntry *2]);
+	}
+	
+	public boolean isPartialRouting(int pEntry)
+	{
+		return mPartialRouting[pEntry];
+	}
+	
+	/**
+	 * @return Name of the routing service of the AS or null, if not specified
+	 */
+	public String getRoutingServiceName(int pEntry)
+	{
+		return getString(mASs[pEntry *2 +1]);
+	}
+	
+	public int getNumberDelegations()
+	{
+		return mDelegationCount;
+	}
+	
+	public String getDelegationFrom(int pEntry)
+	{
+		return getString(mDelegations[pEntry *2]);
+	}
+	
+	public String getDelegationTo(int pEntry)
+	{
+		return getString(mDelegations[pEntry *2 +1]);
+	}
+	
+	/*
+	 * Nodes and links
+	 */
+	
+	@Override
+	public boolean readNextNodeEntry()
+	{
+		mNode++;
+		return mNode < mNodeCount;
+	}
+	
+	@Override
+	public String getNode()
+	{
+		return getString(mNodes[mNode *3]);
+	}
+	
+	@Override
+	public String getAS()
+	{
+		return getString(mNodes[mNode *3 +1]);
+	}
+	
+	@Override
+	public String getParameter()
+	{
+		return getString(mNodes[mNode *3 +2]);
+	}
+	
+	@Override
+	public boolean readNextEdgeEntry()
+	{
+		mLink++;
+		return mLink < mLinkCount;
+	}
+	
+	@Override
+	public String getEdgeNodeOne()
+	{
+		return getString(mLinks[mLink *2]);
+	}
+	
+	@Override
+	public String getEdgeNodeTwo()
+	{
+		return getString(mLinks[mLink *2 +1]);
+	}
+	
+	/**
+	 * The AS of both nodes are known from the node entries.
+	 */
+	@Override
+	public boolean getInterAS()
+	{
+		return false;
+	}
+	
+	@Override
+	public float getBandWidth()
+	{
+		return mLinkValues[mLink *2];
+	}
+	
+	@Override
+	public float getDelay()
+	{
+		return mLinkValues[mLink *2 +1];
+	}
+	
+	@Override
+	public void close()
+	{
+		// nothing to do; mapping is released by GC
+	}
+	
+	private String getString(int pIndex)
+	{
+		if(pIndex != TopologySnapshotWriter.NO_STRING) return mDictionary.get(pIndex);
+		else return null;
+	}
+	
+	private void read(MappedByteBuffer pBuffer, String pFilename) throws IOException
+	{
+		for(int i = 0; i < TopologySnapshotWriter.MAGIC.length; i++) {
+			if(pBuffer.get() != TopologySnapshotWriter.MAGIC[i]) {
+				throw new IOException(this +" - File " +pFilename +" is not a topology snapshot file.");
+			}
+		}
+		
+		numberWorkers = pBuffer.getInt();
+		numberAS = pBuffer.getInt();
+		
+		byte[] tParameters = new byte[pBuffer.getInt()];
+		pBuffer.get(tParameters);
+		mImportParameters = new String(tParameters, TopologySnapshotWriter.CHARSET);
+		
+		while(pBuffer.hasRemaining()) {
+			byte tType = pBuffer.get();
+			
+			switch(tType) {
+			case TopologySnapshotWriter.RECORD_STRING:
+				byte[] tBytes = new byte[pBuffer.getInt()];
+				
+				pBuffer.get(tBytes);
+				mDictionary.add(new String(tBytes, TopologySnapshotWriter.CHARSET));
+				break;
+			case TopologySnapshotWriter.RECORD_AS:
+				mASs = ensureCapacity(mASs, (mASCount +1) *2);
+				if(mPartialRouting.length <= mASCount) mPartialRouting = Arrays.copyOf(mPartialRouting, mPartialRouting.length *2);
+				
+				mASs[mASCount *2] = checkIndex(pBuffer.getInt());
+				mPartialRouting[mASCount] = (pBuffer.get() != 0);
+				mASs[mASCount *2 +1] = checkIndex(pBuffer.getInt());
+				mASCount++;
+				break;
+			case TopologySnapshotWriter.RECORD_DELEGATION_MODE:
+				mDelegationMode = true;
+				break;
+			case TopologySnapshotWriter.RECORD_DELEGATION:
+				mDelegations = ensureCapacity(mDelegations, (mDelegationCount +1) *2);
+				
+				mDelegations[mDelegationCount *2] = checkIndex(pBuffer.getInt());
+				mDelegations[mDelegationCount *2 +1] = checkIndex(pBuffer.getInt());
+				mDelegationCount++;
+				break;
+			case TopologySnapshotWriter.RECORD_NODE:
+				mNodes = ensureCapacity(mNodes, (mNodeCount +1) *3);
+				
+				for(int i = 0; i < 3; i++) {
+					mNodes[mNodeCount *3 +i] = checkIndex(pBuffer.getInt());
+				}
+				mNodeCount++;
+				break;
+			case TopologySnapshotWriter.RECORD_LINK:
+				mLinks = ensureCapacity(mLinks, (mLinkCount +1) *2);
+				if(mLinkValues.length <= mLinkCount *2 +1) mLinkValues = Arrays.copyOf(mLinkValues, mLinkValues.length *2);
+				
+				mLinks[mLinkCount *2] = checkIndex(pBuffer.getInt());
+				mLinks[mLinkCount *2 +1] = checkIndex(pBuffer.getInt());
+				mLinkValues[mLinkCount *2] = pBuffer.getFloat();
+				mLinkValues[mLinkCount *2 +1] = pBuffer.getFloat();
+				mLinkCount++;
+				break;
+			default:
+				throw new IOException(this +" - Invalid record type " +tType +" in file " +pFilename +".");
+			}
+		}
+	}
+	
+	private int checkIndex(int pIndex)
+	{
+		if((pIndex != TopologySnapshotWriter.NO_STRING) && ((pIndex < 0) || (pIndex >= mDictionary.size()))) {
+			throw new IndexOutOfBoundsException("String index " +pIndex +" not in dictionary");
+		}
+		
+		return pIndex;
+	}
+	
+	private static int[] ensureCapacity(int[] pArray, int pSize)
+	{
+		if(pArray.length < pSize) {
+			return Arrays.copyOf(pArray, Math.max(pSize, pArray.length *2));
+		} else {
+			return pArray;
+		}
+	}
+	
+	
+	private String mImportParameters;
+	private ArrayList<String> mDictionary = new ArrayList<String>();
+	
+	private boolean mDelegationMode = false;
+	private int[] mASs = new int[32];
+	private boolean[] mPartialRouting = new boolean[16];
+	private int mASCount = 0;
+	private int[] mDelegations = new int[32];
+	private int mDelegationCount = 0;
+	
+	private int[] mNodes = new int[3 *1024];
+	private int mNodeCount = 0;
+	private int mNode = -1;
+	
+	private int[] mLinks = new int[2 *1024];
+	private float[] mLinkValues = new float[2 *1024];
+	private int mLinkCount = 0;
+	private int mLink = -1;
+}
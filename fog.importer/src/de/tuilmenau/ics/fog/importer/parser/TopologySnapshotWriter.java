@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator - Importer
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.importer.parser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+
+
+/**
+ * Writes the resolved scenario of a {@link TopologyDistributor} to a binary
+ * snapshot file. It contains the decisions made during the import (AS
+ * of nodes, routing service of AS, delegations) and can be loaded with
+ * {@link TopologySnapshotReader} without parsing and analyzing the
+ * original topology again.
+ *
+ * File format (big endian):
+ * <pre>
+ *   header:  magic (8 bytes), number workers (int), number AS (int), import parameters (string)
+ *   records: type (byte), data
+ *     STRING:          string; appended to the dictionary
+ *     AS:              name (ref), partial routing (byte), routing service name (ref)
+ *     DELEGATION_MODE: -
+ *     DELEGATION:      from AS (ref), to AS (ref)
+ *     NODE:            name (ref), AS (ref), parameter (ref)
+ *     LINK:            node one (ref), node two (ref), bandwidth (float), delay (float)
+ *   ref:     index of the dictionary (int) or {@link #NO_STRING}
+ *   string:  length in bytes (int), UTF-8 bytes
+ * </pre>
+ * The records are stored in the order of their creation. The file is
+ * written to a temporary file, which is renamed when the writer is closed.
+ * Thus, an aborted import does not leave an incomplete snapshot.
+ * 
+ * The import parameters describe the settings influencing the result of
+ * the import. A snapshot must only be used, if they did not change.
+ */
+public class TopologySnapshotWriter
+{
+	public static final byte[] MAGIC = { 'F', 'o', 'G', 'S', 'N', 'A', 'P', 2 };
+	public static final Charset CHARSET = Charset.forName("UTF-8");
+	
+	public static final int NO_STRING = -1;
+	
+	static final byte RECORD_STRING = 0;
+	static final byte RECORD_AS = 1;
+	static final byte RECORD_DELEGATION_MODE = 2;
+	static final byte RECORD_DELEGATION = 3;
+	static final byte RECORD_NODE = 4;
+	static final byte RECORD_LINK = 5;
+	
+	private static final int BUFFER_SIZE = 64 *1024;
+	private static final String TEMP_EXTENSION = ".tmp";
+	
+	
+	/**
+	 * @param pImportParameters Settings used for the import (!= null)
+	 */
+	public TopologySnapshotWriter(String pFilename, int pNumberWorkers, int pNumberAS, String pImportParameters) throws IOException
+	{
+		byte[] tParameters = pImportParameters.getBytes(CHARSET);
+		
+		if(MAGIC.length +4 +4 +4 +tParameters.length > BUFFER_SIZE) {
+			throw new IOException(this +" - Import parameters '" +pImportParameters +"' are too long.");
+		}
+		
+		mTarget = new File(pFilename);
+		mTemp = new File(pFilename +TEMP_EXTENSION);
+		mFile = new FileOutputStream(mTemp, false).getChannel();
+		
+		mBuffer.put(MAGIC);
+		mBuffer.putInt(pNumberWorkers);
+		mBuffer.putInt(pNumberAS);
+		mBuffer.putInt(tParameters.length);
+		mBuffer.put(tParameters);
+	}
+	
+	public void writeAS(String pName, boolean pPartialRouting, String pRoutingServiceName) throws IOException
+	{
+		int tName = index(pName);
+		int tRoutingServiceName = index(pRoutingServiceName);
+		
+		ensureSpace(1 +4 +1 +4);
+		mBuffer.put(RECORD_AS);
+		mBuffer.putInt(tName);
+		mBuffer.put(pPartialRouting ? (byte) 1 : (byte) 0);
+		mBuffer.putInt(tRoutingServiceName);
+	}
+	
+	/**
+	 * Records the switch to delegating routing services. It has to be
+	 * written before the AS using them.
+	 */
+	public void writeDelegationMode() throws IOException
+	{
+		ensureSpace(1);
+		mBuffer.put(RECORD_DELEGATION_MODE);
+	}
+	
+	public void writeDelegation(String pFromAS, String pToAS) throws IOException
+	{
+		int tFrom = index(pFromAS);
+		int tTo = index(pToAS);
+		
+		ensureSpace(1 +4 +4);
+		mBuffer.put(RECORD_DELEGATION);
+		mBuffer.putInt(tFrom);
+		mBuffer.putInt(tTo);
+	}
+	
+	public void writeNode(String pName, String pAS, String pParameter) throws IOException
+	{
+		int tName = index(pName);
+		int tAS = index(pAS);
+		int tParameter = index(pParameter);
+		
+		ensureSpace(1 +4 +4 +4);
+		mBuffer.put(RECORD_NODE);
+		mBuffer.putInt(tName);
+		mBuffer.putInt(tAS);
+		mBuffer.putInt(tParameter);
+	}
+	
+	/**
+	 * @param pBandwidth Bandwidth as reported by the topology parser
+	 * @param pDelay Delay as reported by the topology parser
+	 */
+	public void writeLink(String pNodeOne, String pNodeTwo, float pBandwidth, float pDelay) throws IOException
+	{
+		int tNodeOne = index(pNodeOne);
+		int tNodeTwo = index(pNodeTwo);
+		
+		ensureSpace(1 +4 +4 +4 +4);
+		mBuffer.put(RECORD_LINK);
+		mBuffer.putInt(tNodeOne);
+		mBuffer.putInt(tNodeTwo);
+		mBuffer.putFloat(pBandwidth);
+		mBuffer.putFloat(pDelay);
+	}
+	
+	/**
+	 * Finishes the snapshot and moves it to its final filename.
+	 */
+	public void close() throws IOException
+	{
+		if(mFile != null) {
+			try {
+				flush();
+			}
+			finally {
+				mFile.close();
+				mFile = null;
+			}
+			
+			// rename does not replace existing files on all platforms
+			if(mTarget.exists() && !mTarget.delete()) {
+				throw new IOException(this +" - Can not replace old snapshot " +mTarget);
+			}
+			if(!mTemp.renameTo(mTarget)) {
+				throw new IOException(this +" - Can not rename " +mTemp +" to " +mTarget);
+			}
+		}
+	}
+	
+	/**
+	 * Closes the writer without storing the snapshot.
+	 */
+	public void abort()
+	{
+		if(mFile != null) {
+			try {
+				mFile.close();
+			}
+			catch(IOException exc) {
+				// ignore it; file is deleted anyway
+			}
+			mFile = null;
+		}
+		
+		mTemp.delete();
+	}
+	
+	/**
+	 * @return Index of the string in the dictionary; writes the string, if it is new
+	 */
+	private int index(String pValue) throws IOException
+	{
+		if(pValue == null) return NO_STRING;
+		
+		Integer tIndex = mDictionary.get(pValue);
+		
+		if(tIndex == null) {
+			byte[] tBytes = pValue.getBytes(CHARSET);
+			
+			if(tBytes.length +1 +4 > BUFFER_SIZE) {
+				throw new IOException(this +" - String '" +pValue +"' is too long.");
+			}
+			
+			ensureSpace(1 +4 +tBytes.length);
+			mBuffer.put(RECORD_STRING);
+			mBuffer.putInt(tBytes.length);
+			mBuffer.put(tBytes);
+			
+			tIndex = mDictionary.size();
+			mDictionary.put(pValue, tIndex);
+		}
+		
+		return tIndex;
+	}
+	
+	private void ensureSpace(int pBytes) throws IOException
+	{
+		if(mBuffer.remaining() < pBytes) {
+			flush();
+		}
+	}
+	
+	private void flush() throws IOException
+	{
+		mBuffer.flip();
+		while(mBuffer.hasRemaining()) {
+			mFile.write(mBuffer);
+		}
+		mBuffer.clear();
+	}
+	
+	
+	private File mTarget;
+	private File mTemp;
+	private FileChannel mFile;
+	private ByteBuffer mBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private HashMap<String, Integer> mDictionary = new HashMap<String, Integer>();
+}
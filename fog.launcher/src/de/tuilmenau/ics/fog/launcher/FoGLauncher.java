@@ -75,6 +75,9 @@
 	public static final String CONFIG_LOG_LEVEL = "loglevel";
 	public static final String CONFIG_LOG_LEVEL_DEFAULT = Level.LOG.toString();
 	
+	public static final String  CONFIG_STATISTIC_BINARY = "statistic.binary";
+	public static final boolean CONFIG_STATISTIC_BINARY_DEFAULT = false;
+	
 	public static final String  CONFIG_EXIT_AT_SEC = "exitAtSec";
 	public static final int     CONFIG_EXIT_AT_SEC_DEFAULT = -1;
 	
@@ -115,6 +118,7 @@ public void create(Configuration configuration) throws LauncherException
 		boolean linkDelayConstant = configuration.get(CONFIG_LINK_DELAY_CONSTANT, CONFIG_LINK_DELAY_CONSTANT_DEFAULT);
 		int linkLoss = configuration.get(CONFIG_LINK_LOSS_PROB, CONFIG_LINK_LOSS_PROB_DEFAULT);
 		int linkBitError = configuration.get(CONFIG_LINK_BIT_ERROR, CONFIG_LINK_BIT_ERROR_DEFAULT);
+		boolean statisticBinary = configuration.get(CONFIG_STATISTIC_BINARY, CONFIG_STATISTIC_BINARY_DEFAULT);
 		
 		// Overwrite log level with system properties
 		String logLevelParam = System.getProperty(CONFIG_LOG_LEVEL);
@@ -193,6 +197,7 @@ public void uncaughtException(Thread pThread, Throwable pError)
 		logger.log(this, CONFIG_LINK_DELAY_CONSTANT +": " + linkDelayConstant);
 		logger.log(this, CONFIG_LINK_LOSS_PROB +": " + linkLoss +"%");
 		logger.log(this, CONFIG_LINK_BIT_ERROR +": " + linkBitError +"%");
+		logger.log(this, CONFIG_STATISTIC_BINARY +": " + statisticBinary);
 		
 		// set configuration
 		sim.getConfig().Scenario.ROUTING_CONFIGURATOR = configuratorRS;
@@ -203,6 +208,7 @@ public void uncaughtException(Thread pThread, Throwable pError)
 		sim.getConfig().Scenario.DEFAULT_DELAY_CONSTANT = linkDelayConstant;
 		sim.getConfig().Scenario.DEFAULT_PACKET_LOSS_PROP = linkLoss;
 		sim.getConfig().Scenario.DEFAULT_BIT_ERROR_PROP = linkBitError;
+		sim.getConfig().logging.WRITE_BINARY_STATISTIC = statisticBinary;
 		
 		//
 		// Start watchdog if required
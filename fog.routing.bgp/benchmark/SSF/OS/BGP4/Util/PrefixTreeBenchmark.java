@@ -0,0 +1,183 @@
+/**
+ * PrefixTreeBenchmark.java
+ */
+
+
+package SSF.OS.BGP4.Util;
+
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import SSF.OS.BGP4.Global;
+
+
+// ===== class SSF.OS.BGP4.Util.PrefixTreeBenchmark ======================== //
+/**
+ * A command line tool comparing <code>RadixTree</code> and
+ * <code>PrefixTree</code>.  It loads the same set of random prefixes into
+ * both trees and reports the time and heap memory used for loading and for
+ * look-ups.  The results of the look-ups are compared as well.
+ */
+public class PrefixTreeBenchmark {
+
+  /** The default number of prefixes to load. */
+  public static final int DEFAULT_PREFIXES = 500000;
+
+  /** The number of prefixes used for the ancestor and descendant look-ups. */
+  private static final int RELATION_LOOKUPS = 10000;
+
+
+  // ----- random_prefixes ------------------------------------------------- //
+  /**
+   * Creates random prefixes with lengths between 8 and 32 bits, with most of
+   * them between 16 and 24 bits, similar to a BGP table.
+   *
+   * @param num   The number of prefixes to create.
+   * @param seed  The seed of the random number generator.
+   * @return an array of prefixes
+   */
+  public static IPaddress[] random_prefixes(int num, long seed) {
+    Random rnd = new Random(seed);
+    IPaddress[] prefixes = new IPaddress[num];
+    for (int i=0; i<num; i++) {
+      int len;
+      if (rnd.nextInt(10) < 8) {
+        len = 16 + rnd.nextInt(9);
+      } else {
+        len = 8 + rnd.nextInt(25);
+      }
+      int mask = (len == 0) ? 0 : (-1 << (32 - len));
+      prefixes[i] = new IPaddress((long)(rnd.nextInt() & mask) & 0xffffffffL,
+                                  len);
+    }
+    return prefixes;
+  }
+
+  // ----- used_memory ----------------------------------------------------- //
+  private static long used_memory() {
+    Runtime rt = Runtime.getRuntime();
+    for (int i=0; i<3; i++) {
+      System.gc();
+    }
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+  // ----- report ---------------------------------------------------------- //
+  private static void report(String what, long start, long mem) {
+    long ms = (System.nanoTime() - start) / 1000000;
+    if (mem >= 0) {
+      System.out.println(what + ": " + ms + " ms, " + (mem / 1024) + " KB");
+    } else {
+      System.out.println(what + ": " + ms + " ms");
+    }
+  }
+
+  // ----------------------------------------------------------------------- //
+  // ----- main ------------------------------------------------------------ //
+  // ----------------------------------------------------------------------- //
+  /**
+   * Runs the comparison.
+   */
+  public static void main(String[] args) {
+
+    int num = DEFAULT_PREFIXES;
+    if (args.length > 0) {
+      try {
+        num = Integer.parseInt(args[0]);
+      } catch (NumberFormatException e) {
+        System.err.println("usage: java SSF.OS.BGP4.Util.PrefixTreeBenchmark " +
+                           "[<number-of-prefixes>]");
+        return;
+      }
+    }
+
+    // the radix tree creates its root only if radix trees are enabled
+    Global.radix_trees = true;
+
+    IPaddress[] prefixes = random_prefixes(num, 0);
+    BitString[] bits = new BitString[num];
+    for (int i=0; i<num; i++) {
+      bits[i] = prefixes[i].prefix_bits();
+    }
+    System.out.println("loading " + num + " prefixes");
+
+    // --- loading --- //
+    long mem = used_memory();
+    long start = System.nanoTime();
+    RadixTree rtree = new RadixTree();
+    for (int i=0; i<num; i++) {
+      rtree.replace(bits[i], prefixes[i]);
+    }
+    report("RadixTree load", start, used_memory() - mem);
+
+    mem = used_memory();
+    start = System.nanoTime();
+    PrefixTree ptree = new PrefixTree();
+    for (int i=0; i<num; i++) {
+      ptree.replace(prefixes[i], prefixes[i]);
+    }
+    report("PrefixTree load", start, used_memory() - mem);
+
+    // --- exact look-ups --- //
+    int errors = 0;
+    start = System.nanoTime();
+    for (int i=0; i<num; i++) {
+      if (rtree.find(bits[i]) == null) {
+        errors++;
+      }
+    }
+    report("RadixTree find", start, -1);
+
+    start = System.nanoTime();
+    for (int i=0; i<num; i++) {
+      if (ptree.find(prefixes[i]) == null) {
+        errors++;
+      }
+    }
+    report("PrefixTree find", start, -1);
+
+    // --- less and more specific prefixes --- //
+    int lookups = Math.min(num, RELATION_LOOKUPS);
+    for (int i=0; i<lookups; i++) {
+      ArrayList r1 = rtree.get_ancestors(bits[i]);
+      ArrayList p1 = ptree.get_ancestors(prefixes[i]);
+      ArrayList r2 = rtree.get_descendants(bits[i]);
+      ArrayList p2 = ptree.get_descendants(prefixes[i]);
+      if (!r1.equals(p1) || !r2.equals(p2) ||
+          rtree.has_descendants(bits[i]) != ptree.has_descendants(prefixes[i])) {
+        errors++;
+      }
+    }
+
+    start = System.nanoTime();
+    for (int i=0; i<lookups; i++) {
+      rtree.get_ancestors(bits[i]);
+      rtree.get_descendants(bits[i]);
+    }
+    report("RadixTree less/more specifics (" + lookups + ")", start, -1);
+
+    start = System.nanoTime();
+    for (int i=0; i<lookups; i++) {
+      ptree.get_ancestors(prefixes[i]);
+      ptree.get_descendants(prefixes[i]);
+    }
+    report("PrefixTree less/more specifics (" + lookups + ")", start, -1);
+
+    // --- removal --- //
+    for (int i=0; i<num; i+=2) {
+      if (rtree.remove(bits[i]) != ptree.remove(prefixes[i])) {
+        errors++;
+      }
+    }
+    for (int i=0; i<num; i++) {
+      if (rtree.find(bits[i]) != ptree.find(prefixes[i])) {
+        errors++;
+      }
+    }
+
+    System.out.println(ptree.size() + " prefixes left, " + errors +
+                       " mismatches");
+  }
+
+} // end of class PrefixTreeBenchmark
@@ -10,11 +10,11 @@
 import com.renesys.raceway.DML.Configuration;
 import com.renesys.raceway.DML.configException;
 
-import SSF.Net.Util.BinInt;
 import SSF.Net.Util.IP_s;
 import SSF.OS.ProtocolMessage;
 import SSF.OS.ProtocolSession;
 import SSF.OS.BGP4.NextHopInfo;
+import SSF.OS.BGP4.Util.PrefixTree;
 import SSF.OS.NetFlow.BytesUtil;
 
 
@@ -24,41 +24,38 @@
  * terminology, often referring to forwarding tables as routing tables. Luckily
  * (or not), many (or most) others in the networking world incorrectly refer to
  * forwarding tables as routing tables. Proceed with care.)
+ * 
+ * The entries are kept in a path-compressed <code>PrefixTree</code> with one
+ * <code>RtgTblNode</code> per destination prefix.
  */
 public class RadixTreeRoutingTable implements RoutingTable
 {
-
+	
 	/*************************** CLASS VARIABLES ***************************/
-
-	/** The root of this radix tree. */
-	private RtgTblNode root;
-
-	/** A freely moving window for this tree. */
-	private RtgTblNode window;
-
+	
+	/** The entries of this table, keyed by their destination prefix. */
+	private PrefixTree routes;
+	
 	/** The ID of the owning router. */
 	private int ID;
-
-	/** This boolean array and int are used only for printing purposes. */
-	private boolean[] route = new boolean[32];
-
+	
 	/**
 	 * Booleans indicate the different types of debugging messages and options,
 	 * and whether or not they're enabled.
 	 */
 	private boolean SHOW_ADD = false;
-
+	
 	/** User-configurable tie breaker for choosing among same-cost routes. */
 	private RouteTieBreaker tieBreaker;
-
+	
 	/**************************** REGISTERED ROUTING PROTOCOLS *****************/
-
+	
 	/**
 	 * List of registered FIBChageListeners that wish to hear about adds and
 	 * deletes.
 	 */
 	private ArrayList<FIBChangeListener> fibChangeListeners;
-
+	
 	/**
 	 * Register the given FIBChangeListener, so that it can be notified about
 	 * changes to this FIB -- insertions or deletions of routes -- in order to
@@ -73,7 +70,7 @@ public void addFIBChangeListener(FIBChangeListener p)
 			fibChangeListeners.add(p);
 		}
 	}
-
+	
 	/**
 	 * Unregister the given FIBChangeListener.
 	 */
@@ -82,10 +79,10 @@ public void removeFIBChangeListener(FIBChangeListener p)
 		if (null != fibChangeListeners)
 			fibChangeListeners.remove(p);
 	}
-
+	
 	private static final boolean ROUTE_DELETED = true;
 	private static final boolean ROUTE_INSERTED = false;
-
+	
 	/**
 	 * Notify all registered FIBChangeListeners about changes to this FIB.
 	 */
@@ -105,12 +102,12 @@ private void changed(RoutingInfo routingInfo, String source, boolean action)
 			}
 		}
 	}
-
+	
 	/**************************** ADMINISTRATIVE DISTANCE **********************/
-
+	
 	/** Table mapping protocol sessions to Integer administrative distances */
 	private HashMap<String, Integer> adminDistances;
-
+	
 	/**
 	 * Return the administrative distance associated with the given routing
 	 * protocol. Cisco-standard values for these would be nice, but the user can
@@ -127,14 +124,14 @@ private int getAdminDistance(String routingProtocol)
 			return adist.intValue();
 		}
 	}
-
+	
 	public void setAdminDistance(String protocolName, int distance)
 	{
 		if (null == adminDistances)
 			adminDistances = new HashMap<String, Integer>();
 		adminDistances.put(protocolName, new Integer(distance));
 	}
-
+	
 	public void setDefaultAdminDistances()
 	{
 		setAdminDistance("iface", 0);
@@ -144,18 +141,17 @@ public void setDefaultAdminDistances()
 		setAdminDistance("OSPF", 110);
 		setAdminDistance("IBGP", 200);
 	}
-
+	
 	/**************************** CONSTRUCTOR ******************************/
-
+	
 	/**
 	 * Constructs an empty routing table.
 	 */
 	public RadixTreeRoutingTable() {
 		super();
-
-		root = new RtgTblNode();
-		window = root;
-
+		
+		routes = new PrefixTree();
+		
 		tieBreaker = new RouteTieBreaker() {
 			//
 			// default: xor the low-order bytes together, modulo the number
@@ -182,7 +178,7 @@ public RoutingInfo choose(RoutingInfo set, int srcip, int dstip)
 			}
 		};
 	}
-
+	
 	/**
 	 * Configure this routing table by processing "route" and "nhi_route"
 	 * attributes. The two forms differ in their value syntax: "route" specifies
@@ -296,99 +292,98 @@ public void config(Configuration cfg) throws configException
 	 * }
 	 */
 	}
-
-
+	
+	
 	/******************************* METHODS *******************************/
-
+	
 	public int getID()
 	{
 		return ID;
 	}
-
+	
 	public void add(String destination_ip, NextHopInfo next_hop)
 	{
 		add(destination_ip, next_hop, -1);
 	}
-
+	
 	public void add(String destination_ip, NextHopInfo next_hop,
 			String routingProtocol)
 	{
 		add(destination_ip, next_hop, -1, routingProtocol);
 	}
-
+	
 	public void add(String destination_ip, NextHopInfo next_hop,
 			int cost)
 	{
 		add(destination_ip, next_hop, cost, null);
 	}
-
+	
 	public void add(String destination_ip, NextHopInfo next_hop,
 			int cost, String routingProtocol)
 	{
-
+		
 		int destaddr = IP_s.StrToInt(destination_ip);
 		int maskbits = IP_s.getMaskBits(destination_ip);
-
+		
 		RoutingInfo info = null;
 		info = new RoutingInfoIC(destination_ip, next_hop, cost,
 				getAdminDistance(routingProtocol), routingProtocol);
-
-		insert(BinInt.intToBinPrefix(destaddr, maskbits), info);
-
+		
+		insert(destaddr, maskbits, info);
+		
 		changed(info, routingProtocol, ROUTE_INSERTED);
-
+		
 		if (SHOW_ADD) {
 			System.out.println(debugIdentifier() + "adding " + destination_ip
 					+ "   next=" + next_hop + " cost="
 					+ cost);
 		}
 	}
-
+	
 	public void addDefault(NextHopInfo next_hop)
 	{
 		addDefault(next_hop, -1);
 	}
-
+	
 	public void addDefault(NextHopInfo next_hop, int cost)
 	{
 		addDefault(next_hop, cost, null);
 	}
-
+	
 	public void addDefault(NextHopInfo next_hop, int cost,
 			String protocol)
 	{
 		add("0.0.0.0/0", next_hop, cost, protocol);
 	}
-
+	
 	public void rep(String destination_ip, NextHopInfo next_hop,
 			int cost, String routingProtocol)
 	{
-
+		
 		int destaddr = IP_s.StrToInt(destination_ip);
 		int maskbits = IP_s.getMaskBits(destination_ip);
-
+		
 		RoutingInfo info = null;
 		info = new RoutingInfoIC(destination_ip, next_hop, cost,
 				getAdminDistance(routingProtocol), routingProtocol);
-
-		replace(BinInt.intToBinPrefix(destaddr, maskbits), info,
-				routingProtocol);
-
+		
+		replace(destaddr, maskbits, info, routingProtocol);
+		
 		changed(info, routingProtocol, ROUTE_INSERTED);
-
+		
 		if (SHOW_ADD) {
 			System.out.println(debugIdentifier() + "adding " + destination_ip
 					+ "   next=" + next_hop + " cost="
 					+ cost);
 		}
 	}
-
+	
 	/** Delete all routes to the destination. */
 	public void del(String destination)
 	{
 		del(destination, "*");
 	}
-
+	
 	/**
 	 * Delete any routes to the destination that were originally inserted by the
 	 * named routingProtocol. Special case: routingProtocol "*" deletes all
@@ -398,184 +393,127 @@ public void del(String destination, String routingProtocol)
 	{
 		int destaddr = IP_s.StrToInt(destination);
 		int maskbits = IP_s.getMaskBits(destination);
-		remove(BinInt.intToBinPrefix(destaddr, maskbits), routingProtocol);
-	}
-
-	/** Inserts a RtgTblNode to the left child of the window. */
-	private void insertLeft()
-	{
-		if (window == null)
-			window = new RtgTblNode();
-		window.left = new RtgTblNode();
-		window = window.left;
+		remove(destaddr, maskbits, routingProtocol);
 	}
-
-	/** Inserts a RtgTblNode to the right child of the window. */
-	private void insertRight()
+	
+	/**
+	 * Returns the table entry for the given prefix. If there is none, a new
+	 * (empty) entry is added if <code>create</code> is set; otherwise null is
+	 * returned.
+	 */
+	private RtgTblNode entry(int addr, int plen, boolean create)
 	{
-		if (window == null)
-			window = new RtgTblNode();
-		window.right = new RtgTblNode();
-		window = window.right;
+		RtgTblNode node = (RtgTblNode) routes.find(addr, plen);
+		if (node == null && create) {
+			node = new RtgTblNode(addr, plen);
+			routes.put(addr, plen, node, false);
+		}
+		return node;
 	}
-
+	
 	/**
-	 * Inserts routing info into the table, keyed by the given binary string
-	 * (boolean array), which represents an IP address prefix. Any number of
-	 * instances of routing information may co-exist at the same node, in linked
-	 * list format. Once the node represented by the binary string is found, the
-	 * following algorithm is applied to determine how the data at that node
-	 * will be affected. (1) If there is no data at the node, the new data will
-	 * be added, forming a linked list of size 1. (2) If there is already a
-	 * linked list of data at the node, then insert the new data into the linked
-	 * list, ensuring that the list remains sorted primarily by administrative
-	 * distance, secondly by cost, and thirdly by insertion time.
+	 * Inserts routing info into the table, keyed by the given IP address
+	 * prefix. Any number of instances of routing information may co-exist at
+	 * the same node, in linked list format. Once the node represented by the
+	 * prefix is found, the following algorithm is applied to determine how the
+	 * data at that node will be affected. (1) If there is no data at the node,
+	 * the new data will be added, forming a linked list of size 1. (2) If there
+	 * is already a linked list of data at the node, then insert the new data
+	 * into the linked list, ensuring that the list remains sorted primarily by
+	 * administrative distance, secondly by cost, and thirdly by insertion
+	 * time.
 	 */
-	public void insert(boolean[] bin, RoutingInfo object)
+	public void insert(int addr, int plen, RoutingInfo object)
 	{
-		window = root;
-		for (int i = bin.length - 1; i >= 0; i--) {
-			if (!bin[i]) {
-				if (window.left == null)
-					insertLeft();
-				else
-					window = window.left;
-			} else {
-				if (window.right == null)
-					insertRight();
-				else
-					window = window.right;
-			}
-		}
-		window.data = (window.data == null ? object : window.data
-				.addRoute(object));
+		RtgTblNode node = entry(addr, plen, true);
+		node.data = (node.data == null ? object : node.data.addRoute(object));
 	}
-
+	
 	/**
 	 * Inserts new routing information into the table, replacing any previous
 	 * routing information from the same routing protocol that may have already
 	 * existed.
 	 */
-	public void replace(boolean[] bin, RoutingInfo object, String source)
+	public void replace(int addr, int plen, RoutingInfo object, String source)
 	{
-		window = root;
-		for (int i = bin.length - 1; i >= 0; i--) {
-			if (!bin[i]) {
-				if (window.left == null)
-					insertLeft();
-				else
-					window = window.left;
-			} else {
-				if (window.right == null)
-					insertRight();
-				else
-					window = window.right;
-			}
-		}
-		if (null != window.data) { // delete old (if any)
-			RoutingInfo[] dead = window.data.findRoutesFrom(source);
-			window.data = window.data.removeRoutesFrom(source);
+		RtgTblNode node = entry(addr, plen, true);
+		if (null != node.data) { // delete old (if any)
+			RoutingInfo[] dead = node.data.findRoutesFrom(source);
+			node.data = node.data.removeRoutesFrom(source);
 			for (int d = 0; d < dead.length; d++)
 				changed(dead[d], source, ROUTE_DELETED);
 		}
 		// add new
-		window.data = (window.data == null ? object : window.data
-				.addRoute(object));
+		node.data = (node.data == null ? object : node.data.addRoute(object));
 	}
-
+	
 	/**
-	 * Removes the data at the node specified by the given boolean array, and
-	 * having the given source protocol.
+	 * Removes the data at the node specified by the given IP address prefix,
+	 * and having the given source protocol. The node itself is removed if no
+	 * data is left.
 	 */
-	public void remove(boolean[] bin, String source)
+	public void remove(int addr, int plen, String source)
 	{
-		window = root;
-		int depth = bin.length - 1;
-		while (depth >= 0) {
-			if (bin[depth] == false) { // 0: left branch
-				if (window.left == null) {
-					return; // nothing to be removed
-				} else {
-					window = window.left;
-				}
-			} else { // 1: right branch
-				if (window.right == null) {
-					return; // nothing to be removed
-				} else {
-					window = window.right;
-				}
-			}
-			depth--;
+		RtgTblNode node = entry(addr, plen, false);
+		if (node == null) {
+			return; // nothing to be removed
 		}
-		if (null != window.data) {
-			RoutingInfo[] dead = window.data.findRoutesFrom(source);
-			window.data = window.data.removeRoutesFrom(source);
+		if (null != node.data) {
+			RoutingInfo[] dead = node.data.findRoutesFrom(source);
+			node.data = node.data.removeRoutesFrom(source);
 			for (int d = 0; d < dead.length; d++)
 				changed(dead[d], source, ROUTE_DELETED);
 		}
+		if (null == node.data) {
+			routes.remove(addr, plen);
+		}
 	}
-
+	
 	/**
-	 * Returns the data in the leaf of the path defined by the given boolean
-	 * array, if the path exists. Returns NULL if the path does not exist.
+	 * Returns the data of the entry for the given IP address prefix, if the
+	 * entry exists. Returns NULL if the entry does not exist.
 	 */
 	public RoutingInfo find(int ipAddr)
 	{
 		return find(ipAddr, 32);
 	}
-
+	
 	/**
-	 * Returns the first route inserted by the named protocol in the leaf of the
-	 * path defined by the given boolean array, if the path exists. Returns NULL
-	 * if the path does not exist.
+	 * Returns the first route inserted by the named protocol in the entry for
+	 * the given IP address, if the entry exists. Returns NULL if the entry does
+	 * not exist.
 	 */
 	public RoutingInfo find(int ipAddr, String protocol)
 	{
 		return find(ipAddr, 32, protocol);
 	}
-
+	
 	/**
-	 * Returns the data in the leaf of the path defined by the given boolean
-	 * array, if the path exists. Returns NULL if the path does not exist.
+	 * Returns the data of the entry for the given IP address prefix, if the
+	 * entry exists. Returns NULL if the entry does not exist.
 	 */
 	public RoutingInfo find(int ipAddr, int prefix_length)
 	{
 		return find(ipAddr, prefix_length, "*");
 	}
-
+	
 	/**
-	 * Returns the data in the leaf of the path defined by the given boolean
-	 * array, if the path exists. Returns NULL if the path does not exist. If
-	 * protocol is "*", return all data; otherwise, return the first datum that
-	 * was inserted by the named protocol.
+	 * Returns the data of the entry for the given IP address prefix (the
+	 * address bits are left-aligned, as in dotted-quad notation), if the entry
+	 * exists. Returns NULL if the entry does not exist. If protocol is "*",
+	 * return all data; otherwise, return the first datum that was inserted by
+	 * the named protocol.
 	 */
 	public RoutingInfo find(int ipAddr, int prefix_length, String protocol)
 	{
-		boolean[] bin = BinInt.intToBin(ipAddr, prefix_length);
-		window = root;
-		int i = bin.length - 1;
-		boolean done = false;
-		while (i >= 0 && !done) {
-			if (bin[i] == false) {
-				if (window.left == null)
-					done = true;
-				else
-					window = window.left;
-			} else {
-				if (window.right == null)
-					done = true;
-				else
-					window = window.right;
-			}
-			i--;
-		}
-		if (done)
+		RtgTblNode node = entry(ipAddr, prefix_length, false);
+		if (node == null)
 			return null;
 		else
-			return (window.data == null ? null : window.data
+			return (node.data == null ? null : node.data
 					.findRouteFrom(protocol));
 	}
-
+	
 	/**
 	 * Returns the data in the node which is deepest in the tree along the path
 	 * from the root to what would be the BEST (not EXACT) match in the tree, if
@@ -586,7 +524,7 @@ public RoutingInfo findBest(int dstip)
 	{
 		return findBest(0, dstip); // STUB
 	}
-
+	
 	/**
 	 * Returns the data in the node which is deepest in the tree along the path
 	 * from the root to what would be the BEST (not EXACT) match in the tree, if
@@ -599,25 +537,10 @@ public RoutingInfo findBest(int srcip, int dstip)
 			return cache;
 		cache_dstip = dstip;
 		RoutingInfo best = null;
-		window = root;
-		for (int n = 0; n < 32; n++) {
-			if (window.data != null)
-				best = window.data;
-			if (0 == (dstip & 0x80000000)) {
-				if (window.left == null)
-					n = 32;
-				else
-					window = window.left;
-			} else {
-				if (window.right == null)
-					n = 32;
-				else
-					window = window.right;
-			}
-			dstip <<= 1;
-		}
-		if (window.data != null) {
-			best = window.data;
+		// entries without data are removed, so the longest match has data
+		RtgTblNode node = (RtgTblNode) routes.longest_match(dstip);
+		if (node != null) {
+			best = node.data;
 			if (best.nextRoute() != null
 					&& best.nextRoute().adist() == best.adist()
 					&& best.nextRoute().cost() == best.cost())
@@ -625,19 +548,19 @@ public RoutingInfo findBest(int srcip, int dstip)
 		}
 		return (cache = best);
 	}
-
+	
 	/** destination IP address of the route in the single-line route cache. */
 	private int cache_dstip = -1;
-
+	
 	/** source IP address of the route in the single-line route cache. */
 	private int cache_srcip = -1;
-
+	
 	/** Single-line IP route cache. */
 	private RoutingInfo cache = null;
-
+	
 	/** A reference to the top-level Net. */
 	public static Net topnet;
-
+	
 	/**
 	 * Sets the reference to the top-level Net in the simulation.
 	 */
@@ -645,7 +568,7 @@ private void settopnet()
 	{
 		topnet = Net.getInstance();
 	}
-
+	
 	/**
 	 * Converts an NHI address into a series of bytes and inserts them into a
 	 * given byte array.
@@ -662,14 +585,14 @@ private void settopnet()
 	public static int nhi2bytes(String nhi, byte[] bytes, int bindex)
 	{
 		int startindex = bindex;
-
+		
 		int parenindex = -1;
 		// Is this an interface address?
 		boolean isif = ((parenindex = nhi.indexOf("(")) >= 0);
 		bytes[bindex++] = (byte) (isif ? 1 : 0);
-
+		
 		bindex++; // leave space to add the size byte later
-
+		
 		int previndex = 0, curindex = 0;
 		while ((curindex = nhi.indexOf(":", previndex)) >= 0) {
 			bytes[bindex++] = new Byte(nhi.substring(previndex, curindex))
@@ -684,13 +607,13 @@ public static int nhi2bytes(String nhi, byte[] bytes, int bindex)
 		} else {
 			bytes[bindex++] = new Byte(nhi.substring(previndex)).byteValue();
 		}
-
+		
 		bytes[startindex + 1] = (byte) (bindex - (startindex + 2)); // set size
 																	// byte
-
+		
 		return bindex - startindex;
 	}
-
+	
 	/**
 	 * Converts a series of bytes to an NHI address.
 	 * 
@@ -707,10 +630,10 @@ public static int nhi2bytes(String nhi, byte[] bytes, int bindex)
 	public static int bytes2nhi(StringBuffer nhi, byte[] bytes, int bindex)
 	{
 		int startindex = bindex;
-
+		
 		boolean isif = (bytes[bindex++] == 1);
 		int len = bytes[bindex++];
-
+		
 		for (int i = 1; i <= len; i++) {
 			nhi.append(bytes[bindex++]);
 			if (i == len - 1) {
@@ -727,10 +650,10 @@ public static int bytes2nhi(StringBuffer nhi, byte[] bytes, int bindex)
 				}
 			}
 		}
-
+		
 		return bindex - startindex;
 	}
-
+	
 	/**
 	 * Converts an IP address prefix into a series of bytes and inserts them
 	 * into a given byte array.
@@ -753,7 +676,7 @@ public static int ipprefix2bytes(int val, int plen, byte[] bytes, int bindex)
 		bytes[bindex++] = (byte) plen;
 		return 5;
 	}
-
+	
 	/**
 	 * NEW for FoG
 	 * Parameters like in ipprefix2bytes
@@ -764,7 +687,7 @@ public static int nexthop2bytes(NextHopInfo nexthop, int plen, byte[] bytes, int
 		bytes[bindex++] = (byte) plen;
 		return 5;
 	}
-
+	
 	/**
 	 * Converts a series of bytes to an IP address prefix in string format.
 	 * 
@@ -784,13 +707,13 @@ public static int bytes2ipprefix(StringBuffer ipp, byte[] bytes, int bindex)
 		bindex += 4;
 		int plen = bytes[bindex++];
 		ipp.append(IP_s.IPtoString(ipval) + "/" + plen);
-
+		
 		return 5;
 	}
-
+	
 	/**
-	 * Converts the IP address in the global <code>route</code> variable
-	 * (applying the given prefix length to it) into a series of bytes and
+	 * Converts the given IP address (applying the given prefix length to it)
+	 * into a series of bytes and
 	 * inserts them into a given byte array. NHI addressing can be used, though
 	 * if there is no NHI equivalent, the byte encoding will be based on the
 	 * standard dotted-quad IP address format. The first byte in the conversion
@@ -808,8 +731,10 @@ public static int bytes2ipprefix(StringBuffer ipp, byte[] bytes, int bindex)
 	 * or interface) of the address. For example, 1:3:1(4) has four IDs (netork
 	 * 1, netork 3, host 1, interface 4).
 	 * 
+	 * @param addr
+	 *            The IP address with the prefix bits left-aligned.
 	 * @param plen
-	 *            The prefix length to apply to <code>route</code>.
+	 *            The prefix length to apply to <code>addr</code>.
 	 * @param bytes
 	 *            A byte array in which to place the results.
 	 * @param bindex
@@ -819,18 +744,13 @@ public static int bytes2ipprefix(StringBuffer ipp, byte[] bytes, int bindex)
 	 *            Whether or not to use NHI addressing (if possible).
 	 * @return the total number of bytes produced by the conversion
 	 */
-	private int ip2bytes(int plen, byte[] bytes, int bindex, boolean usenhi)
+	private int ip2bytes(int addr, int plen, byte[] bytes, int bindex,
+			boolean usenhi)
 	{
 		int startindex = bindex;
 		boolean isnhi = false;
 		bindex++; // leave space to add the notation byte later
-
-		boolean[] ivRte = new boolean[32];
-		for (int i = 0; i < plen; i++) {
-			ivRte[31 - i] = route[i];
-		}
-
-		int addr = BinInt.binToInt(ivRte);
+		
 		if (usenhi) {
 			String nhi = topnet.ip_to_nhi(IP_s.IPtoString(addr) + "/" + plen);
 			if (nhi.indexOf("-") == -1) {
@@ -844,12 +764,12 @@ private int ip2bytes(int plen, byte[] bytes, int bindex, boolean usenhi)
 		} else { // don't use NHI
 			bindex += ipprefix2bytes(addr, plen, bytes, bindex);
 		}
-
+		
 		bytes[startindex] = (byte) (isnhi ? 1 : 0); // notation byte
-
+		
 		return bindex - startindex;
 	}
-
+	
 	/**
 	 * Converts a series of bytes to an IP address prefix as a string. The
 	 * notation of the prefix (either dotted-quad or NHI) must be specified by
@@ -868,7 +788,7 @@ private int ip2bytes(int plen, byte[] bytes, int bindex, boolean usenhi)
 	public static int bytes2ip(StringBuffer ip, byte[] bytes, int bindex)
 	{
 		int startindex = bindex;
-
+		
 		boolean isnhi = (bytes[bindex++] == 1);
 		StringBuffer strbuf = new StringBuffer("");
 		if (isnhi) {
@@ -878,10 +798,10 @@ public static int bytes2ip(StringBuffer ip, byte[] bytes, int bindex)
 			bindex += bytes2ipprefix(strbuf, bytes, bindex);
 			ip.append(strbuf.toString());
 		}
-
+		
 		return bindex - startindex;
 	}
-
+	
 	/**
 	 * Converts this forwarding table into a series of bytes and inserts them
 	 * into a given byte array.
@@ -897,76 +817,28 @@ public static int bytes2ip(StringBuffer ip, byte[] bytes, int bindex)
 	 */
 	public int toBytes(byte[] bytes, int bindex, boolean usenhi)
 	{
-		// clears the array "route"
-		for (int i = 0; i < route.length; i++) {
-			route[i] = false;
-		}
 		if (usenhi && topnet == null) {
 			settopnet();
 		}
-
+		
 		int startindex = bindex;
 		bindex += 4; // leave room to add total number of table entries later
-
-		int[] results = toBytesHelper(bytes, bindex, usenhi, root, 0, 0);
-		bindex += results[0];
-		BytesUtil.intToBytes(results[1], bytes, startindex); // num table
-																// entries
-
-		return bindex - startindex;
-	}
-
-	/**
-	 * Performs a pre-order traversal of this radix tree, converting each node
-	 * (forwarding table entry) into a series of bytes and inserting them into a
-	 * given byte array.
-	 * 
-	 * @param bytes
-	 *            A byte array in which to place the results.
-	 * @param bindex
-	 *            The index into the given byte array at which to begin placing
-	 *            the results.
-	 * @param usenhi
-	 *            Whether or not to use NHI addressing.
-	 * @param x
-	 *            The current table node.
-	 * @param pos
-	 *            The bit position of the current IP prefix (tree depth).
-	 * @param entries
-	 *            The number of entries in the table.
-	 * @return an array containing (1) the total number of bytes used in the
-	 *         conversion and (2) the number of entries in the table
-	 */
-	private int[] toBytesHelper(byte[] bytes, int bindex, boolean usenhi,
-			RtgTblNode x, int pos, int entries)
-	{
-		int startindex = bindex;
-		// if there is RoutingInfo at this node
-		RoutingInfo ri = (RoutingInfo) x.data;
-		while (ri != null) {
-			entries++;
-			bindex += ip2bytes(pos, bytes, bindex, usenhi);
-			bindex += ri.toBytes(bytes, bindex, usenhi, topnet);
-			ri = ri.nextRoute();
-		}
-		if (x.left != null) {
-			route[pos] = false;
-			int[] res = toBytesHelper(bytes, bindex, usenhi, x.left, pos + 1,
-					entries);
-			bindex += res[0];
-			entries = res[1];
-		}
-		if (x.right != null) {
-			route[pos] = true;
-			int[] res = toBytesHelper(bytes, bindex, usenhi, x.right, pos + 1,
-					entries);
-			bindex += res[0];
-			entries = res[1];
+		
+		// pre-order traversal, each table entry with all its routes
+		int entries = 0;
+		for (Object o : routes.values()) {
+			RtgTblNode x = (RtgTblNode) o;
+			for (RoutingInfo ri = x.data; ri != null; ri = ri.nextRoute()) {
+				entries++;
+				bindex += ip2bytes(x.addr, x.plen, bytes, bindex, usenhi);
+				bindex += ri.toBytes(bytes, bindex, usenhi, topnet);
+			}
 		}
-		int[] result = { bindex - startindex, entries };
-		return result;
+		BytesUtil.intToBytes(entries, bytes, startindex); // num table entries
+		
+		return bindex - startindex;
 	}
-
+	
 	/**
 	 * Returns an estimate of the number of bytes that would be produced by the
 	 * conversion performed in <code>toBytes</code>. The estimate is the same
@@ -976,45 +848,10 @@ private int[] toBytesHelper(byte[] bytes, int bindex, boolean usenhi,
 	 */
 	public int approxBytes()
 	{
-		// clears the array "route"
-		for (int i = 0; i < route.length; i++) {
-			route[i] = false;
-		}
-		return approxBytesHelper(0, root, 0);
-	}
-
-	/**
-	 * Performs a pre-order traversal of this radix tree, calculating an
-	 * estimate of the number of bytes that would be produced by the conversion
-	 * performed in <code>toBytes</code>.
-	 * 
-	 * @param numbytes
-	 *            The approximate number of bytes required so far.
-	 * @param x
-	 *            The current table node.
-	 * @param pos
-	 *            The bit position of the current IP prefix (tree depth).
-	 * @return an estimate of the number of bytes produced by
-	 *         <code>toBytes</code>
-	 */
-	private int approxBytesHelper(int numbytes, RtgTblNode x, int pos)
-	{
-		// if there is RoutingInfo at this node
-		if (x.data != null) {
-			numbytes += 5; // ~5 bytes for either NHI address or IP address
-			numbytes += RoutingInfo.approxBytes();
-		}
-		if (x.left != null) {
-			route[pos] = false;
-			numbytes = approxBytesHelper(numbytes, x.left, pos + 1);
-		}
-		if (x.right != null) {
-			route[pos] = true;
-			numbytes = approxBytesHelper(numbytes, x.right, pos + 1);
-		}
-		return numbytes;
+		// ~5 bytes for either NHI address or IP address per table entry
+		return routes.size() * (5 + RoutingInfo.approxBytes());
 	}
-
+	
 	/**
 	 * Converts a series of bytes to a forwarding table in string format.
 	 * 
@@ -1035,16 +872,16 @@ private int approxBytesHelper(int numbytes, RtgTblNode x, int pos)
 	public static int bytes2str(StringBuffer tbl, byte[] bytes, int bindex,
 			String ind, boolean usenhi)
 	{
-
+		
 		if (tbl.length() != 0) {
 			System.err.println("invalid StringBuffer (must be \"\")");
 		}
-
+		
 		int startindex = bindex;
 		int entries = BytesUtil.bytesToInt(bytes, bindex);
 		bindex += 4;
 		String ws = "               "; // 15 spaces
-
+		
 		tbl.append(ind
 				+ "Destination    NextHop        Cost  AdmDist  Src     OutgoingInterface\n");
 		StringBuffer strbuf;
@@ -1060,10 +897,10 @@ public static int bytes2str(StringBuffer tbl, byte[] bytes, int bindex,
 		if (entries == 0) {
 			tbl.append(ind + "<empty>\n");
 		}
-
+		
 		return bindex - startindex;
 	}
-
+	
 	/**
 	 * Prints this radix tree to a string and returns it.
 	 * 
@@ -1073,7 +910,7 @@ public String toString()
 	{
 		return toString("");
 	}
-
+	
 	/**
 	 * Prints this radix tree to a string and returns it.
 	 * 
@@ -1085,16 +922,12 @@ public String toString()
 	 */
 	public String toString(String indent)
 	{
-		// clears the array "route"
-		for (int i = 0; i < route.length; i++) {
-			route[i] = false;
-		}
 		if (topnet == null) {
 			settopnet();
 		}
-		return preorderTraversal("", indent, root, 0);
+		return preorderTraversal(indent);
 	}
-
+	
 	/**
 	 * Prints this radix tree. Data from each node goes on a separate line by
 	 * itself.
@@ -1104,52 +937,32 @@ public String toString(String indent)
 	 */
 	public void print(String indent)
 	{
-		// clears the array "route"
-		for (int i = 0; i < route.length; i++) {
-			route[i] = false;
-		}
 		if (topnet == null) {
 			settopnet();
 		}
-		System.out.print(preorderTraversal("", indent, root, 0));
+		System.out.print(preorderTraversal(indent));
 	}
-
+	
 	/**
 	 * Performs a pre-order traversal of this radix tree and returns a string
 	 * containing each IP address found along the way.
 	 * 
-	 * @param str
-	 *            The table in string form, so far.
 	 * @param indent
 	 *            A string to indent each line of the table with.
-	 * @param x
-	 *            The current table node.
-	 * @param pos
-	 *            The bit position of the current IP prefix (tree depth).
 	 * @return the routing table as a string
 	 */
-	private String preorderTraversal(String str, String indent, RtgTblNode x,
-			int pos)
+	private String preorderTraversal(String indent)
 	{
-		// if there is RoutingInfo at this node
-		if (x.data != null) {
-			RoutingInfo ri = (RoutingInfo) x.data;
-			while (ri != null) {
-				str += indent + ri.toString(topnet) + "\n";
-				ri = ri.nextRoute();
+		StringBuilder str = new StringBuilder();
+		for (Object o : routes.values()) {
+			for (RoutingInfo ri = ((RtgTblNode) o).data; ri != null; ri = ri
+					.nextRoute()) {
+				str.append(indent).append(ri.toString(topnet)).append("\n");
 			}
 		}
-		if (x.left != null) {
-			route[pos] = false;
-			str = preorderTraversal(str, indent, x.left, pos + 1);
-		}
-		if (x.right != null) {
-			route[pos] = true;
-			str = preorderTraversal(str, indent, x.right, pos + 1);
-		}
-		return str;
+		return str.toString();
 	}
-
+	
 	/**
 	 * Performs a pre-order traversal of this radix tree and notifies the given
 	 * FIBChangeListener of each route inserted so far. This gets a new listener
@@ -1158,47 +971,34 @@ private String preorderTraversal(String str, String indent, RtgTblNode x,
 	 */
 	private void dump(FIBChangeListener L)
 	{
-		dump(L, root);
-	}
-
-	/**
-	 * Performs a pre-order traversal of the given radix tree and notifies the
-	 * given FIBChangeListener of each route inserted so far. This gets a new
-	 * listener up to speed with, for example, static and connected interface
-	 * routes that predate the establishment of a new protocol.
-	 */
-	private void dump(FIBChangeListener L, RtgTblNode x)
-	{
-		if (null == x)
-			return;
-		for (RoutingInfo info = x.data; null != info; info = info.nextRoute())
-			L.routeAddedBy(info, info.getProtocol());
-		dump(L, x.left);
-		dump(L, x.right);
+		for (Object o : routes.values()) {
+			for (RoutingInfo info = ((RtgTblNode) o).data; null != info; info = info
+					.nextRoute())
+				L.routeAddedBy(info, info.getProtocol());
+		}
 	}
-
+	
 	public boolean push(ProtocolMessage message, ProtocolSession fromSession)
 	{
 		System.err.println(debugIdentifier()
 				+ ": cannot push() messages to routing table");
 		return false;
 	}
-
+	
 	// -------------------- begin by Hagen Boehm -------------------- //
 	// date: November 29, 2001
-
+	
 	/**
 	 * clear this routing table in case of changes in the ospf routing table.
 	 * Used by OSPF to update this table correctly.
 	 */
 	public void clearTable()
 	{
-		root = new RtgTblNode();
-		window = root;
+		routes = new PrefixTree();
 	}
-
+	
 	// -------------------- end by Hagen Boehm -------------------- //
-
+	
 	private String debugIdentifier()
 	{
 		return super.toString();
@@ -1210,14 +1010,18 @@ private String debugIdentifier()
 
 class RtgTblNode
 {
+	/** The destination prefix bits, left-aligned. */
+	public final int addr;
+	
+	/** The prefix length of the destination. */
+	public final int plen;
+	
 	public RoutingInfo data;
-	public RtgTblNode left;
-	public RtgTblNode right;
-
-	public RtgTblNode() {
+	
+	public RtgTblNode(int addr, int plen) {
+		this.addr = (plen == 0 ? 0 : addr & (0xFFFFFFFF << (32 - plen)));
+		this.plen = plen;
 		data = null;
-		left = null;
-		right = null;
 	}
 }
 
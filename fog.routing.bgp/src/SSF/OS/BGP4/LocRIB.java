@@ -12,9 +12,6 @@
 import java.util.Iterator;
 
 import SSF.OS.BGP4.Util.IPaddress;
-import SSF.OS.BGP4.Util.RadixTreeIterator;
-import SSF.OS.BGP4.Util.RadixTreeIteratorAction;
-import SSF.OS.BGP4.Util.RadixTreeNode;
 import SSF.OS.NetFlow.BytesUtil;
 
 
@@ -108,8 +105,8 @@ public ArrayList remove_all() {
       Object o = it.next();
       it.remove(); // removes the last element returned by it.next() from table
       if (Global.radix_trees) {
-        // don't forget to remove it from the radix tree, too
-        Object o2 = remove(((RouteInfo)o).route().nlri.prefix_bits());
+        // don't forget to remove it from the prefix tree, too
+        Object o2 = tree.remove(((RouteInfo)o).route().nlri);
         Debug.gaffirm(o==o2, "inconsistency in Loc-RIB: " + o + " != " + o2);
       }
       // and finally, remove it from the local forwarding table
@@ -141,46 +138,17 @@ public int toBytes(byte[] bytes, int bindex, boolean usenhi) {
 
     bindex += 4; // leave space for total number of entries in the RIB (an int)
 
-    // It's silly to have to use an array for bindex (see below), but we need
-    // an Object (and yes, an array IS a type of Java Object) because Java uses
-    // only call-by-value (or call-by-reference in the case of Objects) and we
-    // need to change the value of bindex while iterating over the radix tree.
-    // Why not use an Integer, you ask?  The reason is that after creating an
-    // Integer, it seems that the value cannot be changed.  Hmm.  (The second
-    // element of the array, for convenience, is being used to add up the total
-    // number of entries in the RIB.)
-    int[] bindexarr = new int[2];
-    bindexarr[0] = bindex;
-    bindexarr[1] = 0;
-
-    Object parameters[] = new Object[3];
-    parameters[0] = bytes;
-    parameters[1] = bindexarr;
-    parameters[2] = new Boolean(usenhi);
-
     // --- dynamic routes -- //
-    RadixTreeIterator it =
-      new RadixTreeIterator(this, new RadixTreeIteratorAction(parameters)
-        {
-          public void action(RadixTreeNode node, String bitstr) {
-            byte[] bytes2    = (byte[])((Object[])params)[0];
-            int[] bindexarr2 = (int[])((Object[])params)[1];
-            boolean usenhi2  = ((Boolean)((Object[])params)[2]).booleanValue();
-
-            if (node.data != null) {
-              bindexarr2[0]+=((RouteInfo)node.data).toBytes(bytes2,
-                                                            bindexarr2[0],
-                                                            usenhi2);
-              bindexarr2[1]++;
-            }
-          }
-        });
-    it.iterate();
+    int entries = 0;
+    for (Iterator it=tree.values().iterator(); it.hasNext();) {
+      bindex += ((RouteInfo)it.next()).toBytes(bytes, bindex, usenhi);
+      entries++;
+    }
 
     // set total number of entries in RIB (start after first 8 bytes (version))
-    BytesUtil.intToBytes(bindexarr[1], bytes, startindex+8);
+    BytesUtil.intToBytes(entries, bytes, startindex+8);
 
-    return bindexarr[0] - startindex;
+    return bindex - startindex;
   }
 
 } // end of class LocRIB
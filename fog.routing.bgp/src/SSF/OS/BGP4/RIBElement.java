@@ -13,10 +13,7 @@
 import java.util.Iterator;
 
 import SSF.OS.BGP4.Util.IPaddress;
-import SSF.OS.BGP4.Util.RadixTree;
-import SSF.OS.BGP4.Util.RadixTreeIterator;
-import SSF.OS.BGP4.Util.RadixTreeIteratorAction;
-import SSF.OS.BGP4.Util.RadixTreeNode;
+import SSF.OS.BGP4.Util.PrefixTree;
 import SSF.OS.NetFlow.BytesUtil;
 
 
@@ -27,15 +24,20 @@
  * and the same is true for Adj-RIBs-Out (since they each have one element per
  * peer).
  */
-public abstract class RIBElement extends RadixTree {
+public abstract class RIBElement {
 
   // ........................ member data .......................... //
 
   /** A reference to the local BGP protocol session. */
   protected BGPSession bgp;
 
+  /** A prefix tree holding the routes, keyed by their NLRI.  It is used for
+   *  finding less and more specific routes and exists only if radix trees
+   *  are enabled. */
+  protected PrefixTree tree;
+
   /** A table mapping NLRI to routes.  It adds no more functionality than the
-   *  radix tree already had, but can save time during look-ups. */
+   *  prefix tree already had, but can save time during look-ups. */
   protected HashMap<IPaddress, RouteInfo> rtes = new HashMap<IPaddress, RouteInfo>();
 
   /** The version number of the table.  Inspired by Cisco table version
@@ -50,8 +52,10 @@ public abstract class RIBElement extends RadixTree {
    * @param b  The local BGP protocol session.
    */
   RIBElement(BGPSession b) {
-    super();
     bgp = b;
+    if (Global.radix_trees) {
+      tree = new PrefixTree();
+    }
   }
 
   // ----- find ------------------------------------------------------------ //
@@ -77,7 +81,7 @@ public RouteInfo find(IPaddress ipa) {
   public RouteInfo add(RouteInfo info) {
     Object oldinfo = rtes.put(info.route().nlri, info);
     if (Global.radix_trees) {
-      Object oldinfo2 = super.add(info.route().nlri.prefix_bits(), info);
+      Object oldinfo2 = tree.add(info.route().nlri, info);
       Debug.gaffirm(oldinfo==oldinfo2, "inconsistency in RIB element: " +
                     oldinfo + " != " + oldinfo2);
     }
@@ -96,7 +100,7 @@ public RouteInfo add(RouteInfo info) {
   public RouteInfo replace(RouteInfo info) {
     Object oldinfo = rtes.put(info.route().nlri, info);
     if (Global.radix_trees) {
-      Object oldinfo2 = super.replace(info.route().nlri.prefix_bits(), info);
+      Object oldinfo2 = tree.replace(info.route().nlri, info);
       Debug.gaffirm(oldinfo==oldinfo2, "inconsistency in RIB element: " +
                     oldinfo + " != " + oldinfo2);
     }
@@ -115,7 +119,7 @@ public RouteInfo replace(RouteInfo info) {
   public RouteInfo remove(IPaddress ipa) {
     Object oldinfo = rtes.remove(ipa);
     if (Global.radix_trees) {
-      Object oldinfo2 = super.remove(ipa.prefix_bits());
+      Object oldinfo2 = tree.remove(ipa);
       Debug.gaffirm(oldinfo==oldinfo2, "inconsistency in RIB element: " +
                     oldinfo + " != " + oldinfo2);
     }
@@ -135,8 +139,8 @@ public ArrayList<RouteInfo> remove_all() {
       RouteInfo o = it.next();
       it.remove(); // removes the last element returned by it.next() from table
       if (Global.radix_trees) {
-        // don't forget to remove it from the radix tree, too
-        Object o2 = super.remove(o.route().nlri.prefix_bits());
+        // don't forget to remove it from the prefix tree, too
+        Object o2 = tree.remove(o.route().nlri);
         Debug.gaffirm(o==o2, "inconsistency in RIB element: " +o+ " != " + o2);
       }
       allrtes.add(o);
@@ -174,7 +178,7 @@ public int getNumberRoutes()
    */
   public ArrayList get_less_specifics(IPaddress ipa) {
     if (Global.radix_trees) {
-      return get_ancestors(ipa.prefix_bits());
+      return tree.get_ancestors(ipa);
     } else {
       return new ArrayList(0);
     }
@@ -190,7 +194,7 @@ public ArrayList get_less_specifics(IPaddress ipa) {
    */
   public ArrayList get_more_specifics(IPaddress ipa) {
     if (Global.radix_trees) {
-      return get_descendants(ipa.prefix_bits());
+      return tree.get_descendants(ipa);
     } else {
       return new ArrayList(0);
     }
@@ -206,7 +210,7 @@ public ArrayList get_more_specifics(IPaddress ipa) {
    */
   public boolean is_less_specific(IPaddress ipa) {
     if (Global.radix_trees) {
-      return has_descendants(ipa.prefix_bits());
+      return tree.has_descendants(ipa);
     } else {
       return false;
     }
@@ -272,45 +276,17 @@ public int toBytes(byte[] bytes, int bindex, boolean usenhi) {
 
     bindex += 4; // leave space for total number of entries in the RIB (an int)
     
-    // It's silly to have to use an array for bindex (see below), but we need
-    // an Object (and yes, an array IS a type of Java Object) because Java uses
-    // only call-by-value (or call-by-reference in the case of Objects) and we
-    // need to change the value of bindex while iterating over the radix tree.
-    // Why not use an Integer, you ask?  The reason is that after creating an
-    // Integer, it seems that the value cannot be changed.  Hmm.  (The second
-    // element of the array, for convenience, is being used to add up the total
-    // number of entries in the RIB.)
-    int[] bindexarr = new int[2];
-    bindexarr[0] = bindex;
-    bindexarr[1] = 0;
-
-    Object parameters[] = new Object[3];
-    parameters[0] = bytes;
-    parameters[1] = bindexarr;
-    parameters[2] = new Boolean(usenhi);
-    
-    RadixTreeIterator it =
-      new RadixTreeIterator(this, new RadixTreeIteratorAction(parameters)
-        {
-          public void action(RadixTreeNode node, String bitstr) {
-            byte[] bytes2    = (byte[])((Object[])params)[0];
-            int[] bindexarr2 = (int[])((Object[])params)[1];
-            boolean usenhi2  = ((Boolean)((Object[])params)[2]).booleanValue();
-
-            if (node.data != null) {
-              bindexarr2[0] +=((RouteInfo)node.data).toBytes(bytes2,
-                                                             bindexarr2[0],
-                                                             usenhi2);
-              bindexarr2[1]++;
-            }
-          }
-        });
-    it.iterate();
+    // routes in the order of the prefix tree
+    int entries = 0;
+    for (Iterator it=tree.values().iterator(); it.hasNext();) {
+      bindex += ((RouteInfo)it.next()).toBytes(bytes, bindex, usenhi);
+      entries++;
+    }
 
     // set total number of entries in RIB (start after first 8 bytes (version))
-    BytesUtil.intToBytes(bindexarr[1], bytes, startindex+8);
+    BytesUtil.intToBytes(entries, bytes, startindex+8);
 
-    return bindexarr[0] - startindex;
+    return bindex - startindex;
   }
 
   // ----- bytes2str ------------------------------------------------------- //
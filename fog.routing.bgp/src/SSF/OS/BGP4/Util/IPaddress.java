@@ -767,12 +767,13 @@ public final boolean is_prefix_of(IPaddress ipa) {
   // ----- hashCode -------------------------------------------------------- //
   /**
    * Returns a hash code value which can be used if an IP address is used as a
-   * key in a hash table.
+   * key in a hash table.  It is computed from the same fields as
+   * <code>equals</code> uses, without converting the address to a string.
    *
    * @return an integer hash code value
    */
   public int hashCode() {
-    return toString().hashCode();
+    return (int)(val ^ (val >>> 32)) * 31 + prefix_len;
   }
   
   // ----- toString(boolean) ----------------------------------------------- //
@@ -0,0 +1,540 @@
+/**
+ * PrefixTree.java
+ */
+
+
+package SSF.OS.BGP4.Util;
+
+
+import java.util.ArrayList;
+
+
+// ===== class SSF.OS.BGP4.Util.PrefixTree ================================= //
+/**
+ * A path-compressed binary trie (Patricia trie) for data keyed by IPv4
+ * address prefixes.  It offers the same look-ups as <code>RadixTree</code>,
+ * but a node exists only for prefixes with data and for branching points.
+ * Keys are handled as plain integers: the prefix bits are stored
+ * left-aligned in an <code>int</code> together with the prefix length.  All
+ * operations are iterative.
+ *
+ * @see RadixTree
+ */
+public class PrefixTree {
+
+  // ........................ member data .......................... //
+
+  /** The root node of the tree.  It represents the empty prefix and is never
+   *  removed. */
+  private Node root = new Node(0, 0, null);
+
+  /** The number of prefixes with (non-null) data in the tree. */
+  private int size = 0;
+
+
+  // ===== inner class Node ============================================== //
+  /**
+   * A node in the prefix tree.
+   */
+  private static final class Node {
+    /** The prefix bits, left-aligned and with all other bits set to zero. */
+    int key;
+    /** The number of bits in the prefix. */
+    int len;
+    /** The data associated with the prefix, if any. */
+    Object data;
+    /** Child whose next bit after this prefix is a zero. */
+    Node left;
+    /** Child whose next bit after this prefix is a one. */
+    Node right;
+
+    Node(int key, int len, Object data) {
+      this.key  = key;
+      this.len  = len;
+      this.data = data;
+    }
+
+    Node child(int bit) {
+      return (bit == 0) ? left : right;
+    }
+
+    void set_child(int bit, Node node) {
+      if (bit == 0) {
+        left = node;
+      } else {
+        right = node;
+      }
+    }
+  } // end inner class Node
+
+
+  // ----- mask ------------------------------------------------------------ //
+  /**
+   * Returns a mask with the given number of leading one bits.
+   *
+   * @param len  The number of one bits.
+   * @return the mask
+   */
+  private static int mask(int len) {
+    return (len == 0) ? 0 : (-1 << (32 - len));
+  }
+
+  // ----- bit ------------------------------------------------------------- //
+  /**
+   * Returns the bit at the given position, counted from the most significant
+   * bit which has position 0.
+   */
+  private static int bit(int key, int pos) {
+    return (key >>> (31 - pos)) & 1;
+  }
+
+  // ----- common_len ------------------------------------------------------ //
+  /**
+   * Returns the length of the common prefix of two keys, limited to the given
+   * maximum.
+   */
+  private static int common_len(int key1, int key2, int max) {
+    int diff = key1 ^ key2;
+    int common = (diff == 0) ? 32 : Integer.numberOfLeadingZeros(diff);
+    return (common < max) ? common : max;
+  }
+
+  // ----- key ------------------------------------------------------------- //
+  /**
+   * Returns the key of an IP address prefix for this tree.
+   *
+   * @param ipa  The IP address prefix.
+   * @return the masked value of the prefix as integer
+   */
+  private static int key(IPaddress ipa) {
+    return (int)ipa.val() & mask(ipa.prefix_len());
+  }
+
+  // ----- check ----------------------------------------------------------- //
+  private static void check(int len) {
+    if (len < 0 || len > 32) {
+      throw new Error("illegal prefix length in prefix tree: " + len);
+    }
+  }
+
+  // ----- size ------------------------------------------------------------ //
+  /**
+   * Returns the number of prefixes with (non-null) data in the tree.
+   *
+   * @return the number of prefixes with data
+   */
+  public int size() {
+    return size;
+  }
+
+  // ----- replace --------------------------------------------------------- //
+  /**
+   * Adds data to the tree, keyed by the given prefix, replacing any
+   * pre-existing data with that key.
+   *
+   * @param ipa  The prefix to use as the key for the data.
+   * @param obj  The data to add to the tree.
+   * @return data which was replaced by the addition; null if none
+   */
+  public Object replace(IPaddress ipa, Object obj) {
+    return put(key(ipa), ipa.prefix_len(), obj, true);
+  }
+
+  // ----- add ------------------------------------------------------------- //
+  /**
+   * Attempts to add data to the tree, keyed by the given prefix, but fails if
+   * data associated with that prefix already exists.
+   *
+   * @param ipa  The prefix to use as the key for the data.
+   * @param obj  The data to add to the tree.
+   * @return the pre-existing data upon failure; null upon success
+   */
+  public Object add(IPaddress ipa, Object obj) {
+    return put(key(ipa), ipa.prefix_len(), obj, false);
+  }
+
+  // ----- put ------------------------------------------------------------- //
+  /**
+   * Adds data to the tree, keyed by the prefix with the given bits and
+   * length.
+   *
+   * @param key      The prefix bits, left-aligned.  Bits beyond the prefix
+   *                 length are ignored.
+   * @param len      The prefix length.
+   * @param obj      The data to add to the tree.
+   * @param replace  Whether or not to replace any pre-existing data.
+   * @return any pre-existing data, whether replaced or not
+   */
+  public Object put(int key, int len, Object obj, boolean replace) {
+    check(len);
+    key &= mask(len);
+
+    Node node = root;
+    while (true) {
+      // invariant: the prefix of node is a prefix of the key
+      if (node.len == len) {
+        Object o = node.data;
+        if (replace || o == null) {
+          node.data = obj;
+        }
+        if (o == null && obj != null) {
+          size++;
+        } else if (o != null && obj == null && replace) {
+          size--;
+        }
+        return o;
+      }
+
+      int b = bit(key, node.len);
+      Node child = node.child(b);
+      if (child == null) {
+        node.set_child(b, new Node(key, len, obj));
+        if (obj != null) {
+          size++;
+        }
+        return null;
+      }
+
+      int common = common_len(child.key, key, (child.len < len) ? child.len : len);
+      if (common == child.len) {
+        // the child's prefix is a prefix of the key, too
+        node = child;
+        continue;
+      }
+
+      // the key branches off within the compressed path to the child
+      Node added;
+      if (common == len) {
+        // the key is a prefix of the child's prefix
+        added = new Node(key, len, obj);
+      } else {
+        added = new Node(key & mask(common), common, null);
+        added.set_child(bit(key, common), new Node(key, len, obj));
+      }
+      added.set_child(bit(child.key, common), child);
+      node.set_child(b, added);
+      if (obj != null) {
+        size++;
+      }
+      return null;
+    }
+  }
+
+  // ----- find ------------------------------------------------------------ //
+  /**
+   * Returns the data associated with the given prefix, if any.
+   *
+   * @param ipa  The prefix to search for.
+   * @return data associated with the given prefix, if any
+   */
+  public Object find(IPaddress ipa) {
+    return find(key(ipa), ipa.prefix_len());
+  }
+
+  // ----- find ------------------------------------------------------------ //
+  /**
+   * Returns the data associated with the prefix with the given bits and
+   * length, if any.
+   *
+   * @param key  The prefix bits, left-aligned.
+   * @param len  The prefix length.
+   * @return data associated with the given prefix, if any
+   */
+  public Object find(int key, int len) {
+    check(len);
+    key &= mask(len);
+
+    Node node = root;
+    while (node != null && node.len < len) {
+      if ((key & mask(node.len)) != node.key) {
+        return null;
+      }
+      node = node.child(bit(key, node.len));
+    }
+    if (node != null && node.len == len && node.key == key) {
+      return node.data;
+    }
+    return null;
+  }
+
+  // ----- longest_match --------------------------------------------------- //
+  /**
+   * Returns the data of the longest prefix in the tree which matches the
+   * given address, including an exact match.  The prefix length of the
+   * address is ignored.
+   *
+   * @param ipa  The address to search for.
+   * @return the data of the longest matching prefix; null if none
+   */
+  public Object longest_match(IPaddress ipa) {
+    return longest_match((int)ipa.val());
+  }
+
+  // ----- longest_match --------------------------------------------------- //
+  /**
+   * Returns the data of the longest prefix in the tree which matches the
+   * given 32 bit address.
+   *
+   * @param addr  The address to search for.
+   * @return the data of the longest matching prefix; null if none
+   */
+  public Object longest_match(int addr) {
+    Object best = null;
+    Node node = root;
+    while (node != null && (addr & mask(node.len)) == node.key) {
+      if (node.data != null) {
+        best = node.data;
+      }
+      if (node.len == 32) {
+        break;
+      }
+      node = node.child(bit(addr, node.len));
+    }
+    return best;
+  }
+
+  // ----- remove ---------------------------------------------------------- //
+  /**
+   * Removes and returns the data (if any) associated with the given prefix.
+   *
+   * @param ipa  The prefix of the data to remove.
+   * @return the data being removed, if any
+   */
+  public Object remove(IPaddress ipa) {
+    return remove(key(ipa), ipa.prefix_len());
+  }
+
+  // ----- remove ---------------------------------------------------------- //
+  /**
+   * Removes and returns the data (if any) associated with the prefix with
+   * the given bits and length.  Nodes which are no longer needed are removed
+   * from the tree.
+   *
+   * @param key  The prefix bits, left-aligned.
+   * @param len  The prefix length.
+   * @return the data being removed, if any
+   */
+  public Object remove(int key, int len) {
+    check(len);
+    key &= mask(len);
+
+    Node grandparent = null;
+    Node parent = null;
+    Node node = root;
+    while (node != null && node.len < len) {
+      if ((key & mask(node.len)) != node.key) {
+        return null;
+      }
+      grandparent = parent;
+      parent = node;
+      node = node.child(bit(key, node.len));
+    }
+    if (node == null || node.len != len || node.key != key ||
+        node.data == null) {
+      return null;
+    }
+
+    Object o = node.data;
+    node.data = null;
+    size--;
+
+    if (node == root) {
+      return o;
+    }
+    if (node.left != null && node.right != null) {
+      // still needed as branching point
+      return o;
+    }
+
+    Node remaining = (node.left != null) ? node.left : node.right;
+    parent.set_child(bit(key, parent.len), remaining);
+
+    if (remaining == null && parent != root && parent.data == null) {
+      // the parent was a branching point only and has a single child left
+      Node sibling = (parent.left != null) ? parent.left : parent.right;
+      grandparent.set_child(bit(key, grandparent.len), sibling);
+    }
+    return o;
+  }
+
+  // ----- get_ancestors --------------------------------------------------- //
+  /**
+   * Finds the data of all proper prefixes of the given prefix which have
+   * (non-null) data.  Shorter prefixes come first.
+   *
+   * @param ipa  The prefix to find ancestors of.
+   * @return the data from each proper prefix which has non-null data
+   */
+  public ArrayList get_ancestors(IPaddress ipa) {
+    ArrayList ancestors = new ArrayList();
+    int key = key(ipa);
+    int len = ipa.prefix_len();
+
+    Node node = root;
+    while (node != null && node.len < len &&
+           (key & mask(node.len)) == node.key) {
+      if (node.data != null) {
+        ancestors.add(node.data);
+      }
+      node = node.child(bit(key, node.len));
+    }
+    return ancestors;
+  }
+
+  // ----- oldest_ancestor ------------------------------------------------- //
+  /**
+   * Returns the data of the shortest proper prefix of the given prefix which
+   * has (non-null) data.
+   *
+   * @param ipa  The prefix to find the ancestor of.
+   * @return the data of the shortest proper prefix; null if none
+   */
+  public Object oldest_ancestor(IPaddress ipa) {
+    int key = key(ipa);
+    int len = ipa.prefix_len();
+
+    Node node = root;
+    while (node != null && node.len < len &&
+           (key & mask(node.len)) == node.key) {
+      if (node.data != null) {
+        return node.data;
+      }
+      node = node.child(bit(key, node.len));
+    }
+    return null;
+  }
+
+  // ----- youngest_ancestor ----------------------------------------------- //
+  /**
+   * Returns the data of the longest proper prefix of the given prefix which
+   * has (non-null) data.
+   *
+   * @param ipa  The prefix to find the ancestor of.
+   * @return the data of the longest proper prefix; null if none
+   */
+  public Object youngest_ancestor(IPaddress ipa) {
+    Object best = null;
+    int key = key(ipa);
+    int len = ipa.prefix_len();
+
+    Node node = root;
+    while (node != null && node.len < len &&
+           (key & mask(node.len)) == node.key) {
+      if (node.data != null) {
+        best = node.data;
+      }
+      node = node.child(bit(key, node.len));
+    }
+    return best;
+  }
+
+  // ----- subtree --------------------------------------------------------- //
+  /**
+   * Returns the topmost node whose prefix has the given prefix as a (not
+   * necessarily proper) prefix.
+   */
+  private Node subtree(int key, int len) {
+    Node node = root;
+    while (node != null) {
+      if (node.len >= len) {
+        return ((node.key & mask(len)) == key) ? node : null;
+      }
+      if ((key & mask(node.len)) != node.key) {
+        return null;
+      }
+      node = node.child(bit(key, node.len));
+    }
+    return null;
+  }
+
+  // ----- get_descendants ------------------------------------------------- //
+  /**
+   * Finds the data of all prefixes which have the given prefix as a proper
+   * prefix and which have (non-null) data.  The data is returned in the
+   * order of a pre-order traversal, a zero bit before a one bit.
+   *
+   * @param ipa  The prefix to find descendants of.
+   * @return a list containing the data from all descendants that have
+   *         (non-null) data
+   */
+  public ArrayList get_descendants(IPaddress ipa) {
+    ArrayList descendants = new ArrayList();
+    int len = ipa.prefix_len();
+    Node top = subtree(key(ipa), len);
+
+    if (top != null) {
+      collect(top, len, descendants);
+    }
+    return descendants;
+  }
+
+  // ----- has_descendants ------------------------------------------------- //
+  /**
+   * Determines whether or not any proper descendant of the given prefix has
+   * (non-null) data.
+   *
+   * @param ipa  The prefix to look for descendants of.
+   * @return true only if at least one descendant has (non-null) data
+   */
+  public boolean has_descendants(IPaddress ipa) {
+    int len = ipa.prefix_len();
+    Node top = subtree(key(ipa), len);
+
+    if (top == null) {
+      return false;
+    }
+
+    ArrayList<Node> stack = new ArrayList<Node>();
+    stack.add(top);
+    while (!stack.isEmpty()) {
+      Node node = stack.remove(stack.size()-1);
+      if (node.len > len && node.data != null) {
+        return true;
+      }
+      if (node.right != null) {
+        stack.add(node.right);
+      }
+      if (node.left != null) {
+        stack.add(node.left);
+      }
+    }
+    return false;
+  }
+
+  // ----- values ---------------------------------------------------------- //
+  /**
+   * Returns the data of all prefixes in the tree in the order of a pre-order
+   * traversal, a zero bit before a one bit.  This is the order used by
+   * <code>RadixTreeIterator</code>.
+   *
+   * @return a list containing all (non-null) data of the tree
+   */
+  public ArrayList values() {
+    ArrayList all = new ArrayList(size);
+    collect(root, -1, all);
+    return all;
+  }
+
+  // ----- collect --------------------------------------------------------- //
+  /**
+   * Adds the data of all nodes in the subtree with a prefix longer than the
+   * given length in pre-order.
+   */
+  private static void collect(Node top, int len, ArrayList list) {
+    ArrayList<Node> stack = new ArrayList<Node>();
+    stack.add(top);
+    while (!stack.isEmpty()) {
+      Node node = stack.remove(stack.size()-1);
+      if (node.len > len && node.data != null) {
+        list.add(node.data);
+      }
+      if (node.right != null) {
+        stack.add(node.right);
+      }
+      if (node.left != null) {
+        stack.add(node.left);
+      }
+    }
+  }
+
+} // end of class PrefixTree
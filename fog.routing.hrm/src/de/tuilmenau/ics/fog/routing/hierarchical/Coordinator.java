@@ -20,6 +20,7 @@
 import net.rapi.Binding;
 import net.rapi.Connection;
 import net.rapi.Description;
+import net.rapi.EventSource.EventListener;
 import net.rapi.Identity;
 import net.rapi.Name;
 import net.rapi.Namespace;
@@ -27,7 +28,9 @@
 import net.rapi.RequirementsException;
 import net.rapi.RoutingException;
 import net.rapi.Signature;
+import net.rapi.events.ConnectedEvent;
 import net.rapi.events.ErrorEvent;
+import net.rapi.events.Event;
 import net.rapi.properties.Property;
 import net.rapi.properties.PropertyException;
 
@@ -510,48 +513,76 @@ public void addConnection(Name pName, int pLevel, Long pToClusterID, boolean pCo
 		final CoordinatorCEPDemultiplexed tDemultiplexed = tDemux;
 		final Cluster tClusterToAdd = tFoundCluster;
 		
-		Thread tThread = new Thread() {
-			public void run()
-			{
-				Connection tConn = null;
-				try {
-					tConn = BlockingCalls.connect(mHost.getLayerContainer().getLayer(null), tName, getConnectDescription(tProperty), ((FoGEntity) mHost.getLayerContainer().getLayer(FoGEntity.class)).getIdentity());
-				} catch (NetworkException tExc) {
-					Logging.err(this, "Unable to connecto to " + tName, tExc);
+		if(HierarchicalConfig.Routing.EVENT_DRIVEN_EXECUTION) {
+			/*
+			 * Connection setup is finished by the events of the connection.
+			 * Thus, no thread is waiting for it.
+			 */
+			final Connection tConn = mHost.getLayerContainer().getLayer(null).connect(tName, getConnectDescription(tProperty), ((FoGEntity) mHost.getLayerContainer().getLayer(FoGEntity.class)).getIdentity());
+			
+			tConn.registerListener(new EventListener() {
+				@Override
+				public void eventOccured(Event pEvent) throws Exception
+				{
+					if(pEvent instanceof ConnectedEvent) {
+						tConn.unregisterListener(this);
+						setupConnection(tConn, tName, tConnectionCEP, tDemultiplexed, tClusterToAdd);
+					}
+					else if(pEvent instanceof ErrorEvent) {
+						tConn.unregisterListener(this);
+						Logging.err(this, "Unable to connect to " + tName, ((ErrorEvent) pEvent).getException());
+					}
 				}
-				if(tConn != null) {
-					mLogger.log(this, "Sending source routing service address " + tConnectionCEP.getSourceRoutingServiceAddress() + " for connection number " + (++mConnectionCounter));
-					tConnectionCEP.start(tConn);
-					
-					HRMName tMyAddress = tConnectionCEP.getSourceRoutingServiceAddress();
-
-					Route tRoute = getRouteFromCentralFN(tName);
-					
-					HRMName tMyFirstNodeInDirection = null;
-					if(tRoute != null) {
-						RouteSegmentPath tPath = (RouteSegmentPath) tRoute.getFirst();
-						GateID tID= tPath.getFirst();
-						
-						Collection<RoutingServiceLink> tLinkCollection = getHRS().getLocalRoutingMap().getOutEdges(tMyAddress);
-						RoutingServiceLink tOutEdge = null;
-						
-						for(RoutingServiceLink tLink : tLinkCollection) {
-							if(tLink.equals(tID)) {
-								tOutEdge = tLink;
-							}
-						}
-						
-						tMyFirstNodeInDirection = getHRS().getLocalRoutingMap().getDest(tOutEdge);
-						tConnectionCEP.setRouteToPeer(tRoute);
+			});
+		} else {
+			Thread tThread = new Thread() {
+				public void run()
+				{
+					Connection tConn = null;
+					try {
+						tConn = BlockingCalls.connect(mHost.getLayerContainer().getLayer(null), tName, getConnectDescription(tProperty), ((FoGEntity) mHost.getLayerContainer().getLayer(FoGEntity.class)).getIdentity());
+					} catch (NetworkException tExc) {
+						Logging.err(this, "Unable to connecto to " + tName, tExc);
+					}
+					if(tConn != null) {
+						setupConnection(tConn, tName, tConnectionCEP, tDemultiplexed, tClusterToAdd);
 					}
-					
-					Tuple<HRMName, HRMName> tTuple = new Tuple<HRMName, HRMName>(tMyAddress, tMyFirstNodeInDirection);
-					tConnectionCEP.write(tTuple);
-					tDemultiplexed.setRemoteCluster(tClusterToAdd);
+				}
+			};
+			tThread.start();
+		}
+	}
+	
+	private void setupConnection(Connection pConnection, Name pName, CoordinatorCEP pCEP, CoordinatorCEPDemultiplexed pDemultiplexed, Cluster pCluster)
+	{
+		mLogger.log(this, "Sending source routing service address " + pCEP.getSourceRoutingServiceAddress() + " for connection number " + (++mConnectionCounter));
+		pCEP.start(pConnection);
+		
+		HRMName tMyAddress = pCEP.getSourceRoutingServiceAddress();
+
+		Route tRoute = getRouteFromCentralFN(pName);
+		
+		HRMName tMyFirstNodeInDirection = null;
+		if(tRoute != null) {
+			RouteSegmentPath tPath = (RouteSegmentPath) tRoute.getFirst();
+			GateID tID= tPath.getFirst();
+			
+			Collection<RoutingServiceLink> tLinkCollection = getHRS().getLocalRoutingMap().getOutEdges(tMyAddress);
+			RoutingServiceLink tOutEdge = null;
+			
+			for(RoutingServiceLink tLink : tLinkCollection) {
+				if(tLink.equals(tID)) {
+					tOutEdge = tLink;
 				}
 			}
-		};
-		tThread.start();
+			
+			tMyFirstNodeInDirection = getHRS().getLocalRoutingMap().getDest(tOutEdge);
+			pCEP.setRouteToPeer(tRoute);
+		}
+		
+		Tuple<HRMName, HRMName> tTuple = new Tuple<HRMName, HRMName>(tMyAddress, tMyFirstNodeInDirection);
+		pCEP.write(tTuple);
+		pDemultiplexed.setRemoteCluster(pCluster);
 	}
 	
 	private Route getRouteFromCentralFN(Name pName)
@@ -950,8 +981,7 @@ public void queryRoute(RouteRequest pRequest)
 		}
     	
 		try {
-			HRMID tForwardingHRMID = getHRS().getForwardingHRMID( (HRMID) pRequest.getTarget());
-			Cluster tForwardingCluster = getCluster(getHRS().getFIBEntry(tForwardingHRMID).getNextCluster());
+			Cluster tForwardingCluster = getCluster(getHRS().getForwardingEntry( (HRMID) pRequest.getTarget()).getNextCluster());
 			
 			LinkedList<Cluster> tAllowedClusters = getAllowedCluster(tForwardingCluster, tLimitation);
 			LinkedList<RouteRequest> tResults = new LinkedList<RouteRequest>();
@@ -359,6 +359,12 @@ else if(pData instanceof RouteRequest) {
 						tRequest.mWasNotified = true;
 						tRequest.notifyAll();
 					}
+					if(HierarchicalConfig.Routing.EVENT_DRIVEN_EXECUTION) {
+						ElectionProcess tElection = ElectionManager.getElectionManager().getElectionProcess(getCluster().getLevel(), getCluster().getClusterID());
+						if(tElection != null) {
+							tElection.coordinatorRequestAnswered();
+						}
+					}
 				}
 			}
 		} catch (PropertyException tExc) {
@@ -16,11 +16,15 @@
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import net.rapi.Name;
 import net.rapi.RequirementsException;
 import net.rapi.RoutingException;
 
+import de.tuilmenau.ics.fog.EventHandler;
 import de.tuilmenau.ics.fog.IEvent;
 import de.tuilmenau.ics.fog.exceptions.AuthenticationException;
 import de.tuilmenau.ics.fog.packets.hierarchical.BullyAnnounce;
@@ -51,6 +55,18 @@ public class ElectionProcess extends Thread
 	private int mLevel = 0;	
 	private boolean mWillInitiateManager = false;
 	private boolean mLostElection = false;
+	private long TIMEOUT_FOR_COORDINATOR_REQUEST = 10000;
+	
+	/**
+	 * States of an election in event driven execution
+	 */
+	private enum State { IDLE, WAITING_FOR_PEERS, WAITING_FOR_ANNOUNCEMENT, REQUESTING_COORDINATOR, WAITING_FOR_LEVEL, WAITING_FOR_DISTRIBUTION, WORKING };
+	private State mState = State.IDLE;
+	private int mStateCounter = 0;
+	private boolean mAnnouncementAwaited = false;
+	private IntermediateCluster mRequestingCluster = null;
+	private int mOpenRequests = 0;
+	private IntermediateCluster mPreparingCluster = null;
 	
 	@Override
 	public String toString()
@@ -65,6 +81,14 @@ public void interruptElection()
 			mPleaseInterrupt = true;
 			mPleaseInterrupt.notifyAll();
 		}
+		if(HierarchicalConfig.Routing.EVENT_DRIVEN_EXECUTION) {
+			synchronized(this) {
+				// do not wait for the timeout in the current state
+				if(mState == State.WAITING_FOR_PEERS || mState == State.WAITING_FOR_ANNOUNCEMENT || mState == State.WAITING_FOR_DISTRIBUTION) {
+					proceed(mState);
+				}
+			}
+		}
 	}
 	
 	public boolean isElecting(Cluster pCluster)
@@ -122,6 +146,23 @@ public synchronized boolean isStarted()
 		return mInProgress;
 	}
 	
+	/**
+	 * Starts the election. In event driven execution, no thread is started
+	 * and the election is executed by events of the time base of the
+	 * coordinator.
+	 */
+	@Override
+	public synchronized void start()
+	{
+		if(HierarchicalConfig.Routing.EVENT_DRIVEN_EXECUTION) {
+			if(mState == State.IDLE) {
+				beginElection();
+			}
+		} else {
+			super.start();
+		}
+	}
+	
 	public void initiateCoordinatorFunctions(IntermediateCluster pCluster)
 	{
 		Random tRandom = new Random(System.currentTimeMillis());
@@ -201,6 +242,13 @@ public void initiateCoordinatorFunctions(IntermediateCluster pCluster)
 						Logging.log(this, "Trigger");
 					}
 					Logging.log(this, "Reevaluating whether other processes settled");
+					if(HierarchicalConfig.Routing.EVENT_DRIVEN_EXECUTION) {
+						// election continues with levelPrepared
+						mPreparingCluster = pCluster;
+						setState(State.WAITING_FOR_LEVEL);
+						ElectionManager.getElectionManager().reevaluate(pCluster.getLevel());
+						return;
+					}
 					ElectionManager.getElectionManager().reevaluate(pCluster.getLevel());
 					synchronized(this) {
 						try {
@@ -210,9 +258,18 @@ public void initiateCoordinatorFunctions(IntermediateCluster pCluster)
 						}
 					}
 				}
-				mClusterManager.prepareAboveCluster(pCluster.getLevel() +1);
+				if(HierarchicalConfig.Routing.EVENT_DRIVEN_EXECUTION) {
+					prepareAboveCluster(pCluster.getLevel() +1);
+				} else {
+					mClusterManager.prepareAboveCluster(pCluster.getLevel() +1);
+				}
 			} else {
 				Logging.log(this, "Beginning address distribution");
+				if(HierarchicalConfig.Routing.EVENT_DRIVEN_EXECUTION) {
+					mClusterManager.setHRMID(new HRMID(0));
+					schedule(State.WAITING_FOR_DISTRIBUTION, WAIT_BEFORE_ADDRESS_DISTRIBUTION);
+					return;
+				}
 				try {
 					mClusterManager.setHRMID(new HRMID(0));
 					synchronized(mPleaseInterrupt) {
@@ -313,29 +370,7 @@ public void run()
 							tTimeWaitUntil = System.currentTimeMillis()+this.TIMEOUT_FOR_LAGGARDS;
 							this.checkWait(System.currentTimeMillis(), tTimeWaitUntil);
 							*/
-							try {
-								LinkedList<CoordinatorCEPDemultiplexed> tCEPs = new LinkedList<CoordinatorCEPDemultiplexed>();
-								tCEPs.addAll(tCluster.getParticipatingCEPs());
-								if(((IntermediateCluster)tCluster).getOldParticipatingCEPs() != null) {
-									tCEPs.addAll(((IntermediateCluster)tCluster).getOldParticipatingCEPs());
-								}
-								for(CoordinatorCEPDemultiplexed tCEP: tCluster.getParticipatingCEPs()) {
-									if(! tCEP.knowsCoordinator()) {
-										if(!tCluster.getCoordinator().checkPathToTargetContainsCovered(tCluster.getCoordinator().getSourceIntermediate(tCEP.getRemoteCluster()), tCEP.getRemoteCluster(), tCEPs)) {
-											tCluster.getCoordinator().getLogger().log(tCluster, "adding laggard " + tCEP + " while clusters between are " + tCluster.getCoordinator().getClusterMap().getIntermediateNodes(tCluster.getCoordinator().getSourceIntermediate(tCEP.getRemoteCluster()), tCEP.getRemoteCluster()));
-											tCluster.addLaggard(tCEP);
-										} else {
-											tCluster.getCoordinator().getLogger().info(tCluster, "not adding laggard " + tCEP);
-										}
-									} 
-								}
-							} catch (ConcurrentModificationException tExc) {
-								Logging.err(this, "Error when looking for uncovered clusters", tExc);
-							}
-							if(tCluster.getLaggards() != null) {
-								((IntermediateCluster)tCluster).setParticipatingCEPs((LinkedList<CoordinatorCEPDemultiplexed>) tCluster.getLaggards().clone());
-								tCluster.getLaggards().clear();
-							}
+							updateLaggards(tCluster);
 							if(tCluster.getCoordinator().getClusterWithCoordinatorOnLevel(tCluster.getLevel()) == null) {
 								checkClustersForHighestPriority(true);
 							} else {
@@ -355,10 +390,270 @@ public void run()
 		ElectionManager.getElectionManager().removeElection(mElectingClusters.get(0).getLevel(), mElectingClusters.get(0).getClusterID());
 	}
 	
+	private void updateLaggards(Cluster pCluster)
+	{
+		try {
+			LinkedList<CoordinatorCEPDemultiplexed> tCEPs = new LinkedList<CoordinatorCEPDemultiplexed>();
+			tCEPs.addAll(pCluster.getParticipatingCEPs());
+			if(((IntermediateCluster)pCluster).getOldParticipatingCEPs() != null) {
+				tCEPs.addAll(((IntermediateCluster)pCluster).getOldParticipatingCEPs());
+			}
+			for(CoordinatorCEPDemultiplexed tCEP: pCluster.getParticipatingCEPs()) {
+				if(! tCEP.knowsCoordinator()) {
+					if(!pCluster.getCoordinator().checkPathToTargetContainsCovered(pCluster.getCoordinator().getSourceIntermediate(tCEP.getRemoteCluster()), tCEP.getRemoteCluster(), tCEPs)) {
+						pCluster.getCoordinator().getLogger().log(pCluster, "adding laggard " + tCEP + " while clusters between are " + pCluster.getCoordinator().getClusterMap().getIntermediateNodes(pCluster.getCoordinator().getSourceIntermediate(tCEP.getRemoteCluster()), tCEP.getRemoteCluster()));
+						pCluster.addLaggard(tCEP);
+					} else {
+						pCluster.getCoordinator().getLogger().info(pCluster, "not adding laggard " + tCEP);
+					}
+				} 
+			}
+		} catch (ConcurrentModificationException tExc) {
+			Logging.err(this, "Error when looking for uncovered clusters", tExc);
+		}
+		if(pCluster.getLaggards() != null) {
+			((IntermediateCluster)pCluster).setParticipatingCEPs((LinkedList<CoordinatorCEPDemultiplexed>) pCluster.getLaggards().clone());
+			pCluster.getLaggards().clear();
+		}
+	}
+	
 	private void restart()
 	{
 		mPleaseInterrupt=false;
-		run();
+		if(HierarchicalConfig.Routing.EVENT_DRIVEN_EXECUTION) {
+			beginElection();
+		} else {
+			run();
+		}
+	}
+	
+	/*
+	 * Event driven execution
+	 */
+	
+	private void beginElection()
+	{
+		mInProgress = true;
+		mAnnouncementAwaited = false;
+		sendElections();
+		schedule(State.WAITING_FOR_PEERS, TIMEOUT_FOR_PEERS);
+	}
+	
+	/**
+	 * Executes the next step of the election after the timeout of a state
+	 * or the occurrence of the expected event.
+	 */
+	private synchronized void proceed(State pState)
+	{
+		try {
+			switch(pState) {
+			case WAITING_FOR_PEERS:
+				Logging.log(this, "Sent elections");
+				if(!mPleaseInterrupt) {
+					int tCounter = mStateCounter;
+					checkClustersForHighestPriority(false);
+					// continue only if the election was not suspended or restarted
+					if(tCounter == mStateCounter) {
+						continueElection();
+					}
+				} else {
+					restart();
+				}
+				break;
+			case WAITING_FOR_ANNOUNCEMENT:
+				mAnnouncementAwaited = true;
+				checkCoordinators();
+				break;
+			case REQUESTING_COORDINATOR:
+				if(mOpenRequests > 0) {
+					Logging.log(this, "Was still waiting for " + mOpenRequests + " answers to coordinator requests");
+				} else {
+					updateLaggards(mRequestingCluster);
+					if(mRequestingCluster.getCoordinator().getClusterWithCoordinatorOnLevel(mRequestingCluster.getLevel()) == null) {
+						int tCounter = mStateCounter;
+						checkClustersForHighestPriority(true);
+						if(tCounter != mStateCounter) {
+							break;
+						}
+					}
+					checkCoordinators();
+				}
+				break;
+			case WAITING_FOR_DISTRIBUTION:
+				executeInBackground(new Runnable() {
+					@Override
+					public void run()
+					{
+						try {
+							mClusterManager.distributeAddresses();
+						} catch (RemoteException tExc) {
+							Logging.err(this, "Error when trying to distribute addresses", tExc);
+						} catch (RoutingException tExc) {
+							Logging.err(this, "Error when trying to distribute addresses", tExc);
+						} catch (RequirementsException tExc) {
+							Logging.err(this, "Error when trying to distribute addresses", tExc);
+						}
+					}
+				});
+				break;
+			case WORKING:
+				continueElection();
+				break;
+			default:
+				break;
+			}
+		} catch (Exception tExc) {
+			Logging.warn(this, "Election interrupted", tExc);
+			beginElection();
+		}
+	}
+	
+	private void continueElection()
+	{
+		if(!mAnnouncementAwaited) {
+			/*
+			 * initiate new election in case other clusters had higher priority
+			 */
+			schedule(State.WAITING_FOR_ANNOUNCEMENT, TIMEOUT_FOR_ANNOUNCEMENT);
+		} else {
+			checkCoordinators();
+		}
+	}
+	
+	/**
+	 * Requests the coordinator for the first cluster, which does not know it
+	 * yet. This can only happen in case we are above level one.
+	 */
+	private void checkCoordinators()
+	{
+		if(mLevel > 0) {
+			for(IntermediateCluster tCluster : mElectingClusters) {
+				if(tCluster.getCoordinator().getClusterWithCoordinatorOnLevel(tCluster.getLevel()) == null) {
+					tCluster.setHighestPriority(tCluster.getPriority());
+					Logging.log(tCluster, " did not yet receive an announcement");
+					
+					mRequestingCluster = tCluster;
+					mOpenRequests = tCluster.getParticipatingCEPs().size();
+					schedule(State.REQUESTING_COORDINATOR, TIMEOUT_FOR_COORDINATOR_REQUEST);
+					for(CoordinatorCEPDemultiplexed tCEP : new LinkedList<CoordinatorCEPDemultiplexed>(tCluster.getParticipatingCEPs())) {
+						tCEP.write(new RequestCoordinator(false));
+					}
+					return;
+				}
+			}
+		}
+		
+		setState(State.IDLE);
+		mInProgress = false;
+		ElectionManager.getElectionManager().removeElection(mElectingClusters.get(0).getLevel(), mElectingClusters.get(0).getClusterID());
+	}
+	
+	/**
+	 * Called by a connection end point of an electing cluster if it received
+	 * the answer to a coordinator request.
+	 */
+	public synchronized void coordinatorRequestAnswered()
+	{
+		if(mState == State.REQUESTING_COORDINATOR && mOpenRequests > 0) {
+			mOpenRequests--;
+			if(mOpenRequests == 0) {
+				proceed(State.REQUESTING_COORDINATOR);
+			}
+		}
+	}
+	
+	/**
+	 * Called if all elections of the level settled and the cluster manager
+	 * may prepare the cluster on the next level.
+	 */
+	public synchronized void levelPrepared()
+	{
+		if(HierarchicalConfig.Routing.EVENT_DRIVEN_EXECUTION) {
+			if(mState == State.WAITING_FOR_LEVEL) {
+				prepareAboveCluster(mPreparingCluster.getLevel() +1);
+			}
+		} else {
+			notifyAll();
+		}
+	}
+	
+	private void prepareAboveCluster(final int pLevel)
+	{
+		final ClusterManager tClusterManager = mClusterManager;
+		
+		executeInBackground(new Runnable() {
+			@Override
+			public void run()
+			{
+				tClusterManager.prepareAboveCluster(pLevel);
+			}
+		});
+	}
+	
+	/**
+	 * Connection setup and discovery of the cluster preparation still block
+	 * until answers arrive. Such a task is executed by the worker threads of
+	 * the election manager and the election continues afterwards.
+	 */
+	private void executeInBackground(final Runnable pTask)
+	{
+		setState(State.WORKING);
+		
+		final EventHandler tTimeBase = getTimeBase();
+		final ElectionTimer tContinuation = new ElectionTimer(State.WORKING);
+		
+		ElectionManager.getElectionManager().execute(new Runnable() {
+			@Override
+			public void run()
+			{
+				try {
+					pTask.run();
+				} catch (RuntimeException tExc) {
+					Logging.warn(ElectionProcess.this, "Task of election failed", tExc);
+				}
+				tTimeBase.scheduleIn(0, tContinuation);
+			}
+		});
+	}
+	
+	private void setState(State pState)
+	{
+		mState = pState;
+		// invalidates all timers of the previous state
+		mStateCounter++;
+	}
+	
+	private void schedule(State pState, long pTimeoutMSec)
+	{
+		setState(pState);
+		getTimeBase().scheduleIn(pTimeoutMSec / 1000.0d, new ElectionTimer(pState));
+	}
+	
+	private EventHandler getTimeBase()
+	{
+		return mElectingClusters.getFirst().getCoordinator().getTimeBase();
+	}
+	
+	private class ElectionTimer implements IEvent
+	{
+		public ElectionTimer(State pState)
+		{
+			mTimerState = pState;
+			mTimerCounter = mStateCounter;
+		}
+		
+		@Override
+		public void fire()
+		{
+			synchronized(ElectionProcess.this) {
+				if(mTimerCounter == mStateCounter) {
+					proceed(mTimerState);
+				}
+			}
+		}
+		
+		private State mTimerState;
+		private int mTimerCounter;
 	}
 	
 	public void checkWait(long pReference, long pCompare)
@@ -392,6 +687,7 @@ public LinkedList<IntermediateCluster> getParticipatingClusters()
 		private HashMap<Integer, HashMap<Long, ElectionProcess>>mElections = null;
 		private static ElectionManager mManager = null;
 		private ElectionNotification mNotification;
+		private ExecutorService mWorkers = null;
 		
 		public ElectionManager()
 		{
@@ -506,6 +802,26 @@ public void reevaluate(int pLevel)
 			}
 		}
 		
+		/**
+		 * Executes blocking tasks of elections in event driven execution.
+		 * Threads are reused and exist only as long as tasks are running.
+		 */
+		public synchronized void execute(Runnable pTask)
+		{
+			if(mWorkers == null) {
+				mWorkers = Executors.newCachedThreadPool(new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable pRunnable)
+					{
+						Thread tThread = new Thread(pRunnable, "ElectionWorker");
+						tThread.setDaemon(true);
+						return tThread;
+					}
+				});
+			}
+			mWorkers.execute(pTask);
+		}
+		
 		private class ElectionNotification implements IEvent
 		{
 			private Collection<ElectionProcess> mElectionsToNotify = null;
@@ -519,9 +835,7 @@ public ElectionNotification(Collection<ElectionProcess> pElections)
 			public void fire()
 			{
 				for(ElectionProcess tProcess : mElectionsToNotify) {
-					synchronized(tProcess) {
-						tProcess.notifyAll();
-					}
+					tProcess.levelPrepared();
 				}
 			}
 			
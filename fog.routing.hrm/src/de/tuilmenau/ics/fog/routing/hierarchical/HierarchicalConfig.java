@@ -54,6 +54,14 @@
 		public static final boolean ADDR_DISTRIBUTOR_PRINTS_HRMID = false;
 		
 		public static final boolean ENABLE_REGION_LIMITATION = false;
+		
+		/**
+		 * If this is set to true, elections and connection setups are driven by
+		 * events of the simulation time base instead of dedicated threads
+		 * waiting for wall clock timeouts. Thus, the hierarchy is built up
+		 * in simulation time.
+		 */
+		public static final boolean EVENT_DRIVEN_EXECUTION = false;
 	}
 	public Routing routing = new Routing();
 	
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator - Hierarchical Routing Management
+ * Copyright (c) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.routing.hierarchical;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import de.tuilmenau.ics.fog.packets.hierarchical.TopologyEnvelope.FIBEntry;
+import de.tuilmenau.ics.fog.routing.naming.hierarchical.HRMID;
+
+/**
+ * Forwarding information base of the hierarchical routing service.
+ *
+ * The entries are stored in a trie over the level addresses of their
+ * destinations, beginning with the highest level. Thus, the entry for the
+ * part of a target address above a level is found by walking along the
+ * levels without creating an HRMID for it.
+ */
+public class HierarchicalFIB
+{
+	private static final int TOP_LEVEL = HierarchicalConfig.Routing.HIERARCHY_LEVEL_AMOUNT;
+	
+	/**
+	 * @param pDestination Destination of the entry
+	 * @return The entry for exactly this destination or null if there is none
+	 */
+	public FIBEntry get(HRMID pDestination)
+	{
+		Node tNode = find(pDestination, 0);
+		
+		if((tNode != null) && pDestination.equals(tNode.mDestination)) {
+			return tNode.mEntry;
+		}
+		return null;
+	}
+	
+	/**
+	 * Determines the entry for the destination, which consists of the level
+	 * addresses of the target from the highest level down to the given level.
+	 * The level addresses below are zero.
+	 *
+	 * @param pTarget Target address
+	 * @param pLevel Lowest level that is taken from the target
+	 * @return The entry or null if there is none
+	 */
+	public FIBEntry getForwardingEntry(HRMID pTarget, int pLevel)
+	{
+		Node tNode = find(pTarget, Math.max(pLevel, 0));
+		
+		if(tNode != null) {
+			return tNode.mEntry;
+		}
+		return null;
+	}
+	
+	public boolean containsKey(HRMID pDestination)
+	{
+		return get(pDestination) != null;
+	}
+	
+	/**
+	 * @return The entry replaced by the new one or null if there was none
+	 */
+	public FIBEntry put(HRMID pDestination, FIBEntry pEntry)
+	{
+		Node tNode = mRoot;
+		
+		for(int tLevel = TOP_LEVEL; tLevel >= 0; tLevel--) {
+			long tValue = pDestination.getLevelValue(tLevel);
+			Node tChild = tNode.getChild(tValue);
+			
+			if(tChild == null) {
+				tChild = tNode.addChild(tValue);
+			}
+			tNode = tChild;
+		}
+		
+		FIBEntry tOldEntry = tNode.mEntry;
+		
+		if(tOldEntry == null) {
+			mSize++;
+		}
+		tNode.mDestination = pDestination;
+		tNode.mEntry = pEntry;
+		return tOldEntry;
+	}
+	
+	/**
+	 * @return The removed entry or null if there was none
+	 */
+	public FIBEntry remove(HRMID pDestination)
+	{
+		FIBEntry tEntry = get(pDestination);
+		
+		if(tEntry != null) {
+			remove(mRoot, pDestination, TOP_LEVEL);
+			mSize--;
+		}
+		return tEntry;
+	}
+	
+	public int size()
+	{
+		return mSize;
+	}
+	
+	public boolean isEmpty()
+	{
+		return mSize == 0;
+	}
+	
+	/**
+	 * @return Copy of all destinations stored in the FIB
+	 */
+	public Set<HRMID> keySet()
+	{
+		LinkedHashSet<HRMID> tDestinations = new LinkedHashSet<HRMID>();
+		
+		collect(mRoot, tDestinations);
+		return tDestinations;
+	}
+	
+	/**
+	 * Walks along the level addresses of the address from the highest level
+	 * down to level zero. The level addresses below the given level are
+	 * treated as zero.
+	 */
+	private Node find(HRMID pAddress, int pLowestLevel)
+	{
+		Node tNode = mRoot;
+		
+		for(int tLevel = TOP_LEVEL; (tLevel >= 0) && (tNode != null); tLevel--) {
+			if(tLevel >= pLowestLevel) {
+				tNode = tNode.getChild(pAddress.getLevelValue(tLevel));
+			} else {
+				tNode = tNode.getChild(0);
+			}
+		}
+		return tNode;
+	}
+	
+	/**
+	 * @return true, if the node is empty and can be removed from its parent
+	 */
+	private boolean remove(Node pNode, HRMID pDestination, int pLevel)
+	{
+		if(pLevel < 0) {
+			pNode.mDestination = null;
+			pNode.mEntry = null;
+		} else {
+			long tValue = pDestination.getLevelValue(pLevel);
+			Node tChild = pNode.getChild(tValue);
+			
+			if((tChild != null) && remove(tChild, pDestination, pLevel -1)) {
+				pNode.removeChild(tValue);
+			}
+		}
+		return (pNode.mEntry == null) && (pNode.mSize == 0);
+	}
+	
+	private void collect(Node pNode, Set<HRMID> pDestinations)
+	{
+		if(pNode.mEntry != null) {
+			pDestinations.add(pNode.mDestination);
+		}
+		for(int i = 0; i < pNode.mSize; i++) {
+			collect(pNode.mChildren[i], pDestinations);
+		}
+	}
+	
+	/**
+	 * Node of the trie. The children are sorted by their level address.
+	 */
+	private static class Node
+	{
+		public Node getChild(long pValue)
+		{
+			int tIndex = Arrays.binarySearch(mValues, 0, mSize, pValue);
+			
+			if(tIndex >= 0) {
+				return mChildren[tIndex];
+			}
+			return null;
+		}
+		
+		public Node addChild(long pValue)
+		{
+			int tIndex = -(Arrays.binarySearch(mValues, 0, mSize, pValue) +1);
+			
+			if(mSize == mValues.length) {
+				mValues = Arrays.copyOf(mValues, mSize *2);
+				mChildren = Arrays.copyOf(mChildren, mSize *2);
+			}
+			System.arraycopy(mValues, tIndex, mValues, tIndex +1, mSize -tIndex);
+			System.arraycopy(mChildren, tIndex, mChildren, tIndex +1, mSize -tIndex);
+			
+			Node tChild = new Node();
+			mValues[tIndex] = pValue;
+			mChildren[tIndex] = tChild;
+			mSize++;
+			return tChild;
+		}
+		
+		public void removeChild(long pValue)
+		{
+			int tIndex = Arrays.binarySearch(mValues, 0, mSize, pValue);
+			
+			if(tIndex >= 0) {
+				System.arraycopy(mValues, tIndex +1, mValues, tIndex, mSize -tIndex -1);
+				System.arraycopy(mChildren, tIndex +1, mChildren, tIndex, mSize -tIndex -1);
+				mSize--;
+				mChildren[mSize] = null;
+			}
+		}
+		
+		private long[] mValues = new long[2];
+		private Node[] mChildren = new Node[2];
+		private int mSize = 0;
+		
+		private HRMID mDestination;
+		private FIBEntry mEntry;
+	}
+	
+	private Node mRoot = new Node();
+	private int mSize = 0;
+}
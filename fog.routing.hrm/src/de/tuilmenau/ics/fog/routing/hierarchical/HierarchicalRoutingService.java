@@ -79,7 +79,7 @@ public class HierarchicalRoutingService implements RoutingService
 	private Random mRandomGenerator = null;
 	private Coordinator mCoordinatorInstance = null;
 	private Logger mLogger = null;
-	private HashMap<HRMID, FIBEntry> mHopByHopRoutingMap = new HashMap<HRMID, FIBEntry>();
+	private HierarchicalFIB mHopByHopRoutingMap = new HierarchicalFIB();
 	private Name mSourceIdentification = null;
 	private HashMap<ForwardingElement, L2Address> mLocalNameMapping = new HashMap<ForwardingElement, L2Address>();
 	
@@ -223,6 +223,34 @@ public HRMID getMostSimilarForwardingEntry(HRMID pToCompare) throws RemoteExcept
 		return tMyIdentification;
 	}
 	
+	/**
+	 * @return Lowest level from which on the target has to be taken into account for forwarding (see getForwardingHRMID)
+	 */
+	private int getForwardingLevel(HRMID pTarget) throws RemoteException
+	{
+		NameMappingService tNMS = HierarchicalNameMappingService.getGlobalNameMappingService(mReferenceNode.getNode().getAS().getSimulation());
+		int tHighestDescendingDifference = HierarchicalConfig.Routing.HIERARCHY_LEVEL_AMOUNT-1;
+		
+		for(NameMappingEntry tEntry : tNMS.getAddresses(mReferenceNode.getCentralFN().getName())) {
+			int tDifference = ((HRMID)tEntry.getAddress()).getDescendingDifference(pTarget);
+			if(tDifference < tHighestDescendingDifference) {
+				tHighestDescendingDifference = tDifference;
+			}
+		}
+		return tHighestDescendingDifference;
+	}
+	
+	/**
+	 * Looks up the FIB entry for the forwarding HRMID of a target without
+	 * creating the forwarding HRMID.
+	 * 
+	 * @return FIB entry or null if none is known
+	 */
+	public FIBEntry getForwardingEntry(HRMID pTarget) throws RemoteException
+	{
+		return mHopByHopRoutingMap.getForwardingEntry(pTarget, getForwardingLevel(pTarget));
+	}
+	
 	public HRMID getForwardingHRMID(HRMID pTarget) throws RemoteException
 	{
 		NameMappingService tNMS = HierarchicalNameMappingService.getGlobalNameMappingService(mReferenceNode.getNode().getAS().getSimulation());		
@@ -392,16 +420,15 @@ public Route getRoute(ForwardingNode pSource, Name pDestination, Description pRe
 			}
 			HRMID tTarget = (HRMID) pDestination;
 			
-			HRMID tForwarding = null;
+			FIBEntry tFIBEntry = null;
 			try {
-				tForwarding = getForwardingHRMID(tTarget);
+				tFIBEntry = getForwardingEntry(tTarget);
 			} catch (RemoteException tExc) {
 				mLogger.err(this, "Unable to find forwarding HRMID", tExc);
 			}
 			
 			if(this.mHopByHopRoutingMap != null) {
 				
-				FIBEntry tFIBEntry = mHopByHopRoutingMap.get(tForwarding);
 				HRMName tForwardingEntity = null;
 				if(tFIBEntry != null) {
 					tForwardingEntity = tFIBEntry.getNextHop();
@@ -586,7 +613,7 @@ public boolean addRoutingEntry(HRMID pRoutingID, FIBEntry pEntry)
 		}
 	}
 	
-	public HashMap<HRMID, FIBEntry> getRoutingTable()
+	public HierarchicalFIB getRoutingTable()
 	{
 		return mHopByHopRoutingMap;
 	}
@@ -65,6 +65,7 @@ public synchronized void link(NodeObject pFrom, NodeObject pTo, LinkObject pLink
 			}
 			if(! mNodes.getNeighbors(pFrom).contains(pTo)) {
 				if(mNodes.addEdge(pLinkValue, pFrom, pTo, EdgeType.UNDIRECTED)) {
+					topologyChanged();
 					notifyObservers(new Event(EventType.ADDED, pLinkValue));
 				}
 			}
@@ -168,7 +169,7 @@ public synchronized List<LinkObject> getRoute(NodeObject pFrom, NodeObject pTo)
 	 * @param pIgnoredNodes Please provide a set of nodes that are not allowed to be used for route determination.
 	 * @return
 	 */
-	public List<LinkObject> getRouteWithInvalidatedNodes(NodeObject pSource, NodeObject pTarget, LinkedList<NodeObject> pIgnoredNodes)
+	public synchronized List<LinkObject> getRouteWithInvalidatedNodes(NodeObject pSource, NodeObject pTarget, LinkedList<NodeObject> pIgnoredNodes)
 	{
 		HashMap<NodeObject, Collection<LinkObject>> tLinksOnIgnoredNode = new HashMap<NodeObject, Collection<LinkObject>>();
 		HashMap<NodeObject, LinkedList<Tuple<NodeObject, NodeObject>>> tNeighborsOfIgnoredNode = new HashMap<NodeObject, LinkedList<Tuple<NodeObject, NodeObject>>>();
@@ -189,6 +190,8 @@ public List<LinkObject> getRouteWithInvalidatedNodes(NodeObject pSource, NodeObj
 			mNodes.removeVertex(tNode);
 			Logging.log(this, "Removed node " + tNode);
 		}
+		// cached routes might use the removed nodes
+		topologyChanged();
 		
 		List<LinkObject> tPath = getRoute(pSource, pTarget);
 		Logging.log(this, "Calculated restricted route " + tPath + " which is from " + pSource + " to " + pTarget);
@@ -200,6 +203,8 @@ public List<LinkObject> getRouteWithInvalidatedNodes(NodeObject pSource, NodeObj
 				tNeighborsOfIgnoredNode.get(tNode).removeFirst();
 			}
 		}
+		// routes calculated without the nodes are no longer the shortest ones
+		topologyChanged();
 		
 		return tPath;
 	}
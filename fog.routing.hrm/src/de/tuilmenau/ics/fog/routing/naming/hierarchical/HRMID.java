@@ -27,6 +27,9 @@ public class HRMID extends HRMName implements Comparable<HRMID>, VirtualNode
 	private static final long serialVersionUID = -8441496024628988477L;
 	public static Namespace HRMNamespace = new Namespace("HRM", false);
 	
+	private static final int BITS_PER_LEVEL = HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL;
+	private static final long LEVEL_MASK = (1L << BITS_PER_LEVEL) -1;
+	
 	/**
 	 * Because HRM system neither limits the amount of hierarchical levels nor the amount of nodes per hierarchical level,
 	 * you have to use BigInteger for addressing.
@@ -36,6 +39,7 @@ public class HRMID extends HRMName implements Comparable<HRMID>, VirtualNode
 	public HRMID(BigInteger pAddress)
 	{
 		super(pAddress);
+		updatePackedAddress();
 	}
 	
 	/**
@@ -45,6 +49,21 @@ public HRMID(BigInteger pAddress)
 	public HRMID(long pAddress)
 	{
 		super(BigInteger.valueOf(pAddress));
+		updatePackedAddress();
+	}
+	
+	/**
+	 * Addresses fitting into a long are additionally stored as primitive value.
+	 * For them, the levels are accessed with mask and shift operations.
+	 */
+	private void updatePackedAddress()
+	{
+		mIsPacked = (BITS_PER_LEVEL < Long.SIZE -1) && (mAddress.signum() >= 0) && (mAddress.bitLength() < Long.SIZE);
+		if(mIsPacked) {
+			mPackedAddress = mAddress.longValue();
+		} else {
+			mPackedAddress = 0;
+		}
 	}
 	
 	
@@ -62,29 +81,51 @@ public HRMID retrieveAddress()
 	 */
 	public BigInteger getLevelAddress(int pLevel)
 	{
+		if(mIsPacked) {
+			return BigInteger.valueOf(getLevelValue(pLevel));
+		}
 		return (mAddress.mod( (BigInteger.valueOf(2)).pow(HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL * (pLevel + 1) ) ).shiftRight(( HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL * (pLevel)) ) );
 	}
 	
 	/**
+	 * Same as {@link #getLevelAddress(int)} but without creating objects.
+	 * 
+	 * @param pLevel Specify the hierarchical level you wish to know the address for, here.
+	 * @return The address of the specified hierarchical level will be returned.
+	 */
+	public long getLevelValue(int pLevel)
+	{
+		if(mIsPacked) {
+			int tShift = BITS_PER_LEVEL * pLevel;
+			
+			if(tShift >= Long.SIZE) {
+				return 0;
+			}
+			return (mPackedAddress >>> tShift) & LEVEL_MASK;
+		} else {
+			return getLevelAddress(pLevel).longValue();
+		}
+	}
+	
+	/**
+	 * Replaces the address of a hierarchical level. The addresses of the other levels are not changed.
 	 * 
 	 * @param pLevel Specify the level you wish to set the address for, here.
 	 * @param pAddress Please provide a BigInteger that should be used as address for the specific hierarchical level.
 	 */
 	public void setLevelAddress(int pLevel, BigInteger pAddress)
 	{
-		if(pLevel != 0) {
-			BigInteger tValue = this.getLevelAddress(pLevel);
-			if(!tValue.equals(BigInteger.valueOf(0))) {
-				mAddress = mAddress.subtract(mAddress.mod(BigInteger.valueOf((pLevel +1)*HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL)).divide(BigInteger.valueOf(pLevel*HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL)));
-			}
-		} else {
-			BigInteger tValue = this.getLevelAddress(pLevel);
-			if(!tValue.equals(BigInteger.valueOf(0))) {
-				mAddress = mAddress.subtract(mAddress.mod(BigInteger.valueOf((pLevel +1)*HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL)));
-			}
-		}		
+		int tShift = BITS_PER_LEVEL * pLevel;
 		
-		mAddress = mAddress.add(pAddress.shiftLeft(pLevel*HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL));
+		if(mIsPacked && (tShift +BITS_PER_LEVEL < Long.SIZE) && (pAddress.signum() >= 0) && (pAddress.bitLength() <= BITS_PER_LEVEL)) {
+			mPackedAddress = (mPackedAddress & ~(LEVEL_MASK << tShift)) | (pAddress.longValue() << tShift);
+			mAddress = BigInteger.valueOf(mPackedAddress);
+		} else {
+			BigInteger tLevelMask = BigInteger.ONE.shiftLeft(BITS_PER_LEVEL).subtract(BigInteger.ONE).shiftLeft(tShift);
+			
+			mAddress = mAddress.andNot(tLevelMask).add(pAddress.shiftLeft(tShift));
+			updatePackedAddress();
+		}
 	}
 	
 	/**
@@ -100,16 +141,16 @@ public void setDescr(String pInfo)
 	@Override
 	public String toString()
 	{
-		String tOutput = new String();
+		StringBuilder tOutput = new StringBuilder();
 		for(int i = HierarchicalConfig.Routing.HIERARCHY_LEVEL_AMOUNT -1; i > 0  ; i--) {
-			tOutput += (mAddress.mod( (BigInteger.valueOf(2)).pow(HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL * (i + 1) ) ).shiftRight(( HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL * (i)) ) ).toString();
-			tOutput += ".";
+			tOutput.append(getLevelValue(i));
+			tOutput.append('.');
 		}
-		tOutput += (mAddress.mod( (BigInteger.valueOf(2)).pow(HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL * (1) ) ).shiftRight(( HierarchicalConfig.Routing.HIERARCHICAL_BIT_SIZE_PER_LEVEL * (0)) ) ).toString();
+		tOutput.append(getLevelValue(0));
 		if(mDescr != null) {
-			return tOutput +"(" +Long.toString(mAddress.longValue()) +")";
+			tOutput.append('(').append(mAddress.longValue()).append(')');
 		}
-		return tOutput;
+		return tOutput.toString();
 	}
 	
 	@Override
@@ -134,9 +175,7 @@ public HRMID clone()
 	public int getAscendingDifference(HRMID pAddressToCompare)
 	{
 		for(int i = 0; i < HierarchicalConfig.Routing.HIERARCHY_LEVEL_AMOUNT; i++) {
-			BigInteger tOtherAddress = pAddressToCompare.getLevelAddress(i);
-			BigInteger tMyAddress = getLevelAddress(i);
-			if(tOtherAddress.equals(tMyAddress)) {
+			if(pAddressToCompare.getLevelValue(i) == getLevelValue(i)) {
 				/*
 				 * Do nothing, just continue
 				 */
@@ -159,9 +198,7 @@ public int getAscendingDifference(HRMID pAddressToCompare)
 	public int getDescendingDifference(HRMID pAddressToCompare)
 	{
 		for(int i = HierarchicalConfig.Routing.HIERARCHY_LEVEL_AMOUNT; i >= 0; i--) {
-			BigInteger tOtherAddress = pAddressToCompare.getLevelAddress(i);
-			BigInteger tMyAddress = getLevelAddress(i);
-			if(tOtherAddress.equals(tMyAddress)) {
+			if(pAddressToCompare.getLevelValue(i) == getLevelValue(i)) {
 				/*
 				 * Do nothing, just continue
 				 */
@@ -182,7 +219,12 @@ public Name retrieveName() {
 	
 	@Override
 	public int compareTo(HRMID pCompareTo) {
-		return getLevelAddress(pCompareTo.getDescendingDifference(this)).subtract(pCompareTo.getLevelAddress(pCompareTo.getDescendingDifference(this))).intValue();
+		int tLevel = pCompareTo.getDescendingDifference(this);
+		
+		if(tLevel < 0) {
+			return 0;
+		}
+		return (int) (getLevelValue(tLevel) - pCompareTo.getLevelValue(tLevel));
 	}
 	
 	@Override
@@ -195,12 +237,33 @@ public Namespace getNamespace()
 	public boolean equals(Object pObj)
 	{
 		if(pObj instanceof HRMID) {
-			return this.getAddress().equals(((HRMID) pObj).getAddress());
+			HRMID tOther = (HRMID) pObj;
+			
+			if(mIsPacked && tOther.mIsPacked) {
+				return mPackedAddress == tOther.mPackedAddress;
+			}
+			return this.getAddress().equals(tOther.getAddress());
 		}
 		return false;
 	}
 	
+	/**
+	 * Hash code derived from the packed address and consistent with
+	 * {@link #equals(Object)}. An HRMID must not be changed with
+	 * {@link #setLevelAddress(int, BigInteger)} while it is used as key.
+	 */
+	@Override
+	public int hashCode()
+	{
+		if(mIsPacked) {
+			return (int) (mPackedAddress ^ (mPackedAddress >>> 32));
+		}
+		return mAddress.hashCode();
+	}
+	
 	private String mDescr;
 	private Description mCaps;
+	private boolean mIsPacked;
+	private long mPackedAddress;
 
 }
@@ -232,9 +232,7 @@ public void handleEvent(Event event)
 				Logging.log(tProcess.toString());
 			}
 			for(ElectionProcess tProcess : ElectionManager.getElectionManager().getProcessesOnLevel(mCluster.getLevel())) {
-				synchronized(tProcess) {
-					 tProcess.notifyAll();
-				}
+				tProcess.levelPrepared();
 			}
 		}
 		
@@ -253,9 +251,7 @@ public AbovePreparationOnClusterListener(IntermediateCluster pCluster)
 		@Override
 		public void handleEvent(Event event)
 		{
-			synchronized(ElectionManager.getElectionManager().getElectionProcess(mCluster.getLevel(), mCluster.getClusterID())) {
-				ElectionManager.getElectionManager().getElectionProcess(mCluster.getLevel(), mCluster.getClusterID()).notifyAll();
-			}
+			ElectionManager.getElectionManager().getElectionProcess(mCluster.getLevel(), mCluster.getClusterID()).levelPrepared();
 		}		
 	}	
 
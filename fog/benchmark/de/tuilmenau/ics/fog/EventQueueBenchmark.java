@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog;
+
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import de.tuilmenau.ics.fog.EventHandler.EventHolder;
+import de.tuilmenau.ics.fog.EventHandler.EventQueue;
+
+
+/**
+ * Command line benchmark comparing the event queue of the {@link EventHandler}
+ * with a java.util.PriorityQueue, which was used before. Both get the same
+ * mix of scheduling, polling and canceling events. Canceled events are
+ * removed from the PriorityQueue by searching it with equals, as done by
+ * the previous cancelEvent. Each canceled event is replaced by a new one,
+ * like a timer, which is reset. Some cancel operations hit events, which
+ * had already been executed. The order of the polled events is checked
+ * to be the same for both queues.
+ * 
+ * Usage: EventQueueBenchmark [number of operations] [number of pending events] [percentage of cancel operations]
+ */
+public class EventQueueBenchmark
+{
+	public static final int DEFAULT_OPERATIONS = 200000;
+	public static final int DEFAULT_PENDING = 10000;
+	public static final int DEFAULT_CANCEL_PERCENTAGE = 30;
+	
+	private static final long SEED = 4711;
+	private static final double MAX_DELAY_SEC = 10.0d;
+	
+	
+	public static void main(String[] args)
+	{
+		int operations = DEFAULT_OPERATIONS;
+		int pending = DEFAULT_PENDING;
+		int cancelPercentage = DEFAULT_CANCEL_PERCENTAGE;
+		
+		try {
+			if(args.length > 0) operations = Integer.parseInt(args[0]);
+			if(args.length > 1) pending = Integer.parseInt(args[1]);
+			if(args.length > 2) cancelPercentage = Integer.parseInt(args[2]);
+		}
+		catch(NumberFormatException exc) {
+			System.err.println("Usage: " +EventQueueBenchmark.class.getName() +" [number of operations] [number of pending events] [percentage of cancel operations]");
+			return;
+		}
+		
+		// first run warms up the JIT
+		for(int run = 0; run < 2; run++) {
+			System.out.println("Run " +run +": " +operations +" operations with " +pending +" pending events and " +cancelPercentage +"% cancel operations");
+			
+			long start = System.nanoTime();
+			long indexedChecksum = run(new IndexedQueue(), operations, pending, cancelPercentage);
+			long indexedTime = System.nanoTime() -start;
+			
+			start = System.nanoTime();
+			long priorityChecksum = run(new SearchingQueue(), operations, pending, cancelPercentage);
+			long priorityTime = System.nanoTime() -start;
+			
+			System.out.println("Same order of events: " +(indexedChecksum == priorityChecksum));
+			System.out.println("Indexed heap: " +rate(operations, indexedTime) +" operations per second");
+			System.out.println("PriorityQueue: " +rate(operations, priorityTime) +" operations per second");
+		}
+	}
+	
+	/**
+	 * Executes the operations on a queue.
+	 * 
+	 * @return Checksum of the order of the polled events
+	 */
+	private static long run(Queue queue, int operations, int pending, int cancelPercentage)
+	{
+		Random random = new Random(SEED);
+		ArrayList<EventHolder> scheduled = new ArrayList<EventHolder>(pending +operations);
+		double now = 0;
+		long checksum = 0;
+		
+		for(int i = 0; i < pending; i++) {
+			schedule(queue, scheduled, i, now +random.nextDouble() *MAX_DELAY_SEC);
+		}
+		
+		for(int i = 0; i < operations; i++) {
+			if(random.nextInt(100) < cancelPercentage) {
+				int index = random.nextInt(scheduled.size());
+				EventHolder event = scheduled.get(index);
+				
+				scheduled.set(index, scheduled.get(scheduled.size() -1));
+				scheduled.remove(scheduled.size() -1);
+				queue.remove(event);
+			} else {
+				EventHolder event = queue.poll();
+				
+				if(event != null) {
+					now = event.getTime();
+					checksum = checksum *31 +((BenchmarkEvent) event.getEvent()).mNumber;
+				}
+			}
+			
+			schedule(queue, scheduled, pending +i, now +random.nextDouble() *MAX_DELAY_SEC);
+		}
+		
+		return checksum;
+	}
+	
+	private static void schedule(Queue queue, ArrayList<EventHolder> scheduled, int number, double time)
+	{
+		EventHolder event = new EventHolder(time, new BenchmarkEvent(number));
+		
+		queue.add(event);
+		scheduled.add(event);
+	}
+	
+	private static long rate(int number, long timeNanoSec)
+	{
+		return number *1000000000L / Math.max(1, timeNanoSec);
+	}
+	
+	private static class BenchmarkEvent implements IEvent
+	{
+		public BenchmarkEvent(int number)
+		{
+			mNumber = number;
+		}
+		
+		@Override
+		public void fire()
+		{
+			// nothing to do
+		}
+		
+		private final int mNumber;
+	}
+	
+	private interface Queue
+	{
+		public void add(EventHolder event);
+		
+		public EventHolder poll();
+		
+		public boolean remove(EventHolder event);
+	}
+	
+	private static class IndexedQueue implements Queue
+	{
+		@Override
+		public void add(EventHolder event)
+		{
+			mQueue.add(event);
+		}
+		
+		@Override
+		public EventHolder poll()
+		{
+			return mQueue.poll();
+		}
+		
+		@Override
+		public boolean remove(EventHolder event)
+		{
+			return mQueue.remove(event);
+		}
+		
+		private EventQueue mQueue = new EventQueue();
+	}
+	
+	private static class SearchingQueue implements Queue
+	{
+		@Override
+		public void add(EventHolder event)
+		{
+			// sequence number for events with equal time
+			event.mId = ++mLastId;
+			mQueue.add(event);
+		}
+		
+		@Override
+		public EventHolder poll()
+		{
+			return mQueue.poll();
+		}
+		
+		@Override
+		public boolean remove(EventHolder event)
+		{
+			return mQueue.remove(event);
+		}
+		
+		private PriorityQueue<EventHolder> mQueue = new PriorityQueue<EventHolder>();
+		private long mLastId = 0;
+	}
+}
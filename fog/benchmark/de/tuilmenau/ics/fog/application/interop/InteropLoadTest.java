@@ -0,0 +1,519 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.application.interop;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.rapi.Binding;
+import net.rapi.Connection;
+import net.rapi.Description;
+import net.rapi.Identity;
+import net.rapi.Layer;
+import net.rapi.LayerContainer;
+import net.rapi.Name;
+import net.rapi.Namespace;
+import net.rapi.NeighborName;
+import net.rapi.NetworkException;
+import net.rapi.Signature;
+import net.rapi.events.ConnectedEvent;
+import net.rapi.impl.base.BaseConnectionEndPoint;
+import net.rapi.impl.base.BaseEventSource;
+import net.rapi.properties.Property;
+import de.tuilmenau.ics.fog.Config;
+import de.tuilmenau.ics.fog.EventHandler;
+import de.tuilmenau.ics.fog.IEvent;
+import de.tuilmenau.ics.fog.application.Application;
+import de.tuilmenau.ics.fog.authentication.IdentityManagement;
+import de.tuilmenau.ics.fog.facade.Host;
+import de.tuilmenau.ics.fog.ui.Logging.Level;
+import de.tuilmenau.ics.fog.util.LayerRegister;
+import de.tuilmenau.ics.fog.util.Logger;
+import de.tuilmenau.ics.fog.util.ParameterMap;
+import de.tuilmenau.ics.fog.util.SimpleName;
+
+
+/**
+ * Command line load test for the interoperation proxies. It opens concurrent
+ * UDP and TCP flows via the loopback interface to a
+ * {@link ConnectionEndPointUDPProxy} and a {@link ConnectionEndPointTCPProxy}
+ * in IP to FoG mode. The proxies run on a simulated FoG host, which echoes
+ * the data of each FoG connection after a delay. Thus, each message passes
+ * the proxies twice. The clients are handled by one event loop with pooled
+ * buffers and the proxies by the event loop shared by all proxies. Thus, the
+ * number of threads does not depend on the number of flows.
+ *
+ * UDP messages lost due to full socket buffers are sent again, if a flow
+ * did not make progress for a second.
+ *
+ * Each TCP flow requires two file descriptors. Depending on the number of
+ * flows, the limit for open files (ulimit -n) has to be increased.
+ *
+ * Usage: InteropLoadTest [flows per protocol] [messages per flow] [FoG delay in msec]
+ */
+public class InteropLoadTest
+{
+	public static final int DEFAULT_FLOWS = 2000;
+	public static final int DEFAULT_MESSAGES = 100;
+	public static final int DEFAULT_FOG_DELAY_MSEC = 1;
+	public static final int MESSAGE_SIZE = 64;
+	public static final int TIMEOUT_SEC = 120;
+	
+	
+	public static void main(String[] pArgs) throws Exception
+	{
+		int tFlows = DEFAULT_FLOWS;
+		int tMessages = DEFAULT_MESSAGES;
+		int tDelayMSec = DEFAULT_FOG_DELAY_MSEC;
+		
+		try {
+			if(pArgs.length > 0) tFlows = Integer.parseInt(pArgs[0]);
+			if(pArgs.length > 1) tMessages = Integer.parseInt(pArgs[1]);
+			if(pArgs.length > 2) tDelayMSec = Integer.parseInt(pArgs[2]);
+		}
+		catch(NumberFormatException tExc) {
+			System.err.println("Usage: " +InteropLoadTest.class.getName() +" [flows per protocol] [messages per flow] [FoG delay in msec]");
+			return;
+		}
+		
+		InteropLoadTest tTest = new InteropLoadTest(tFlows, tMessages, tDelayMSec);
+		
+		tTest.run();
+	}
+	
+	public InteropLoadTest(int pFlows, int pMessages, int pDelayMSec) throws IOException
+	{
+		mFlows = pFlows;
+		mMessages = pMessages;
+		mHost = new SimulatedHost(pDelayMSec / 1000.0d);
+		mClientLoop = new ProxySelector("LoadTestClient");
+	}
+	
+	public void run() throws Exception
+	{
+		InetAddress tLoopback = InetAddress.getByName("127.0.0.1");
+		int tThreads = Thread.activeCount();
+		
+		// proxies in IP to FoG mode
+		SimpleName tServerName = new SimpleName(new Namespace("loadtest"), "echo");
+		ConnectionEndPointUDPProxy tUdpProxy = new ConnectionEndPointUDPProxy(mHost.getLogger(), mHost, tServerName, null, 0);
+		ConnectionEndPointTCPProxy tTcpProxy = new ConnectionEndPointTCPProxy(mHost.getLogger(), mHost, tServerName, null, 0);
+		InetSocketAddress tUdpServer = new InetSocketAddress(tLoopback, tUdpProxy.getLocalPort());
+		InetSocketAddress tTcpServer = new InetSocketAddress(tLoopback, tTcpProxy.getLocalPort());
+		
+		// clients
+		LinkedList<Flow> tUdpFlows = new LinkedList<Flow>();
+		mFinished = new CountDownLatch(2 *mFlows);
+		long tStart = System.nanoTime();
+		
+		for(int i = 0; i < mFlows; i++) {
+			DatagramChannel tUdpClient = DatagramChannel.open();
+			tUdpClient.connect(tUdpServer);
+			Flow tUdpFlow = new Flow(tUdpClient);
+			tUdpFlow.send();
+			mClientLoop.register(tUdpClient, SelectionKey.OP_READ, tUdpFlow);
+			tUdpFlows.add(tUdpFlow);
+			
+			SocketChannel tTcpClient = SocketChannel.open(tTcpServer);
+			Flow tTcpFlow = new Flow(tTcpClient);
+			tTcpFlow.send();
+			mClientLoop.register(tTcpClient, SelectionKey.OP_READ, tTcpFlow);
+		}
+		
+		int tActiveThreads = Thread.activeCount();
+		boolean tCompleted = false;
+		int tRetransmissions = 0;
+		
+		for(int i = 0; (i < TIMEOUT_SEC) && !tCompleted; i++) {
+			tCompleted = mFinished.await(1, TimeUnit.SECONDS);
+			
+			if(!tCompleted) {
+				for(Flow tFlow : tUdpFlows) {
+					if(tFlow.retransmit()) {
+						tRetransmissions++;
+					}
+				}
+			}
+		}
+		long tTime = System.nanoTime() -tStart;
+		
+		System.out.println(mFlows +" UDP and " +mFlows +" TCP flows with " +mMessages +" messages each");
+		System.out.println("Completed flows: " +(2 *mFlows -mFinished.getCount()) +(tCompleted ? "" : " (timeout)"));
+		System.out.println("Round trips: " +(mRoundTrips *1000000000L / Math.max(1, tTime)) +" per second");
+		System.out.println("Retransmitted UDP messages: " +tRetransmissions);
+		System.out.println("FoG connections: " +mHost.getNumberConnections() +" with " +mHost.getNumberEchoedBytes() +" echoed bytes");
+		System.out.println("Threads: " +tThreads +" before, " +tActiveThreads +" with open flows");
+		System.out.println("Buffers: " +ProxySelector.getInstance().getBufferPool() +", " +mClientLoop.getBufferPool());
+		
+		mClientLoop.close();
+		for(SelectableChannel tChannel : mChannels) {
+			tChannel.close();
+		}
+		mHost.getTimeBase().exit();
+	}
+	
+	/**
+	 * Client side of a flow. It sends the next message after the echo of
+	 * the previous one was received completely.
+	 */
+	private class Flow implements ProxySelector.Handler
+	{
+		public Flow(SelectableChannel pChannel)
+		{
+			mChannel = pChannel;
+			mChannels.add(pChannel);
+		}
+		
+		public synchronized void send() throws IOException
+		{
+			ByteBuffer tMessage = ByteBuffer.allocate(MESSAGE_SIZE);
+			
+			if(mChannel instanceof DatagramChannel) {
+				((DatagramChannel) mChannel).write(tMessage);
+			} else {
+				// small messages fit into the empty socket buffer
+				((SocketChannel) mChannel).write(tMessage);
+			}
+			mSent++;
+		}
+		
+		/**
+		 * Sends the last message again, if the flow did not make progress
+		 * since the last call.
+		 *
+		 * @return true, if the message was sent again
+		 */
+		public synchronized boolean retransmit() throws IOException
+		{
+			boolean tStalled = (mReceived == mReceivedAtLastCheck) && !mCompleted;
+			
+			mReceivedAtLastCheck = mReceived;
+			if(tStalled) {
+				mSent--;
+				send();
+			}
+			return tStalled;
+		}
+		
+		@Override
+		public synchronized void ready(SelectionKey pKey) throws IOException
+		{
+			ByteBuffer tBuffer = mClientLoop.getBufferPool().acquire();
+			int tLength;
+			
+			try {
+				if(mChannel instanceof DatagramChannel) {
+					tLength = ((DatagramChannel) mChannel).read(tBuffer);
+				} else {
+					tLength = ((SocketChannel) mChannel).read(tBuffer);
+				}
+			}
+			finally {
+				mClientLoop.getBufferPool().release(tBuffer);
+			}
+			
+			if(tLength < 0) {
+				failed(new IOException("Connection closed by proxy"));
+				return;
+			}
+			
+			mReceived += tLength;
+			if(!mCompleted && (mReceived >= mSent *MESSAGE_SIZE)) {
+				mRoundTrips++;
+				if(mSent < mMessages) {
+					send();
+				} else {
+					mCompleted = true;
+					pKey.cancel();
+					mFinished.countDown();
+				}
+			}
+		}
+		
+		@Override
+		public void failed(Throwable pError)
+		{
+			System.err.println("Flow " +mChannel +" failed: " +pError);
+		}
+		
+		private SelectableChannel mChannel;
+		private int mSent = 0;
+		private long mReceived = 0;
+		private long mReceivedAtLastCheck = -1;
+		private boolean mCompleted = false;
+	}
+	
+	/**
+	 * FoG host for the proxies. Its only layer accepts all connection
+	 * requests and echoes the data written to a connection after a delay.
+	 * The events are executed by the real time event handler of the host.
+	 */
+	private static class SimulatedHost implements Host
+	{
+		public SimulatedHost(double pDelaySec)
+		{
+			mDelaySec = pDelaySec;
+			mLogger = new Logger(null);
+			mLogger.setLogLevel(Level.WARN);
+			mTimeBase = new EventHandler();
+			mLayers.register(new EchoLayer());
+		}
+		
+		public int getNumberConnections()
+		{
+			return mNumberConnections.get();
+		}
+		
+		public long getNumberEchoedBytes()
+		{
+			return mNumberEchoedBytes.get();
+		}
+		
+		@Override
+		public LayerContainer getLayerContainer()
+		{
+			return mLayers;
+		}
+		
+		@Override
+		public LinkedList<Name> getServerNames()
+		{
+			return new LinkedList<Name>();
+		}
+		
+		@Override
+		public EventHandler getTimeBase()
+		{
+			return mTimeBase;
+		}
+		
+		@Override
+		public Logger getLogger()
+		{
+			return mLogger;
+		}
+		
+		@Override
+		public Config getConfig()
+		{
+			return Config.getConfig();
+		}
+		
+		@Override
+		public ParameterMap getParameter()
+		{
+			return null;
+		}
+		
+		@Override
+		public IdentityManagement getAuthenticationService()
+		{
+			return null;
+		}
+		
+		@Override
+		public void terminateSimulation(double pInSec)
+		{
+			mTimeBase.exit();
+		}
+		
+		@Override
+		public void registerCapability(Property pProperty)
+		{
+			// ignore it
+		}
+		
+		@Override
+		public synchronized void registerApp(Application pApp)
+		{
+			mApps.add(pApp);
+		}
+		
+		@Override
+		public synchronized LinkedList<Application> getApps()
+		{
+			return new LinkedList<Application>(mApps);
+		}
+		
+		@Override
+		public synchronized boolean unregisterApp(Application pApp)
+		{
+			return mApps.remove(pApp);
+		}
+		
+		/**
+		 * Layer creating an echo connection for each connection request.
+		 */
+		private class EchoLayer extends BaseEventSource implements Layer
+		{
+			@Override
+			public LayerStatus getStatus()
+			{
+				return null;
+			}
+			
+			@Override
+			public Binding bind(Connection pParentSocket, Name pName, Description pRequirements, Identity pIdentity)
+			{
+				// no servers on this host
+				return null;
+			}
+			
+			@Override
+			public Connection connect(Name pName, Description pRequirements, Identity pRequester)
+			{
+				EchoConnection tConnection = new EchoConnection(pName, pRequirements);
+				
+				mNumberConnections.incrementAndGet();
+				tConnection.connect();
+				return tConnection;
+			}
+			
+			@Override
+			public boolean isKnown(Name pName)
+			{
+				return true;
+			}
+			
+			@Override
+			public Description getCapabilities(Name pName, Description pRequirements) throws NetworkException
+			{
+				return null;
+			}
+			
+			@Override
+			public Iterable<NeighborName> getNeighbors(Name pNamePrefix) throws NetworkException
+			{
+				return new LinkedList<NeighborName>();
+			}
+			
+			@Override
+			protected void notifyFailure(Throwable pFailure, EventListener pListener)
+			{
+				mLogger.err(this, "Error while notifying observers about event.", pFailure);
+			}
+		}
+		
+		/**
+		 * Connection end point echoing the data written to it.
+		 */
+		private class EchoConnection extends BaseConnectionEndPoint
+		{
+			public EchoConnection(Name pBindingName, Description pRequirements)
+			{
+				super(pBindingName);
+				
+				mRequirements = pRequirements;
+			}
+			
+			@Override
+			public void connect()
+			{
+				mConnected = true;
+				notifyObservers(new ConnectedEvent(this));
+			}
+			
+			@Override
+			public boolean isConnected()
+			{
+				return mConnected;
+			}
+			
+			@Override
+			public LinkedList<Signature> getAuthentications()
+			{
+				return null;
+			}
+			
+			@Override
+			public Description getRequirements()
+			{
+				return mRequirements;
+			}
+			
+			@Override
+			public void close()
+			{
+				mConnected = false;
+				super.cleanup();
+			}
+			
+			@Override
+			protected void sendDataToPeer(final Serializable pData) throws NetworkException
+			{
+				if(!mConnected) {
+					throw new NetworkException(this, "Can not send data since connection is closed.");
+				}
+				
+				mTimeBase.scheduleIn(mDelaySec, new IEvent() {
+					@Override
+					public void fire()
+					{
+						if(mConnected) {
+							try {
+								storeDataForApp(pData);
+								
+								if(pData instanceof byte[]) {
+									mNumberEchoedBytes.addAndGet(((byte[]) pData).length);
+								}
+							}
+							catch(IOException tExc) {
+								mLogger.err(EchoConnection.this, "Can not echo data.", tExc);
+							}
+						}
+					}
+				});
+			}
+			
+			@Override
+			protected void notifyFailure(Throwable pFailure, EventListener pListener)
+			{
+				mLogger.err(this, "Error while notifying observers about event.", pFailure);
+			}
+			
+			private Description mRequirements;
+			private volatile boolean mConnected = false;
+		}
+		
+		private double mDelaySec;
+		private Logger mLogger;
+		private EventHandler mTimeBase;
+		private LayerRegister mLayers = new LayerRegister();
+		private LinkedList<Application> mApps = new LinkedList<Application>();
+		private AtomicInteger mNumberConnections = new AtomicInteger(0);
+		private AtomicLong mNumberEchoedBytes = new AtomicLong(0);
+	}
+	
+	
+	private int mFlows;
+	private int mMessages;
+	private SimulatedHost mHost;
+	private ProxySelector mClientLoop;
+	private CountDownLatch mFinished;
+	private ConcurrentLinkedQueue<SelectableChannel> mChannels = new ConcurrentLinkedQueue<SelectableChannel>();
+	private volatile long mRoundTrips = 0;
+}
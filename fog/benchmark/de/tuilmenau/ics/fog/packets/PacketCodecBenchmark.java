@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.packets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import de.tuilmenau.ics.fog.routing.Route;
+import de.tuilmenau.ics.fog.transfer.gates.GateID;
+import de.tuilmenau.ics.middleware.Serializer;
+import de.tuilmenau.ics.middleware.WireCodec;
+
+
+/**
+ * Command line benchmark for the binary encoding of packets. It creates
+ * packets with routes of the given length and with different payloads.
+ * Each of them is encoded by the {@link WireCodec}, decoded again and
+ * checked against the original. Afterwards, the sizes and the rates of
+ * encodings and decodings are compared with the Java serialization.
+ * 
+ * Usage: PacketCodecBenchmark [number of iterations] [number of gates per route]
+ */
+public class PacketCodecBenchmark
+{
+	public static final int DEFAULT_ITERATIONS = 100000;
+	public static final int DEFAULT_ROUTE_LENGTH = 8;
+	
+	
+	public static void main(String[] args) throws Exception
+	{
+		int iterations = DEFAULT_ITERATIONS;
+		int routeLength = DEFAULT_ROUTE_LENGTH;
+		
+		try {
+			if(args.length > 0) iterations = Integer.parseInt(args[0]);
+			if(args.length > 1) routeLength = Integer.parseInt(args[1]);
+		}
+		catch(NumberFormatException exc) {
+			System.err.println("Usage: " +PacketCodecBenchmark.class.getName() +" [number of iterations] [number of gates per route]");
+			return;
+		}
+		
+		PacketCodec.register();
+		
+		WireCodec codec = WireCodec.getInstance();
+		Serializer serializer = Serializer.getInstance();
+		ArrayList<Packet> packets = createPackets(routeLength);
+		
+		// check round trip and compare sizes
+		int differences = 0;
+		for(Packet packet : packets) {
+			byte[] encoded = codec.toBytes(packet);
+			Packet decoded = (Packet) serializer.toObject(encoded);
+			
+			if(!packet.toString().equals(decoded.toString()) || !Arrays.equals(encoded, codec.toBytes(decoded))) {
+				System.err.println("Different packet after round trip: " +packet +" -> " +decoded);
+				differences++;
+			}
+			
+			System.out.println("Payload " +packet.getData().getClass().getSimpleName() +": " +encoded.length +" bytes (Java serialization: " +serializer.toBytes(packet).length +" bytes)");
+		}
+		System.out.println("Different packets: " +differences);
+		
+		// measure rates
+		long start = System.nanoTime();
+		for(int i = 0; i < iterations; i++) {
+			codec.toObject(codec.toBytes(packets.get(i % packets.size())));
+		}
+		long codecTime = System.nanoTime() -start;
+		
+		start = System.nanoTime();
+		for(int i = 0; i < iterations; i++) {
+			serializer.toObject(serializer.toBytes(packets.get(i % packets.size())));
+		}
+		long serializerTime = System.nanoTime() -start;
+		
+		System.out.println("Wire codec: " +rate(iterations, codecTime) +" round trips per second");
+		System.out.println("Java serialization: " +rate(iterations, serializerTime) +" round trips per second");
+	}
+	
+	/**
+	 * Creates packets with payloads encoded natively, with encoders and
+	 * by the Java serialization.
+	 */
+	private static ArrayList<Packet> createPackets(int routeLength)
+	{
+		ArrayList<Packet> result = new ArrayList<Packet>();
+		
+		PleaseKeepAlive keepAlive = new PleaseKeepAlive();
+		keepAlive.setProcessNumber(42);
+		
+		result.add(new Packet(createRoute(routeLength, 1), "payload"));
+		result.add(new Packet(createRoute(routeLength, 1000), createRoute(routeLength, 2000), keepAlive));
+		result.add(new Packet(createRoute(routeLength, 1), new PleaseUpdateRoute(true)));
+		result.add(new Packet(createRoute(routeLength, 1), Integer.valueOf(4711)));
+		
+		return result;
+	}
+	
+	private static Route createRoute(int length, int firstGateNumber)
+	{
+		Route route = new Route();
+		
+		for(int i = 0; i < length; i++) {
+			route.addLast(GateID.valueOf(firstGateNumber +i));
+		}
+		
+		return route;
+	}
+	
+	private static long rate(int number, long timeNanoSec)
+	{
+		return number *1000000000L / Math.max(1, timeNanoSec);
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.transfer.manager;
+
+import java.util.ArrayList;
+
+import net.rapi.Description;
+import net.rapi.properties.DatarateProperty;
+import net.rapi.properties.DelayProperty;
+import net.rapi.properties.MinMaxProperty.Limit;
+import net.rapi.properties.Property;
+
+import de.tuilmenau.ics.fog.facade.properties.InvalidProperty;
+import de.tuilmenau.ics.fog.facade.properties.TransportProperty;
+import de.tuilmenau.ics.fog.transfer.manager.RequirementsToGatesMapper.Word;
+
+
+/**
+ * Command line benchmark for the selection of gate solutions for the
+ * requirements of connections. It creates requirements for all
+ * combinations of the functional properties combined with different
+ * non-functional properties. For each of them, the solution from
+ * {@link RequirementsToGatesMapper#getSolutionFor} is compared with the
+ * result of a search through all solutions. Afterwards, the rate of
+ * selections is measured for both.
+ * 
+ * Functional properties from plug-ins can be added with their class names,
+ * if they have a constructor without parameters.
+ * 
+ * Usage: RequirementsMappingBenchmark [number of selections] [property class name]*
+ */
+public class RequirementsMappingBenchmark
+{
+	public static final int DEFAULT_SELECTIONS = 100000;
+	public static final int NUMBER_NON_FUNCTIONAL_VARIANTS = 64;
+	
+	
+	public static void main(String[] args) throws Exception
+	{
+		int selections = DEFAULT_SELECTIONS;
+		ArrayList<Property> properties = new ArrayList<Property>();
+		
+		properties.add(new TransportProperty(true, false));
+		properties.add(new InvalidProperty());
+		
+		try {
+			if(args.length > 0) selections = Integer.parseInt(args[0]);
+			
+			for(int i = 1; i < args.length; i++) {
+				properties.add((Property) Class.forName(args[i]).newInstance());
+			}
+		}
+		catch(NumberFormatException exc) {
+			System.err.println("Usage: " +RequirementsMappingBenchmark.class.getName() +" [number of selections] [property class name]*");
+			return;
+		}
+		
+		RequirementsToGatesMapper mapper = RequirementsToGatesMapper.getInstance(null);
+		ArrayList<Description> requirements = createRequirements(properties);
+		
+		System.out.println("Rule names: " +mapper.getRuleNames());
+		System.out.println("Requirements: " +requirements.size() +" combinations of " +properties);
+		
+		// check results of index and memo
+		int differences = 0;
+		for(Description requ : requirements) {
+			Word solution = mapper.getSolutionFor(requ);
+			
+			if(solution != mapper.searchSolutionFor(requ)) {
+				System.err.println("Different solutions for " +requ +": " +solution);
+				differences++;
+			}
+		}
+		System.out.println("Different solutions: " +differences);
+		
+		long start = System.nanoTime();
+		for(int i = 0; i < selections; i++) {
+			mapper.searchSolutionFor(requirements.get(i % requirements.size()));
+		}
+		long searchTime = System.nanoTime() -start;
+		
+		start = System.nanoTime();
+		for(int i = 0; i < selections; i++) {
+			mapper.getSolutionFor(requirements.get(i % requirements.size()));
+		}
+		long selectionTime = System.nanoTime() -start;
+		
+		System.out.println("Search: " +rate(selections, searchTime) +" selections per second");
+		System.out.println("Index and memo: " +rate(selections, selectionTime) +" selections per second");
+		System.out.println("Index hits: " +mapper.getIndexHits() +", memo hits: " +mapper.getMemoHits() +", memo misses: " +mapper.getMemoMisses());
+	}
+	
+	/**
+	 * Creates requirements for each subset of the properties combined with
+	 * different non-functional requirements.
+	 */
+	private static ArrayList<Description> createRequirements(ArrayList<Property> properties)
+	{
+		ArrayList<Description> result = new ArrayList<Description>();
+		
+		for(int subset = 0; subset < (1 << properties.size()); subset++) {
+			for(int variant = 0; variant < NUMBER_NON_FUNCTIONAL_VARIANTS; variant++) {
+				Description requ = new Description();
+				
+				for(int i = 0; i < properties.size(); i++) {
+					if((subset & (1 << i)) != 0) {
+						requ.set(properties.get(i));
+					}
+				}
+				
+				// no non-functional requirements for the first variant
+				if(variant > 0) {
+					requ.set(new DelayProperty(variant, Limit.MAX));
+					if(variant % 2 == 0) {
+						requ.set(new DatarateProperty(variant *1000, Limit.MIN));
+					}
+				}
+				
+				result.add(requ);
+			}
+		}
+		
+		return result;
+	}
+	
+	private static long rate(int number, long timeNanoSec)
+	{
+		return number *1000000000L / Math.max(1, timeNanoSec);
+	}
+}
@@ -78,6 +78,45 @@ public enum SimulatorMode {
 		public static final int REAL_TIME_GRANULARITY_MSEC = 5;
 		public static final double REAL_TIME_GRANULARITY_SEC = (double)REAL_TIME_GRANULARITY_MSEC / 1000.0d;
 		
+		/**
+		 * Enables the parallel execution of events in {@link SimulatorMode#FAST_SIM}.
+		 * Each autonomous system gets its own event queue and the queues are
+		 * processed by several threads in time windows. The width of a window
+		 * is limited by the minimal delay of the links between the autonomous
+		 * systems. Other modes ignore this flag.
+		 * 
+		 * The events are executed in the order of the sequential simulation
+		 * (see {@link de.tuilmenau.ics.fog.ParallelEventHandler}). Log messages
+		 * and statistic entries are written in this order, too. Buses between
+		 * autonomous systems, the routing services and the packet IDs are
+		 * accessed in this order. The random numbers of the simulation and
+		 * the buses depend on {@link Scenario#RANDOM_SEED}. Within these limits,
+		 * the results are the ones of the sequential simulation:
+		 * <ul>
+		 * <li>Events must not access objects of other autonomous systems
+		 *     directly, except for the shared objects listed above. In
+		 *     particular, topology changes affecting the nodes of other
+		 *     autonomous systems (e.g. attaching them to a bus or repairing a
+		 *     bus with observers in other autonomous systems) are not
+		 *     covered.</li>
+		 * <li>Plug-ins with own global state or own random number generators
+		 *     (e.g. hierarchical routing, BGP) are not covered.</li>
+		 * <li>Commands executed by other threads than the simulation (e.g.
+		 *     GUI, import with {@link Scenario#PARALLEL_IMPORT}) are ordered
+		 *     behind the last executed event. Identical results require to
+		 *     execute them with the same event order, e.g. as sequential
+		 *     import before the simulation starts or via scripts.</li>
+		 * <li>Outputs not written via the logger or the statistic writers
+		 *     (e.g. data streams for the GUI) are not ordered.</li>
+		 * </ul>
+		 */
+		public static final boolean PARALLEL_EXECUTION = false;
+		
+		/**
+		 * Number of threads for the parallel execution of events.
+		 */
+		public static final int PARALLEL_EXECUTION_THREADS = Runtime.getRuntime().availableProcessors();
+		
 		/**
 		 * Indicates if the OSGi container (e.g. Equinox) should be terminated
 		 * after last simulation was terminated. Termination is needed, if another
@@ -106,6 +145,13 @@ public enum SimulatorMode {
 		 */
 		public static final boolean LOG_WITH_DATE_AND_TIME = true;
 		
+		/**
+		 * Enables the asynchronous logging. Log events are put into a queue
+		 * and are passed to the log observers by a separate thread. Thus,
+		 * the simulation does not block on I/O operations of the observers.
+		 */
+		public static final boolean LOG_ASYNCHRONOUSLY = false;
+		
 		/**
 		 * Enable logging via Eclipse in full mode. If disabled, not all
 		 * consoles are created or turned on.
@@ -126,12 +172,28 @@ public enum SimulatorMode {
 		 */
 		public static final double PACKET_LOGGER_HISTORY_SEC = 20;
 		
+		/**
+		 * Enables the recording mode of the packet loggers. In this mode,
+		 * the loggers store soft references to the packets in ring buffers and
+		 * copy a packet only if its content is requested. Otherwise, each
+		 * packet is copied when it is logged.
+		 */
+		public static final boolean PACKET_LOGGER_RECORDING = false;
+		
 		/**
 		 * Enables statistic files, which are logging all packets
 		 * transfered in the network.
 		 */
 		public static final boolean WRITE_PACKET_STATISTIC = false;
 		
+		/**
+		 * Writes statistic files with a schema in a binary format instead
+		 * of CSV. The binary files can be converted to CSV with
+		 * {@link de.tuilmenau.ics.fog.util.BinaryStatisticReader}.
+		 * Set per simulation, e.g. by the launcher parameter "statistic.binary".
+		 */
+		public boolean WRITE_BINARY_STATISTIC = false;
+		
 		/**
 		 * Requests packets to be authenticated - currently only used for registration of passed nodes,
 		 * relocate configuration variable if additional authentication mechanisms appear
@@ -167,6 +229,15 @@ public enum SimulatorMode {
 		 */
 		public boolean ENABLE_PARTIAL_RS_IN_IMPORT = false;
 		
+		/**
+		 * Enables the parallel creation of the nodes and buses of
+		 * different AS while importing scenarios from files.
+		 * Node configurators have to be thread-safe. Only effective with
+		 * {@link Simulator#PARALLEL_EXECUTION}, since the AS share one
+		 * time base otherwise.
+		 */
+		public boolean PARALLEL_IMPORT = false;
+		
 		/**
 		 * Default value data rate for links in a scenario in
 		 * kbits per seconds. A negative value indicates infinite
@@ -205,6 +276,14 @@ public enum SimulatorMode {
 		 */
 		public int DEFAULT_BIT_ERROR_PROP = 0;
 		
+		/**
+		 * Seed for the random number generators of the simulation and the
+		 * buses. Each bus derives its own generator from the seed and its
+		 * name. Thus, the random numbers of a bus do not depend on the
+		 * order of execution of other buses.
+		 */
+		public long RANDOM_SEED = 0;
+		
 		/**
 		 * Name of the node configurator, which is configuring the
 		 * routing service in each node of a simulation.
@@ -309,6 +388,14 @@ public enum COST_METRIC {DELAY, BANDWIDTH, HOP_COUNT};
 		 */
 		public static final boolean ENABLE_NODE_RS_HIERARCHY_LEVEL = false;
 		
+		/**
+		 * Enables the compact routing engine for the route calculation of the
+		 * simulated routing service and the transfer plane. It converts the
+		 * graphs into primitive arrays, which are updated after topology changes.
+		 * If disabled, routes are calculated on the graph objects directly.
+		 */
+		public static final boolean COMPACT_ROUTING_ENGINE = false;
+		
 		/**
 		 * Indicates if a detector of a failure is aware of the root cause of the failure.
 		 * If, for example, a real node is broken, a detector might not be able to distinguish
@@ -481,5 +568,19 @@ public enum COST_METRIC {DELAY, BANDWIDTH, HOP_COUNT};
 		 * Do not use intermediate description of gates but use requirement of applications
 		 */
 		public static final boolean DONT_USE_INTERMEDIATE_DESCRIPTION = false;
+		
+		/**
+		 * Default size bound in bytes for coalescing small writes of an
+		 * application into a single packet. Zero disables the coalescing.
+		 * It can be enabled for single connections via
+		 * {@link de.tuilmenau.ics.fog.transfer.forwardingNodes.ConnectionEndPoint#setCoalescing}.
+		 */
+		public static final int COALESCING_MAX_BYTES = 0;
+		
+		/**
+		 * Default bound for the time in seconds (simulation time) the oldest
+		 * coalesced write waits before the collected writes are sent.
+		 */
+		public static final double COALESCING_MAX_DELAY_SEC = 0.01;
 	}
 }
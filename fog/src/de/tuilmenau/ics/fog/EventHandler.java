@@ -13,7 +13,9 @@
  ******************************************************************************/
 package de.tuilmenau.ics.fog;
 
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 import de.tuilmenau.ics.CommonSim.datastream.StreamTime;
 import de.tuilmenau.ics.fog.Config.Simulator;
@@ -45,6 +47,23 @@ public EventHandler()
 		}
 	}
 	
+	/**
+	 * Creates an event handler for a partition of a parallel simulation.
+	 * It does not start an own thread. The events are executed by the
+	 * worker threads of the coordinator.
+	 * 
+	 * @param pCoordinator Coordinator executing the partition (!= null)
+	 * @param pPartitionIndex Unique index of the partition
+	 */
+	EventHandler(ParallelEventHandler pCoordinator, int pPartitionIndex)
+	{
+		super("EventHandler-partition-" +pPartitionIndex);
+		
+		mCoordinator = pCoordinator;
+		mCurrentTime = 0;
+		mFastMode = true;
+	}
+	
 	/**
 	 * @return real-time system time stamp in seconds
 	 */
@@ -69,6 +88,16 @@ private void alignSimTimeWithSystemTime()
 	 */
 	public double now()
 	{
+		// Parallel simulation: The partition executing the current
+		// event defines the time for all partitions.
+		if(mCoordinator != null) {
+			EventHandler tPartition = sCurrentPartition.get();
+			
+			if((tPartition != null) && (tPartition.mCoordinator == mCoordinator)) {
+				return tPartition.mCurrentTime;
+			}
+		}
+		
 		return mCurrentTime;
 	}
 	
@@ -77,7 +106,7 @@ public double now()
 	 */
 	public StreamTime nowStream()
 	{
-		return new StreamTime(mCurrentTime);
+		return new StreamTime(now());
 	}
 	
 	/**
@@ -113,6 +142,12 @@ public IEventRef scheduleAt(double time, IEvent event)
 						mLogger.trace(this, "Scheduling " +event +" at " +time);
 					}
 					
+					// Parallel simulation: The position of the event is
+					// derived from the event or thread scheduling it.
+					if(mCoordinator != null) {
+						return schedulePartition(time, event);
+					}
+					
 					// Test if it is newer than the newest in queue. If so, we
 					// will have to wake up the event handling thread later
 					// on.
@@ -150,6 +185,13 @@ public IEventRef scheduleIn(double afterSeconds, IEvent event)
 		}			
 	}
 	
+	/**
+	 * Removes an event from the queue. The reference stores the position
+	 * of the event in the queue. Therefore, canceling does not need to
+	 * search the whole queue and costs O(log n) only.
+	 * 
+	 * @param event Reference returned by the schedule methods
+	 */
 	public void cancelEvent(IEventRef event)
 	{
 		boolean tRes;
@@ -158,6 +200,14 @@ public void cancelEvent(IEventRef event)
 			tRes = mEventQueue.remove(event);
 		}
 		
+		// Event not found? Maybe it was scheduled by another
+		// partition and is still waiting for the end of the window.
+		if(!tRes && (mCoordinator != null)) {
+			synchronized(mEventQueue) {
+				tRes = removeFromInbox(event);
+			}
+		}
+		
 		// Event not found? Maybe it is in the event queue of
 		// the step mode. Try to remove it from there.
 		if(!tRes) {
@@ -279,8 +329,319 @@ public void process()
 		}
 	}
 	
+	/**
+	 * Schedules an event in a partition of a parallel simulation. The order
+	 * of events with the same time has to be the one of the sequential
+	 * simulation. There, an event is ordered by the event scheduling it and
+	 * the number of schedule calls before during this event. If the
+	 * scheduling event was executed in the current time window, its rank
+	 * is not known yet and the new event refers to it. Events scheduled by
+	 * other threads (e.g. commands) are ordered behind all events executed
+	 * so far.
+	 * 
+	 * During a time window, events scheduled by other partitions or threads
+	 * are stored in the inbox and inserted after the window.
+	 */
+	private EventHolder schedulePartition(double time, IEvent event)
+	{
+		EventHolder res = new EventHolder(time, event);
+		EventHandler source = sCurrentPartition.get();
+		
+		if((source != null) && (source.mCoordinator == mCoordinator) && (source.mCurrentEvent != null)) {
+			EventHolder tCause = source.mCurrentEvent;
+			
+			if(tCause.mRank != UNRANKED) {
+				res.mId = tCause.mRank;
+			} else {
+				res.mParent = tCause;
+			}
+			res.mSub = source.mScheduledCounter++;
+		} else {
+			// scheduled by some thread outside the simulation
+			source = null;
+			res.mId = UNRANKED;
+			res.mSub = mCoordinator.getNextExternalSequence();
+		}
+		
+		if(mCoordinator.isExecutingWindow() && (source != this)) {
+			mInbox.add(res);
+		} else {
+			if(source == null) {
+				res.mId = mCoordinator.getLastRank();
+			}
+			mEventQueue.insert(res);
+		}
+		
+		return res;
+	}
+	
+	/**
+	 * Has to be called by an event before it accesses state shared by
+	 * several partitions of a parallel simulation (e.g. the global routing
+	 * service or a bus connecting partitions). During a time window, the
+	 * method blocks until the other partitions executed all events preceding
+	 * the current one in the order of the sequential simulation. Events of
+	 * other partitions calling this method later on have to wait until the
+	 * current event is finished. Thus, the shared state is accessed in the
+	 * same order as in the sequential simulation.
+	 * 
+	 * The caller must not hold locks, which events of other partitions might
+	 * request. Events, which other partitions might cancel, should implement
+	 * {@link ISharedStateEvent} instead. In sequential simulations and for
+	 * threads not executing events, the method returns immediately.
+	 * 
+	 * @return true, if the caller executes an event of a parallel simulation
+	 */
+	public static boolean accessSharedState()
+	{
+		EventHandler tPartition = sCurrentPartition.get();
+		
+		if((tPartition != null) && (tPartition.mCurrentEvent != null)) {
+			if(!tPartition.mSharedAccess) {
+				if(tPartition.mCoordinator.isExecutingWindow()) {
+					tPartition.mCoordinator.waitForTurn(tPartition, tPartition.mCurrentEvent);
+				}
+				tPartition.mSharedAccess = true;
+			}
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * @return true, if outputs of the current thread have to be passed to {@link #deferOutput(Runnable)}
+	 */
+	public static boolean isOutputDeferred()
+	{
+		EventHandler tPartition = sCurrentPartition.get();
+		
+		return (tPartition != null) && (tPartition.mCurrentEvent != null) && tPartition.mCoordinator.isExecutingWindow();
+	}
+	
+	/**
+	 * Defers an output (e.g. a log message or a statistic entry) of the current
+	 * event of a parallel simulation until the end of the time window. Then,
+	 * the outputs of all partitions are executed in the order of their events
+	 * in the sequential simulation. Outside of a time window, the output is
+	 * executed immediately.
+	 * 
+	 * @param pOutput Output operation (!= null)
+	 */
+	public static void deferOutput(Runnable pOutput)
+	{
+		if(isOutputDeferred()) {
+			EventHolder tEvent = sCurrentPartition.get().mCurrentEvent;
+			
+			if(tEvent.mOutputs == null) {
+				tEvent.mOutputs = new ArrayList<Runnable>();
+			}
+			tEvent.mOutputs.add(pOutput);
+		} else {
+			pOutput.run();
+		}
+	}
+	
+	private boolean removeFromInbox(IEventRef event)
+	{
+		for(int i = 0; i < mInbox.size(); i++) {
+			if(mInbox.get(i) == event) {
+				mInbox.remove(i);
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Inserts the events scheduled by other partitions and threads during
+	 * the last time window into the event queue. The ranks of the events
+	 * executed in the window are known now. Thus, the positions of the
+	 * inserted events are resolved and do not depend on the thread
+	 * scheduling.
+	 * 
+	 * @param pWindowEnd End time of the last window; events before violate the lookahead
+	 * @param pLastRank Rank of the last event executed so far
+	 */
+	void flushInbox(double pWindowEnd, long pLastRank)
+	{
+		synchronized(mEventQueue) {
+			if(!mInbox.isEmpty()) {
+				for(EventHolder event : mInbox) {
+					event.resolve(pLastRank);
+					
+					if(event.mTime < pWindowEnd) {
+						mLogger.err(this, "Event " +event +" from another partition violates lookahead by " +((pWindowEnd -event.mTime) *1000.0d) +" msec. Delaying it to end of window.");
+						event.mTime = pWindowEnd;
+					}
+					
+					mEventQueue.insert(event);
+				}
+				
+				mInbox.clear();
+			}
+		}
+	}
+	
+	/**
+	 * Executes all events of a partition, which are scheduled before the end
+	 * of the time window. Method is called by the worker threads of the
+	 * coordinator. The executed events are recorded, because their ranks
+	 * are determined at the end of the window.
+	 * 
+	 * @param pWindowEnd End of the time window (exclusive)
+	 * @return Number of executed events
+	 */
+	int processWindow(double pWindowEnd)
+	{
+		int tCounter = 0;
+		
+		mExecutingThread = Thread.currentThread();
+		sCurrentPartition.set(this);
+		try {
+			while(!mExit) {
+				EventHolder tEvent;
+				
+				synchronized(mEventQueue) {
+					tEvent = mEventQueue.peek();
+					
+					if((tEvent != null) && (tEvent.mTime >= pWindowEnd)) {
+						tEvent = null;
+					}
+				}
+				
+				// inform partitions waiting for access to shared state
+				mCoordinator.setProgress(this, tEvent);
+				if(tEvent == null) break;
+				
+				boolean tSharedAccess = false;
+				if(tEvent.mEvent instanceof ISharedStateEvent) {
+					// Wait before taking the event from the queue, since
+					// preceding events of other partitions might cancel it.
+					mCoordinator.waitForTurn(this, tEvent);
+					tSharedAccess = true;
+				}
+				
+				synchronized(mEventQueue) {
+					if(mEventQueue.peek() != tEvent) {
+						// event was canceled meanwhile
+						continue;
+					}
+					
+					mEventQueue.poll();
+				}
+				
+				tEvent.mExecutor = this;
+				tEvent.mExecSeq = mExecuted.size();
+				mExecuted.add(tEvent);
+				
+				mSharedAccess = tSharedAccess;
+				executeEvent(tEvent);
+				tCounter++;
+			}
+		}
+		finally {
+			mCoordinator.setProgress(this, null);
+			sCurrentPartition.set(null);
+			mExecutingThread = null;
+		}
+		
+		return tCounter;
+	}
+	
+	/**
+	 * Executes the next event of the partition with a known rank. Method is
+	 * called by the coordinator executing the events of all partitions one
+	 * after the other in the order of the sequential simulation.
+	 * 
+	 * @param pRank Rank of the event in the order of the sequential simulation
+	 */
+	void processNextEvent(long pRank)
+	{
+		EventHolder tEvent;
+		
+		synchronized(mEventQueue) {
+			tEvent = mEventQueue.poll();
+		}
+		
+		if(tEvent != null) {
+			tEvent.mRank = pRank;
+			
+			mExecutingThread = Thread.currentThread();
+			sCurrentPartition.set(this);
+			try {
+				executeEvent(tEvent);
+			}
+			finally {
+				sCurrentPartition.set(null);
+				mExecutingThread = null;
+			}
+		}
+	}
+	
+	/**
+	 * @return Events executed during the last time window in the order of their execution
+	 */
+	ArrayList<EventHolder> takeExecutedEvents()
+	{
+		ArrayList<EventHolder> tRes = mExecuted;
+		
+		mExecuted = new ArrayList<EventHolder>();
+		return tRes;
+	}
+	
+	/**
+	 * Sets the time of a partition to the time of the last event executed
+	 * by any partition. Method is called by the coordinator between windows.
+	 */
+	void advanceTime(double pTime)
+	{
+		synchronized(mEventQueue) {
+			setNewTime(pTime);
+		}
+	}
+	
+	/**
+	 * Informs the event handler about a link to another partition of a
+	 * parallel simulation. Events scheduled via this link for the other
+	 * partition are at least the delay in the future. In sequential mode,
+	 * the information is not needed and ignored.
+	 * 
+	 * @param pDelaySec Minimal delay of the link in seconds
+	 */
+	public void announceLookahead(double pDelaySec)
+	{
+		if(mCoordinator != null) {
+			mCoordinator.announceLookahead(pDelaySec);
+		}
+	}
+	
+	/**
+	 * @return Time of the next event in the queue or infinity, if queue is empty
+	 */
+	double getNextEventTime()
+	{
+		synchronized(mEventQueue) {
+			return getNewestEventTime();
+		}
+	}
+	
+	/**
+	 * @return Next event in the queue or null, if queue is empty
+	 */
+	EventHolder peekNextEvent()
+	{
+		synchronized(mEventQueue) {
+			return mEventQueue.peek();
+		}
+	}
+	
 	public void setFastMode(boolean pFastMode)
 	{
+		// partitions are always executed as fast as possible
+		if(mCoordinator != null) return;
+		
 		synchronized (mEventQueue) {
 			boolean tSlowDown = mFastMode && !pFastMode;
 
@@ -302,6 +663,10 @@ public boolean isInFastMode()
 	 */
 	public boolean inEventThread()
 	{
+		if(mCoordinator != null) {
+			return (Thread.currentThread() == mExecutingThread);
+		}
+		
 		if(Simulator.MODE == SimulatorMode.STEP_SIM) return true;
 		
 		return (Thread.currentThread() == this);
@@ -309,6 +674,12 @@ public boolean inEventThread()
 	
 	public synchronized void pause(boolean pPausing)
 	{
+		// all partitions are paused together
+		if(mCoordinator != null) {
+			mCoordinator.pause(pPausing);
+			return;
+		}
+		
 		synchronized (mEventQueue) {
 			// do we start again after a pause?
 			if(mPaused && !pPausing) {
@@ -326,6 +697,10 @@ public synchronized void pause(boolean pPausing)
 	
 	public boolean isPaused()
 	{
+		if(mCoordinator != null) {
+			return mCoordinator.isPaused();
+		}
+		
 		return mPaused;
 	}
 	
@@ -333,6 +708,16 @@ public void exit()
 	{
 		mExit = true;
 		
+		if(mCoordinator != null) {
+			mCoordinator.exit();
+			
+			synchronized(mEventQueue) {
+				mEventQueue.clear();
+				mInbox.clear();
+			}
+			return;
+		}
+		
 		try {
 			// if the event thread itself called the exit method,
 			// we do not need to wait.
@@ -350,6 +735,11 @@ public void exit()
 	
 	public void waitForEmptyQueue()
 	{
+		if(mCoordinator != null) {
+			mCoordinator.waitForEmptyQueues();
+			return;
+		}
+		
 		while(!mEventQueue.isEmpty()) {
 			// run time command automatically until queue is empty,
 			// if there is no event handle thread active
@@ -394,6 +784,9 @@ private void executeEvent(EventHolder event)
 		// the event execution.
 		setNewTime(event.mTime);
 		
+		// reference for events scheduled by this one (parallel mode)
+		mCurrentEvent = event;
+		mScheduledCounter = 0;
 		try {
 			if(DEBUG_OUTPUT) {
 				mLogger.trace(this, now() +" - firing " +event.mEvent);
@@ -405,6 +798,10 @@ private void executeEvent(EventHolder event)
 			// do not call toString because that might be the reason for the exception
 			mLogger.err(this, "Exception in event " +event.mEvent.getClass(), exc);
 		}
+		finally {
+			mCurrentEvent = null;
+			mSharedAccess = false;
+		}
 	}
 	
 	/**
@@ -440,17 +837,64 @@ private long toMSec(double seconds)
 	 * It is used as implementation of the IEventRef needed
 	 * as result of the schedule operation.
 	 */
-	private static class EventHolder implements Comparable<EventHolder>, IEventRef
+	static class EventHolder implements Comparable<EventHolder>, IEventRef
 	{
-		private final double mTime;
+		private double mTime;
 		private final IEvent mEvent;
-		static long mGlobalId = 0;
+		
+		// Position among events with the same time. In sequential mode, mId is
+		// a global sequence number. In parallel mode, mId is the rank of the
+		// event scheduling this one and mSub the number of the schedule call
+		// during that event. As long as the rank is not known, mParent refers
+		// to the scheduling event.
 		long mId = 0;
+		long mSub = 0;
+		EventHolder mParent = null;
+		
+		// position in the heap array of the queue; -1 if not queued
+		int mIndex = -1;
+		
+		// parallel mode: rank in the order of the sequential simulation, which
+		// is known after the time window; partition and sequence number of the
+		// execution during the window
+		long mRank = UNRANKED;
+		EventHandler mExecutor = null;
+		long mExecSeq = 0;
+		
+		// outputs deferred until the end of the time window
+		ArrayList<Runnable> mOutputs = null;
 		
 		public EventHolder(double time, IEvent event) {
 			mTime  = time;
 			mEvent = event;
-			mId = ++mGlobalId;
+		}
+		
+		double getTime()
+		{
+			return mTime;
+		}
+		
+		IEvent getEvent()
+		{
+			return mEvent;
+		}
+		
+		/**
+		 * Replaces the reference to the scheduling event by its rank after
+		 * the time window it was executed in. Events scheduled by threads
+		 * outside the simulation are ordered behind the given rank.
+		 * 
+		 * @param pLastRank Rank of the last event executed so far
+		 */
+		void resolve(long pLastRank)
+		{
+			if(mParent != null) {
+				mId = mParent.mRank;
+				mParent = null;
+			}
+			else if(mId == UNRANKED) {
+				mId = pLastRank;
+			}
 		}
 
 		@Override
@@ -472,23 +916,54 @@ public boolean equals(Object o)
 
 		@Override
 		public int compareTo(EventHolder o) {
-			if (this.mTime < o.mTime) {
-				return -1;
-			}
-			else if (this.mTime > o.mTime) {
-				return 1;
-			}
-			else {
-				if (this.mId < o.mId) {
+			EventHolder a = this;
+			EventHolder b = o;
+			
+			// Events with the same time are ordered by their scheduling events.
+			// Scheduling events without rank were executed in the current
+			// window of a parallel simulation and are compared in turn.
+			while(true) {
+				if (a.mTime < b.mTime) {
 					return -1;
 				}
-				else if (this.mId > o.mId) {
+				else if (a.mTime > b.mTime) {
 					return 1;
 				}
-				else {
-					Logging.getInstance().err(null, "We should never reach this point but we did!");
-					return 0;
+				
+				long aId = (a.mParent != null) ? a.mParent.mRank : a.mId;
+				long bId = (b.mParent != null) ? b.mParent.mRank : b.mId;
+				
+				if((aId != UNRANKED) && (bId != UNRANKED)) {
+					if(aId != bId) {
+						return (aId < bId) ? -1 : 1;
+					}
+					break;
 				}
+				
+				// events executed in the window follow all ranked ones
+				if(aId != UNRANKED) return -1;
+				if(bId != UNRANKED) return 1;
+				
+				if(a.mParent == b.mParent) {
+					break;
+				}
+				if(a.mParent.mExecutor == b.mParent.mExecutor) {
+					return (a.mParent.mExecSeq < b.mParent.mExecSeq) ? -1 : 1;
+				}
+				
+				a = a.mParent;
+				b = b.mParent;
+			}
+			
+			if (a.mSub < b.mSub) {
+				return -1;
+			}
+			else if (a.mSub > b.mSub) {
+				return 1;
+			}
+			else {
+				Logging.getInstance().err(null, "We should never reach this point but we did!");
+				return 0;
 			}
 		}
 		
@@ -499,6 +974,174 @@ public String toString()
 		}
 	}
 	
+	/**
+	 * Binary min-heap for events ordered by time. Events with equal time
+	 * are ordered by their creation sequence (FIFO). In contrast to the
+	 * java.util.PriorityQueue, each event knows its position in the heap.
+	 * That enables the removal of an event in O(log n) without a linear
+	 * search and without calling equals on the events.
+	 * 
+	 * The class is not synchronized. The event handler synchronizes the
+	 * access to it.
+	 */
+	static class EventQueue
+	{
+		public int size()
+		{
+			return mSize;
+		}
+		
+		public boolean isEmpty()
+		{
+			return mSize == 0;
+		}
+		
+		public void add(EventHolder event)
+		{
+			// sequence number ordering events with same time (FIFO)
+			event.mId = sLastId.incrementAndGet();
+			insert(event);
+		}
+		
+		/**
+		 * Inserts an event without assigning a sequence number. It is used
+		 * in parallel mode, where the position is derived from the event
+		 * scheduling it.
+		 */
+		public void insert(EventHolder event)
+		{
+			if(mSize >= mHeap.length) {
+				mHeap = Arrays.copyOf(mHeap, mHeap.length *2);
+			}
+			
+			mSize++;
+			siftUp(mSize -1, event);
+		}
+		
+		public EventHolder peek()
+		{
+			if(mSize > 0) return mHeap[0];
+			else return null;
+		}
+		
+		public EventHolder poll()
+		{
+			if(mSize > 0) {
+				EventHolder res = mHeap[0];
+				
+				removeAt(0);
+				return res;
+			} else {
+				return null;
+			}
+		}
+		
+		/**
+		 * Removes an event from the queue, if it is stored in this queue.
+		 * 
+		 * @param ref Reference to the event
+		 * @return true, if the event was removed; false if it was not in the queue
+		 */
+		public boolean remove(IEventRef ref)
+		{
+			if(ref instanceof EventHolder) {
+				int index = ((EventHolder) ref).mIndex;
+				
+				// check if the event is really stored in this queue
+				if((index >= 0) && (index < mSize) && (mHeap[index] == ref)) {
+					removeAt(index);
+					return true;
+				}
+			}
+			
+			return false;
+		}
+		
+		public void clear()
+		{
+			for(int i = 0; i < mSize; i++) {
+				mHeap[i].mIndex = -1;
+				mHeap[i] = null;
+			}
+			mSize = 0;
+		}
+		
+		private void removeAt(int index)
+		{
+			EventHolder removed = mHeap[index];
+			
+			mSize--;
+			if(index != mSize) {
+				EventHolder last = mHeap[mSize];
+				mHeap[mSize] = null;
+				
+				siftDown(index, last);
+				if(mHeap[index] == last) {
+					siftUp(index, last);
+				}
+			} else {
+				mHeap[mSize] = null;
+			}
+			
+			removed.mIndex = -1;
+		}
+		
+		private void siftUp(int index, EventHolder event)
+		{
+			while(index > 0) {
+				int parent = (index -1) >>> 1;
+				EventHolder parentEvent = mHeap[parent];
+				
+				if(event.compareTo(parentEvent) >= 0) break;
+				
+				mHeap[index] = parentEvent;
+				parentEvent.mIndex = index;
+				index = parent;
+			}
+			
+			mHeap[index] = event;
+			event.mIndex = index;
+		}
+		
+		private void siftDown(int index, EventHolder event)
+		{
+			int half = mSize >>> 1;
+			
+			while(index < half) {
+				int child = (index << 1) +1;
+				int right = child +1;
+				EventHolder childEvent = mHeap[child];
+				
+				if((right < mSize) && (childEvent.compareTo(mHeap[right]) > 0)) {
+					child = right;
+					childEvent = mHeap[right];
+				}
+				
+				if(event.compareTo(childEvent) <= 0) break;
+				
+				mHeap[index] = childEvent;
+				childEvent.mIndex = index;
+				index = child;
+			}
+			
+			mHeap[index] = event;
+			event.mIndex = index;
+		}
+		
+		private EventHolder[] mHeap = new EventHolder[INITIAL_CAPACITY];
+		private int mSize = 0;
+		
+		private static final AtomicLong sLastId = new AtomicLong();
+		
+		private static final int INITIAL_CAPACITY = 256;
+	}
+	
+	/**
+	 * Rank of events, which were not executed or are executed in the
+	 * current time window of a parallel simulation
+	 */
+	static final long UNRANKED = -1;
+	
 	private static final double EVENT_HANDLER_DELAY_SEC = ((double)Config.Simulator.REAL_TIME_GRANULARITY_MSEC) / 1000.0d;
 	
 	// flag for terminating the real time event execution
@@ -523,12 +1166,42 @@ public String toString()
 	private double mSystemTimeOffsetSec = 0;
 	
 	// event queue
-	private PriorityQueue<EventHolder> mEventQueue = new PriorityQueue<EventHolder>();
+	private EventQueue mEventQueue = new EventQueue();
 	
 	// event queue for the step mode
-	private PriorityQueue<EventHolder> mStepModeEventQueue = null;
+	private EventQueue mStepModeEventQueue = null;
 	
 	// logger for output of event handling
 	private Logger mLogger = Logging.getInstance();
+	
+	//
+	// Parallel execution (all null/empty for sequential mode)
+	//
+	
+	// partition executed by the current worker thread
+	private static final ThreadLocal<EventHandler> sCurrentPartition = new ThreadLocal<EventHandler>();
+	
+	private ParallelEventHandler mCoordinator = null;
+	
+	// worker thread executing the current time window of this partition
+	private volatile Thread mExecutingThread = null;
+	
+	// event executed currently by this partition
+	private EventHolder mCurrentEvent = null;
+	
+	// number of events scheduled by the current event
+	private long mScheduledCounter = 0;
+	
+	// indicates if the current event got access to shared state
+	private boolean mSharedAccess = false;
+	
+	// events executed during the current time window
+	private ArrayList<EventHolder> mExecuted = new ArrayList<EventHolder>();
+	
+	// current or next event during a time window; null if the partition finished the window
+	volatile EventHolder mProgress = null;
+	
+	// events scheduled by other partitions during the current time window
+	private ArrayList<EventHolder> mInbox = new ArrayList<EventHolder>();
 
 }
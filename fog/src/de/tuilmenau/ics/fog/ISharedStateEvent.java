@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog;
+
+
+/**
+ * Event accessing state shared by several partitions of a parallel
+ * simulation (e.g. the global routing service). The partition executes
+ * the event after all preceding events of other partitions in the order
+ * of the sequential simulation (see {@link EventHandler#accessSharedState()}).
+ * In contrast to calling that method, the event stays in the queue while
+ * waiting. Thus, preceding events of other partitions are able to cancel it.
+ * In sequential simulations, such events are handled like all others.
+ */
+public interface ISharedStateEvent extends IEvent
+{
+}
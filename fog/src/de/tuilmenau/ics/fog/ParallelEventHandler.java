@@ -0,0 +1,552 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.tuilmenau.ics.fog.EventHandler.EventHolder;
+import de.tuilmenau.ics.fog.util.Logger;
+
+
+/**
+ * Coordinates the conservative parallel execution of several event handlers.
+ *
+ * Each partition (e.g. an autonomous system) has its own event handler with
+ * its own event queue. The coordinator executes the partitions in time
+ * windows. Within a window, all partitions process their events in parallel.
+ * The width of a window is limited by the lookahead, which is the minimal
+ * delay of all links between partitions. Therefore, an event scheduled by one
+ * partition for another one is always behind the end of the current window.
+ * Such events are collected and inserted in the target queue at the end of
+ * the window.
+ *
+ * The events are executed in the order of the sequential simulation. Each
+ * event has a rank in this order. Events with the same time are ordered by
+ * the rank of the event scheduling them (see {@link EventHolder}). The ranks
+ * of the events executed in a window are determined at the end of the window
+ * by merging the events of all partitions. Outputs of the events (e.g. log
+ * messages) are deferred until their ranks are known. Events accessing state
+ * shared by several partitions wait for their turn in the global order (see
+ * {@link EventHandler#accessSharedState()}). Without lookahead, the
+ * coordinator executes the events one after the other in the global order.
+ *
+ * The coordinator executes the events as fast as possible. A real time mode
+ * is not supported.
+ */
+public class ParallelEventHandler extends Thread
+{
+	/**
+	 * Upper limit for the width of a window, if no links between partitions
+	 * are known. It keeps the partitions roughly synchronized and enables the
+	 * coordinator to react on pause and exit requests.
+	 */
+	private static final double MAX_WINDOW_SEC = 1.0d;
+	
+	private static final long WAIT_FOR_EVENTS_MSEC = Config.Simulator.REAL_TIME_GRANULARITY_MSEC;
+	
+	/**
+	 * Events scheduled by threads outside the simulation are ordered behind
+	 * all events scheduled by the last executed event. Their sequence
+	 * numbers start above the number of schedule calls of any event.
+	 */
+	private static final long EXTERNAL_SEQUENCE = 1L << 40;
+	
+	
+	public ParallelEventHandler(Logger pLogger, int pNumberThreads)
+	{
+		super("ParallelEventHandler");
+		
+		mLogger = pLogger;
+		
+		// Each partition of a window gets its own thread, because partitions
+		// waiting for access to shared state must not block the ones they
+		// are waiting for. The permits limit the number of partitions
+		// executing events at the same time.
+		mExecutor = Executors.newCachedThreadPool();
+		mPermits = new Semaphore(Math.max(1, pNumberThreads));
+		
+		start();
+	}
+	
+	/**
+	 * Creates a new partition with its own event queue.
+	 *
+	 * @return Event handler for the new partition (!= null)
+	 */
+	public synchronized EventHandler createPartition()
+	{
+		EventHandler partition = new EventHandler(this, mPartitions.size());
+		
+		mPartitions.add(partition);
+		return partition;
+	}
+	
+	/**
+	 * Informs the coordinator about a link between two partitions. The
+	 * lookahead of the coordinator is the minimum of all link delays.
+	 *
+	 * @param pDelaySec Minimal delay of the link in seconds (0 disables the parallel execution of windows)
+	 */
+	public synchronized void announceLookahead(double pDelaySec)
+	{
+		if(pDelaySec < mLookaheadSec) {
+			mLogger.info(this, "Reducing lookahead from " +mLookaheadSec +" sec to " +pDelaySec +" sec");
+			mLookaheadSec = Math.max(0, pDelaySec);
+		}
+	}
+	
+	/**
+	 * @return Lookahead in seconds (might be infinity, if no links between partitions are known)
+	 */
+	public synchronized double getLookahead()
+	{
+		return mLookaheadSec;
+	}
+	
+	/**
+	 * @return Number of time windows executed
+	 */
+	public long getWindowCounter()
+	{
+		return mWindowCounter;
+	}
+	
+	/**
+	 * @return true, if the partitions are currently processing a time window
+	 */
+	boolean isExecutingWindow()
+	{
+		return mExecutingWindow;
+	}
+	
+	/**
+	 * @return Rank of the last event with a known rank
+	 */
+	long getLastRank()
+	{
+		return mLastRank;
+	}
+	
+	/**
+	 * @return Sequence number for an event scheduled by a thread outside the simulation
+	 */
+	long getNextExternalSequence()
+	{
+		return mExternalCounter.incrementAndGet();
+	}
+	
+	/**
+	 * Updates the progress of a partition during a time window and wakes up
+	 * partitions waiting for it.
+	 * 
+	 * @param pPartition Partition executing the window
+	 * @param pEvent Current or next event of the partition; null if the partition finished the window
+	 */
+	void setProgress(EventHandler pPartition, EventHolder pEvent)
+	{
+		pPartition.mProgress = pEvent;
+		
+		if(mWaiting > 0) {
+			synchronized(mProgressLock) {
+				mProgressLock.notifyAll();
+			}
+		}
+	}
+	
+	/**
+	 * Blocks the calling partition until all other partitions executed
+	 * the events preceding the given one in the order of the sequential
+	 * simulation. The permit of the caller is released while waiting.
+	 * Thus, the partitions it is waiting for are able to proceed.
+	 * 
+	 * @param pPartition Partition of the caller
+	 * @param pEvent Current or next event of the caller
+	 */
+	void waitForTurn(EventHandler pPartition, EventHolder pEvent)
+	{
+		if(isTurn(pPartition, pEvent)) return;
+		
+		mPermits.release();
+		try {
+			synchronized(mProgressLock) {
+				mWaiting++;
+				try {
+					while(!mExit && !isTurn(pPartition, pEvent)) {
+						mProgressLock.wait();
+					}
+				}
+				catch(InterruptedException tExc) {
+					mLogger.err(this, "Interrupted while " +pPartition +" waits for access to shared state.", tExc);
+				}
+				finally {
+					mWaiting--;
+				}
+			}
+		}
+		finally {
+			mPermits.acquireUninterruptibly();
+		}
+	}
+	
+	private boolean isTurn(EventHandler pPartition, EventHolder pEvent)
+	{
+		for(EventHandler partition : mWindowPartitions) {
+			if(partition != pPartition) {
+				EventHolder tProgress = partition.mProgress;
+				
+				if((tProgress != null) && (tProgress.compareTo(pEvent) < 0)) {
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public void run()
+	{
+		while(!mExit) {
+			if(!mPaused) {
+				try {
+					EventHandler[] tPartitions = getPartitions();
+					
+					// insert events exchanged during last window
+					for(EventHandler partition : tPartitions) {
+						partition.flushInbox(mLastWindowEnd, mLastRank);
+					}
+					
+					double tStart = Double.POSITIVE_INFINITY;
+					for(EventHandler partition : tPartitions) {
+						tStart = Math.min(tStart, partition.getNextEventTime());
+					}
+					
+					if(!Double.isInfinite(tStart)) {
+						executeWindow(tPartitions, tStart);
+					} else {
+						// no events at all; wait for new ones from outside
+						synchronized(this) {
+							wait(WAIT_FOR_EVENTS_MSEC);
+						}
+					}
+				}
+				catch(Exception exc) {
+					mLogger.err(this, "Fatal exception in parallel event loop.", exc);
+				}
+			} else {
+				// event execution paused
+				// -> wait for some time and check condition again
+				synchronized(this) {
+					if(mPaused) {
+						try {
+							wait(WAIT_FOR_EVENTS_MSEC);
+						} catch (InterruptedException tExc) {
+							// ignore it and continue
+						}
+					}
+				}
+			}
+		}
+		
+		mExecutor.shutdown();
+	}
+	
+	/**
+	 * Executes one time window starting with the earliest event of all partitions.
+	 */
+	private void executeWindow(EventHandler[] pPartitions, double pStart) throws InterruptedException, ExecutionException
+	{
+		double tLookahead = Math.min(getLookahead(), MAX_WINDOW_SEC);
+		
+		if(tLookahead > 0) {
+			final double tEnd = pStart +tLookahead;
+			LinkedList<EventHandler> tActive = new LinkedList<EventHandler>();
+			
+			// progress of all partitions has to be known before the first one starts
+			for(EventHandler partition : pPartitions) {
+				EventHolder tNext = partition.peekNextEvent();
+				
+				if((tNext != null) && (tNext.getTime() < tEnd)) {
+					partition.mProgress = tNext;
+					tActive.add(partition);
+				} else {
+					partition.mProgress = null;
+				}
+			}
+			
+			mWindowPartitions = pPartitions;
+			mExecutingWindow = true;
+			try {
+				if(tActive.size() == 1) {
+					// no need to involve other threads
+					processWindow(tActive.getFirst(), tEnd);
+				} else {
+					LinkedList<Callable<Integer>> tTasks = new LinkedList<Callable<Integer>>();
+					
+					for(final EventHandler partition : tActive) {
+						tTasks.add(new Callable<Integer>() {
+							@Override
+							public Integer call()
+							{
+								return processWindow(partition, tEnd);
+							}
+						});
+					}
+					
+					for(Future<Integer> result : mExecutor.invokeAll(tTasks)) {
+						// re-throws exceptions of the workers
+						result.get();
+					}
+				}
+			}
+			finally {
+				mExecutingWindow = false;
+			}
+			
+			rankExecutedEvents(pPartitions);
+			mLastWindowEnd = tEnd;
+		} else {
+			// Without lookahead, an event might schedule events for other
+			// partitions with the same time. Execute the events with this
+			// time one after the other in the order of the sequential
+			// simulation.
+			while(!mExit) {
+				EventHandler tNext = null;
+				EventHolder tNextEvent = null;
+				
+				for(EventHandler partition : pPartitions) {
+					EventHolder tEvent = partition.peekNextEvent();
+					
+					if((tEvent != null) && (tEvent.getTime() <= pStart)) {
+						if((tNextEvent == null) || (tEvent.compareTo(tNextEvent) < 0)) {
+							tNext = partition;
+							tNextEvent = tEvent;
+						}
+					}
+				}
+				
+				if(tNext == null) break;
+				
+				mLastRank++;
+				tNext.processNextEvent(mLastRank);
+			}
+			
+			for(EventHandler partition : pPartitions) {
+				partition.advanceTime(pStart);
+			}
+			mLastWindowEnd = pStart;
+		}
+		
+		mWindowCounter++;
+	}
+	
+	private int processWindow(EventHandler pPartition, double pWindowEnd)
+	{
+		mPermits.acquireUninterruptibly();
+		try {
+			return pPartition.processWindow(pWindowEnd);
+		}
+		finally {
+			mPermits.release();
+		}
+	}
+	
+	/**
+	 * Determines the ranks of the events executed in the last window by
+	 * merging the events of all partitions. Afterwards, the outputs of the
+	 * events are executed in the order of their ranks.
+	 */
+	private void rankExecutedEvents(EventHandler[] pPartitions)
+	{
+		PriorityQueue<ExecutedEvents> tMerge = new PriorityQueue<ExecutedEvents>();
+		double tLastTime = -1;
+		
+		for(EventHandler partition : pPartitions) {
+			ExecutedEvents tEvents = new ExecutedEvents(partition.takeExecutedEvents());
+			
+			if(tEvents.hasNext()) {
+				tMerge.add(tEvents);
+			}
+		}
+		
+		// The rank of the first events of all partitions only depends on the
+		// ranks of earlier windows. The rank of each following event depends
+		// on events, which are ranked before.
+		while(!tMerge.isEmpty()) {
+			ExecutedEvents tEvents = tMerge.poll();
+			EventHolder tEvent = tEvents.next();
+			
+			mLastRank++;
+			tEvent.mRank = mLastRank;
+			tEvent.resolve(mLastRank);
+			tLastTime = tEvent.getTime();
+			
+			if(tEvent.mOutputs != null) {
+				for(Runnable output : tEvent.mOutputs) {
+					try {
+						output.run();
+					}
+					catch(Exception tExc) {
+						mLogger.err(this, "Exception in deferred output of event " +tEvent, tExc);
+					}
+				}
+				tEvent.mOutputs = null;
+			}
+			
+			if(tEvents.hasNext()) {
+				tMerge.add(tEvents);
+			}
+		}
+		
+		// all partitions continue with the time of the sequential simulation
+		if(tLastTime >= 0) {
+			for(EventHandler partition : pPartitions) {
+				partition.advanceTime(tLastTime);
+			}
+		}
+	}
+	
+	/**
+	 * Events executed by a partition during a window; ordered by the next event
+	 */
+	private static class ExecutedEvents implements Comparable<ExecutedEvents>
+	{
+		public ExecutedEvents(ArrayList<EventHolder> pEvents)
+		{
+			mEvents = pEvents;
+		}
+		
+		public boolean hasNext()
+		{
+			return mNext < mEvents.size();
+		}
+		
+		public EventHolder next()
+		{
+			return mEvents.get(mNext++);
+		}
+		
+		@Override
+		public int compareTo(ExecutedEvents pOther)
+		{
+			return mEvents.get(mNext).compareTo(pOther.mEvents.get(pOther.mNext));
+		}
+		
+		private ArrayList<EventHolder> mEvents;
+		private int mNext = 0;
+	}
+	
+	private synchronized EventHandler[] getPartitions()
+	{
+		return mPartitions.toArray(new EventHandler[mPartitions.size()]);
+	}
+	
+	public synchronized void pause(boolean pPausing)
+	{
+		mPaused = pPausing;
+		
+		// inform threads waiting for resuming
+		if(!mPaused) {
+			notifyAll();
+		}
+	}
+	
+	public boolean isPaused()
+	{
+		return mPaused;
+	}
+	
+	public void exit()
+	{
+		mExit = true;
+		
+		try {
+			// if a partition called the exit method during an event,
+			// we do not need to wait.
+			if((Thread.currentThread() != this) && !mExecutingWindow) {
+				if(isAlive()) join();
+			}
+		}
+		catch(Exception exc) {
+			// ignore it
+		}
+	}
+	
+	public void waitForEmptyQueues()
+	{
+		boolean tEmpty;
+		
+		do {
+			tEmpty = true;
+			for(EventHandler partition : getPartitions()) {
+				if(!Double.isInfinite(partition.getNextEventTime())) {
+					tEmpty = false;
+					break;
+				}
+			}
+			
+			if(!tEmpty) {
+				try {
+					Thread.sleep(1000);
+				} catch (InterruptedException tExc) {
+					mLogger.warn(this, "Failure during wait for event queues. Waiting again...", tExc);
+				}
+			}
+		}
+		while(!tEmpty && !mExit);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName();
+	}
+	
+	
+	private Logger mLogger;
+	private ExecutorService mExecutor;
+	private Semaphore mPermits;
+	private ArrayList<EventHandler> mPartitions = new ArrayList<EventHandler>();
+	
+	// partitions of the current window and number of them waiting for their turn
+	private volatile EventHandler[] mWindowPartitions = new EventHandler[0];
+	private volatile int mWaiting = 0;
+	private final Object mProgressLock = new Object();
+	
+	// rank of the last event in the order of the sequential simulation
+	private volatile long mLastRank = 0;
+	
+	// sequence numbers for events scheduled by threads outside the simulation
+	private AtomicLong mExternalCounter = new AtomicLong(EXTERNAL_SEQUENCE);
+	
+	// minimal delay of links between partitions
+	private double mLookaheadSec = Double.POSITIVE_INFINITY;
+	
+	// end of the last executed time window
+	private volatile double mLastWindowEnd = 0;
+	
+	private volatile boolean mExecutingWindow = false;
+	private volatile boolean mExit = false;
+	private volatile boolean mPaused = false;
+	private volatile long mWindowCounter = 0;
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.application;
+
+import net.rapi.Connection;
+import net.rapi.Identity;
+import net.rapi.NetworkException;
+import de.tuilmenau.ics.fog.Config;
+import de.tuilmenau.ics.fog.IEvent;
+import de.tuilmenau.ics.fog.application.util.Session;
+import de.tuilmenau.ics.fog.exceptions.InvalidParameterException;
+import de.tuilmenau.ics.fog.facade.Host;
+import de.tuilmenau.ics.fog.transfer.forwardingNodes.ConnectionEndPoint;
+import de.tuilmenau.ics.fog.util.Logger;
+
+
+/**
+ * Client sending a bulk transfer as sequence of small writes to an echo
+ * server. It waits for the echoes of all writes and logs the number of
+ * packets it had sent, the simulation time and the processing time of the
+ * transfer. It is used to compare transfers with and without coalescing
+ * of writes.
+ * 
+ * Command line:
+ * BulkTransfer <name of server> [<number of writes> [<bytes per write> [<coalescing bound in bytes> [<coalescing delay in sec>]]]]
+ */
+public class BulkTransfer extends ApplicationClient
+{
+	private static final int DEFAULT_NUMBER_WRITES = 1000;
+	private static final int DEFAULT_WRITE_SIZE = 64;
+	private static final double TIMEOUT_SEC = 60;
+	
+	public BulkTransfer(Host pHost, Identity pIdentity)
+	{
+		super(pHost, pIdentity);
+	}
+	
+	@Override
+	public void setParameters(String[] pParameters) throws InvalidParameterException
+	{
+		super.setParameters(pParameters);
+		
+		try {
+			if(pParameters.length > 2) mNumberWrites = Integer.parseInt(pParameters[2]);
+			if(pParameters.length > 3) mWriteSize = Integer.parseInt(pParameters[3]);
+			if(pParameters.length > 4) mCoalescingMaxBytes = Integer.parseInt(pParameters[4]);
+			if(pParameters.length > 5) mCoalescingMaxDelaySec = Double.parseDouble(pParameters[5]);
+		}
+		catch(NumberFormatException tExc) {
+			throw new InvalidParameterException("Invalid number in parameters: " +tExc.getMessage());
+		}
+	}
+	
+	@Override
+	protected Session createSession()
+	{
+		return new BulkTransferSession(getLogger());
+	}
+	
+	class BulkTransferSession extends Session implements IEvent
+	{
+		public BulkTransferSession(Logger pLogger)
+		{
+			super(false, pLogger, null);
+		}
+		
+		@Override
+		public void connected()
+		{
+			Connection tConnection = getConnection();
+			
+			getHost().getTimeBase().scheduleIn(TIMEOUT_SEC, this);
+			
+			try {
+				if(tConnection instanceof ConnectionEndPoint) {
+					mCEP = (ConnectionEndPoint) tConnection;
+					
+					if(mCoalescingMaxBytes > 0) {
+						mCEP.setCoalescing(mCoalescingMaxBytes, mCoalescingMaxDelaySec);
+					}
+				}
+				
+				mStartSimTime = getHost().getTimeBase().now();
+				mStartTime = System.nanoTime();
+				
+				for(int i = 0; i < mNumberWrites; i++) {
+					tConnection.write(new byte[mWriteSize]);
+				}
+				
+				mProcessingTime = System.nanoTime() -mStartTime;
+			}
+			catch(NetworkException tExc) {
+				getLogger().err(this, "Exception during sending data from " +getLayer() +" to " +getDestination(), tExc);
+				exit();
+			}
+		}
+		
+		@Override
+		public boolean receiveData(Object pData)
+		{
+			if(pData instanceof byte[]) {
+				mReceivedBytes += ((byte[]) pData).length;
+				
+				if(mReceivedBytes >= (long) mNumberWrites *mWriteSize) {
+					report(true);
+					exit();
+				}
+			}
+			return true;
+		}
+		
+		@Override
+		public void closed()
+		{
+			exit();
+		}
+		
+		@Override
+		public void error(Throwable pExc)
+		{
+			getLogger().err(this, "Exception during connection from " +getLayer() +" to " +getDestination(), pExc);
+			exit();
+		}
+		
+		/**
+		 * Called if timeout occurs.
+		 */
+		@Override
+		public void fire()
+		{
+			if(isRunning()) {
+				report(false);
+				exit();
+			}
+		}
+		
+		private void report(boolean pCompleted)
+		{
+			double tSimTime = getHost().getTimeBase().now() -mStartSimTime;
+			long tTotalTime = System.nanoTime() -mStartTime;
+			long tPackets = -1;
+			
+			if(mCEP != null) {
+				tPackets = mCEP.getNumberSentPackets();
+			}
+			
+			getLogger().info(this, (pCompleted ? "Completed" : "Timeout for") +" transfer of " +mNumberWrites +" writes with " +mWriteSize +" bytes"
+					+" (coalescing " +((mCoalescingMaxBytes > 0) ? mCoalescingMaxBytes +" bytes/" +mCoalescingMaxDelaySec +" sec" : "off") +"): "
+					+tPackets +" packets sent, " +mReceivedBytes +" bytes echoed in " +tSimTime +" sec simulation time; "
+					+(mProcessingTime /1000000.0d) +" ms for sending, " +(tTotalTime /1000000.0d) +" ms in total");
+		}
+		
+		private ConnectionEndPoint mCEP;
+		private double mStartSimTime;
+		private long mStartTime;
+		private long mProcessingTime;
+		private long mReceivedBytes = 0;
+	}
+	
+	private int mNumberWrites = DEFAULT_NUMBER_WRITES;
+	private int mWriteSize = DEFAULT_WRITE_SIZE;
+	private int mCoalescingMaxBytes = 0;
+	private double mCoalescingMaxDelaySec = Config.Connection.COALESCING_MAX_DELAY_SEC;
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.application.interop;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Thread-safe pool of direct byte buffers with the same size. Direct
+ * buffers are expensive to allocate but avoid an additional copy for
+ * each channel operation. Thus, they are reused instead of being
+ * allocated per packet.
+ */
+public class BufferPool
+{
+	/**
+	 * @param pBufferSize Size of each buffer in bytes
+	 * @param pMaxBuffers Maximum number of buffers kept in the pool
+	 */
+	public BufferPool(int pBufferSize, int pMaxBuffers)
+	{
+		mBufferSize = pBufferSize;
+		mMaxBuffers = pMaxBuffers;
+	}
+	
+	/**
+	 * @return Cleared buffer from the pool or a new one, if the pool is empty (!= null)
+	 */
+	public ByteBuffer acquire()
+	{
+		ByteBuffer tBuffer = mBuffers.poll();
+		
+		if(tBuffer != null) {
+			mNumberBuffers.decrementAndGet();
+			tBuffer.clear();
+		} else {
+			tBuffer = ByteBuffer.allocateDirect(mBufferSize);
+		}
+		
+		return tBuffer;
+	}
+	
+	/**
+	 * Returns a buffer to the pool. The buffer must not be used by the
+	 * caller afterwards. If the pool is full, the buffer is left to the
+	 * garbage collector.
+	 */
+	public void release(ByteBuffer pBuffer)
+	{
+		if((pBuffer != null) && (pBuffer.capacity() == mBufferSize)) {
+			if(mNumberBuffers.incrementAndGet() <= mMaxBuffers) {
+				mBuffers.offer(pBuffer);
+			} else {
+				mNumberBuffers.decrementAndGet();
+			}
+		}
+	}
+	
+	public int getBufferSize()
+	{
+		return mBufferSize;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() +"(" +mNumberBuffers.get() +"x" +mBufferSize +" bytes)";
+	}
+	
+	
+	private final int mBufferSize;
+	private final int mMaxBuffers;
+	private final ConcurrentLinkedQueue<ByteBuffer> mBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+	private final AtomicInteger mNumberBuffers = new AtomicInteger(0);
+}
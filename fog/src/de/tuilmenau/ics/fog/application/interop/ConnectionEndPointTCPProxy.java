@@ -14,22 +14,29 @@
 package de.tuilmenau.ics.fog.application.interop;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.UnknownHostException;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.HashMap;
+import java.util.LinkedList;
 
 import net.rapi.Connection;
 import net.rapi.Description;
 import de.tuilmenau.ics.fog.facade.Host;
 import net.rapi.NetworkException;
+import net.rapi.events.DataAvailableEvent;
+import net.rapi.events.Event;
 
-import de.tuilmenau.ics.fog.application.util.ReceiveCallback;
+import de.tuilmenau.ics.fog.EventHandler;
+import de.tuilmenau.ics.fog.IEvent;
 import de.tuilmenau.ics.fog.application.util.Session;
+import de.tuilmenau.ics.fog.transfer.forwardingNodes.ClientFN;
+import de.tuilmenau.ics.fog.transfer.forwardingNodes.ConnectionEndPoint;
 import de.tuilmenau.ics.fog.util.Logger;
 import de.tuilmenau.ics.fog.util.SimpleName;
 
@@ -39,13 +46,22 @@
  * 
  * This proxy supports both the FoG2IP bridging and the IP2FoG bridging
  * The two operation modes are explicitly selected by a call to the corresponding constructor.
+ * 
+ * The TCP sockets are handled by the event loop shared by all proxies (see {@link ProxySelector}).
  */
 public class ConnectionEndPointTCPProxy extends Session
 {
 	private static final boolean RECEIVE_IN_EXTRA_THREAD = false;
 	
 	//### general
-	private final int TCP_READ_BUFFER_SIZE = 1024 *64;
+	public boolean DEBUG_CEP_TCP_PROXY = false;
+	/**
+	 * Number of bytes queued for an IP peer, at which no further data is read from the FoG connection.
+	 * The data remains in the receive buffer of the FoG connection end point till the IP peer caught up.
+	 * In the other direction, it is the number of bytes from the IP peer not written to the FoG
+	 * connection yet, at which no further data is read from the IP socket.
+	 */
+	private final int TCP_MAX_PENDING_BYTES = 1024 *1024;
 	private SimpleName mFogServerApplication = null;
 	private Description mFogServerConnectionRequirements = null;
 	private Host mHost = null;
@@ -55,12 +71,13 @@ public class ConnectionEndPointTCPProxy extends Session
 	private FogIpBridge mFog2IpBridge = null;
 	
 	//### IP side
-	private Thread mIpListenerThread = null;
-	private Socket mIpClientSocket;
-	private ServerSocket mIpServerSocket;
-	private HashMap<String, SocketAddress> mSeenIpPeerAddresses = null;
+	private ProxySelector mSelector = null;
+	private boolean mIpListenerStarted = false;
+	private SocketChannel mIpClientChannel;
+	private ServerSocketChannel mIpServerChannel;
+	private HashMap<InetSocketAddress, FogIpBridge> mSeenIpPeers = null;
 	private SocketAddress mIpPeerAddress;
-
+	
 	//#####################################################################################################################
 	//########################################  FoG to IP  ################################################################
 	//#####################################################################################################################
@@ -77,13 +94,18 @@ public ConnectionEndPointTCPProxy(Logger logger, String destName, int port) thro
 		tTime = System.currentTimeMillis();
 		
 		// rescue some important data
-		mIpClientSocket = new Socket(destName, port);
-		mIpPeerAddress = mIpClientSocket.getRemoteSocketAddress();
+		InetSocketAddress tDestination = new InetSocketAddress(destName, port);
+		if(tDestination.isUnresolved()) {
+			throw new UnknownHostException(destName);
+		}
+		mIpClientChannel = SocketChannel.open(tDestination);
+		mIpPeerAddress = mIpClientChannel.socket().getRemoteSocketAddress();
+		mSelector = ProxySelector.getInstance();
 		
 		mLogger = logger;
-		mLogger.log(this, "Binding TCP socket " + mIpClientSocket + " took " +(System.currentTimeMillis() - tTime) + " msec");
+		mLogger.log(this, "Binding TCP socket " + mIpClientChannel.socket() + " took " +(System.currentTimeMillis() - tTime) + " msec");
 		
-		//HINT: start of Ip listener is done when a FoG application tries to connect 
+		//HINT: start of Ip listener is done when a FoG application tries to connect
 	}
 	
 	@Override
@@ -91,14 +113,12 @@ public void start(Connection pSocket)
 	{
 		mLogger.log(this, "Got call to start from FoG side");
 		
-		// create new FoG-to-IP bridge
+		// create new FoG-to-IP bridge, which handles the events of the FoG socket
 		mLogger.info(this, "Creating new FoGIpBridge for new IP remote address " + mIpPeerAddress);
-		mFog2IpBridge = new FogIpBridge(pSocket); 
-		mFog2IpBridge.setIpPeer(mIpClientSocket, mIpPeerAddress);
-		
-		super.start(pSocket);
+		mFog2IpBridge = new FogIpBridge(mIpClientChannel, mIpPeerAddress);
+		mFog2IpBridge.start(pSocket);
 	}
-
+	
 	@Override
 	public boolean receiveData(Object pData)
 	{
@@ -110,19 +130,12 @@ public boolean receiveData(Object pData)
 			return false;
 		}
 	}
-
+	
 	@Override
 	public void closed()
 	{
 		// close TCP client socket
-		if(mIpClientSocket != null) {
-			try {
-				mIpClientSocket.close();
-			}
-			catch(IOException tExc) {
-				mLogger.err(this, "Exception while closing socket " +mIpClientSocket +" because of \"" + tExc.getMessage() + "\"", tExc);
-			}
-		}
+		closeChannel(mIpClientChannel);
 		
 		// forward call to FoG2IP bridge
 		if (mFog2IpBridge != null) {
@@ -133,7 +146,7 @@ public void closed()
 		
 		super.closed();
 	}
-
+	
 	//#####################################################################################################################
 	//########################################  IP to FoG  ################################################################
 	//#####################################################################################################################
@@ -147,80 +160,130 @@ public void closed()
 	public ConnectionEndPointTCPProxy(Logger pLogger, Host pHost, SimpleName pFogServerApplication, Description pDescription, int pTcpLocalPort)
 	{
 		super(RECEIVE_IN_EXTRA_THREAD, pLogger, null);
+		mLogger = pLogger;
 		mLogger.log(this, "Creating for the FoG application " + pFogServerApplication.toString() + " an TCP listener at port " + pTcpLocalPort);
 		
 		mFogServerApplication = pFogServerApplication;
 		mFogServerConnectionRequirements = pDescription;
 		mHost = pHost;
-		// init. hash map with seen IP peer addresses
-		mSeenIpPeerAddresses = new HashMap<String, SocketAddress>();
+		// init. hash map with IP peers having an ongoing connection
+		mSeenIpPeers = new HashMap<InetSocketAddress, FogIpBridge>();
 		
 		// create IP socket
 		try {
-			mIpServerSocket = new ServerSocket(pTcpLocalPort);
+			mSelector = ProxySelector.getInstance();
+			mIpServerChannel = ServerSocketChannel.open();
+			mIpServerChannel.socket().bind(new InetSocketAddress(pTcpLocalPort));
 		} catch (IOException tExc) {
 			mLogger.err(this, "Creation of TCP listener at localhost:" + pTcpLocalPort + " failed", tExc);
+			closeChannel(mIpServerChannel);
+			mIpServerChannel = null;
 		}
-
+		
 		// start IP listener
 		startIpListener();
 	}
-
+	
 	public String getFoGServerName()
 	{
 		return mFogServerApplication.getName();
 	}
-
-	private void startIpListener()
-	{
-		if(mIpListenerThread == null) {
-			mIpListenerThread = new Thread() {
-				public void run()
-				{
-					if (mIpServerSocket == null) {
-						mLogger.err(this, "TCP server socket ist unavailable");
-						return;
-					}					
-
-					mLogger.info(this, "IP/TCP listener started for localhost:" + mIpServerSocket.getLocalPort());
-
-					do {
-						try {
 	
-							Socket tIpClientSocket = mIpServerSocket.accept();
+	/**
+	 * Returns the local TCP listener port number.
+	 * 
+	 * @return The local TCP port number.
+	 */
+	public int getLocalPort()
+	{
+		return mIpServerChannel.socket().getLocalPort();
+	}
 	
-							mIpPeerAddress = tIpClientSocket.getRemoteSocketAddress();
-							SocketAddress tIpPeerAddress = mSeenIpPeerAddresses.get(mIpPeerAddress.toString()); 
-							if (tIpPeerAddress == null)
-							{
-								if (mHost != null)
-								{
-									mLogger.info(this, "Creating new FoGIpBridge for new IP remote address " + mIpPeerAddress);
-									Connection tConn = mHost.getLayerContainer().getLayer(null).connect(mFogServerApplication, mFogServerConnectionRequirements, null);
-									
-									FogIpBridge tFoGIpBridge = new FogIpBridge(tConn); 
-									tFoGIpBridge.setIpPeer(tIpClientSocket, mIpPeerAddress);
-									mSeenIpPeerAddresses.put(mIpPeerAddress.toString(), mIpPeerAddress);
-								}else
-									mLogger.err(this, "Host is unknown");
-							}
-						} catch (Exception tExc) {
-							mLogger.err(this, "Can not accept new TCP client due to exception: " + tExc.getMessage(), tExc);
+	private void startIpListener()
+	{
+		if(!mIpListenerStarted) {
+			if (mIpServerChannel == null) {
+				mLogger.err(this, "TCP server socket ist unavailable");
+				return;
+			}
+			
+			try {
+				mSelector.register(mIpServerChannel, SelectionKey.OP_ACCEPT, new ProxySelector.Handler() {
+					@Override
+					public void ready(SelectionKey pKey) throws IOException
+					{
+						SocketChannel tIpClientChannel = mIpServerChannel.accept();
+						
+						while(tIpClientChannel != null) {
+							accepted(tIpClientChannel);
+							tIpClientChannel = mIpServerChannel.accept();
 						}
 					}
-					while(true);
-				}				
-			};
-			mIpListenerThread.start();
+					
+					@Override
+					public void failed(Throwable pError)
+					{
+						mLogger.err(this, "TCP listener at localhost:" + mIpServerChannel.socket().getLocalPort() + " failed", pError);
+					}
+				});
+				mIpListenerStarted = true;
+				
+				mLogger.info(this, "IP/TCP listener started for localhost:" + mIpServerChannel.socket().getLocalPort());
+			}
+			catch(IOException tExc) {
+				mLogger.err(this, "Can not start IP/TCP listener", tExc);
+			}
+		}
+	}
+	
+	/**
+	 * Called by the event loop for each new TCP client.
+	 */
+	private void accepted(SocketChannel pIpClientChannel)
+	{
+		try {
+			InetSocketAddress tIpPeerAddress = (InetSocketAddress) pIpClientChannel.socket().getRemoteSocketAddress();
+			mIpPeerAddress = tIpPeerAddress;
+			
+			if (mHost != null)
+			{
+				mLogger.info(this, "Creating new FoGIpBridge for new IP remote address " + tIpPeerAddress);
+				Connection tConn = mHost.getLayerContainer().getLayer(null).connect(mFogServerApplication, mFogServerConnectionRequirements, null);
+				
+				FogIpBridge tFoGIpBridge = new FogIpBridge(pIpClientChannel, tIpPeerAddress);
+				synchronized (mSeenIpPeers) {
+					mSeenIpPeers.put(tIpPeerAddress, tFoGIpBridge);
+				}
+				tFoGIpBridge.start(tConn);
+			}else {
+				mLogger.err(this, "Host is unknown");
+				closeChannel(pIpClientChannel);
+			}
+		} catch (Exception tExc) {
+			mLogger.err(this, "Can not accept new TCP client due to exception: " + tExc.getMessage(), tExc);
+			closeChannel(pIpClientChannel);
+		}
+	}
+	
+	private void closeChannel(Channel pChannel)
+	{
+		if (pChannel != null) {
+			try {
+				// cancels the registration at the event loop, too
+				pChannel.close();
+			}
+			catch(IOException tExc) {
+				mLogger.err(this, "Exception while closing socket " +pChannel +" because of \"" + tExc.getMessage() + "\"", tExc);
+			}
 		}
 	}
 	
 	public void finalize() throws Throwable
 	{
-		if (mIpServerSocket != null)
-			if (!mIpServerSocket.isClosed())
-				mIpServerSocket.close();
-		super.finalize();		
+		if (mIpServerChannel != null)
+			if (mIpServerChannel.isOpen())
+				mIpServerChannel.close();
+		super.finalize();
 	}
 	
 	//#####################################################################################################################
@@ -230,32 +293,62 @@ public void finalize() throws Throwable
 	 * Helper class which implements an FoG/IP bridge (not only FoG listener!).
 	 * 
 	 * One instance is created either per incoming TCP client or per connection towards IP destination.
-	 * HINT: FoG socket has to be allocated by outside classes and afterwards set by a call to setSocket.
-	 * HINT: IP socket has to be allocated by outside classes and afterwards set by a call to setTcpStreams.
+	 * It handles the events of the FoG socket and the events of the IP socket, which are reported by
+	 * the event loop.
+	 * 
+	 * Back-pressure: The IP socket is not read while the FoG socket is not connected. Thus, the
+	 * TCP flow control of the IP peer slows it down. Data from FoG, which can not be written to the
+	 * IP socket immediately, is queued. If the queue exceeds TCP_MAX_PENDING_BYTES, data announced by
+	 * the FoG socket is not read till the queue was drained by the event loop.
+	 * Data from the IP socket is written to the FoG socket by events of the FoG host. While the
+	 * data not written yet exceeds TCP_MAX_PENDING_BYTES, the IP socket is not read, too.
 	 */
-	private class FogIpBridge extends Thread implements ReceiveCallback
+	private class FogIpBridge extends Session implements ProxySelector.Handler
 	{
-		private Connection mSocket = null;
-		private Socket mIpClientSocket = null;
-		private OutputStream mIpSocketOutputStream = null;
-		private InputStream mIpSocketInputStream = null;
+		private SocketChannel mIpClientChannel = null;
 		private SocketAddress mIpRemoteAddress = null;
+		private LinkedList<ByteBuffer> mPendingWrites = new LinkedList<ByteBuffer>();
+		private int mPendingBytes = 0;
+		private int mDeferredReads = 0;
+		private boolean mIpEndOfStream = false;
+		private int mInterestOps = 0;
+		private EventHandler mFoGTimeBase = null;
+		private int mFoGPendingBytes = 0;
 		
-		public FogIpBridge(Connection pSocket)
+		public FogIpBridge(SocketChannel pIpClientChannel, SocketAddress pIpRemoteAddress)
 		{
-			mSocket = pSocket;
+			super(false, mLogger, null);
+			
+			mIpClientChannel = pIpClientChannel;
+			mIpRemoteAddress = pIpRemoteAddress;
 		}
-
-		public void setIpPeer(Socket pIpClientSocket, SocketAddress pIpRemoteAddress)
+		
+		@Override
+		public void start(Connection pSocket)
 		{
-			mIpClientSocket = pIpClientSocket;
+			super.start(pSocket);
+			
+			// writes to FoG are done by the time base of the FoG host, if it is known
+			if(mHost != null) {
+				mFoGTimeBase = mHost.getTimeBase();
+			}
+			else if(pSocket instanceof ConnectionEndPoint) {
+				ClientFN tForwardingNode = ((ConnectionEndPoint) pSocket).getForwardingNode();
+				if(tForwardingNode != null) {
+					mFoGTimeBase = tForwardingNode.getEntity().getTimeBase();
+				}
+			}
+			
 			try {
-				mIpSocketOutputStream = pIpClientSocket.getOutputStream();
-				mIpSocketInputStream = pIpClientSocket.getInputStream();
+				mSelector.register(mIpClientChannel, 0, this);
 			} catch (IOException tExc) {
-				mLogger.err(this, "Can not get the in/out streams for the TCP client connection due to exception: " +tExc.getMessage(), tExc);
+				mLogger.err(this, "Can not register the TCP client connection due to exception: " +tExc.getMessage(), tExc);
+			}
+			
+			// we might have missed the connected event
+			if(pSocket.isConnected()) {
+				connected();
 			}
-			mIpRemoteAddress = pIpRemoteAddress;
 		}
 		
 		//----------------------------
@@ -264,15 +357,45 @@ public void setIpPeer(Socket pIpClientSocket, SocketAddress pIpRemoteAddress)
 		@Override
 		public void connected()
 		{
-			// start thread handling the IP socket
-			start();
+			// start reading from the IP socket
+			updateInterest();
 		}
-
+		
+		@Override
+		protected void handleEvent(Event pEvent) throws Exception
+		{
+			if(pEvent instanceof DataAvailableEvent) {
+				synchronized (this) {
+					if(mPendingBytes < TCP_MAX_PENDING_BYTES) {
+						readFoG();
+					} else {
+						// leave data in FoG socket till IP peer caught up
+						mDeferredReads++;
+					}
+				}
+			} else {
+				super.handleEvent(pEvent);
+			}
+		}
+		
+		private void readFoG() throws NetworkException
+		{
+			Connection tSocket = getConnection();
+			
+			if(tSocket != null) {
+				receiveData(tSocket.read());
+			}
+		}
+		
 		@Override
-		public boolean receiveData(Object pData)
+		public synchronized boolean receiveData(Object pData)
 		{
 			boolean tRes = false;
 			
+			if(pData == null) {
+				return tRes;
+			}
+			
 			try {
 				byte[] tReceivedBytes = null;
 				
@@ -282,89 +405,207 @@ public boolean receiveData(Object pData)
 					tReceivedBytes = pData.toString().getBytes();
 				}
 		 		// forward FoG socket data to IP socket
-				mLogger.log(this, "Got " + tReceivedBytes.length + " bytes from FoG application " + mFogServerApplication + " and forward them via TCP socket to " + mIpRemoteAddress);
-				mIpSocketOutputStream.write(tReceivedBytes);
+				if (DEBUG_CEP_TCP_PROXY)
+					mLogger.log(this, "Got " + tReceivedBytes.length + " bytes from FoG application " + mFogServerApplication + " and forward them via TCP socket to " + mIpRemoteAddress);
+				
+				ByteBuffer tBuffer = ByteBuffer.wrap(tReceivedBytes);
+				if(mPendingWrites.isEmpty()) {
+					mIpClientChannel.write(tBuffer);
+				}
+				if(tBuffer.hasRemaining()) {
+					mPendingWrites.addLast(tBuffer);
+					mPendingBytes += tBuffer.remaining();
+					updateInterest();
+				}
 			} catch (IOException tExc) {
 				mLogger.err(this, "Can not send TCP packet due to exception: " +tExc.getMessage(), tExc);
 			}
 			
 			return tRes;
 		}
-
+		
 		@Override
 		public void closed()
 		{
 			mLogger.log(this, "FoG application closed connection. Closing also.");
 			
-			if(mSocket.isConnected()) {
+			Connection tSocket = getConnection();
+			if((tSocket != null) && tSocket.isConnected()) {
 				// close FoG socket
-				mSocket.close();
-				// close output stream of IP socket
-				try {
-					mIpSocketOutputStream.close();
-				} catch (IOException tExc) {
-					mLogger.err(this, "Could not close TCP socket output stream for FoG application " + mFogServerApplication + " and remote IP peer " + mIpRemoteAddress, tExc);
-				}
+				tSocket.close();
 			}
+			close();
 		}
 		
 		@Override
 		public void error(Throwable pError)
 		{
 			// TODO Auto-generated method stub
+		
+		}
+		
+		/**
+		 * Closes the IP socket and removes the bridge from the list of the proxy.
+		 */
+		private void close()
+		{
+			closeChannel(mIpClientChannel);
 			
+			if(mSeenIpPeers != null) {
+				synchronized (mSeenIpPeers) {
+					mSeenIpPeers.remove(mIpRemoteAddress);
+				}
+			}
 		}
 		
 		//----------------------------
 		//--- interface towards IP
 		//----------------------------
 		@Override
-		public final void run()
+		public void ready(SelectionKey pKey) throws IOException
+		{
+			if(pKey.isWritable()) {
+				flushPendingWrites();
+			}
+			if(pKey.isValid() && pKey.isReadable()) {
+				readIp();
+			}
+		}
+		
+		@Override
+		public void failed(Throwable pError)
 		{
-			mLogger.info(this, "IP/TCP client listener started");
-			byte[] tPacketBuffer = new byte[TCP_READ_BUFFER_SIZE];
-			int tPacketSize = 0;
-			long tTime = 0;
-			// show only first error
-			boolean tFirstError = true;
+			mLogger.err(this, "Could not handle TCP socket for FoG application " + mFogServerApplication + " and remote IP peer " + mIpRemoteAddress, pError);
 			
-			do {
-				tTime = System.currentTimeMillis();
+			closed();
+		}
+		
+		private synchronized void flushPendingWrites() throws IOException
+		{
+			while(!mPendingWrites.isEmpty()) {
+				ByteBuffer tBuffer = mPendingWrites.getFirst();
+				
+				mPendingBytes -= mIpClientChannel.write(tBuffer);
+				if(tBuffer.hasRemaining()) {
+					// socket buffer is full
+					break;
+				}
+				mPendingWrites.removeFirst();
+			}
+			
+			// read the data left in the FoG socket
+			while((mDeferredReads > 0) && (mPendingBytes < TCP_MAX_PENDING_BYTES)) {
+				mDeferredReads--;
 				try {
-					tPacketSize = mIpSocketInputStream.read(tPacketBuffer);
-				} catch (IOException tExc) {
-					if (tFirstError)
-						mLogger.err(this, "Could not read from TCP listener, maybe this error is repeating", tExc);
-					tFirstError = false;					
+					readFoG();
 				}
-
-				if (tPacketSize >= 0)
+				catch(NetworkException tExc) {
+					mLogger.err(this, "Could not read data from FoG application", tExc);
+				}
+			}
+			
+			updateInterest();
+		}
+		
+		private void readIp() throws IOException
+		{
+			long tTime = System.currentTimeMillis();
+			Connection tSocket = getConnection();
+			
+			if((tSocket == null) || !tSocket.isConnected()) {
+				// do not read till FoG socket is connected
+				mLogger.warn(this, "FoG socket is not connected");
+				updateInterest();
+				return;
+			}
+			
+			ByteBuffer tBuffer = mSelector.getBufferPool().acquire();
+			try {
+				int tPacketSize = mIpClientChannel.read(tBuffer);
+				
+				if (tPacketSize > 0)
 				{
-					mLogger.log(this, "Got " + tPacketSize +" bytes from " + mIpRemoteAddress + " at TCP listener localhost:" + mIpClientSocket.getLocalPort());
+					if (DEBUG_CEP_TCP_PROXY)
+						mLogger.log(this, "Got " + tPacketSize +" bytes from " + mIpRemoteAddress + " at TCP listener localhost:" + mIpClientChannel.socket().getLocalPort());
 					
-					byte[] tSendBuffer = Arrays.copyOf(tPacketBuffer, tPacketSize);
+					byte[] tSendBuffer = new byte[tPacketSize];
+					tBuffer.flip();
+					tBuffer.get(tSendBuffer);
 					
-					if(mSocket.isConnected())
-					{
+					if (DEBUG_CEP_TCP_PROXY)
 						mLogger.log(this, "Forward " +tPacketSize +" bytes of TCP socket for " + mIpRemoteAddress + " to " + mFogServerApplication + "  (msec=" +(System.currentTimeMillis() -tTime) +")");
-						try {
-							mSocket.write(tSendBuffer);
-						} catch (NetworkException tExc) {
-							mLogger.err(this, "Could not forward data to FoG application", tExc);
+					writeFoG(tSocket, tSendBuffer);
+				}
+				else if (tPacketSize < 0)
+				{// EOT was received
+					mIpEndOfStream = true;
+					mIpClientChannel.socket().shutdownInput();
+					updateInterest();
+				}
+			}
+			finally {
+				mSelector.getBufferPool().release(tBuffer);
+			}
+		}
+		
+		/**
+		 * Hands data from the IP peer over to the FoG socket. If the time base of the FoG
+		 * host is known, the data is written by an event of the host. The data not written
+		 * yet is the backlog of the FoG side, which limits the reading from the IP socket.
+		 */
+		private void writeFoG(final Connection pSocket, final byte[] pData)
+		{
+			if(mFoGTimeBase != null) {
+				synchronized (this) {
+					mFoGPendingBytes += pData.length;
+				}
+				mFoGTimeBase.scheduleIn(0, new IEvent() {
+					@Override
+					public void fire()
+					{
+						writeFoGNow(pSocket, pData);
+						
+						synchronized (FogIpBridge.this) {
+							mFoGPendingBytes -= pData.length;
 						}
-					}else
-						mLogger.warn(this, "FoG socket is not connected");
-				}else
-				{// if tPacketSize == -1 then EOT was received
-					try {
-						mIpSocketInputStream.close();
-					} catch (IOException tExc) {
-						mLogger.err(this, "Could not close TCP socket input stream for FoG application " + mFogServerApplication + " and remote IP peer " + mIpRemoteAddress, tExc);
+						updateInterest();
 					}
-				}
+				});
+				
+				// stop reading, if FoG side is backlogged
+				updateInterest();
+			} else {
+				writeFoGNow(pSocket, pData);
+			}
+		}
+		
+		private void writeFoGNow(Connection pSocket, byte[] pData)
+		{
+			try {
+				pSocket.write(pData);
+			} catch (NetworkException tExc) {
+				mLogger.err(this, "Could not forward data to FoG application", tExc);
+			}
+		}
+		
+		/**
+		 * Updates the operations the event loop waits for.
+		 */
+		private synchronized void updateInterest()
+		{
+			int tOps = 0;
+			
+			if(!mIpEndOfStream && isConnected() && (mFoGPendingBytes < TCP_MAX_PENDING_BYTES)) {
+				tOps |= SelectionKey.OP_READ;
+			}
+			if(!mPendingWrites.isEmpty()) {
+				tOps |= SelectionKey.OP_WRITE;
+			}
+			
+			if(tOps != mInterestOps) {
+				mInterestOps = tOps;
+				mSelector.setInterest(mIpClientChannel, tOps);
 			}
-			while(tPacketSize >= 0);
-			mLogger.info(this, "Stopped");
 		}
 	}
 }
@@ -14,22 +14,21 @@
 package de.tuilmenau.ics.fog.application.interop;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.net.SocketException;
 import java.net.UnknownHostException;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 
 import net.rapi.Connection;
 import net.rapi.Description;
+import net.rapi.NetworkException;
 import de.tuilmenau.ics.fog.facade.Host;
 
-import de.tuilmenau.ics.fog.application.util.ReceiveCallback;
 import de.tuilmenau.ics.fog.application.util.Session;
 import de.tuilmenau.ics.fog.util.Logger;
 import de.tuilmenau.ics.fog.util.SimpleName;
@@ -40,15 +39,26 @@
  * 
  * This proxy supports both the FoG2IP bridging and the IP2FoG bridging
  * The two operating modes are explicitly selected by a call to the corresponding constructor.
+ * 
+ * The UDP socket is handled by the event loop shared by all proxies (see {@link ProxySelector}).
+ * In IP2FoG mode, each IP peer gets its own FoG connection and its datagrams are forwarded
+ * to this connection, only.
  */
-public class ConnectionEndPointUDPProxy extends Session
+public class ConnectionEndPointUDPProxy extends Session implements ProxySelector.Handler
 {
 	private static final boolean RECEIVE_IN_EXTRA_THREAD = false;
 	
 	//### general
 	public boolean DEBUG_CEP_UDP_PROXY = false;
-	private final int UDP_READ_BUFFER_SIZE = 1024 *64;
 	private final int UDP_SOCKET_RECEIVE_BUFFER = 2 * 1024 * 1024;
+	/**
+	 * Maximum number of datagrams read per event of the event loop; avoids starving other flows
+	 */
+	private final int UDP_MAX_READS_PER_EVENT = 64;
+	/**
+	 * Maximum number of datagrams buffered for an IP peer till its FoG connection is connected
+	 */
+	private final int UDP_MAX_PENDING_DATAGRAMS = 64;
 	private SimpleName mFogServerApplication = null;
 	private Description mFogServerConnectionRequirements = null;
 	private Host mHost = null;
@@ -56,14 +66,16 @@ public class ConnectionEndPointUDPProxy extends Session
 	
 	//### proxy mode
 	private enum ProxyMode {UNKNOWN, FOG2IP, IP2FOG};
-	ProxyMode mProxyMode = ProxyMode.UNKNOWN;	
-
+	ProxyMode mProxyMode = ProxyMode.UNKNOWN;
+	
 	//### IP side
-	private Thread mIpListenerThread = null;
-	private DatagramSocket mIpSocket;
-	private HashMap<String, SocketAddress> mSeenIpPeerAddresses = new HashMap<String, SocketAddress>();
+	private ProxySelector mSelector = null;
+	private boolean mIpListenerStarted = false;
+	private DatagramChannel mIpChannel;
+	private LinkedHashMap<InetSocketAddress, Fog2IpListener> mSeenIpPeers = new LinkedHashMap<InetSocketAddress, Fog2IpListener>();
 	private SocketAddress mIpPeerAddress;
-
+	private int mDroppedDatagrams = 0;
+	
 	//### FoG side
 	private LinkedList<Connection> mFoGSockets = new LinkedList<Connection>();
 	
@@ -82,16 +94,18 @@ public ConnectionEndPointUDPProxy(Logger pLogger, String pIpRemoteName, int pUdp
 		super(RECEIVE_IN_EXTRA_THREAD, pLogger, null);
 		long tTime;
 		tTime = System.currentTimeMillis();
-
+		
 		mIpPeerAddress = new InetSocketAddress(pIpRemoteName, pUdpRemotePort);
-		mIpSocket = new DatagramSocket(pUdpLocalPort);
+		mIpChannel = DatagramChannel.open();
+		mIpChannel.socket().bind(new InetSocketAddress(pUdpLocalPort));
+		mSelector = ProxySelector.getInstance();
 		
 		mLogger = pLogger;
-		mLogger.info(this, "Binding UDP socket " + mIpSocket + " at port " + pUdpLocalPort + " with " + mIpSocket.getReceiveBufferSize() + " bytes receive buffer, took " + (System.currentTimeMillis() - tTime) + " msec");
+		mLogger.info(this, "Binding UDP socket " + mIpChannel.socket() + " at port " + pUdpLocalPort + " with " + mIpChannel.socket().getReceiveBufferSize() + " bytes receive buffer, took " + (System.currentTimeMillis() - tTime) + " msec");
 		mLogger.info(this, "Setting receive buffer at port " + pUdpLocalPort + " to " + UDP_SOCKET_RECEIVE_BUFFER + " bytes");
-		mIpSocket.setReceiveBufferSize(UDP_SOCKET_RECEIVE_BUFFER);
+		mIpChannel.socket().setReceiveBufferSize(UDP_SOCKET_RECEIVE_BUFFER);
 		
-		//HINT: start of Ip listener is done when a FoG application tries to connect 
+		//HINT: start of Ip listener is done when a FoG application tries to connect
 		
 		// set proxy mode
 		mProxyMode = ProxyMode.FOG2IP;
@@ -106,44 +120,23 @@ public void start(Connection pSocket)
 		synchronized (mFoGSockets) {
 			mFoGSockets.add(pSocket);
 		}
-
+		
 		// Socket in FoG is now ready and connected
 		//  => Start reading data from UDP socket
 		startIpListener();
 		
 		super.start(pSocket);
 	}
-		
+	
 	@Override
 	public boolean receiveData(Object pData)
 	{
-		boolean tRes = false;
+		// forward FoG socket data to IP socket
+		sendToIp(pData, mIpPeerAddress, "FoG client");
 		
-		try {
-			byte[] tReceivedBytes = null;
-			
-			if(pData instanceof byte[]) {
-				tReceivedBytes = (byte[]) pData;
-			} else {
-				tReceivedBytes = pData.toString().getBytes();
-			}
-	 		// forward FoG socket data to IP socket
-			if (DEBUG_CEP_UDP_PROXY)
-				mLogger.log(this, "Got " + tReceivedBytes.length + " bytes from FoG client and forward them via UDP socket to " + mIpPeerAddress);
-			if (!mIpSocket.isClosed()) {
-				if (mIpPeerAddress != null) {
-					mIpSocket.send(new DatagramPacket(tReceivedBytes, tReceivedBytes.length, mIpPeerAddress));
-				}else {
-					mLogger.err(this, "Peer address is invalid, sending skipped");
-				}
-			}
-		} catch (IOException tExc) {
-			mLogger.err(this, "Can not send UDP packet due to exception: " +tExc.getMessage(), tExc);
-		}
-		
-		return tRes;
+		return false;
 	}
-
+	
 	@Override
 	public void closed()
 	{
@@ -154,19 +147,17 @@ public void closed()
 				break;
 			case IP2FOG:
 				boolean tFoundRunningSocket = false;
-				synchronized (mFoGSockets) {
-			 		for(Connection tSocket : mFoGSockets) {
-						if(tSocket.isConnected()) {
+				synchronized (mSeenIpPeers) {
+			 		for(Fog2IpListener tListener : mSeenIpPeers.values()) {
+						if(tListener.isConnected()) {
 							tFoundRunningSocket = true;
 							break;
-						} 
+						}
 			 		}
 				}
 				if (!tFoundRunningSocket)
 				{
-					if(mIpSocket != null) {
-						mIpSocket.close();
-					}
+					closeIpChannel();
 					// don't execute "super.closed()" here because this would close all connections
 				}else
 					mLogger.log(this, "Peer closed connection. Socket has other peers connected.");
@@ -176,7 +167,7 @@ public void closed()
 				break;
 		}
 	}
-
+	
 	//#####################################################################################################################
 	//########################################  IP to FoG  ################################################################
 	//#####################################################################################################################
@@ -201,137 +192,243 @@ public ConnectionEndPointUDPProxy(Logger pLogger, Host pHost, SimpleName pFogSer
 		
 		// create IP socket
 		try {
-			mIpSocket = new DatagramSocket(pUdpLocalPort);
-		} catch (SocketException tExc) {
+			mSelector = ProxySelector.getInstance();
+			mIpChannel = DatagramChannel.open();
+			mIpChannel.socket().bind(new InetSocketAddress(pUdpLocalPort));
+		} catch (IOException tExc) {
 			mLogger.err(this, "Creation of UDP listener at localhost:" + pUdpLocalPort + " failed", tExc);
+			closeIpChannel();
+			mIpChannel = null;
 		}
-
+		
 		// start IP listener
 		startIpListener();
 		
 		// set proxy mode
 		mProxyMode = ProxyMode.IP2FOG;
 	}
-
+	
 	public String getFoGServerName()
 	{
 		return mFogServerApplication.getName();
 	}
-
-	private void startIpListener()
+	
+	private synchronized void startIpListener()
 	{
-		if(mIpListenerThread == null) {
-			mIpListenerThread = new Thread() {
-				public void run()
-				{
-					if (mIpSocket == null) {
-						mLogger.err(this, "UDP server socket ist unavailable");
-						return;
-					}					
-
-					mLogger.info(this, "IP/UDP listener started for localhost:" + mIpSocket.getLocalPort());
-
-					byte[] tReceiveBuffer = new byte[UDP_READ_BUFFER_SIZE];
-					DatagramPacket tUdpPacket = new DatagramPacket(tReceiveBuffer, tReceiveBuffer.length);
-					
+		if(!mIpListenerStarted) {
+			if (mIpChannel == null) {
+				mLogger.err(this, "UDP server socket ist unavailable");
+				return;
+			}
+			
+			try {
+				mSelector.register(mIpChannel, SelectionKey.OP_READ, this);
+				mIpListenerStarted = true;
+				
+				mLogger.info(this, "IP/UDP listener started for localhost:" + getLocalPort());
+			}
+			catch(IOException tExc) {
+				mLogger.err(this, "Can not start IP/UDP listener for localhost:" + getLocalPort(), tExc);
+			}
+		}
+	}
+	
+	/**
+	 * Called by the event loop if datagrams are available. The datagrams are received
+	 * in a pooled direct buffer and just copied once into the byte array for FoG.
+	 */
+	@Override
+	public void ready(SelectionKey pKey) throws IOException
+	{
+		ByteBuffer tBuffer = mSelector.getBufferPool().acquire();
+		
+		try {
+			for(int i = 0; i < UDP_MAX_READS_PER_EVENT; i++) {
+				long time = System.currentTimeMillis();
+				
+				tBuffer.clear();
+				InetSocketAddress tIpPeerAddress = (InetSocketAddress) mIpChannel.receive(tBuffer);
+				if(tIpPeerAddress == null) {
+					// no more datagrams available
+					break;
+				}
+				
+				tBuffer.flip();
+				byte[] tSendBuffer = new byte[tBuffer.remaining()];
+				tBuffer.get(tSendBuffer);
+				
+				int tConnectedFoGSockets = forwardToFoG(tIpPeerAddress, tSendBuffer);
+				
+				if (DEBUG_CEP_UDP_PROXY)
+					mLogger.log(this, "Forwarded " +tSendBuffer.length +" bytes to " + tConnectedFoGSockets + " FoG sockets, packets were received via UDP at localhost:" + getLocalPort() + " from " + tIpPeerAddress + " (msec=" +(System.currentTimeMillis() -time) +")");
+			}
+		}
+		finally {
+			mSelector.getBufferPool().release(tBuffer);
+		}
+	}
+	
+	@Override
+	public void failed(Throwable pError)
+	{
+		mLogger.err(this, "Failure occurred in listener", pError);
+		mLogger.log(this, "UDP proxy closed");
+	}
+	
+	/**
+	 * Forwards a datagram from an IP peer to FoG.
+	 * 
+	 * @return Number of FoG sockets the datagram was forwarded to
+	 */
+	private int forwardToFoG(InetSocketAddress pIpPeerAddress, byte[] pData)
+	{
+		Fog2IpListener tFoGListener = null;
+		boolean tNewPeer = false;
+		
+		mIpPeerAddress = pIpPeerAddress;
+		synchronized (mSeenIpPeers) {
+			tNewPeer = !mSeenIpPeers.containsKey(pIpPeerAddress);
+			if (tNewPeer) {
+				// store the IP peer in the hash map of already known IP peers
+				mLogger.log(this, "Adding peer address " + pIpPeerAddress + " to internal database");
+				mSeenIpPeers.put(pIpPeerAddress, null);
+			} else {
+				tFoGListener = mSeenIpPeers.get(pIpPeerAddress);
+			}
+		}
+		
+		// is proxy in "IP to FoG" mode?
+		if (mProxyMode == ProxyMode.IP2FOG)
+		{
+			if (tNewPeer) {
+				tFoGListener = createFog2IpListener(pIpPeerAddress);
+			}
+			
+			if (tFoGListener != null) {
+				return tFoGListener.forward(pData) ? 1 : 0;
+			} else {
+				return 0;
+			}
+		}
+		
+		int tConnectedFoGSockets = 0;
+		boolean tCleanupForFogSocketsNeeded = false;
+		synchronized (mFoGSockets) {
+			tConnectedFoGSockets = mFoGSockets.size();
+	 		// forward UDP socket data to the connected FoG sockets
+	 		for(Connection tSocket : mFoGSockets) {
+				if(tSocket.isConnected()) {
 					try {
-						int tPacketSize = 0;
-						do {
-							long time = System.currentTimeMillis();
-							boolean tCleanupForFogSocketsNeeded = false;
-							
-							try{
-								mIpSocket.receive(tUdpPacket);
-							}catch(Exception tExc)
-							{
-								mLogger.trace(this, "Socket was closed");
-								return;
-							}
-							tPacketSize = tUdpPacket.getLength();
-							
-							byte[] tSendBufffer = Arrays.copyOf(tReceiveBuffer, tPacketSize);
-							
-							mIpPeerAddress = tUdpPacket.getSocketAddress();
-							SocketAddress tIpPeerAddress = mSeenIpPeerAddresses.get(mIpPeerAddress.toString()); 
-							if (tIpPeerAddress == null)
-							{
-								// store the IP peer in the hash map of already known IP peers
-								mLogger.log(this, "Adding peer address " + mIpPeerAddress + " to internal database");
-								mSeenIpPeerAddresses.put(mIpPeerAddress.toString(), mIpPeerAddress);
-
-								// is proxy in "IP to FoG" mode?
-								if (mProxyMode == ProxyMode.IP2FOG)
-								{
-									if (mHost != null)
-									{
-										mLogger.info(this, "Creating new FoG2Ip listener for new IP remote address " + mIpPeerAddress);
-										// create connection to the FoG server
-										Connection tSocket = mHost.getLayerContainer().getLayer(null).connect(mFogServerApplication, mFogServerConnectionRequirements, null);
-										// create and initialize new FoG2IP listener
-										Fog2IpListener tFoGListener = new Fog2IpListener(tSocket); 
-										tFoGListener.setIpPeer(mIpSocket, mIpPeerAddress);
-										synchronized (mFoGSockets) {
-											// add this new socket to the internal list
-											mFoGSockets.add(tSocket);
-										}
-									}else
-										mLogger.err(this, "Host is unknown");
-								}
-							}
-							int tConnectedFoGSockets = 0;
-							synchronized (mFoGSockets) {
-								tConnectedFoGSockets = mFoGSockets.size();
-						 		// forward UDP socket data to the connected FoG sockets
-						 		for(Connection tSocket : mFoGSockets) {
-									if(tSocket.isConnected()) {
-										tSocket.write(tSendBufffer);
-									} else {
-										tCleanupForFogSocketsNeeded = true;
-										mLogger.log(this, "Cleanup for list of connected FoG sockets needed");
-									}
-								}
-							}
-							
-							if (DEBUG_CEP_UDP_PROXY)
-								mLogger.log(this, "Forwarded " +tPacketSize +" bytes to " + tConnectedFoGSockets + " FoG sockets, packets were received via UDP at localhost:" + mIpSocket.getLocalPort() + " from " + mIpPeerAddress + " (msec=" +(System.currentTimeMillis() -time) +")");
-							
-							// remove disconnected socket from list
-							//   if there are more of them, the next will be deleted in the next round.
-							if(tCleanupForFogSocketsNeeded) {
-								cleanupFoGSocketList();
-							}
-						}
-						while(tPacketSize >= 0);
+						tSocket.write(pData);
 					}
-					catch(Exception tExc) {
-						mLogger.err(this, "Failure occurred in listener", tExc);
+					catch(NetworkException tExc) {
+						mLogger.err(this, "Could not forward data to FoG socket " + tSocket, tExc);
 					}
-					
-					mLogger.log(this, "UDP proxy closed");
+				} else {
+					tCleanupForFogSocketsNeeded = true;
+					mLogger.log(this, "Cleanup for list of connected FoG sockets needed");
 				}
-			};			
-			mIpListenerThread.start();
+			}
+		}
+		
+		// remove disconnected socket from list
+		//   if there are more of them, the next will be deleted in the next round.
+		if(tCleanupForFogSocketsNeeded) {
+			cleanupFoGSocketList();
 		}
+		
+		return tConnectedFoGSockets;
 	}
-
+	
+	private Fog2IpListener createFog2IpListener(InetSocketAddress pIpPeerAddress)
+	{
+		if (mHost != null)
+		{
+			mLogger.info(this, "Creating new FoG2Ip listener for new IP remote address " + pIpPeerAddress);
+			// create connection to the FoG server
+			Connection tSocket = mHost.getLayerContainer().getLayer(null).connect(mFogServerApplication, mFogServerConnectionRequirements, null);
+			// create and initialize new FoG2IP listener
+			Fog2IpListener tFoGListener = new Fog2IpListener(pIpPeerAddress);
+			synchronized (mSeenIpPeers) {
+				mSeenIpPeers.put(pIpPeerAddress, tFoGListener);
+			}
+			tFoGListener.start(tSocket);
+			
+			return tFoGListener;
+		}else {
+			mLogger.err(this, "Host is unknown");
+			return null;
+		}
+	}
+	
 	/**
-	 * Returns the local UDP listener port number. 
+	 * Sends FoG data as datagram via the IP socket. The datagram is copied into a
+	 * pooled direct buffer before sending it. Datagrams, which do not fit into the
+	 * send buffer of the socket, are dropped.
+	 */
+	private void sendToIp(Object pData, SocketAddress pIpRemoteAddress, String pSource)
+	{
+		byte[] tReceivedBytes = null;
+		
+		if(pData instanceof byte[]) {
+			tReceivedBytes = (byte[]) pData;
+		} else {
+			tReceivedBytes = pData.toString().getBytes();
+		}
+		
+		if (DEBUG_CEP_UDP_PROXY)
+			mLogger.log(this, "Got " + tReceivedBytes.length + " bytes from " + pSource + " and forward them via UDP socket to " + pIpRemoteAddress);
+		if ((mIpChannel == null) || !mIpChannel.isOpen()) {
+			return;
+		}
+		if (pIpRemoteAddress == null) {
+			mLogger.err(this, "Peer address is invalid, sending skipped");
+			return;
+		}
+		if (tReceivedBytes.length > mSelector.getBufferPool().getBufferSize()) {
+			mLogger.err(this, "Can not send UDP packet with " + tReceivedBytes.length + " bytes, sending skipped");
+			return;
+		}
+		
+		ByteBuffer tBuffer = mSelector.getBufferPool().acquire();
+		try {
+			tBuffer.put(tReceivedBytes);
+			tBuffer.flip();
+			
+			if(mIpChannel.send(tBuffer, pIpRemoteAddress) == 0) {
+				mDroppedDatagrams++;
+				if (DEBUG_CEP_UDP_PROXY)
+					mLogger.log(this, "Send buffer of UDP socket is full, dropped " + mDroppedDatagrams + " datagrams so far");
+			}
+		} catch (IOException tExc) {
+			mLogger.err(this, "Can not send UDP packet due to exception: " +tExc.getMessage(), tExc);
+		}
+		finally {
+			mSelector.getBufferPool().release(tBuffer);
+		}
+	}
+	
+	/**
+	 * Returns the local UDP listener port number.
 	 * 
 	 * @return The local UDP port number.
 	 */
 	public int getLocalPort()
 	{
-		return mIpSocket.getLocalPort();		
+		return mIpChannel.socket().getLocalPort();
 	}
 	
 	/**
 	 * Returns an array of IP address which are connected to this CEP.
 	 * 
-	 * @return Array of known peers.
+	 * @return Array of known peers in the order they were seen.
 	 */
 	public String[] getSeenIpPeerAddresses()
 	{
-		Object[] tObjResult = mSeenIpPeerAddresses.values().toArray();
+		Object[] tObjResult;
+		synchronized (mSeenIpPeers) {
+			tObjResult = mSeenIpPeers.keySet().toArray();
+		}
 		if (tObjResult.length < 1) {
 			//mLogger.warn(this, "No peer IP address known yet");
 			return null;
@@ -343,8 +440,8 @@ public String[] getSeenIpPeerAddresses()
 			InetSocketAddress tSocketAddress = (InetSocketAddress) tObjResult[i];
 			tResult[i] = tSocketAddress.toString();
 		}
-			
-		return tResult;		
+		
+		return tResult;
 	}
 	
 	/**
@@ -369,81 +466,109 @@ private void cleanupFoGSocketList()
 		}
 	}
 	
+	private void closeIpChannel()
+	{
+		if (mIpChannel != null) {
+			try {
+				// cancels the registration at the event loop, too
+				mIpChannel.close();
+			}
+			catch(IOException tExc) {
+				mLogger.err(this, "Can not close UDP socket", tExc);
+			}
+		}
+	}
+	
 	public void finalize() throws Throwable
 	{
-		if (mIpSocket != null)
-			if (!mIpSocket.isClosed())
-				mIpSocket.close();
-		super.finalize();		
+		closeIpChannel();
+		super.finalize();
 	}
-
+	
 	/**
 	 * Helper class which implements an FoG listener.
 	 * 
-	 * One instance is created either per remote IP peer or per connection request towards IP destination.
+	 * One instance is created per remote IP peer. It forwards the data of its FoG connection
+	 * to the peer. Datagrams from the peer are buffered till the FoG connection is connected.
 	 */
-	private class Fog2IpListener implements ReceiveCallback
+	private class Fog2IpListener extends Session
 	{
-		private Connection mSocket = null;
-		private DatagramSocket mIpSocket = null;
-		private SocketAddress mIpRemoteAddress = null;
+		private InetSocketAddress mIpRemoteAddress = null;
+		private LinkedList<byte[]> mPendingDatagrams = new LinkedList<byte[]>();
+		
+		public Fog2IpListener(InetSocketAddress pIpRemoteAddress)
+		{
+			super(false, mLogger, null);
+			
+			mIpRemoteAddress = pIpRemoteAddress;
+		}
 		
-		public Fog2IpListener(Connection pSocket)
+		/**
+		 * Forwards a datagram from the IP peer to the FoG connection.
+		 * 
+		 * @return true, if the data was forwarded; false, if it was buffered or dropped
+		 */
+		public synchronized boolean forward(byte[] pData)
 		{
-			mSocket = pSocket;
+			if(isConnected()) {
+				flush();
+				return write(pData);
+			} else {
+				if(mPendingDatagrams.size() < UDP_MAX_PENDING_DATAGRAMS) {
+					mPendingDatagrams.addLast(pData);
+				} else {
+					mDroppedDatagrams++;
+					if (DEBUG_CEP_UDP_PROXY)
+						mLogger.log(this, "FoG connection for " + mIpRemoteAddress + " is not connected, dropped " + mDroppedDatagrams + " datagrams so far");
+				}
+				return false;
+			}
 		}
 		
-		public void setIpPeer(DatagramSocket pIpSocket, SocketAddress pIpRemoteAddress)
+		private void flush()
 		{
-			mIpSocket = pIpSocket;
-			mIpRemoteAddress = pIpRemoteAddress;
+			while(!mPendingDatagrams.isEmpty()) {
+				write(mPendingDatagrams.removeFirst());
+			}
+		}
+		
+		private boolean write(byte[] pData)
+		{
+			try {
+				getConnection().write(pData);
+				return true;
+			}
+			catch(NetworkException tExc) {
+				mLogger.err(this, "Could not forward data from " + mIpRemoteAddress + " to FoG application", tExc);
+				return false;
+			}
 		}
 		
 		@Override
-		public void connected()
+		public synchronized void connected()
 		{
-			// TODO Auto-generated method stub
+			flush();
 		}
-
+		
 		@Override
 		public boolean receiveData(Object pData)
 		{
-			boolean tRes = false;
+			// forward FoG socket data to IP socket
+			sendToIp(pData, mIpRemoteAddress, "FoG application server as answer");
 			
-			try {
-				byte[] tReceivedBytes = null;
-				
-				if(pData instanceof byte[]) {
-					tReceivedBytes = (byte[]) pData;
-				} else {
-					tReceivedBytes = pData.toString().getBytes();
-				}
-		 		// forward FoG socket data to IP socket
-				if (DEBUG_CEP_UDP_PROXY)
-					mLogger.log(this, "Got " + tReceivedBytes.length + " bytes as answer from FoG application server and forward them via UDP socket to " + mIpRemoteAddress);
-				mIpSocket.send(new DatagramPacket(tReceivedBytes, tReceivedBytes.length, mIpRemoteAddress));
-			} catch (IOException tExc) {
-				mLogger.err(this, "Can not send UDP packet due to exception: " +tExc.getMessage(), tExc);
-			}
-			
-			return tRes;
+			return false;
 		}
-
+		
 		@Override
-		public void closed()
+		public void stop()
 		{
 			mLogger.log(this, "FoG application closed connection. Closing also.");
 			
-			if(mSocket != null) {
-				mSocket.close();
+			synchronized (mSeenIpPeers) {
+				mSeenIpPeers.remove(mIpRemoteAddress);
 			}
+			
+			super.stop();
 		}
-
-		@Override
-		public void error(Throwable pError)
-		{
-			// TODO Auto-generated method stub	
-		}
-		
 	}
 }
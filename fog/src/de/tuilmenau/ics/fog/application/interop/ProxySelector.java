@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.application.interop;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import de.tuilmenau.ics.fog.ui.Logging;
+
+
+/**
+ * Event loop shared by the interoperation proxies between FoG and IP.
+ * All IP channels of all proxies are handled by a single NIO selector in
+ * a single thread. Thus, the number of flows is not limited by the number
+ * of threads.
+ * 
+ * The handlers of the channels are called by the event loop thread, only.
+ * Registrations and changes of interest sets can be requested by any
+ * thread. They are executed by the event loop before its next select.
+ */
+public class ProxySelector implements Runnable
+{
+	/**
+	 * Size of the pooled buffers; large enough for all UDP datagrams
+	 */
+	public static final int BUFFER_SIZE = 64 *1024;
+	public static final int MAX_POOLED_BUFFERS = 256;
+	
+	
+	/**
+	 * Handler of a channel registered at the event loop.
+	 */
+	public interface Handler
+	{
+		/**
+		 * Called by the event loop if the channel is ready for at least one
+		 * of the operations in its interest set.
+		 * 
+		 * @throws IOException On error; the channel is closed afterwards
+		 */
+		public void ready(SelectionKey pKey) throws IOException;
+		
+		/**
+		 * Called if the channel was closed due to an error in the event loop.
+		 */
+		public void failed(Throwable pError);
+	}
+	
+	
+	private static ProxySelector sInstance = null;
+	
+	/**
+	 * @return Event loop shared by all proxies (!= null)
+	 * @throws IOException If the selector can not be opened
+	 */
+	public static synchronized ProxySelector getInstance() throws IOException
+	{
+		if(sInstance == null) {
+			sInstance = new ProxySelector("InteropProxySelector");
+		}
+		
+		return sInstance;
+	}
+	
+	/**
+	 * Creates and starts an event loop. Usually, the shared one from
+	 * {@link #getInstance()} should be used.
+	 * 
+	 * @param pName Name of the event loop thread
+	 */
+	public ProxySelector(String pName) throws IOException
+	{
+		mSelector = Selector.open();
+		mBufferPool = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+		
+		mThread = new Thread(this, pName);
+		mThread.setDaemon(true);
+		mThread.start();
+	}
+	
+	/**
+	 * @return Pool of direct buffers with {@link #BUFFER_SIZE} bytes
+	 */
+	public BufferPool getBufferPool()
+	{
+		return mBufferPool;
+	}
+	
+	/**
+	 * Switches a channel to non-blocking mode and registers it.
+	 * 
+	 * @param pChannel Channel, which is not registered yet
+	 * @param pOps Initial interest set
+	 * @param pHandler Handler called for the channel
+	 * @throws IOException If the channel can not be switched to non-blocking mode
+	 */
+	public void register(final SelectableChannel pChannel, final int pOps, final Handler pHandler) throws IOException
+	{
+		pChannel.configureBlocking(false);
+		
+		execute(new Runnable() {
+			@Override
+			public void run()
+			{
+				try {
+					pChannel.register(mSelector, pOps, pHandler);
+				}
+				catch(IOException tExc) {
+					pHandler.failed(tExc);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Changes the interest set of a registered channel. Requests for closed
+	 * channels are ignored.
+	 */
+	public void setInterest(final SelectableChannel pChannel, final int pOps)
+	{
+		execute(new Runnable() {
+			@Override
+			public void run()
+			{
+				SelectionKey tKey = pChannel.keyFor(mSelector);
+				
+				if((tKey != null) && tKey.isValid()) {
+					tKey.interestOps(pOps);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * @return true, if the caller is the event loop thread
+	 */
+	public boolean isEventLoop()
+	{
+		return Thread.currentThread() == mThread;
+	}
+	
+	/**
+	 * Stops the event loop and closes the selector. Registered channels are
+	 * not closed.
+	 */
+	public void close()
+	{
+		mClosed = true;
+		mSelector.wakeup();
+	}
+	
+	private void execute(Runnable pTask)
+	{
+		if(isEventLoop()) {
+			pTask.run();
+		} else {
+			mTasks.add(pTask);
+			mSelector.wakeup();
+		}
+	}
+	
+	@Override
+	public void run()
+	{
+		while(!mClosed) {
+			try {
+				mSelector.select();
+				
+				Runnable tTask = mTasks.poll();
+				while(tTask != null) {
+					tTask.run();
+					tTask = mTasks.poll();
+				}
+				
+				Iterator<SelectionKey> tKeys = mSelector.selectedKeys().iterator();
+				while(tKeys.hasNext()) {
+					SelectionKey tKey = tKeys.next();
+					tKeys.remove();
+					
+					handle(tKey);
+				}
+			}
+			catch(Exception tExc) {
+				Logging.err(this, "Error in event loop. Continuing.", tExc);
+			}
+		}
+		
+		try {
+			mSelector.close();
+		}
+		catch(IOException tExc) {
+			Logging.err(this, "Can not close selector.", tExc);
+		}
+	}
+	
+	private void handle(SelectionKey pKey)
+	{
+		Handler tHandler = (Handler) pKey.attachment();
+		
+		try {
+			if(pKey.isValid()) {
+				tHandler.ready(pKey);
+			}
+		}
+		catch(Exception tExc) {
+			pKey.cancel();
+			try {
+				pKey.channel().close();
+			}
+			catch(IOException tCloseExc) {
+				// ignore it; the handler is informed anyway
+			}
+			
+			tHandler.failed(tExc);
+		}
+	}
+	
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() +"(" +mThread.getName() +")";
+	}
+	
+	
+	private Selector mSelector;
+	private BufferPool mBufferPool;
+	private Thread mThread;
+	private ConcurrentLinkedQueue<Runnable> mTasks = new ConcurrentLinkedQueue<Runnable>();
+	private volatile boolean mClosed = false;
+}
@@ -67,14 +67,7 @@ public static boolean executeCommand(Simulation pSim, AutonomousSystem pAS, Stri
 					tOk = pAS.createNode(tParts[2], tNodeMap);
 				}
 				else {
-					try {
-						CreateCommand cmd = getCreateCommand(tParts[1]);
-						tOk = cmd.create(pAS, tParts);
-					}
-					catch(Exception exc) {
-						tOk = false;
-						pAS.getLogger().err(CommandParsing.class, "Error with command '" +tParts[1] +"'.", exc);
-					}
+					tOk = create(pAS, tParts);
 				}
 			}
 			else if ((tCommand.equals("remove")) && (tParts.length >= 3)) {
@@ -172,6 +165,26 @@ else if (tCommand.equals("route") && (tParts.length >= 3)) {
 		return tOk;
 	}
 	
+	/**
+	 * Executes a create command registered via the extension point
+	 * without parsing a command string.
+	 * 
+	 * @param pAS AS the element is created in
+	 * @param pParts Parts of the command ("create", name of the command, parameters)
+	 * @return true, if the element was created; false on error
+	 */
+	public static boolean create(AutonomousSystem pAS, String[] pParts)
+	{
+		try {
+			CreateCommand cmd = getCreateCommand(pParts[1]);
+			return cmd.create(pAS, pParts);
+		}
+		catch(Exception exc) {
+			pAS.getLogger().err(CommandParsing.class, "Error with command '" +pParts[1] +"'.", exc);
+			return false;
+		}
+	}
+	
 	/**
 	 * Searches for create command for the given name.
 	 * 
@@ -179,7 +192,7 @@ else if (tCommand.equals("route") && (tParts.length >= 3)) {
 	 * @return Reference to create command object (!= null)
 	 * @exception Exception On error
 	 */
-	private static CreateCommand getCreateCommand(String pName) throws Exception
+	private static synchronized CreateCommand getCreateCommand(String pName) throws Exception
 	{
 		CreateCommand cmd = sCreateCommands.get(pName);
 			
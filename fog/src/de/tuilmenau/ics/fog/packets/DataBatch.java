@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.packets;
+
+import java.io.Serializable;
+import java.util.LinkedList;
+
+import de.tuilmenau.ics.fog.transfer.gates.headers.ProtocolHeader;
+import de.tuilmenau.ics.fog.util.Size;
+
+
+/**
+ * Payload containing several data objects, which were written by an
+ * application via a connection end point with enabled write coalescing.
+ * The forwarding node at the receiver delivers them to the application in
+ * the order they were added.
+ */
+public class DataBatch implements ProtocolHeader
+{
+	private static final long serialVersionUID = 4167360525926530817L;
+	
+	/**
+	 * Overhead per data object (length field) in bytes
+	 */
+	private static final int HEADER_SIZE_PER_DATA = 2;
+	
+	
+	public DataBatch()
+	{
+		mData = new LinkedList<Serializable>();
+	}
+	
+	/**
+	 * Appends a data object to the end of the batch.
+	 */
+	public void add(Serializable pData)
+	{
+		mData.add(pData);
+		mSize += sizeOf(pData) +HEADER_SIZE_PER_DATA;
+	}
+	
+	/**
+	 * @return Data objects in the order they were added (!= null)
+	 */
+	public LinkedList<Serializable> getData()
+	{
+		return mData;
+	}
+	
+	public int size()
+	{
+		return mData.size();
+	}
+	
+	public boolean isEmpty()
+	{
+		return mData.isEmpty();
+	}
+	
+	@Override
+	public int getSerialisedSize()
+	{
+		return mSize;
+	}
+	
+	/**
+	 * Estimates the size of a data object. In contrast to {@link Size},
+	 * strings are counted with their length.
+	 */
+	public static int sizeOf(Serializable pData)
+	{
+		if(pData instanceof String) {
+			return ((String) pData).length();
+		} else {
+			return Size.sizeOf(pData);
+		}
+	}
+	
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() +"(" +mData.size() +" data objects, " +mSize +" bytes)";
+	}
+	
+	
+	private LinkedList<Serializable> mData;
+	private int mSize = 0;
+}
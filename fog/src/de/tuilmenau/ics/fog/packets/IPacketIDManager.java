@@ -19,4 +19,13 @@
 
 public interface IPacketIDManager extends Serializable, Remote {
 	public long getID() throws RemoteException;
+	
+	/**
+	 * Reserves a block of consecutive IDs. The caller can use the IDs
+	 * without further calls to the manager.
+	 * 
+	 * @param pSize Number of IDs in the block (> 0)
+	 * @return First ID of the block
+	 */
+	public long getIDBlock(int pSize) throws RemoteException;
 }
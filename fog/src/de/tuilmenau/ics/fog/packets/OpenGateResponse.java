@@ -51,6 +51,16 @@ public OpenGateResponse(int requesterID, GateID localOutgoingNumber, Name localB
 		peerBaseRoutingName = localBaseRoutingName;
 	}
 	
+	/**
+	 * Constructor for decoding messages in {@link PacketCodec}.
+	 */
+	OpenGateResponse(int requesterID, GateID localOutgoingNumber, Name localBaseRoutingName, NetworkException localError)
+	{
+		this(requesterID, localOutgoingNumber, localBaseRoutingName);
+		
+		error = localError;
+	}
+	
 	@Override
 	public boolean execute(Process process, Packet packet, Identity responder)
 	{
@@ -98,6 +108,21 @@ else if(process instanceof ProcessRerouting) {
 		
 		return true;
 	}
+	
+	GateID getPeerOutgoingNumber()
+	{
+		return peerOutgoingNumber;
+	}
+	
+	Name getPeerBaseRoutingName()
+	{
+		return peerBaseRoutingName;
+	}
+	
+	NetworkException getError()
+	{
+		return error;
+	}
 
 
 	@Viewable("Peer gate number")
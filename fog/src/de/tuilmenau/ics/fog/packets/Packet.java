@@ -13,8 +13,11 @@
  ******************************************************************************/
 package de.tuilmenau.ics.fog.packets;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
-import java.rmi.RemoteException;
+import java.util.Iterator;
 import java.util.LinkedList;
 
 import net.rapi.Description;
@@ -31,9 +34,11 @@
 import de.tuilmenau.ics.fog.transfer.gates.AbstractGate;
 import de.tuilmenau.ics.fog.transfer.gates.GateID;
 import de.tuilmenau.ics.fog.transfer.gates.headers.ProtocolHeader;
-import de.tuilmenau.ics.fog.ui.Logging;
 import de.tuilmenau.ics.fog.ui.Statistic;
 import de.tuilmenau.ics.fog.util.Size;
+import de.tuilmenau.ics.fog.util.StatisticSchema;
+import de.tuilmenau.ics.fog.util.StatisticSchema.Type;
+import de.tuilmenau.ics.middleware.WireCodec;
 
 
 public class Packet implements Serializable
@@ -125,17 +130,9 @@ public void setNewId()
 	/**
 	 * @return New ID for packet
 	 */
-	private synchronized static long getNewId()
+	private static long getNewId()
 	{
-		IPacketIDManager IDManager = PacketIDManager.getSimulationPacketIDManager();
-		long Id = 0;
-		try {
-			Id = IDManager.getID();
-		} catch (RemoteException rExc) {
-			Logging.err(Packet.class, "No managagement of packet IDs available", rExc);
-			Id = lastUsedId++;
-		} 
-		return Id;
+		return PacketIDAllocator.getNewId();
 	}
 	
 	public Route getRoute()
@@ -169,9 +166,11 @@ public void addGateIDFront(RouteSegment segment)
 
 	public void addGateIDFront(Route route)
 	{
-		// make a deep copy and add it to this route
-		for(int i = route.size() -1; i >= 0; i--) {
-			RouteSegment seg = route.get(i);
+		// make a copy and add it to this route
+		Iterator<RouteSegment> tIter = route.descendingIterator();
+		
+		while(tIter.hasNext()) {
+			RouteSegment seg = tIter.next();
 			
 			if(seg != null) {
 				mRoute.addFirst(seg.clone());
@@ -263,6 +262,7 @@ public Serializable getData()
 	public void setData(Serializable data)
 	{
 		mPayload = data;
+		mPayloadSizeValid = false;
 	}
 	
 	public boolean isSignalling()
@@ -358,6 +358,10 @@ public Packet clone()
 			tClone.mAuthentications = (LinkedList<Signature>) mAuthentications.clone();
 		}
 		
+		// same payload object; size is the same
+		tClone.mPayloadSize = mPayloadSize;
+		tClone.mPayloadSizeValid = mPayloadSizeValid;
+		
 		tClone.setLowerLayers((LinkedList<String>) mLowerLayers.clone());
 		tClone.setSourceNode(mSourceNode);
 		tClone.setTargetNode(mTargetNode);
@@ -453,6 +457,76 @@ public Route getDownRoute()
 	{
 		return mDownRoute;
 	}	
+	
+	/**
+	 * Writes the packet for {@link PacketCodec}. It contains the same
+	 * fields as the Java serialization.
+	 */
+	void writeWire(WireCodec pCodec, DataOutput pOut) throws IOException
+	{
+		pCodec.writeObject(pOut, mRoute);
+		pCodec.writeObject(pOut, mReturnRoute);
+		pCodec.writeObject(pOut, mPayload);
+		pCodec.writeObject(pOut, mAuthentications);
+		
+		WireCodec.writeVarInt(pOut, mLowerLayers.size());
+		for(String tLowerLayer : mLowerLayers) {
+			WireCodec.writeString(pOut, tLowerLayer);
+		}
+		
+		WireCodec.writeVarInt(pOut, mChangeCounter);
+		
+		// statistics
+		int tFlags = 0;
+		if(mId != null) tFlags |= 1;
+		if(mPredecessorId != null) tFlags |= 2;
+		if(mGatesPassed != null) tFlags |= 4;
+		if(mInitRouteLength != null) tFlags |= 8;
+		pOut.writeByte(tFlags);
+		
+		if(mId != null) WireCodec.writeVarLong(pOut, mId);
+		if(mPredecessorId != null) WireCodec.writeVarLong(pOut, mPredecessorId);
+		if(mGatesPassed != null) WireCodec.writeVarInt(pOut, mGatesPassed);
+		if(mInitRouteLength != null) WireCodec.writeVarInt(pOut, mInitRouteLength);
+		
+		WireCodec.writeString(pOut, mSourceNode);
+		WireCodec.writeString(pOut, mTargetNode);
+	}
+	
+	/**
+	 * Reads a packet written by {@link #writeWire(WireCodec, DataOutput)}.
+	 */
+	@SuppressWarnings("unchecked")
+	static Packet readWire(WireCodec pCodec, DataInput pIn) throws IOException, ClassNotFoundException
+	{
+		Route tRoute = (Route) pCodec.readObject(pIn);
+		Route tReturnRoute = (Route) pCodec.readObject(pIn);
+		Serializable tPayload = (Serializable) pCodec.readObject(pIn);
+		
+		Packet tPacket = new Packet(tRoute, tReturnRoute, tPayload, (Long) null);
+		
+		tPacket.mAuthentications = (LinkedList<Signature>) pCodec.readObject(pIn);
+		
+		int tLowerLayers = WireCodec.readVarInt(pIn);
+		for(int i = 0; i < tLowerLayers; i++) {
+			tPacket.mLowerLayers.add(WireCodec.readString(pIn));
+		}
+		
+		tPacket.mChangeCounter = WireCodec.readVarInt(pIn);
+		
+		// statistics
+		int tFlags = pIn.readUnsignedByte();
+		
+		tPacket.mId = ((tFlags & 1) != 0) ? WireCodec.readVarLong(pIn) : null;
+		tPacket.mPredecessorId = ((tFlags & 2) != 0) ? WireCodec.readVarLong(pIn) : null;
+		tPacket.mGatesPassed = ((tFlags & 4) != 0) ? WireCodec.readVarInt(pIn) : null;
+		tPacket.mInitRouteLength = ((tFlags & 8) != 0) ? WireCodec.readVarInt(pIn) : null;
+		
+		tPacket.mSourceNode = WireCodec.readString(pIn);
+		tPacket.mTargetNode = WireCodec.readString(pIn);
+		
+		return tPacket;
+	}
 
 	public void logStats(Simulation pSim)
 	{
@@ -481,63 +555,60 @@ public void logStats(Simulation pSim, Object pLastHopName)
 					return;
 				}
 			}
-			LinkedList<String> tColumnList = new LinkedList<String>();
-			tColumnList.add(mId.toString());
-			if (mPredecessorId != null) {
-				tColumnList.add(mPredecessorId.toString());
-			} else {
-				tColumnList.add("");
-			}
-			if (mPayload != null) {
-				tColumnList.add(mPayload.getClass().getSimpleName());
-			} else {
-				tColumnList.add("");
-			}
-			if (mSourceNode != null) {
-				tColumnList.add(mSourceNode.toString());
-			}
-			else if (getData() instanceof ExperimentAgent && ((ExperimentAgent)getData()).getSourceNode() != null) {
-				tColumnList.add(((ExperimentAgent)getData()).getSourceNode());
-			} else {
-				tColumnList.add("");
-			}
-			if (mTargetNode != null) {
-				tColumnList.add(mTargetNode.toString());
-			}
-			else if (getData() instanceof ExperimentAgent && ((ExperimentAgent)getData()).getDestNode() != null) {
-					tColumnList.add(((ExperimentAgent)getData()).getDestNode());
-			} else {
-				tColumnList.add("");
-			}
-			if (mAuthentications != null) { // Hops
-				// mAuthentications includes source which is no hop, so subtract 1
-				tColumnList.add(Integer.toString(mAuthentications.size() - 1));
-			} else {
-				tColumnList.add("");
-			}
-			tColumnList.add(mGatesPassed.toString());
-			tColumnList.add(mInitRouteLength.toString());
-			if (pLastHopName != null) {
-				tColumnList.add(pLastHopName.toString());
-			} else {
-				tColumnList.add("");
-			}
-			// additional payload specific columns
-			if (mPayload instanceof IPacketStatistics) {
-				pSim.getLogger().debug(this, "getting statistics from this packet");
-				tColumnList.addAll(((IPacketStatistics) mPayload).getStats());
-				// TODO: evtl. auf null testen
-			}
-	
 			try {
-//				if (mPayload instanceof Reroute) {
-//					Logging.log("Logstats", tColumnList.toString());
-//					StackTraceElement[] plah = Thread.currentThread().getStackTrace();
-//					for (StackTraceElement tElem : plah) {
-//						Logging.log("Logstats", tElem.toString());
-//					}
-//				}
-				Statistic.getInstance(pSim, Packet.class).log(tColumnList);
+				Statistic tStat = Statistic.getInstance(pSim, Packet.class, STATISTIC_SCHEMA);
+				
+				synchronized(tStat) {
+					tStat.write(mId.longValue());
+					if (mPredecessorId != null) {
+						tStat.write(mPredecessorId.longValue());
+					} else {
+						tStat.writeEmpty();
+					}
+					if (mPayload != null) {
+						tStat.write(mPayload.getClass().getSimpleName());
+					} else {
+						tStat.writeEmpty();
+					}
+					if (mSourceNode != null) {
+						tStat.write(mSourceNode.toString());
+					}
+					else if (getData() instanceof ExperimentAgent && ((ExperimentAgent)getData()).getSourceNode() != null) {
+						tStat.write(((ExperimentAgent)getData()).getSourceNode());
+					} else {
+						tStat.writeEmpty();
+					}
+					if (mTargetNode != null) {
+						tStat.write(mTargetNode.toString());
+					}
+					else if (getData() instanceof ExperimentAgent && ((ExperimentAgent)getData()).getDestNode() != null) {
+						tStat.write(((ExperimentAgent)getData()).getDestNode());
+					} else {
+						tStat.writeEmpty();
+					}
+					if (mAuthentications != null) { // Hops
+						// mAuthentications includes source which is no hop, so subtract 1
+						tStat.write((long) (mAuthentications.size() - 1));
+					} else {
+						tStat.writeEmpty();
+					}
+					tStat.write(mGatesPassed.longValue());
+					tStat.write(mInitRouteLength.longValue());
+					if (pLastHopName != null) {
+						tStat.write(pLastHopName.toString());
+					} else {
+						tStat.writeEmpty();
+					}
+					// additional payload specific columns
+					if (mPayload instanceof IPacketStatistics) {
+						pSim.getLogger().debug(this, "getting statistics from this packet");
+						LinkedList<String> tStats = ((IPacketStatistics) mPayload).getStats();
+						if(tStats != null) {
+							tStat.write(tStats);
+						}
+					}
+					tStat.finishEntry();
+				}
 			} catch(Exception e) {
 				pSim.getLogger().err(this, "Can not write statistic log.", e);
 			}
@@ -564,7 +635,12 @@ public int getSerialisedSize()
 		if(mPayload instanceof ProtocolHeader) {
 			tResult += ((ProtocolHeader) mPayload).getSerialisedSize();
 		} else {
-			tResult += Size.sizeOf(mPayload);
+			// size of payload is calculated once per payload object
+			if(!mPayloadSizeValid) {
+				mPayloadSize = Size.sizeOf(mPayload);
+				mPayloadSizeValid = true;
+			}
+			tResult += mPayloadSize;
 		}
 
 		tResult += Size.sizeOf(mAuthentications);
@@ -668,6 +744,10 @@ public void droppingDetected(Object detector, Simulation simulation)
 	private Route mReturnRoute;
 	private Serializable mPayload;
 	private LinkedList<Signature> mAuthentications; // lacy creation
+	
+	// cached size of payloads, which are not protocol headers
+	private transient int mPayloadSize = 0;
+	private transient boolean mPayloadSizeValid = false;
 	private LinkedList<String> mLowerLayers = new LinkedList<String>();
 
 	// for error handling inside of a node
@@ -677,7 +757,21 @@ public void droppingDetected(Object detector, Simulation simulation)
 	// Statistics:
 	//   Just for debugging and GUI use. In reality, packets do not transport these values.
 	//
-	private static long lastUsedId = 0;
+	/**
+	 * Columns of the packet statistic written by {@link #logStats(Simulation, Object)}.
+	 */
+	private static final StatisticSchema STATISTIC_SCHEMA = new StatisticSchema()
+		.add("id", Type.LONG)
+		.add("predecessor", Type.LONG)
+		.add("payload", Type.STRING)
+		.add("source", Type.STRING)
+		.add("target", Type.STRING)
+		.add("hops", Type.LONG)
+		.add("gatesPassed", Type.LONG)
+		.add("initRouteLength", Type.LONG)
+		.add("lastHop", Type.STRING)
+		.add("payloadStatistics", Type.STRING_LIST);
+	
 	private Long mId;
 	private Long mPredecessorId = null;
 	private String mSourceNode = null;
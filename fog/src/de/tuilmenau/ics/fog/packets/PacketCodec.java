@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.packets;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+import net.rapi.Description;
+import net.rapi.Name;
+import net.rapi.NetworkException;
+import de.tuilmenau.ics.fog.routing.Route;
+import de.tuilmenau.ics.fog.routing.RouteSegment;
+import de.tuilmenau.ics.fog.routing.RouteSegmentPath;
+import de.tuilmenau.ics.fog.transfer.gates.GateID;
+import de.tuilmenau.ics.middleware.WireCodec;
+
+
+/**
+ * Binary encoders for packets, routes and common signalling messages. They
+ * replace the Java serialization of these objects if packets are sent by
+ * the emulator interfaces. Decoding is supported by the
+ * {@link de.tuilmenau.ics.middleware.Serializer}, too. Other payloads and
+ * other route segments are still serialized by Java.
+ *
+ * The type IDs are part of the wire format. They must not be changed or
+ * reused for other classes.
+ */
+public class PacketCodec
+{
+	public static final int TYPE_GATE_ID = WireCodec.FIRST_USER_TYPE;
+	public static final int TYPE_ROUTE_SEGMENT_PATH = WireCodec.FIRST_USER_TYPE +1;
+	public static final int TYPE_ROUTE = WireCodec.FIRST_USER_TYPE +2;
+	public static final int TYPE_PACKET = WireCodec.FIRST_USER_TYPE +3;
+	public static final int TYPE_PLEASE_KEEP_ALIVE = WireCodec.FIRST_USER_TYPE +4;
+	public static final int TYPE_PLEASE_CLOSE_CONNECTION = WireCodec.FIRST_USER_TYPE +5;
+	public static final int TYPE_PLEASE_UPDATE_ROUTE = WireCodec.FIRST_USER_TYPE +6;
+	public static final int TYPE_PLEASE_OPEN_UNICAST = WireCodec.FIRST_USER_TYPE +7;
+	public static final int TYPE_OPEN_GATE_RESPONSE = WireCodec.FIRST_USER_TYPE +8;
+	public static final int TYPE_DATA_BATCH = WireCodec.FIRST_USER_TYPE +9;
+	
+	
+	/**
+	 * Registers the encoders at the codec used by the serializer. It can be
+	 * called more than once.
+	 */
+	public static void register()
+	{
+		register(WireCodec.getInstance());
+	}
+	
+	public static void register(WireCodec pCodec)
+	{
+		pCodec.register(TYPE_GATE_ID, GateID.class, GATE_ID);
+		pCodec.register(TYPE_ROUTE_SEGMENT_PATH, RouteSegmentPath.class, ROUTE_SEGMENT_PATH);
+		pCodec.register(TYPE_ROUTE, Route.class, ROUTE);
+		pCodec.register(TYPE_PACKET, Packet.class, PACKET);
+		pCodec.register(TYPE_PLEASE_KEEP_ALIVE, PleaseKeepAlive.class, PLEASE_KEEP_ALIVE);
+		pCodec.register(TYPE_PLEASE_CLOSE_CONNECTION, PleaseCloseConnection.class, PLEASE_CLOSE_CONNECTION);
+		pCodec.register(TYPE_PLEASE_UPDATE_ROUTE, PleaseUpdateRoute.class, PLEASE_UPDATE_ROUTE);
+		pCodec.register(TYPE_PLEASE_OPEN_UNICAST, PleaseOpenUnicast.class, PLEASE_OPEN_UNICAST);
+		pCodec.register(TYPE_OPEN_GATE_RESPONSE, OpenGateResponse.class, OPEN_GATE_RESPONSE);
+		pCodec.register(TYPE_DATA_BATCH, DataBatch.class, DATA_BATCH);
+	}
+	
+	
+	private static final WireCodec.Encoder<GateID> GATE_ID = new WireCodec.Encoder<GateID>() {
+		@Override
+		public void write(WireCodec pCodec, DataOutput pOut, GateID pGateID) throws IOException
+		{
+			WireCodec.writeVarInt(pOut, pGateID.GetID());
+		}
+		
+		@Override
+		public GateID read(WireCodec pCodec, DataInput pIn) throws IOException
+		{
+			return GateID.valueOf(WireCodec.readVarInt(pIn));
+		}
+	};
+	
+	/**
+	 * Only the gate numbers not consumed yet are written.
+	 */
+	private static final WireCodec.Encoder<RouteSegmentPath> ROUTE_SEGMENT_PATH = new WireCodec.Encoder<RouteSegmentPath>() {
+		@Override
+		public void write(WireCodec pCodec, DataOutput pOut, RouteSegmentPath pPath) throws IOException
+		{
+			int tSize = pPath.size();
+			
+			WireCodec.writeVarInt(pOut, tSize);
+			for(int i = 0; i < tSize; i++) {
+				WireCodec.writeVarInt(pOut, pPath.getGateNumber(i));
+			}
+		}
+		
+		@Override
+		public RouteSegmentPath read(WireCodec pCodec, DataInput pIn) throws IOException
+		{
+			int tSize = WireCodec.readVarInt(pIn);
+			RouteSegmentPath tPath = new RouteSegmentPath();
+			
+			if(tSize < 0) {
+				throw new IOException("Invalid number of gates " +tSize +".");
+			}
+			for(int i = 0; i < tSize; i++) {
+				tPath.addLast(GateID.valueOf(WireCodec.readVarInt(pIn)));
+			}
+			return tPath;
+		}
+	};
+	
+	/**
+	 * The deprecated gate amount of a route is not transmitted.
+	 */
+	private static final WireCodec.Encoder<Route> ROUTE = new WireCodec.Encoder<Route>() {
+		@Override
+		public void write(WireCodec pCodec, DataOutput pOut, Route pRoute) throws IOException
+		{
+			WireCodec.writeVarInt(pOut, pRoute.size());
+			for(RouteSegment tSegment : pRoute) {
+				pCodec.writeObject(pOut, tSegment);
+			}
+		}
+		
+		@Override
+		public Route read(WireCodec pCodec, DataInput pIn) throws IOException, ClassNotFoundException
+		{
+			int tSize = WireCodec.readVarInt(pIn);
+			Route tRoute = new Route();
+			
+			if(tSize < 0) {
+				throw new IOException("Invalid number of route segments " +tSize +".");
+			}
+			for(int i = 0; i < tSize; i++) {
+				tRoute.add((RouteSegment) pCodec.readObject(pIn));
+			}
+			return tRoute;
+		}
+	};
+	
+	private static final WireCodec.Encoder<Packet> PACKET = new WireCodec.Encoder<Packet>() {
+		@Override
+		public void write(WireCodec pCodec, DataOutput pOut, Packet pPacket) throws IOException
+		{
+			pPacket.writeWire(pCodec, pOut);
+		}
+		
+		@Override
+		public Packet read(WireCodec pCodec, DataInput pIn) throws IOException, ClassNotFoundException
+		{
+			return Packet.readWire(pCodec, pIn);
+		}
+	};
+	
+	private static final WireCodec.Encoder<PleaseKeepAlive> PLEASE_KEEP_ALIVE = new WireCodec.Encoder<PleaseKeepAlive>() {
+		@Override
+		public void write(WireCodec pCodec, DataOutput pOut, PleaseKeepAlive pMessage) throws IOException
+		{
+			WireCodec.writeVarInt(pOut, pMessage.getProcessNumber());
+		}
+		
+		@Override
+		public PleaseKeepAlive read(WireCodec pCodec, DataInput pIn) throws IOException
+		{
+			PleaseKeepAlive tMessage = new PleaseKeepAlive();
+			
+			tMessage.setProcessNumber(WireCodec.readVarInt(pIn));
+			return tMessage;
+		}
+	};
+	
+	private static final WireCodec.Encoder<PleaseCloseConnection> PLEASE_CLOSE_CONNECTION = new WireCodec.Encoder<PleaseCloseConnection>() {
+		@Override
+		public void write(WireCodec pCodec, DataOutput pOut, PleaseCloseConnection pMessage) throws IOException
+		{
+			WireCodec.writeVarInt(pOut, pMessage.getProcessNumber());
+		}
+		
+		@Override
+		public PleaseCloseConnection read(WireCodec pCodec, DataInput pIn) throws IOException
+		{
+			PleaseCloseConnection tMessage = new PleaseCloseConnection();
+			
+			tMessage.setProcessNumber(WireCodec.readVarInt(pIn));
+			return tMessage;
+		}
+	};
+	
+	private static final WireCodec.Encoder<PleaseUpdateRoute> PLEASE_UPDATE_ROUTE = new WireCodec.Encoder<PleaseUpdateRoute>() {
+		@Override
+		public void write(WireCodec pCodec, DataOutput pOut, PleaseUpdateRoute pMessage) throws IOException
+		{
+			WireCodec.writeVarInt(pOut, pMessage.getProcessNumber());
+			pOut.writeBoolean(pMessage.isAnswerRequested());
+		}
+		
+		@Override
+		public PleaseUpdateRoute read(WireCodec pCodec, DataInput pIn) throws IOException
+		{
+			int tProcessNumber = WireCodec.readVarInt(pIn);
+			PleaseUpdateRoute tMessage = new PleaseUpdateRoute(pIn.readBoolean());
+			
+			tMessage.setProcessNumber(tProcessNumber);
+			return tMessage;
+		}
+	};
+	
+	private static final WireCodec.Encoder<PleaseOpenUnicast> PLEASE_OPEN_UNICAST = new WireCodec.Encoder<PleaseOpenUnicast>() {
+		@Override
+		public void write(WireCodec pCodec, DataOutput pOut, PleaseOpenUnicast pMessage) throws IOException
+		{
+			WireCodec.writeVarInt(pOut, pMessage.getProcessNumber());
+			pCodec.writeObject(pOut, pMessage.getGateNumber());
+			pCodec.writeObject(pOut, pMessage.getDescription());
+		}
+		
+		@Override
+		public PleaseOpenUnicast read(WireCodec pCodec, DataInput pIn) throws IOException, ClassNotFoundException
+		{
+			int tProcessNumber = WireCodec.readVarInt(pIn);
+			GateID tGateNumber = (GateID) pCodec.readObject(pIn);
+			Description tDescription = (Description) pCodec.readObject(pIn);
+			
+			return new PleaseOpenUnicast(tProcessNumber, tGateNumber, tDescription);
+		}
+	};
+	
+	private static final WireCodec.Encoder<OpenGateResponse> OPEN_GATE_RESPONSE = new WireCodec.Encoder<OpenGateResponse>() {
+		@Override
+		public void write(WireCodec pCodec, DataOutput pOut, OpenGateResponse pMessage) throws IOException
+		{
+			WireCodec.writeVarInt(pOut, pMessage.getProcessNumber());
+			pCodec.writeObject(pOut, pMessage.getPeerOutgoingNumber());
+			pCodec.writeObject(pOut, pMessage.getPeerBaseRoutingName());
+			pCodec.writeObject(pOut, pMessage.getError());
+		}
+		
+		@Override
+		public OpenGateResponse read(WireCodec pCodec, DataInput pIn) throws IOException, ClassNotFoundException
+		{
+			int tProcessNumber = WireCodec.readVarInt(pIn);
+			GateID tGateNumber = (GateID) pCodec.readObject(pIn);
+			Name tName = (Name) pCodec.readObject(pIn);
+			NetworkException tError = (NetworkException) pCodec.readObject(pIn);
+			
+			return new OpenGateResponse(tProcessNumber, tGateNumber, tName, tError);
+		}
+	};
+	
+	private static final WireCodec.Encoder<DataBatch> DATA_BATCH = new WireCodec.Encoder<DataBatch>() {
+		@Override
+		public void write(WireCodec pCodec, DataOutput pOut, DataBatch pBatch) throws IOException
+		{
+			WireCodec.writeVarInt(pOut, pBatch.size());
+			for(Serializable tData : pBatch.getData()) {
+				pCodec.writeObject(pOut, tData);
+			}
+		}
+		
+		@Override
+		public DataBatch read(WireCodec pCodec, DataInput pIn) throws IOException, ClassNotFoundException
+		{
+			DataBatch tBatch = new DataBatch();
+			int tSize = WireCodec.readVarInt(pIn);
+			
+			for(int i = 0; i < tSize; i++) {
+				tBatch.add((Serializable) pCodec.readObject(pIn));
+			}
+			return tBatch;
+		}
+	};
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.packets;
+
+import java.rmi.RemoteException;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.tuilmenau.ics.fog.EventHandler;
+import de.tuilmenau.ics.fog.ui.Logging;
+
+
+/**
+ * Hands out packet IDs from blocks leased from the {@link IPacketIDManager}.
+ * Each thread leases its own block. Therefore, IDs are taken without any
+ * lock and the (maybe remote) manager is called only once per block.
+ * The IDs remain globally unique. They are roughly increasing, since blocks
+ * are leased in increasing order.
+ * 
+ * The partitions of a parallel simulation share one block and take their
+ * IDs in the order of the sequential simulation, like the single event
+ * thread of the sequential simulation.
+ */
+public class PacketIDAllocator
+{
+	/**
+	 * Number of IDs leased from the manager at once.
+	 */
+	public static final int BLOCK_SIZE = 65536;
+	
+	/**
+	 * First ID used if the manager is not available. IDs of the manager
+	 * start at zero and do not reach this range.
+	 */
+	public static final long FALLBACK_FIRST_ID = 1L << 62;
+	
+	
+	/**
+	 * @return New unique packet ID
+	 */
+	public static long getNewId()
+	{
+		if(EventHandler.accessSharedState()) {
+			synchronized(sEventBlock) {
+				return getNewId(sEventBlock);
+			}
+		} else {
+			return getNewId(sBlock.get());
+		}
+	}
+	
+	private static long getNewId(IDBlock pBlock)
+	{
+		if(pBlock.mNext >= pBlock.mEnd) {
+			lease(pBlock);
+		}
+		
+		pBlock.mIssued++;
+		return pBlock.mNext++;
+	}
+	
+	/**
+	 * @return Number of IDs handed out so far (approximation for threads still running)
+	 */
+	public static long getNumberIssuedIds()
+	{
+		long tIssued = 0;
+		
+		synchronized(sBlocks) {
+			for(IDBlock tBlock : sBlocks) {
+				tIssued += tBlock.mIssued;
+			}
+		}
+		
+		return tIssued;
+	}
+	
+	/**
+	 * @return Number of calls to the ID manager, which were not needed due to the leased blocks
+	 */
+	public static long getNumberSavedCalls()
+	{
+		return Math.max(0, getNumberIssuedIds() -getNumberLeases());
+	}
+	
+	/**
+	 * @return Number of blocks leased from the ID manager
+	 */
+	public static long getNumberLeases()
+	{
+		return sNumberLeases.get();
+	}
+	
+	private static void lease(IDBlock pBlock)
+	{
+		IPacketIDManager tIDManager = PacketIDManager.getSimulationPacketIDManager();
+		
+		sNumberLeases.incrementAndGet();
+		
+		try {
+			pBlock.mStart = tIDManager.getIDBlock(BLOCK_SIZE);
+		}
+		catch (RemoteException rExc) {
+			Logging.err(PacketIDAllocator.class, "No managagement of packet IDs available", rExc);
+			pBlock.mStart = sFallbackId.getAndAdd(BLOCK_SIZE);
+		}
+		
+		pBlock.mNext = pBlock.mStart;
+		pBlock.mEnd = pBlock.mStart +BLOCK_SIZE;
+	}
+	
+	/**
+	 * Range of leased IDs of a thread
+	 */
+	private static class IDBlock
+	{
+		private long mStart = 0;
+		private long mNext = 0;
+		private long mEnd = 0;
+		
+		// number of IDs handed out by the thread; just for statistics
+		private long mIssued = 0;
+	}
+	
+	private static final ThreadLocal<IDBlock> sBlock = new ThreadLocal<IDBlock>() {
+		@Override
+		protected IDBlock initialValue()
+		{
+			IDBlock tBlock = new IDBlock();
+			
+			synchronized(sBlocks) {
+				sBlocks.add(tBlock);
+			}
+			return tBlock;
+		}
+	};
+	
+	// blocks of all threads for summing up the statistics
+	private static final LinkedList<IDBlock> sBlocks = new LinkedList<IDBlock>();
+	
+	// block shared by the partitions of a parallel simulation
+	private static final IDBlock sEventBlock = new IDBlock();
+	
+	static {
+		sBlocks.add(sEventBlock);
+	}
+	
+	private static final AtomicLong sNumberLeases = new AtomicLong(0);
+	private static final AtomicLong sFallbackId = new AtomicLong(FALLBACK_FIRST_ID);
+}
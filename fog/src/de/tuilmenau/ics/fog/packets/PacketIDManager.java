@@ -38,6 +38,14 @@ public synchronized long getID() throws RemoteException
 		return ID++;
 	}
 	
+	public synchronized long getIDBlock(int pSize) throws RemoteException
+	{
+		long tFirst = ID;
+		
+		ID += pSize;
+		return tFirst;
+	}
+	
 	public static IPacketIDManager getSimulationPacketIDManager()
 	{
 		IPacketIDManager pIDManager = sSingletonIDManager;
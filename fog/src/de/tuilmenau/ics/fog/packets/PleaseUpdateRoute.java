@@ -77,6 +77,13 @@ public boolean execute(ForwardingNode pFN, Packet pPacket, Identity requester)
 		return false;
 	}
 
+	/**
+	 * @return true, if the receiver should answer with an update message
+	 */
+	boolean isAnswerRequested()
+	{
+		return mAnswer;
+	}
 	
 	private boolean mAnswer;
 }
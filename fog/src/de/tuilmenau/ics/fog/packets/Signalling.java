@@ -52,6 +52,14 @@ public int getProcessNumber()
 		return referenceProcessNumber;
 	}
 	
+	/**
+	 * Just for decoding messages in {@link PacketCodec}.
+	 */
+	void setProcessNumber(int pProcessNumber)
+	{
+		referenceProcessNumber = pProcessNumber;
+	}
+	
 	/**
 	 * Method for executing actions in the context of a network entity.
 	 * 
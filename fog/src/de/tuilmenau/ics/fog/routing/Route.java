@@ -51,9 +51,7 @@ public Route(Route pRoute)
 		super();
 		
 		if(pRoute != null) {
-			for(int i=0; i<pRoute.size(); i++) {
-				RouteSegment seg = pRoute.get(i);
-				
+			for(RouteSegment seg : pRoute) {
 				if(seg != null)
 				{
 					addLast(seg.clone());
@@ -104,16 +102,18 @@ public void addLast(GateID gateID)
 	
 	public void addFirst(Route route)
 	{
-		for(int i=route.size() -1; i>=0; i--) {
-			addFirst(route.get(i));
+		Iterator<RouteSegment> tIter = route.descendingIterator();
+		
+		while(tIter.hasNext()) {
+			addFirst(tIter.next());
 			++mRouteLength;
 		}
 	}
 	
 	public void addLast(Route route)
 	{
-		for(int i=0; i<route.size(); i++) {
-			addLast(route.get(i));
+		for(RouteSegment seg : route) {
+			addLast(seg);
 			++mRouteLength;
 		}
 	}
@@ -229,9 +229,10 @@ public boolean equals(Route pRoute)
 	@Override
 	public Route clone()
 	{
+		// segments share their content with the original until modified
 		Route tNewRoute=new Route();
-		for(int i=this.size();i>0;i--){
-			tNewRoute.addFirst(this.get(i-1).clone());
+		for(RouteSegment seg : this) {
+			tNewRoute.addLast(seg.clone());
 		}
 		return tNewRoute;
 	}
@@ -241,12 +242,11 @@ public String toString()
 		StringBuffer resultStr = new StringBuffer(128);
 
 		resultStr.append("[");
-		if(size() > 0) {
-			for(int i = 0; i < size(); i++) {
-				resultStr.append(get(i));
-				if (i < size() - 1) {
-					resultStr.append(",");
-				}
+		Iterator<RouteSegment> tIter = iterator();
+		while(tIter.hasNext()) {
+			resultStr.append(tIter.next());
+			if(tIter.hasNext()) {
+				resultStr.append(",");
 			}
 		}
 		resultStr.append("]");
@@ -13,7 +13,11 @@
  ******************************************************************************/
 package de.tuilmenau.ics.fog.routing;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractList;
+import java.util.NoSuchElementException;
 
 import de.tuilmenau.ics.fog.transfer.gates.GateID;
 
@@ -21,20 +25,36 @@
  * This route segment type represents the 'normal' FoG route, which consists
  * of an ordered list of gate numbers. The first gate number in the list is
  * used by a forwarding node to forward a packet. 
+ * 
+ * The gate numbers are stored in a compact int array. Removing the first
+ * gate number just moves a read cursor. Copies share the array until one
+ * of them modifies it (copy-on-write). Thus, cloning packets and consuming
+ * gate numbers hop by hop do not copy the gate numbers.
  */
-public class RouteSegmentPath extends LinkedList<GateID> implements RouteSegment 
+public class RouteSegmentPath extends AbstractList<GateID> implements RouteSegment 
 {
-	private static final long serialVersionUID = -4485747600451932586L;
+	private static final long serialVersionUID = -4485747600451932587L;
+	
+	/**
+	 * Free space at the front of a new array for prepending gate numbers
+	 * (e.g. in return routes) without copying.
+	 */
+	private static final int HEADROOM = 4;
+	private static final int INITIAL_CAPACITY = 8;
 	
 
 	public RouteSegmentPath()
 	{
 		super();
+		
+		mGates = new int[INITIAL_CAPACITY];
+		mStart = HEADROOM;
+		mEnd = HEADROOM;
 	}
 	
 	public RouteSegmentPath(GateID pShortRoute)
 	{
-		super();
+		this();
 		
 		add(pShortRoute);
 	}
@@ -42,38 +62,175 @@ public RouteSegmentPath(GateID pShortRoute)
 	public RouteSegmentPath(RouteSegmentPath pRoute)
 	{
 		super();
-		// make a deep copy
-		for(int i=0; i<pRoute.size(); i++) {
-			addLast(pRoute.get(i).clone());
+		
+		// share array with original; copy is done on modification
+		mGates = pRoute.mGates;
+		mStart = pRoute.mStart;
+		mEnd = pRoute.mEnd;
+		
+		mShared = true;
+		pRoute.mShared = true;
+	}
+	
+	@Override
+	public int size()
+	{
+		return mEnd -mStart;
+	}
+	
+	@Override
+	public GateID get(int index)
+	{
+		return GateID.valueOf(getGateNumber(index));
+	}
+	
+	/**
+	 * @return Gate number at the position without creating a GateID object
+	 */
+	public int getGateNumber(int index)
+	{
+		checkIndex(index, size());
+		
+		return mGates[mStart +index];
+	}
+	
+	@Override
+	public GateID set(int index, GateID element)
+	{
+		checkIndex(index, size());
+		prepareWrite(0, 0);
+		
+		GateID old = GateID.valueOf(mGates[mStart +index]);
+		mGates[mStart +index] = element.GetID();
+		return old;
+	}
+	
+	@Override
+	public void add(int index, GateID element)
+	{
+		checkIndex(index, size() +1);
+		
+		if(index == 0) {
+			addFirst(element);
+		} else {
+			prepareWrite(0, 1);
+			
+			System.arraycopy(mGates, mStart +index, mGates, mStart +index +1, size() -index);
+			mGates[mStart +index] = element.GetID();
+			mEnd++;
+			modCount++;
+		}
+	}
+	
+	@Override
+	public GateID remove(int index)
+	{
+		checkIndex(index, size());
+		
+		if(index == 0) {
+			return removeFirst();
+		} else {
+			prepareWrite(0, 0);
+			
+			GateID old = GateID.valueOf(mGates[mStart +index]);
+			System.arraycopy(mGates, mStart +index +1, mGates, mStart +index, size() -index -1);
+			mEnd--;
+			modCount++;
+			return old;
+		}
+	}
+	
+	@Override
+	public void clear()
+	{
+		mStart = mEnd;
+		modCount++;
+	}
+	
+	public void addFirst(GateID gateID)
+	{
+		prepareWrite(1, 0);
+		
+		mStart--;
+		mGates[mStart] = gateID.GetID();
+		modCount++;
+	}
+	
+	public void addLast(GateID gateID)
+	{
+		prepareWrite(0, 1);
+		
+		mGates[mEnd] = gateID.GetID();
+		mEnd++;
+		modCount++;
+	}
+	
+	public GateID getFirst()
+	{
+		if(mStart >= mEnd) throw new NoSuchElementException();
+		
+		return GateID.valueOf(mGates[mStart]);
+	}
+	
+	public GateID getLast()
+	{
+		if(mStart >= mEnd) throw new NoSuchElementException();
+		
+		return GateID.valueOf(mGates[mEnd -1]);
+	}
+	
+	/**
+	 * Removes the first gate number by moving the read cursor. The array
+	 * itself is not modified and, thus, not copied if it is shared.
+	 */
+	public GateID removeFirst()
+	{
+		if(mStart >= mEnd) throw new NoSuchElementException();
+		
+		modCount++;
+		return GateID.valueOf(mGates[mStart++]);
+	}
+	
+	public GateID removeLast()
+	{
+		if(mStart >= mEnd) throw new NoSuchElementException();
+		
+		modCount++;
+		return GateID.valueOf(mGates[--mEnd]);
+	}
+	
+	/**
+	 * Ensures that the array can be modified and that it has enough space
+	 * at the front and at the end. Shared arrays are copied.
+	 */
+	private void prepareWrite(int pFront, int pBack)
+	{
+		if(mShared || (mStart < pFront) || (mGates.length -mEnd < pBack)) {
+			int tSize = size();
+			int tFront = Math.max(pFront, HEADROOM);
+			int tCapacity = Math.max(INITIAL_CAPACITY, tFront +(tSize +pBack) *2);
+			int[] tNewGates = new int[tCapacity];
+			
+			System.arraycopy(mGates, mStart, tNewGates, tFront, tSize);
+			mGates = tNewGates;
+			mStart = tFront;
+			mEnd = tFront +tSize;
+			mShared = false;
+		}
+	}
+	
+	private static void checkIndex(int index, int size)
+	{
+		if((index < 0) || (index >= size)) {
+			throw new IndexOutOfBoundsException("Index: " +index +", Size: " +size);
 		}
 	}
 	
-	// They must have equal size
 	@Override
 	public boolean equals(Object tRouteSegmentCandidate)
 	{
 		if(tRouteSegmentCandidate instanceof RouteSegmentPath) {
-			RouteSegmentPath tRouteSegmentPath = (RouteSegmentPath) tRouteSegmentCandidate;
-			while(true) {
-				if(this.size() == tRouteSegmentPath.size()) {
-					// If this.size()=0 --> tRouteSegmentPath.size()=0
-					if(this.size()>0) {
-						for(int i = 0;i <= this.size()-1; i++) {
-							if(!this.get(i).equals(tRouteSegmentPath.get(i))) {
-								return false;
-							}
-						}
-						return true;	
-					} else {
-						// The compared Elements of the RouteSegmentPath are empty --> ignore them
-						this.removeFirst();
-						tRouteSegmentPath.removeFirst();
-					}
-				} else {
-					// The RouteSegmentPath's dont have the same size --> not equal --> return false
-					return false;
-				}
-			}
+			return equals((RouteSegmentPath) tRouteSegmentCandidate);
 		}
 		return false;
 	}
@@ -81,26 +238,28 @@ public boolean equals(Object tRouteSegmentCandidate)
 	// They must have equal size
 	public boolean equals(RouteSegmentPath tRouteSegmentPath)
 	{
-		while(true) {
-			if(this.size() == tRouteSegmentPath.size()) {
-				// If this.size()=0 --> tRouteSegmentPath.size()=0
-				if(this.size()>0) {
-					for(int i = 0;i <= this.size()-1; i++) {
-						if(!this.get(i).equals(tRouteSegmentPath.get(i))) {
-							return false;
-						}
-					}
-					return true;	
-				} else {
-					// The compared Elements of the RouteSegmentPath are empty --> ignore them
-					this.removeFirst();
-					tRouteSegmentPath.removeFirst();
+		if(this.size() == tRouteSegmentPath.size()) {
+			for(int i = 0; i < size(); i++) {
+				if(mGates[mStart +i] != tRouteSegmentPath.mGates[tRouteSegmentPath.mStart +i]) {
+					return false;
 				}
-			} else {
-				// The RouteSegmentPath's dont have the same size --> not equal --> return false
-				return false;
 			}
-		} 
+			return true;
+		} else {
+			// The RouteSegmentPath's dont have the same size --> not equal --> return false
+			return false;
+		}
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		int tHash = 1;
+		
+		for(int i = mStart; i < mEnd; i++) {
+			tHash = 31 *tHash +mGates[i];
+		}
+		return tHash;
 	}
 
 	@Override
@@ -122,16 +281,49 @@ public String toString()
 		StringBuffer gatelist = new StringBuffer(128);
 
 		gatelist.append("[");
-		if(size() > 0) {
-			for (int i = 0; i < size(); i++) {
-				gatelist.append(Integer.toString(get(i).GetID()));
-				if (i < size() - 1) {
-					gatelist.append(",");
-				}
+		for(int i = mStart; i < mEnd; i++) {
+			gatelist.append(mGates[i]);
+			if (i < mEnd - 1) {
+				gatelist.append(",");
 			}
 		}
 		gatelist.append("]");
 
 		return gatelist.toString();
 	}
+	
+	/**
+	 * Writes only the gate numbers not consumed yet.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		out.writeInt(size());
+		for(int i = mStart; i < mEnd; i++) {
+			out.writeInt(mGates[i]);
+		}
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		int tSize = in.readInt();
+		
+		mGates = new int[HEADROOM +Math.max(tSize, INITIAL_CAPACITY)];
+		mStart = HEADROOM;
+		mEnd = HEADROOM;
+		for(int i = 0; i < tSize; i++) {
+			mGates[mEnd++] = in.readInt();
+		}
+	}
+	
+	/**
+	 * Gate numbers; valid between start and end
+	 */
+	private transient int[] mGates;
+	private transient int mStart;
+	private transient int mEnd;
+	
+	/**
+	 * Indicates if array might be used by another path, too
+	 */
+	private transient boolean mShared = false;
 }
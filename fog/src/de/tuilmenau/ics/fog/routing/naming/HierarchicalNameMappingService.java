@@ -14,21 +14,36 @@
 package de.tuilmenau.ics.fog.routing.naming;
 
 import java.io.Serializable;
+import java.lang.reflect.Array;
 import java.rmi.RemoteException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.rapi.Name;
 
 import de.tuilmenau.ics.fog.topology.Simulation;
 import de.tuilmenau.ics.fog.transfer.TransferPlaneObserver.NamingLevel;
+import de.tuilmenau.ics.fog.util.Helper;
 import de.tuilmenau.ics.fog.util.Logger;
 import de.tuilmenau.ics.middleware.JiniHelper;
 
 
+/**
+ * Name mapping service storing the entries in concurrent hash maps.
+ *
+ * The entries for a name are stored in an array, which is replaced on
+ * each modification. Thus, lookups do not need a lock and can return
+ * the stored array without copying it. A reverse index from addresses to
+ * names enables the deletion of all names of an address without scanning
+ * all entries. Addresses with an equals method, which is not consistent
+ * with their hash code, are not indexed. They are handled by scanning.
+ */
 public class HierarchicalNameMappingService<Address extends Serializable> implements NameMappingService<Address>
 {
 	private final static NameMappingEntry[] EMPTY_ARRAY = new NameMappingEntry[0];
+	private final static Name[] EMPTY_NAMES = new Name[0];
 	private final static String GLOBAL_NAMEMAPPING_SERVICE_NAME = "Global Name Mapping";
 	
 	
@@ -93,15 +108,17 @@ public HierarchicalNameMappingService(NameMappingService<Address> pParentService
 	public void registerName(Name name, Address address, NamingLevel level)
 	{
 		if((name != null) && (address != null)) {
-			// check, if name already exists
-			LinkedList<NameMappingEntry<Address>> entry = mDNS.get(name);
-			
-			if(entry == null) {
-				entry = new LinkedList<NameMappingEntry<Address>>();
-				mDNS.put(name, entry);
+			synchronized(this) {
+				mDNS.put(name, append(mDNS.get(name), new NameMappingEntry<Address>(address, level), NameMappingEntry.class));
+				
+				if(Helper.isHashable(address)) {
+					Name[] names = mNames.get(address);
+					
+					if(indexOf(names, name) < 0) {
+						mNames.put(address, append(names, name, Name.class));
+					}
+				}
 			}
-			
-			entry.add(new NameMappingEntry<Address>(address, level));
 			mLogger.log(this, address +" registered with name '" +name +"' (" +level +")");
 			
 			if(mParentNameMappingService != null) {
@@ -123,7 +140,6 @@ public void registerName(Name name, Address address, NamingLevel level)
 	@Override
 	public boolean unregisterName(Name name, Address address)
 	{
-		LinkedList<NameMappingEntry<Address>> addrList = mDNS.get(name);
 		boolean parentRes = false;
 		
 		if(mParentNameMappingService != null) {
@@ -136,21 +152,9 @@ public boolean unregisterName(Name name, Address address)
 			}
 		}
 
-		if(addrList != null) {
-			boolean res = addrList.remove(new NameMappingEntry<Address>(address));
-			
-			// no entries for a name any more?
-			// -> remove empty list for this name
-			if(addrList.size() <= 0) {
-				mDNS.remove(name);
-			}
-			
-			return res || parentRes;
-		} else {
-			// not even name was registered; but maybe parent
-			// was able to delete it
-			return parentRes;
-		}
+		// not even name was registered; but maybe parent
+		// was able to delete it
+		return removeEntry(name, address) || parentRes;
 	}
 	
 	@Override
@@ -159,19 +163,25 @@ public boolean unregisterNames(Address address)
 		int del = 0;
 		boolean parentRes = false;
 		
-		for(LinkedList<NameMappingEntry<Address>> entryList : mDNS.values()) {
-			LinkedList<NameMappingEntry<Address>> delList = null;
-			
-			for(NameMappingEntry<Address> entry : entryList) {
-				if(entry.equals(address)) {
-					if(delList == null) delList = new LinkedList<NameMappingEntry<Address>>();
-					delList.add(entry);
-				}
-			}
-			
-			if(delList != null) {
-				for(NameMappingEntry<Address> entry : delList) {
-					if(entryList.remove(entry)) del++;
+		if(address != null) {
+			synchronized(this) {
+				if(Helper.isHashable(address)) {
+					Name[] names = mNames.get(address);
+					
+					if(names != null) {
+						for(Name name : names) {
+							while(removeEntry(name, address)) {
+								del++;
+							}
+						}
+					}
+				} else {
+					// no reverse index available; scan all entries
+					for(Name name : mDNS.keySet()) {
+						while(removeEntry(name, address)) {
+							del++;
+						}
+					}
 				}
 			}
 		}
@@ -189,6 +199,47 @@ public boolean unregisterNames(Address address)
 		return (del > 0) || parentRes;
 	}
 	
+	/**
+	 * Removes the first entry for an address from the entries of a name.
+	 * 
+	 * @return true, if an entry was removed
+	 */
+	private synchronized boolean removeEntry(Name name, Address address)
+	{
+		if(name == null) return false;
+		
+		NameMappingEntry<Address>[] entries = mDNS.get(name);
+		int index = indexOf(entries, address);
+		
+		if(index >= 0) {
+			if(entries.length > 1) {
+				mDNS.put(name, remove(entries, index));
+			} else {
+				// no entries for a name any more?
+				// -> remove empty list for this name
+				mDNS.remove(name);
+			}
+			
+			// update reverse index, if no entry for the address remains
+			if(Helper.isHashable(address) && (indexOf(mDNS.get(name), address) < 0)) {
+				Name[] names = mNames.get(address);
+				int nameIndex = indexOf(names, name);
+				
+				if(nameIndex >= 0) {
+					if(names.length > 1) {
+						mNames.put(address, remove(names, nameIndex));
+					} else {
+						mNames.remove(address);
+					}
+				}
+			}
+			
+			return true;
+		}
+		
+		return false;
+	}
+	
 	/**
 	 * Removes all entries in the data base.
 	 */
@@ -198,11 +249,9 @@ public void clear()
 		while(!mDNS.isEmpty()) {
 			Name name = mDNS.keySet().iterator().next();
 			
-			LinkedList<NameMappingEntry<Address>> entry = mDNS.get(name);
-			if(!entry.isEmpty()) {
-				unregisterName(name, entry.getFirst().getAddress());
-			} else {
-				mDNS.remove(name);
+			NameMappingEntry<Address>[] entries = mDNS.get(name);
+			if(entries != null) {
+				unregisterName(name, entries[0].getAddress());
 			}
 		}
 		
@@ -220,52 +269,53 @@ public boolean contains(Name name, Address address)
 		NameMappingEntry<Address>[] addresses = getAddresses(name);
 		
 		if(address != null) {
-			for(NameMappingEntry<Address> entry : addresses) {
-				if(address.equals(entry.getAddress())) {
-					return true;
-				}
-			}
-			
-			return false;
+			return indexOf(addresses, address) >= 0;
 		} else {
 			return addresses.length > 0;
 		}
 	}
 	
+	/**
+	 * @return Names of the address; the array MUST NOT be modified
+	 */
 	@Override
 	public Name[] getNames(Address pAddress)
 	{
-		NameMappingEntry<Address> searchDummy = new NameMappingEntry<Address>(pAddress);
-		LinkedList<Name> result = new LinkedList<Name>();
-		
-		// iterate all names and check, if the address is listed
-		for(Name name : mDNS.keySet()) {
-			LinkedList<NameMappingEntry<Address>> addrList = mDNS.get(name);
-			
-			if(addrList != null) {
-				if(addrList.contains(searchDummy)) {
-					result.add(name);
+		if(pAddress != null) {
+			if(Helper.isHashable(pAddress)) {
+				Name[] names = mNames.get(pAddress);
+				
+				if(names != null) return names;
+			} else {
+				LinkedList<Name> result = new LinkedList<Name>();
+				
+				// iterate all names and check, if the address is listed
+				for(Name name : mDNS.keySet()) {
+					if(indexOf(mDNS.get(name), pAddress) >= 0) {
+						result.add(name);
+					}
 				}
+				
+				return result.toArray(EMPTY_NAMES);
 			}
-			// else: should not happen, since we iterate the keys
-		}
-
-		// convert list to suitable output format
-		Name[] retVal = new Name[result.size()];
-		int i = 0;
-		for(Name name : result) {
-			retVal[i] = name;
-			i++;
 		}
-		return retVal;
+		
+		return EMPTY_NAMES;
 	}
 
+	/**
+	 * @return Entries for the name; the array MUST NOT be modified
+	 */
 	@Override
 	public NameMappingEntry<Address>[] getAddresses(Name name)
 	{
-		LinkedList<NameMappingEntry<Address>> addrList = mDNS.get(name);
+		NameMappingEntry<Address>[] entries = null;
+		
+		if(name != null) {
+			entries = mDNS.get(name);
+		}
 		
-		if(addrList == null) {
+		if(entries == null) {
 			if(mParentNameMappingService != null) {
 				try {
 					return mParentNameMappingService.getAddresses(name);
@@ -277,7 +327,7 @@ public NameMappingEntry<Address>[] getAddresses(Name name)
 			
 			return EMPTY_ARRAY;
 		} else {
-			return addrList.toArray(EMPTY_ARRAY);
+			return entries;
 		}
 	}
 	
@@ -303,7 +353,53 @@ public boolean setNodeASName(String rAddress, String ASName)throws RemoteExcepti
 	}
 
 
-	private HashMap<Name, LinkedList<NameMappingEntry<Address>>> mDNS = new HashMap<Name, LinkedList<NameMappingEntry<Address>>>();	
+	private static int indexOf(Object[] pArray, Object pObj)
+	{
+		if(pArray != null) {
+			for(int i = 0; i < pArray.length; i++) {
+				// NameMappingEntry.equals accepts addresses, too
+				if(pArray[i].equals(pObj)) return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T> T[] append(T[] pArray, T pObj, Class<?> pType)
+	{
+		T[] tRes;
+		
+		if(pArray != null) {
+			tRes = Arrays.copyOf(pArray, pArray.length +1);
+		} else {
+			tRes = (T[]) Array.newInstance(pType, 1);
+		}
+		
+		tRes[tRes.length -1] = pObj;
+		return tRes;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T> T[] remove(T[] pArray, int pIndex)
+	{
+		T[] tRes = (T[]) Array.newInstance(pArray.getClass().getComponentType(), pArray.length -1);
+		
+		System.arraycopy(pArray, 0, tRes, 0, pIndex);
+		System.arraycopy(pArray, pIndex +1, tRes, pIndex, pArray.length -pIndex -1);
+		return tRes;
+	}
+	
+
+	/**
+	 * Entries per name. The arrays are replaced on modifications.
+	 */
+	private ConcurrentHashMap<Name, NameMappingEntry<Address>[]> mDNS = new ConcurrentHashMap<Name, NameMappingEntry<Address>[]>();
+	
+	/**
+	 * Reverse index from hashable addresses to their names.
+	 */
+	private ConcurrentHashMap<Address, Name[]> mNames = new ConcurrentHashMap<Address, Name[]>();
 	private HashMap<String, String> mASToNode = new HashMap<String,String>();
 	protected NameMappingService<Address> mParentNameMappingService = null;
 	private Logger mLogger = null;
@@ -56,6 +56,12 @@ public boolean equals(Object obj)
 		return false;
 	}
 
+	@Override
+	public int hashCode()
+	{
+		return address.hashCode();
+	}
+	
 	private Address address;
 	private NamingLevel level;
 }
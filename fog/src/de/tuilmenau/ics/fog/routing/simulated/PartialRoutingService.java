@@ -33,8 +33,8 @@
 import de.tuilmenau.ics.CommonSim.datastream.numeric.SumNode;
 import de.tuilmenau.ics.fog.Config;
 import de.tuilmenau.ics.fog.EventHandler;
-import de.tuilmenau.ics.fog.IEvent;
 import de.tuilmenau.ics.fog.IEventRef;
+import de.tuilmenau.ics.fog.ISharedStateEvent;
 import de.tuilmenau.ics.fog.Config.Transfer.COST_METRIC;
 import de.tuilmenau.ics.fog.facade.properties.FunctionalRequirementProperty;
 import de.tuilmenau.ics.fog.routing.Route;
@@ -51,6 +51,7 @@
 import de.tuilmenau.ics.graph.GraphProvider;
 import de.tuilmenau.ics.graph.LinkTransformer;
 import de.tuilmenau.ics.graph.RoutableGraph;
+import de.tuilmenau.ics.graph.RouteCacheListener;
 
 
 /**
@@ -122,6 +123,7 @@ public Number transform(RoutingServiceLink input)
 			}
 		};
 		this.mMap = new RoutableGraph<RoutingServiceAddress, RoutingServiceLink>(transformer);
+		this.mMap.setCompactRouting(Config.Routing.COMPACT_ROUTING_ENGINE);
 		
 		if(parentRS != null) {
 			mEntityAddress = generateAddress();
@@ -146,6 +148,17 @@ public Number transform(RoutingServiceLink input)
 		mCounterGetRouteFound = CounterNode.openAsWriter(getClass().getCanonicalName() +".route.number");
 		mCounterRouteLength = SumNode.openAsWriter(getClass().getCanonicalName() +".route.length");
 		mCounterRouteSegments = SumNode.openAsWriter(getClass().getCanonicalName() +".route.segments");
+		mCounterRouteCacheHit = CounterNode.openAsWriter(getClass().getCanonicalName() +".route.cache.hit");
+		mCounterRouteCacheMiss = CounterNode.openAsWriter(getClass().getCanonicalName() +".route.cache.miss");
+		
+		mMap.setRouteCacheListener(new RouteCacheListener() {
+			@Override
+			public void routeCalculated(boolean pFromCache)
+			{
+				if(pFromCache) mCounterRouteCacheHit.write(+1.0, mTimeBase.nowStream());
+				else mCounterRouteCacheMiss.write(+1.0, mTimeBase.nowStream());
+			}
+		});
 		
 		// administrative issues
 		RoutingServiceInstanceRegister register = RoutingServiceInstanceRegister.getInstance(sim);
@@ -252,9 +265,10 @@ public boolean unregisterNode(RoutingServiceAddress pNode) throws RemoteExceptio
 	
 	/**
 	 * Delayed removal of old node in order to enable routing service
-	 * to operate with the old nodes.
+	 * to operate with the old nodes. In a parallel simulation, it waits
+	 * for its turn, since it changes the parent routing service.
 	 */
-	private class CleanupEventNode implements IEvent
+	private class CleanupEventNode implements ISharedStateEvent
 	{
 		public CleanupEventNode(RoutingServiceAddress node)
 		{
@@ -447,9 +461,11 @@ public boolean unregisterLink(RoutingServiceAddress pFrom, GateID pGateID)
 	/**
 	 * Delayed removal of old links in order to enable routing service
 	 * to operate with the old gate numbers. It removes link only if its
-	 * cost are still infinite.
+	 * cost are still infinite. In a parallel simulation, it waits for its
+	 * turn, since the routing service might be used by several partitions,
+	 * which cancel the removal.
 	 */
-	private class CleanupEventLink implements IEvent
+	private class CleanupEventLink implements ISharedStateEvent
 	{
 		public CleanupEventLink(RoutingServiceLink link)
 		{
@@ -899,6 +915,13 @@ private void unregisterFromParent(RoutingServiceAddress pNode) throws RemoteExce
 	 */
 	private IDoubleWriter mCounterRouteSegments;
 	
+	/**
+	 * Counters for routes calculated by the map with and without a cached
+	 * shortest path tree.
+	 */
+	private IDoubleWriter mCounterRouteCacheHit;
+	private IDoubleWriter mCounterRouteCacheMiss;
+	
 	/**
 	 * Time base for routing service
 	 */
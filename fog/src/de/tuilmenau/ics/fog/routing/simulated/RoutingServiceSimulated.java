@@ -28,6 +28,7 @@
 import net.rapi.properties.PropertyException;
 
 import de.tuilmenau.ics.fog.Config;
+import de.tuilmenau.ics.fog.EventHandler;
 import de.tuilmenau.ics.fog.facade.DescriptionHelper;
 import de.tuilmenau.ics.fog.facade.properties.IgnoreDestinationProperty;
 import de.tuilmenau.ics.fog.routing.Route;
@@ -46,6 +47,7 @@
 import de.tuilmenau.ics.fog.transfer.forwardingNodes.Multiplexer;
 import de.tuilmenau.ics.fog.transfer.gates.AbstractGate;
 import de.tuilmenau.ics.fog.transfer.gates.GateID;
+import de.tuilmenau.ics.fog.ui.Logging.Level;
 import de.tuilmenau.ics.fog.util.Logger;
 
 
@@ -80,9 +82,9 @@ public RoutingServiceSimulated(RemoteRoutingService pRoutingService, String pNam
 	public Route getRoute(ForwardingNode pSource, Name pDestination, Description pRequirements, Identity pRequester) throws RoutingException, RequirementsException
 	{
 		if((pRequirements == null) || pRequirements.isBestEffort()) {
-			mLogger.log(this, "Searching for a route from \"" + pSource + "\" to \"" + pDestination +"\"");
+			mLogger.logFormat(Level.LOG, this, "Searching for a route from \"%s\" to \"%s\"", pSource, pDestination);
 		} else {
-			mLogger.log(this, "Searching for a route from \"" + pSource + "\" to \"" + pDestination + "\" with requirements \"" + pRequirements + "\"");
+			mLogger.logFormat(Level.LOG, this, "Searching for a route from \"%s\" to \"%s\" with requirements \"%s\"", pSource, pDestination, pRequirements);
 		}
 
 		//
@@ -106,7 +108,7 @@ public Route getRoute(ForwardingNode pSource, Name pDestination, Description pRe
 		
 		Route tRes;
 		try {
-			tRes = mRS.getRoute(tFrom, tTo, pRequirements, pRequester);
+			tRes = accessRoutingService().getRoute(tFrom, tTo, pRequirements, pRequester);
 		} catch(RemoteException tExc) {
 			throw new RoutingException("Remote routing service not available.", tExc);
 		}
@@ -208,7 +210,7 @@ public LinkedList<Name> getIntermediateFNs(ForwardingNode pSource, Route pRoute,
 			if(pOnlyDestination) {
 				// Destination only
 				try {
-					Name tDest = mRS.getAddressFromRoute(tFrom, pRoute);
+					Name tDest = accessRoutingService().getAddressFromRoute(tFrom, pRoute);
 					
 					if(tDest != null) {
 						tRes = new LinkedList<Name>();
@@ -253,7 +255,7 @@ private LinkedList<Name> getHops(RoutingServiceAddress pSource, Route pRoute) th
 			while (!tPartRoute.isEmpty()) {
 				tRouteSegment = (RouteSegmentPath)tPartRoute.getLast();
 				while(!tRouteSegment.isEmpty()) {
-					Name addr = mRS.getAddressFromRoute(pSource, tPartRoute);
+					Name addr = accessRoutingService().getAddressFromRoute(pSource, tPartRoute);
 					
 					// ignore 
 					if(addr == null) {
@@ -350,6 +352,10 @@ public ForwardingNode getLocalElement(Name pNode)
 	{
 		if(pNode != null) {
 			synchronized (mRoutingIDs) {
+				if(pNode instanceof RoutingServiceAddress) {
+					return mLocalElements.get(pNode);
+				}
+				
 				for(ForwardingNode element : mRoutingIDs.keySet()) {
 					RoutingServiceAddress addr = mRoutingIDs.get(element);
 					
@@ -372,7 +378,7 @@ public ForwardingNode getLocalElement(Name pNode)
 	public Name getName(RoutingServiceAddress pNode)
 	{
 		try {
-			Name[] names = mNameMapping.getNames(pNode);
+			Name[] names = accessNameMapping().getNames(pNode);
 			
 			if(names.length > 0) return names[0];
 		} catch (RemoteException tExc) {
@@ -386,7 +392,7 @@ public Name getName(RoutingServiceAddress pNode)
 	public boolean isKnown(Name pName)
 	{
 		try {
-			return (mNameMapping.getAddresses(pName).length > 0);
+			return (accessNameMapping().getAddresses(pName).length > 0);
 		} catch (RemoteException tExc) {
 			mLogger.err(this, "Name " +pName +" not known since remote mapping service does not response.", tExc);
 			
@@ -412,17 +418,18 @@ public void registerNode(ForwardingNode pElement, Name pName, NamingLevel pLevel
 			// register node with ID in list
 			synchronized (mRoutingIDs) {
 				mRoutingIDs.put(pElement, tID);
+				mLocalElements.put(tID, pElement);
 			}
 		}
 		
 		try {
 			// register name
 			if(pName != null) {
-				mNameMapping.registerName(pName, tID, pLevel);
+				accessNameMapping().registerName(pName, tID, pLevel);
 			}
 			
 			// forward registration to higher entity
-			mRS.registerNode(tID, (pName != null));
+			accessRoutingService().registerNode(tID, (pName != null));
 		} catch (RemoteException tExc) {
 			mLogger.err(this, "Can not inform routing service entity about new node.", tExc);
 		}
@@ -437,7 +444,7 @@ public void updateNode(ForwardingNode pElement, Description pCapabilities)
 			tRSAdr.setCaps(pCapabilities);
 			
 			try {
-				mRS.registerNode(tRSAdr, false);
+				accessRoutingService().registerNode(tRSAdr, false);
 			} catch (RemoteException tExc) {
 				mLogger.err(this, "Can not inform routing service about update of capabilities for " +pElement);
 			}
@@ -455,7 +462,7 @@ public void updateNode(ForwardingNode pElement, Description pCapabilities)
 	protected RoutingServiceAddress generateAddress()
 	{
 		try {
-			return mRS.generateAddress();
+			return accessRoutingService().generateAddress();
 		} catch (RemoteException e) {
 			// if no connection to server, generate ID on its own
 			return RoutingServiceAddress.generateNewAddress();
@@ -471,9 +478,9 @@ public boolean unregisterName(ForwardingNode pElement, Name pName)
 			try {
 				// deleting on all names or just a specific one?
 				if(pName == null) {
-					return mNameMapping.unregisterNames(tAddr);
+					return accessNameMapping().unregisterNames(tAddr);
 				} else {
-					return mNameMapping.unregisterName(pName, tAddr);
+					return accessNameMapping().unregisterName(pName, tAddr);
 				}
 			} catch (RemoteException tExc) {
 				mLogger.err(this, "Can not unregister node from name mapping.", tExc);
@@ -494,7 +501,7 @@ public boolean unregisterNode(ForwardingNode pElement)
 			try {
 				RoutingServiceAddress tAddr = getNameFor(pElement);
 				if(tAddr != null) {
-					mRS.unregisterNode(tAddr);
+					accessRoutingService().unregisterNode(tAddr);
 				}
 				// else: not registered at all
 			} catch (RemoteException tExc) {
@@ -518,7 +525,7 @@ public void reportError(Name pElement)
 		// to try it once again with the next higher entity.
 		if(!res && (pElement instanceof RoutingServiceAddress)) {
 			try {
-				mRS.unregisterNode((RoutingServiceAddress) pElement);
+				accessRoutingService().unregisterNode((RoutingServiceAddress) pElement);
 
 			} catch (RemoteException tExc) {
 				mLogger.err(this, "Failed to unregister node " +pElement, tExc);
@@ -588,7 +595,7 @@ private void informRoutingService(ForwardingNode pFrom, ForwardingElement pTo, A
 				
 				if(!tQoSGate) {
 					try {
-						mRS.registerLink(tFrom, tTo, pGate.getGateID(), pGate.getDescription());
+						accessRoutingService().registerLink(tFrom, tTo, pGate.getGateID(), pGate.getDescription());
 					} catch (RemoteException exc) {
 						throw new NetworkException("Failed to register link " +pGate +": " +tFrom +"->" +tTo +" at higher entity.", exc);
 					}
@@ -607,7 +614,7 @@ public boolean unregisterLink(ForwardingElement pNode, AbstractGate pGate)
 			
 			if(tID != null) {	
 				try {
-					return mRS.unregisterLink(tID, pGate.getGateID());
+					return accessRoutingService().unregisterLink(tID, pGate.getGateID());
 				}
 				catch (RemoteException exc) {
 					mLogger.err(this, "Failed to unregister link " +pGate +" from " +tID, exc);
@@ -622,7 +629,7 @@ public boolean unregisterLink(ForwardingElement pNode, AbstractGate pGate)
 	public int getNumberVertices()
 	{
 		try {
-			return mRS.getNumberVertices();
+			return accessRoutingService().getNumberVertices();
 		} catch (RemoteException exc) {
 			mLogger.err(this, "Can not determine number of vertices from remote RS.", exc);
 			return 0;
@@ -633,7 +640,7 @@ public int getNumberVertices()
 	public int getNumberEdges()
 	{
 		try {
-			return mRS.getNumberEdges();
+			return accessRoutingService().getNumberEdges();
 		} catch (RemoteException exc) {
 			mLogger.err(this, "Can not determine number of edges from remote RS.", exc);
 			return 0;
@@ -644,7 +651,7 @@ public int getNumberEdges()
 	public int getSize()
 	{
 		try {
-			return mRS.getSize();
+			return accessRoutingService().getSize();
 		} catch (RemoteException exc) {
 			mLogger.err(this, "Can not determine size of remote RS.", exc);
 			return 0;
@@ -661,6 +668,24 @@ public NameMappingService getNameMappingService()
 		return mNameMapping;
 	}
 	
+	/**
+	 * @return Higher level routing service entity after waiting for the turn of the current event in a parallel simulation
+	 */
+	private RemoteRoutingService accessRoutingService()
+	{
+		EventHandler.accessSharedState();
+		return mRS;
+	}
+	
+	/**
+	 * @return Global name mapping service after waiting for the turn of the current event in a parallel simulation
+	 */
+	private NameMappingService<RoutingServiceAddress> accessNameMapping()
+	{
+		EventHandler.accessSharedState();
+		return mNameMapping;
+	}
+	
 	private boolean checkIfNameIsOnIgnoreList(RoutingServiceAddress pName, Description pDescription)
 	{
 		if(pName != null) {
@@ -694,7 +719,7 @@ private boolean checkIfNameIsOnIgnoreList(RoutingServiceAddress pName, Descripti
 	private RoutingServiceAddress getAddress(Name pName, Description pDescription) throws RoutingException
 	{
 		try {
-			NameMappingEntry<RoutingServiceAddress>[] addrs = mNameMapping.getAddresses(pName);
+			NameMappingEntry<RoutingServiceAddress>[] addrs = accessNameMapping().getAddresses(pName);
 			
 			if(addrs.length == 0) {
 				return null;
@@ -733,6 +758,11 @@ public String toString()
 	
 	private RemoteRoutingService mRS = null;
 	private final HashMap<ForwardingNode, RoutingServiceAddress> mRoutingIDs;
+	
+	/**
+	 * Reverse index of mRoutingIDs
+	 */
+	private final HashMap<RoutingServiceAddress, ForwardingNode> mLocalElements = new HashMap<RoutingServiceAddress, ForwardingNode>();
 	private final NameMappingService<RoutingServiceAddress> mNameMapping;
 	private Logger mLogger;
 }
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.scripts;
+
+import de.tuilmenau.ics.fog.application.Application;
+import de.tuilmenau.ics.fog.application.observer.ApplicationEvent;
+import de.tuilmenau.ics.fog.application.observer.ApplicationEventExit;
+import de.tuilmenau.ics.fog.application.observer.IApplicationEventObserver;
+import de.tuilmenau.ics.fog.exceptions.InvalidParameterException;
+import de.tuilmenau.ics.fog.topology.AutonomousSystem;
+import de.tuilmenau.ics.fog.topology.Node;
+
+
+/**
+ * Script comparing bulk transfers with and without coalescing of writes.
+ * It registers an echo server on node B and runs two transfers from node A
+ * one after the other. The second one starts when the first one terminated,
+ * so they do not compete for the links and the server. The results are
+ * logged by the {@link de.tuilmenau.ics.fog.application.BulkTransfer}
+ * applications.
+ * 
+ * Command line:
+ * start BulkTransfer [<number of writes> [<bytes per write> [<coalescing bound in bytes> [<coalescing delay in sec>]]]]
+ */
+public class BulkTransferScript extends Script implements IApplicationEventObserver
+{
+	private static final String CLIENT_NODE = "A";
+	private static final String SERVER_NODE = "B";
+	private static final String SERVER_NAME = "bulk";
+	private static final String APP_NAME = "BulkTransfer";
+	
+	@Override
+	public boolean execute(String[] commandParts, AutonomousSystem as) throws Exception
+	{
+		String tWrites = (commandParts.length > 2) ? commandParts[2] : "1000";
+		String tWriteSize = (commandParts.length > 3) ? commandParts[3] : "64";
+		String tMaxBytes = (commandParts.length > 4) ? commandParts[4] : "1400";
+		String tMaxDelaySec = (commandParts.length > 5) ? commandParts[5] : "0.01";
+		
+		mClient = as.getNodeByName(CLIENT_NODE);
+		if(mClient == null) {
+			throw new InvalidParameterException("Host " +CLIENT_NODE +" not known in AS " +as +".");
+		}
+		
+		as.executeCommand("start App EchoServer " +SERVER_NODE +" " +SERVER_NAME);
+		
+		mSecondParameters = new String[] { APP_NAME, SERVER_NAME, tWrites, tWriteSize, tMaxBytes, tMaxDelaySec };
+		startTransfer(new String[] { APP_NAME, SERVER_NAME, tWrites, tWriteSize, "0" }, this);
+		return true;
+	}
+	
+	/**
+	 * Starts the second transfer after the first one terminated.
+	 */
+	@Override
+	public synchronized void handleEvent(Application pApplication, ApplicationEvent pEvent)
+	{
+		if((pEvent instanceof ApplicationEventExit) && (mSecondParameters != null)) {
+			String[] tParameters = mSecondParameters;
+			
+			mSecondParameters = null;
+			try {
+				startTransfer(tParameters, null);
+			}
+			catch(InvalidParameterException tExc) {
+				getLogger().err(this, "Can not start second transfer.", tExc);
+			}
+	}
+}
+
+	/**
+	 * Starts a transfer. The observer is registered before the start, so
+	 * it is informed even if the transfer terminates immediately.
+	 */
+	private void startTransfer(String[] pParameters, IApplicationEventObserver pObserver) throws InvalidParameterException
+	{
+		Application tApp = Application.createApplication(APP_NAME, mClient, null);
+		
+		tApp.setParameters(pParameters);
+		if(pObserver != null) {
+			tApp.addObserver(pObserver);
+		}
+		tApp.start();
+	}
+	
+	private Node mClient;
+	private String[] mSecondParameters;
+}
@@ -47,10 +47,16 @@ public class AutonomousSystem extends Network implements IAutonomousSystem
 	
 	public AutonomousSystem(String pName, Simulation pSimulation, boolean pPartialRouting, String pPartialRoutingServiceName)
 	{	
-		super(pName, new Logger(pSimulation.getLogger()), pSimulation.getTimeBase());
+		this(pName, pSimulation, pSimulation.createTimeBase(), pPartialRouting, pPartialRoutingServiceName);
+	}
+	
+	private AutonomousSystem(String pName, Simulation pSimulation, EventHandler pTimeBase, boolean pPartialRouting, String pPartialRoutingServiceName)
+	{
+		super(pName, new Logger(pSimulation.getLogger()), pTimeBase);
 		
 		mName = pName;
 		mSim = pSimulation;
+		mTimeBase = pTimeBase;
 		
 		RoutingServiceInstanceRegister register = RoutingServiceInstanceRegister.getInstance(pSimulation);
 		RemoteRoutingService tGrs = register.getGlobalRoutingService(mSim);
@@ -67,7 +73,7 @@ public AutonomousSystem(String pName, Simulation pSimulation, boolean pPartialRo
 			}
 			
 			if(mRoutingService == null) {
-				mRoutingService = register.create(mSim, mSim.getTimeBase(), mLogger, pPartialRoutingServiceName, tGrs);
+				mRoutingService = register.create(mSim, mTimeBase, mLogger, pPartialRoutingServiceName, tGrs);
 			}
 		} else {
 			mRoutingService = tGrs;
@@ -132,43 +138,63 @@ public boolean detach(String pNode, String pBus)
 	@Override
 	public synchronized boolean executeCommand(String pCmd)
 	{
-		// check if we have to pause the simulation in
-		// order to stop the simulation time during the
-		// execution of an command
+		boolean resume = pauseForCommand();
+		
+		try {
+			return CommandParsing.executeCommand(mSim, this, pCmd);
+		}
+		finally {
+			if(resume) {
+				mTimeBase.pause(false);
+			}
+		}
+	}
+	
+	@Override
+	public synchronized int executeBatch(TopologyBatch pBatch)
+	{
+		boolean resume = pauseForCommand();
+		
+		try {
+			return pBatch.execute(this);
+		}
+		finally {
+			if(resume) {
+				mTimeBase.pause(false);
+			}
+		}
+	}
+	
+	/**
+	 * Pauses the event handler in order to stop the simulation time during
+	 * the execution of a command.
+	 * 
+	 * @return true, if the caller has to resume the event handler afterwards
+	 */
+	private boolean pauseForCommand()
+	{
 		boolean inEventThread = true;
 		if(ENABLE_SYNCHRONIZED_COMMAND_EXECUTION) {
-			inEventThread = mSim.getTimeBase().inEventThread();
+			inEventThread = mTimeBase.inEventThread();
 		}
 		
-		boolean result = false;
-		boolean paused = true;
-		
 		// even if we are not in the event thread,
 		// it might be acceptable is the simulation
 		// is running in real time
 		if(!inEventThread) {
-			inEventThread = !mSim.getTimeBase().isInFastMode();
+			inEventThread = !mTimeBase.isInFastMode();
 		}
 		
 		if(!inEventThread) {
-			paused = mSim.getTimeBase().isPaused();
+			boolean paused = mTimeBase.isPaused();
 			
-			mSim.getTimeBase().pause(true);
-		}
-		
-		try {
-			result = CommandParsing.executeCommand(mSim, this, pCmd);
-		}
-		finally {
-			if(!inEventThread) {
-				// restore old state
-				if(!paused) {
-					mSim.getTimeBase().pause(false);
-				}
-			}
+			mTimeBase.pause(true);
+			
+			// restore old state afterwards
+			return !paused;
 		}
 		
-		return result;
+		return false;
 	}
 	
 	@Override
@@ -187,7 +213,7 @@ public String toString()
 	
 	public EventHandler getTimeBase()
 	{
-		return mSim.getTimeBase();
+		return mTimeBase;
 	}
 	
 	public Simulation getSimulation()
@@ -232,4 +258,5 @@ public ReroutingSession establishConnection(String pSendingNode, String pTargetN
 	private RemoteRoutingService mRoutingService;
 	private String mName;
 	private Simulation mSim;
+	private EventHandler mTimeBase;
 }
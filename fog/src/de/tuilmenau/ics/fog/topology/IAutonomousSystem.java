@@ -54,6 +54,15 @@ public interface IAutonomousSystem extends ICommand
 	public boolean setBusBroken(String pBus, boolean pBroken, boolean pErrorTypeVisible) throws RemoteException;
 	public boolean setNodeBroken(String pNode, boolean pBroken, boolean pErrorTypeVisible) throws RemoteException;
 	
+	/**
+	 * Executes a batch of topology changes with a single pause of the
+	 * event handler.
+	 * 
+	 * @param pBatch Nodes, buses and attachments to create
+	 * @return Number of failed changes
+	 */
+	public int executeBatch(TopologyBatch pBatch) throws RemoteException;
+	
 	/**
 	 * Establish a connection between two nodes
 	 * 
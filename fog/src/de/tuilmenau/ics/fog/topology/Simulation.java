@@ -21,13 +21,21 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import de.tuilmenau.ics.fog.Config;
+import de.tuilmenau.ics.fog.Config.Simulator.SimulatorMode;
 import de.tuilmenau.ics.fog.EventHandler;
 import de.tuilmenau.ics.fog.IEvent;
 import de.tuilmenau.ics.fog.IWorker;
+import de.tuilmenau.ics.fog.ParallelEventHandler;
 import de.tuilmenau.ics.fog.Worker;
+import de.tuilmenau.ics.fog.packets.PacketIDAllocator;
 import de.tuilmenau.ics.fog.ui.Logging.Level;
 import de.tuilmenau.ics.fog.util.Logger;
 import de.tuilmenau.ics.middleware.JiniHelper;
@@ -54,9 +62,15 @@
 	public Simulation(String pBaseDirectory, Level pLogLevel)
 	{
 		mLogLevel = pLogLevel;
-		mTimeBase = new EventHandler();
 		mLogger = new Logger(null);
 		
+		if(Config.Simulator.PARALLEL_EXECUTION && (Config.Simulator.MODE == SimulatorMode.FAST_SIM)) {
+			mParallelTimeBase = new ParallelEventHandler(mLogger, Config.Simulator.PARALLEL_EXECUTION_THREADS);
+			mTimeBase = mParallelTimeBase.createPartition();
+		} else {
+			mTimeBase = new EventHandler();
+		}
+		
 		mBaseDirectory = pBaseDirectory;
 		if(mBaseDirectory == null) {
 			mBaseDirectory = DEFAULT_DIRECTORY;
@@ -156,6 +170,22 @@ public EventHandler getTimeBase()
 		return mTimeBase;
 	}
 	
+	/**
+	 * Creates the time base for a new autonomous system. In parallel mode,
+	 * each AS gets its own partition. Otherwise, all AS share the time base
+	 * of the simulation.
+	 * 
+	 * @return Time base for an AS (!= null)
+	 */
+	public EventHandler createTimeBase()
+	{
+		if(mParallelTimeBase != null) {
+			return mParallelTimeBase.createPartition();
+		} else {
+			return mTimeBase;
+		}
+	}
+	
 	public Logger getLogger()
 	{
 		return mLogger;
@@ -209,6 +239,12 @@ else if(tASs.size() == 1) {
 			// two or more AS
 			IAutonomousSystem tSelectedAS = null;
 			
+			// generator is shared by all partitions of a parallel simulation
+			EventHandler.accessSharedState();
+			if(mRandomGenerator == null) {
+				mRandomGenerator = new Random(getConfig().Scenario.RANDOM_SEED);
+			}
+			
 			if(pWeightedByNumberOfNodes) {
 				// select AS based on the number of nodes within
 				for(IAutonomousSystem tAS : tASs) {
@@ -399,6 +435,101 @@ else if(tCommand.equals(CMD_AT)) {
 		return tOk;
 	}
 	
+	/**
+	 * Executes a batch of topology changes in an AS without parsing
+	 * command strings. The AS might be located on a remote worker.
+	 * 
+	 * @param pASName Name of the AS
+	 * @param pBatch Changes for the AS
+	 * @return Number of failed changes (all changes fail, if the AS is not known)
+	 */
+	public int executeBatch(String pASName, TopologyBatch pBatch)
+	{
+		IAutonomousSystem tAS = mASs.get(pASName);
+		
+		if(tAS == null) {
+			tAS = (IAutonomousSystem) JiniHelper.getService(IAutonomousSystem.class, pASName);
+		}
+		
+		if(tAS != null) {
+			try {
+				return tAS.executeBatch(pBatch);
+			}
+			catch(RemoteException tExc) {
+				mLogger.err(this, "Remote exception during execution of " +pBatch +" in AS " +pASName, tExc);
+			}
+		} else {
+			mLogger.err(this, "Can not execute " +pBatch +" due to unknown AS " +pASName);
+		}
+		
+		return pBatch.size();
+	}
+	
+	/**
+	 * Executes batches of topology changes for several AS. Each AS has its
+	 * own lock and, in parallel execution mode, its own event handler. Thus,
+	 * batches for different AS are independent and might be executed in
+	 * parallel. However, node and bus implementations as well as the node
+	 * configurators have to support this. Batches attaching nodes to buses
+	 * of other AS should not be executed in parallel, since they access the
+	 * other AS, too.
+	 * 
+	 * Without parallel execution mode, all AS share the time base of the
+	 * simulation. The batches pause and resume this time base, which must
+	 * not be done by several threads at the same time. In this case, the
+	 * batches are executed sequentially even if pParallel is true.
+	 * 
+	 * @param pBatches Batches per AS name
+	 * @param pParallel true, if the batches should be executed by several threads
+	 * @return Number of failed changes
+	 */
+	public int executeBatches(Map<String, TopologyBatch> pBatches, boolean pParallel)
+	{
+		int tFailures = 0;
+		
+		if(pParallel && (mParallelTimeBase == null)) {
+			mLogger.info(this, "AS share one time base; executing batches sequentially");
+			pParallel = false;
+		}
+		
+		if(pParallel && (pBatches.size() > 1)) {
+			ExecutorService tExecutor = Executors.newFixedThreadPool(Math.min(pBatches.size(), Config.Simulator.PARALLEL_EXECUTION_THREADS));
+			LinkedList<Future<Integer>> tResults = new LinkedList<Future<Integer>>();
+			
+			try {
+				for(final Map.Entry<String, TopologyBatch> tBatch : pBatches.entrySet()) {
+					tResults.add(tExecutor.submit(new Callable<Integer>() {
+						@Override
+						public Integer call()
+						{
+							return executeBatch(tBatch.getKey(), tBatch.getValue());
+						}
+					}));
+				}
+				
+				// results are in the order of the batches
+				for(TopologyBatch tBatch : pBatches.values()) {
+					try {
+						tFailures += tResults.removeFirst().get();
+					}
+					catch(Exception tExc) {
+						mLogger.err(this, "Exception during parallel execution of " +tBatch, tExc);
+						tFailures += tBatch.size();
+					}
+				}
+			}
+			finally {
+				tExecutor.shutdown();
+			}
+		} else {
+			for(Map.Entry<String, TopologyBatch> tBatch : pBatches.entrySet()) {
+				tFailures += executeBatch(tBatch.getKey(), tBatch.getValue());
+			}
+		}
+		
+		return tFailures;
+	}
+	
 	/**
 	 *  Terminates a simulation. The command is distributed to all other
 	 *  worker involved in the simulation.
@@ -445,6 +576,7 @@ private boolean shutdown()
 		}
 
 		mLogger.info(this, "Shutting down");
+		mLogger.info(this, "Packet IDs: " +PacketIDAllocator.getNumberIssuedIds() +" issued with " +PacketIDAllocator.getNumberLeases() +" blocks leased from manager");
 		mTimeBase.exit();
 		
 		if(mExitObserver != null) {
@@ -546,6 +678,7 @@ public synchronized void registerClosable(Closeable exitObserver)
 	}
 	
 	private EventHandler mTimeBase;
+	private ParallelEventHandler mParallelTimeBase = null;
 	private Logger mLogger;
 	
 	private String mBaseDirectory = null;
@@ -558,7 +691,7 @@ public synchronized void registerClosable(Closeable exitObserver)
 	private final HashMap<String, AutonomousSystem> mASs = new HashMap<String, AutonomousSystem>();
 	private IAutonomousSystem mCurrentAS = null;
 	
-	private Random mRandomGenerator = new Random();
+	private Random mRandomGenerator = null;
 	
 	private LinkedList<IEvent> mEventsAfterSetup;
 	private LinkedList<Closeable> mExitObserver;
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.topology;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import de.tuilmenau.ics.fog.commands.CommandParsing;
+import de.tuilmenau.ics.fog.util.ParameterMap;
+
+
+/**
+ * List of topology changes for a single AS. It replaces a sequence of
+ * "create node", "create bus" and "connect" commands. The AS executes
+ * the whole batch with a single pause of its event handler and without
+ * parsing command strings.
+ *
+ * The changes are executed in the order nodes, buses and attachments. Only
+ * strings are stored in order to transfer a batch to remote AS.
+ */
+public class TopologyBatch implements Serializable
+{
+	private static final long serialVersionUID = 4512237813617459104L;
+	
+	
+	/**
+	 * Adds a node to the batch.
+	 *
+	 * @param pName Name of the node
+	 * @param pParameter Parameters of the node in the format of the "create node" command ("key=value key=value"); might be null
+	 */
+	public void addNode(String pName, String pParameter)
+	{
+		ArrayList<String> tParts = new ArrayList<String>();
+		
+		tParts.add(pName);
+		if(pParameter != null) {
+			for(String tPart : pParameter.split(" ")) {
+				if(!"".equals(tPart)) tParts.add(tPart);
+			}
+		}
+		
+		mNodes.add(tParts.toArray(new String[tParts.size()]));
+	}
+	
+	/**
+	 * Adds a bus with the default QoS parameters to the batch.
+	 */
+	public void addBus(String pName)
+	{
+		mBuses.add(new String[] { "create", "bus", pName });
+	}
+	
+	/**
+	 * Adds a bus with explicit QoS parameters to the batch.
+	 *
+	 * @param pName Name of the bus
+	 * @param pDataRateKbit Maximal data rate of the bus in kbit/s
+	 * @param pDelayMSec Minimal delay of the bus in milliseconds
+	 */
+	public void addBus(String pName, int pDataRateKbit, int pDelayMSec)
+	{
+		mBuses.add(new String[] { "create", "bus", pName, Integer.toString(pDataRateKbit), Integer.toString(pDelayMSec) });
+	}
+	
+	/**
+	 * Removes the last bus with the given name from the batch.
+	 *
+	 * @return true, if a bus was removed; false otherwise
+	 */
+	public boolean removeBus(String pName)
+	{
+		for(int i = mBuses.size() -1; i >= 0; i--) {
+			if(mBuses.get(i)[2].equals(pName)) {
+				mBuses.remove(i);
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Adds the attachment of a node to a bus to the batch. The bus might
+	 * be located in another AS.
+	 */
+	public void addAttachment(String pNode, String pBus)
+	{
+		mAttachments.add(new String[] { pNode, pBus });
+	}
+	
+	/**
+	 * Removes the last attachment of a node to a bus from the batch.
+	 *
+	 * @return true, if an attachment was removed; false otherwise
+	 */
+	public boolean removeAttachment(String pNode, String pBus)
+	{
+		for(int i = mAttachments.size() -1; i >= 0; i--) {
+			String[] tAttachment = mAttachments.get(i);
+			
+			if(tAttachment[0].equals(pNode) && tAttachment[1].equals(pBus)) {
+				mAttachments.remove(i);
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * @return Number of changes in the batch
+	 */
+	public int size()
+	{
+		return mNodes.size() +mBuses.size() +mAttachments.size();
+	}
+	
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+	
+	/**
+	 * Executes all changes of the batch. The caller is responsible for
+	 * pausing the event handler of the AS.
+	 *
+	 * @param pAS AS the changes are executed in
+	 * @return Number of failed changes
+	 */
+	int execute(AutonomousSystem pAS)
+	{
+		int tFailures = 0;
+		
+		for(String[] tNode : mNodes) {
+			if(!pAS.createNode(tNode[0], new ParameterMap(tNode, 1, false))) {
+				pAS.getLogger().warn(this, "Can not create node " +tNode[0] +" in " +pAS);
+				tFailures++;
+			}
+		}
+		
+		for(String[] tBus : mBuses) {
+			if(!CommandParsing.create(pAS, tBus)) {
+				pAS.getLogger().warn(this, "Can not create bus " +tBus[2] +" in " +pAS);
+				tFailures++;
+			}
+		}
+		
+		for(String[] tAttachment : mAttachments) {
+			if(!pAS.attach(tAttachment[0], tAttachment[1])) {
+				pAS.getLogger().warn(this, "Can not attach node " +tAttachment[0] +" to bus " +tAttachment[1] +" in " +pAS);
+				tFailures++;
+			}
+		}
+		
+		return tFailures;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() +"(" +mNodes.size() +" nodes, " +mBuses.size() +" buses, " +mAttachments.size() +" attachments)";
+	}
+	
+	
+	private ArrayList<String[]> mNodes = new ArrayList<String[]>();
+	private ArrayList<String[]> mBuses = new ArrayList<String[]>();
+	private ArrayList<String[]> mAttachments = new ArrayList<String[]>();
+}
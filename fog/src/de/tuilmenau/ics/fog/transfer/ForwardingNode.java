@@ -68,9 +68,8 @@ public interface ForwardingNode extends ForwardingElement
 	public boolean unregisterGate(AbstractGate newgate);
 	
 	/**
-	 * It does not handle int overflow. But for small simulations...
-	 * Note that in reality the gate numbers do not have to be globally
-	 * unique!
+	 * Gate numbers are unique per forwarding node only. Numbers of removed
+	 * gates might be reused for new gates.
 	 * <br/><br/>
 	 * This is {@code public} to prevent number collisions due to the practice
 	 * to also use some gate numbers as process ids. In cases of processes that
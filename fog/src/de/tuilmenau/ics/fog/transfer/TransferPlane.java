@@ -37,6 +37,7 @@
 import de.tuilmenau.ics.fog.util.CSVWriter;
 import de.tuilmenau.ics.fog.util.Logger;
 import de.tuilmenau.ics.graph.RoutableGraph;
+import de.tuilmenau.ics.graph.RouteCacheListener;
 
 
 /**
@@ -58,11 +59,23 @@ public class TransferPlane implements TransferPlaneObserver
 	public TransferPlane(EventHandler pTimeBase, Logger pLogger)
 	{
 		mMap = new RoutableGraph<ForwardingElement, ForwardingElement>();
+		mMap.setCompactRouting(Config.Routing.COMPACT_ROUTING_ENGINE);
 		mDevNull = null;
 		mTimeBase = pTimeBase;
 		mLogger = pLogger;
 		
 		mCounterGetRouteFound = SumNode.openAsWriter(getClass().getName() +".route.number");
+		mCounterRouteCacheHit = SumNode.openAsWriter(getClass().getName() +".route.cache.hit");
+		mCounterRouteCacheMiss = SumNode.openAsWriter(getClass().getName() +".route.cache.miss");
+		
+		mMap.setRouteCacheListener(new RouteCacheListener() {
+			@Override
+			public void routeCalculated(boolean pFromCache)
+			{
+				if(pFromCache) mCounterRouteCacheHit.write(+1.0, mTimeBase.nowStream());
+				else mCounterRouteCacheMiss.write(+1.0, mTimeBase.nowStream());
+			}
+		});
 	}
 	
 	public void setRoutingService(RoutingService pRoutingService)
@@ -365,6 +378,12 @@ public RoutableGraph<ForwardingElement, ForwardingElement> getGraph()
 	 * Counter for calls to getRoute with a positive result.
 	 */
 	private IDoubleWriter mCounterGetRouteFound;
+	
+	/**
+	 * Counters for routes calculated with and without a cached shortest path tree.
+	 */
+	private IDoubleWriter mCounterRouteCacheHit;
+	private IDoubleWriter mCounterRouteCacheMiss;
 
 	/**
 	 * Static routing log
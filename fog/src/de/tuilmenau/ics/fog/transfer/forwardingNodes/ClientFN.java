@@ -23,6 +23,7 @@
 import net.rapi.NetworkException;
 
 import de.tuilmenau.ics.fog.FoGEntity;
+import de.tuilmenau.ics.fog.packets.DataBatch;
 import de.tuilmenau.ics.fog.packets.Invisible;
 import de.tuilmenau.ics.fog.packets.Packet;
 import de.tuilmenau.ics.fog.packets.Signalling;
@@ -143,27 +144,45 @@ public void handlePacket(Packet packet, ForwardingElement lastHop)
 			else if(data instanceof Invisible) {
 				((Invisible) data).execute(this, packet);
 			}
-			else {
-				// deliver data to application
-				if(mCEP != null) {
-					try {
-						mCEP.storeDataForApp(data);
-					}
-					catch(IOException exc) {
-						getLogger().err(this, "Can not receive data '" +data +"'. Closing connection.", exc);
-						mCEP.close();
-					}
-				} else {
-					getLogger().warn(this, "Can not forward data '" +data +"' due to missing link to connection end point.");
+			else if(data instanceof DataBatch) {
+				// unpack coalesced writes in their original order
+				for(Serializable tData : ((DataBatch) data).getData()) {
+					if(!storeDataForApp(tData)) break;
 				}
 			}
+			else {
+				storeDataForApp(data);
+			}
 			packet.finished(this);
 		} else {
 			mEntity.getLogger().err(this, "Gate list was not finished. Packet " +packet +" dropped.");
 			packet.dropped(this);
 		}
 	}
+	
+	/**
+	 * Delivers data to the application.
+	 * 
+	 * @return true, if the data was delivered; false, if the connection end point is missing or was closed
+	 */
+	private boolean storeDataForApp(Serializable data)
+	{
+		if(mCEP != null) {
+			try {
+				mCEP.storeDataForApp(data);
+				return true;
+			}
+			catch(IOException exc) {
+				getLogger().err(this, "Can not receive data '" +data +"'. Closing connection.", exc);
+				mCEP.close();
+			}
+		} else {
+			getLogger().warn(this, "Can not forward data '" +data +"' due to missing link to connection end point.");
+		}
 		
+		return false;
+	}
+	
 	/**
 	 * Packets from CEP that should be send to peer
 	 */
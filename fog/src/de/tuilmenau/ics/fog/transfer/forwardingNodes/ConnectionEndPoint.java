@@ -25,9 +25,15 @@
 import net.rapi.events.ServiceDegradationEvent;
 import net.rapi.impl.base.BaseConnectionEndPoint;
 import de.tuilmenau.ics.fog.Config;
+import de.tuilmenau.ics.fog.EventHandler;
+import de.tuilmenau.ics.fog.IEvent;
+import de.tuilmenau.ics.fog.IEventRef;
+import de.tuilmenau.ics.fog.packets.DataBatch;
+import de.tuilmenau.ics.fog.packets.Invisible;
 import de.tuilmenau.ics.fog.packets.Packet;
 import de.tuilmenau.ics.fog.packets.PleaseCloseConnection;
 import de.tuilmenau.ics.fog.packets.PleaseUpdateRoute;
+import de.tuilmenau.ics.fog.packets.Signalling;
 import de.tuilmenau.ics.fog.util.Logger;
 
 
@@ -92,8 +98,35 @@ public Description getRequirements()
 		}
 	}
 	
+	/**
+	 * Enables or disables the coalescing of writes for this connection.
+	 * If enabled, data written by the application is collected and sent in
+	 * a single packet. The collected data is sent if its size reaches the
+	 * size bound or if the oldest write waited for the delay bound.
+	 * Signalling messages are not coalesced. They are sent after the
+	 * collected data in order to keep the order of the writes.
+	 * 
+	 * @param maxBytes Size bound for a packet in bytes; values <= 0 disable coalescing and send the collected data
+	 * @param maxDelaySec Delay bound in seconds of simulation time
+	 * @throws NetworkException On error while sending collected data
+	 */
+	public synchronized void setCoalescing(int maxBytes, double maxDelaySec) throws NetworkException
+	{
+		coalescingMaxBytes = maxBytes;
+		coalescingMaxDelaySec = Math.max(0, maxDelaySec);
+		
+		if(!isCoalescing()) {
+			flushCoalescedData();
+		}
+	}
+	
+	public boolean isCoalescing()
+	{
+		return coalescingMaxBytes > 0;
+	}
+	
 	@Override
-	public void sendDataToPeer(Serializable data) throws NetworkException
+	public synchronized void sendDataToPeer(Serializable data) throws NetworkException
 	{
 		if(data != null) {
 			if(forwardingNode != null) {
@@ -104,14 +137,112 @@ public void sendDataToPeer(Serializable data) throws NetworkException
 					}
 				}
 				
-				Packet packet = new Packet(data);
-				forwardingNode.send(packet);
+				boolean applicationData = isApplicationData(data);
+				
+				if(applicationData) {
+					numberWrites++;
+				}
+				if(isCoalescing() && applicationData) {
+					coalesce(data);
+				} else {
+					flushCoalescedData();
+					sendPacket(data);
+				}
 			} else {
 				throw new NetworkException(this, "Connection end point is not connected. Write operation failed.");
 			}
 		}
 	}
 	
+	/**
+	 * Sends the data collected for coalescing without waiting for the
+	 * size or delay bound.
+	 */
+	public synchronized void flushCoalescedData() throws NetworkException
+	{
+		cancelFlushTimer();
+		
+		if(batch != null) {
+			DataBatch tBatch = batch;
+			batch = null;
+			
+			// avoid overhead of batch for single writes
+			if(tBatch.size() == 1) {
+				sendPacket(tBatch.getData().getFirst());
+			} else {
+				sendPacket(tBatch);
+			}
+		}
+	}
+	
+	/**
+	 * @return Number of write operations of the application; signalling is not counted
+	 */
+	public long getNumberWrites()
+	{
+		return numberWrites;
+	}
+	
+	/**
+	 * @return Number of packets sent for the write operations of the application
+	 */
+	public long getNumberSentPackets()
+	{
+		return numberSentPackets;
+	}
+	
+	private void coalesce(Serializable data) throws NetworkException
+	{
+		if(batch == null) {
+			batch = new DataBatch();
+		}
+		batch.add(data);
+		
+		if(batch.getSerialisedSize() >= coalescingMaxBytes) {
+			flushCoalescedData();
+		}
+		else if(flushTimer == null) {
+			flushTimeBase = forwardingNode.getEntity().getTimeBase();
+			flushTimer = flushTimeBase.scheduleIn(coalescingMaxDelaySec, flushEvent);
+		}
+	}
+	
+	private void sendPacket(Serializable data) throws NetworkException
+	{
+		Packet packet = new Packet(data);
+		
+		if(isApplicationData(data)) {
+			numberSentPackets++;
+		}
+		forwardingNode.send(packet);
+	}
+	
+	/**
+	 * @return false for signalling and invisible messages, which are not written by the application
+	 */
+	private static boolean isApplicationData(Serializable data)
+	{
+		return !(data instanceof Signalling) && !(data instanceof Invisible);
+	}
+	
+	private synchronized void dropCoalescedData()
+	{
+		cancelFlushTimer();
+		
+		if(batch != null) {
+			logger.warn(this, "Connection closed. Dropping " +batch);
+			batch = null;
+		}
+	}
+	
+	private void cancelFlushTimer()
+	{
+		if(flushTimer != null) {
+			flushTimeBase.cancelEvent(flushTimer);
+			flushTimer = null;
+		}
+	}
+	
 	/**
 	 * Called by higher layer to close socket.
 	 */
@@ -134,6 +265,7 @@ public void close()
 		}
 			
 		
+		dropCoalescedData();
 		cleanup();
 	}
 	
@@ -142,6 +274,7 @@ public void close()
 	 */
 	public void closed()
 	{
+		dropCoalescedData();
 		cleanup();
 		
 		// inform higher layer about closing
@@ -169,7 +302,35 @@ protected void notifyFailure(Throwable failure, EventListener listener)
 		logger.warn(this, "Ignoring failure from event listener " +listener, failure);
 	}
 	
+	/**
+	 * Sends the coalesced data if the delay bound is reached
+	 */
+	private IEvent flushEvent = new IEvent() {
+		@Override
+		public void fire()
+		{
+			synchronized(ConnectionEndPoint.this) {
+				flushTimer = null;
+				
+				try {
+					flushCoalescedData();
+				}
+				catch(NetworkException exc) {
+					logger.err(ConnectionEndPoint.this, "Can not send coalesced data.", exc);
+				}
+			}
+		}
+	};
+	
 	private Logger logger;
 	private ClientFN forwardingNode;
 	private LinkedList<Signature> authentications;
+	
+	private int coalescingMaxBytes = Config.Connection.COALESCING_MAX_BYTES;
+	private double coalescingMaxDelaySec = Config.Connection.COALESCING_MAX_DELAY_SEC;
+	private DataBatch batch;
+	private EventHandler flushTimeBase;
+	private IEventRef flushTimer;
+	private long numberWrites = 0;
+	private long numberSentPackets = 0;
 }
@@ -13,7 +13,6 @@
  ******************************************************************************/
 package de.tuilmenau.ics.fog.transfer.forwardingNodes;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Observable;
 import java.util.Observer;
@@ -30,7 +29,6 @@
 import de.tuilmenau.ics.fog.transfer.gates.AbstractGate;
 import de.tuilmenau.ics.fog.transfer.gates.GateID;
 import de.tuilmenau.ics.fog.transfer.gates.GateIterator;
-import de.tuilmenau.ics.fog.util.Helper;
 import de.tuilmenau.ics.fog.util.Logger;
 
 
@@ -40,7 +38,7 @@
  */
 abstract public class GateContainer implements ForwardingNode
 {
-	private HashMap<Integer,AbstractGate> mGates = new HashMap<Integer,AbstractGate>();
+	private GateTable mGates = new GateTable();
 	protected Name mName;
 	protected NamingLevel mLevel;
 	protected FoGEntity mEntity;
@@ -83,12 +81,13 @@ public void update(Observable object, Object parameter)
 	};
 	
 	/**
-	 * It is static in order to enforce global unique gate IDs.
-	 * In reality this is not needed! The gate numbers need to
-	 * be locally unique only. But for simulation it makes debugging
-	 * much easier.
+	 * Gate numbers need to be locally unique only. Each container has its
+	 * own number space, which keeps the numbers small. Numbers of removed
+	 * gates are reused in the order of their release in order to delay the
+	 * reuse as long as possible.
 	 */
-	private static int sLastUsedGateNumber = 0;
+	private int mLastUsedGateNumber = 0;
+	private LinkedList<Integer> mFreeGateNumbers = new LinkedList<Integer>();
 	
 	
 	public GateContainer(FoGEntity pNode, Name pName, NamingLevel pLevel)
@@ -110,7 +109,7 @@ public void open()
 	@Override
 	public GateID registerGate(AbstractGate newgate)
 	{
-		return registerGate(newgate, new GateID(getFreeGateNumber()));
+		return registerGate(newgate, GateID.valueOf(getFreeGateNumber()));
 	}
 	
 	/**
@@ -120,7 +119,7 @@ private GateID registerGate(AbstractGate newgate, GateID gateID)
 	{
 		if(newgate != null) {
 			newgate.setID(gateID);
-			mGates.put(gateID.GetID(), newgate);
+			mGates.put(gateID, newgate);
 			
 			// trigger first "state change" from nothing to added
 			mStateChangeCallback.update(newgate, null);
@@ -153,8 +152,8 @@ public boolean replaceGate(AbstractGate oldGate, AbstractGate byNewGate)
 		if((byNewGate != null) && (oldGate != null)) {
 			GateID id = oldGate.getGateID();
 			
-			// try to delete old gate
-			if(unregisterGate(oldGate)) {
+			// try to delete old gate without releasing its number
+			if(unregisterGate(oldGate, false)) {
 				// ok, gate was really attached to this container
 				// and therefore the gate id is valid.
 				if(registerGate(byNewGate, id) == null) {
@@ -176,7 +175,17 @@ public boolean replaceGate(AbstractGate oldGate, AbstractGate byNewGate)
 	@Override
 	public boolean unregisterGate(AbstractGate oldgate)
 	{
-		Integer tID = Helper.removeValueFromHashMap(mGates, oldgate);
+		return unregisterGate(oldgate, true);
+	}
+	
+	/**
+	 * Internal function doing the work for <code>unregisterGate</code>.
+	 * 
+	 * @param releaseNumber true, if the gate number can be reused for other gates
+	 */
+	private boolean unregisterGate(AbstractGate oldgate, boolean releaseNumber)
+	{
+		GateID tID = mGates.remove(oldgate);
 		if(tID != null) {
 			mEntity.getTransferPlane().unregisterLink(this, oldgate);
 			
@@ -192,6 +201,10 @@ public boolean unregisterGate(AbstractGate oldgate)
 			oldgate.setID(null);
 			oldgate.deleteObserver(mStateChangeCallback);
 			
+			if(releaseNumber) {
+				releaseGateNumber(tID.GetID());
+			}
+			
 			return true;
 		}
 		
@@ -208,20 +221,11 @@ public boolean unregisterGate(AbstractGate oldgate)
 	public int unregisterGatesTo(ForwardingElement destination)
 	{
 		int gates = 0;
-		boolean found = true;
 		
-		// while loop is need because the iterator gets invalid
-		// in the for loop.
-		while(found) {
-			found = false;
-			
-			for(AbstractGate tGate : mGates.values()) {		
-				if(tGate.getNextNode() == destination) {
-					gates++;
-					unregisterGate(tGate);
-					found = true;
-					break;
-				}
+		// list is a copy; unregistering does not invalidate it
+		for(AbstractGate tGate : mGates.getGatesTo(destination)) {
+			if(unregisterGate(tGate)) {
+				gates++;
 			}
 		}
 		
@@ -234,18 +238,22 @@ public int unregisterGatesTo(ForwardingElement destination)
 	public void close()
 	{
 		while(mGates.size() > 0) {
-			AbstractGate tGate = mGates.values().iterator().next();
-			ForwardingElement tNext = tGate.getNextNode();
-			
-			if(!unregisterGate(tGate)) {
-				mLogger.err(this, "Internal error: Existing gate '" +tGate +"' can not be deleted.");
-				Helper.removeValueFromHashMap(mGates, tGate);
-			}
-			
-			// if next FN is a container gate, we have to delete all gates
-			// to the selected FN
-			if(tNext instanceof GateContainer) {
-				((GateContainer) tNext).unregisterGatesTo(this); 
+			for(AbstractGate tGate : mGates.getGates()) {
+				// might be removed due to the removal of a previous one
+				if(!mGates.contains(tGate)) continue;
+				
+				ForwardingElement tNext = tGate.getNextNode();
+				
+				if(!unregisterGate(tGate)) {
+					mLogger.err(this, "Internal error: Existing gate '" +tGate +"' can not be deleted.");
+					mGates.remove(tGate);
+				}
+				
+				// if next FN is a container gate, we have to delete all gates
+				// to the selected FN
+				if(tNext instanceof GateContainer) {
+					((GateContainer) tNext).unregisterGatesTo(this); 
+				}
 			}
 		}
 		
@@ -279,13 +287,7 @@ public int getNumberGates()
 	 */
 	protected GateID searchForGate(ForwardingElement gate)
 	{
-		for(AbstractGate tGate : mGates.values()) {		
-			if(gate == tGate) {
-				return tGate.getGateID();
-			}
-		}
-		
-		return null;
+		return mGates.getID(gate);
 	}
 	
 	@Override
@@ -307,7 +309,7 @@ public int refresh()
 		
 		mLogger.log(this, "Running keep alive.");
 		
-		for(AbstractGate tGate : mGates.values()) {
+		for(AbstractGate tGate : mGates.getGates()) {
 			tGate.refresh();
 			
 			if(tGate.isDeleted()) {
@@ -354,11 +356,23 @@ public String toString()
 	}
 	
 	@Override
-	public int getFreeGateNumber()
+	public synchronized int getFreeGateNumber()
 	{
-		synchronized(GateContainer.class) {
-			sLastUsedGateNumber++;
-			return sLastUsedGateNumber;
+		if(!mFreeGateNumbers.isEmpty()) {
+			return mFreeGateNumbers.removeFirst();
 		}
+		
+		mLastUsedGateNumber++;
+		return mLastUsedGateNumber;
+	}
+	
+	/**
+	 * Makes a gate number available for other gates.
+	 * 
+	 * @param number Number of a removed gate
+	 */
+	private synchronized void releaseGateNumber(int number)
+	{
+		mFreeGateNumbers.addLast(number);
 	}
 }
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.transfer.forwardingNodes;
+
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+import de.tuilmenau.ics.fog.transfer.ForwardingElement;
+import de.tuilmenau.ics.fog.transfer.gates.AbstractGate;
+import de.tuilmenau.ics.fog.transfer.gates.GateID;
+
+
+/**
+ * Table of the gates of a forwarding node.
+ *
+ * Since the gate numbers of a forwarding node are small and dense, the
+ * gates are stored in an array indexed by the gate number. Thus, a lookup
+ * during forwarding does not create any objects. In addition, the table maintains two reverse indexes based
+ * on object identity: from a gate to its gate ID and from a next node to
+ * the gates pointing to it.
+ *
+ * The next node of a gate is determined during the registration. It is
+ * assumed that it does not change while the gate is registered.
+ */
+class GateTable implements Iterable<AbstractGate>
+{
+	private static final int INITIAL_CAPACITY = 16;
+	
+	/**
+	 * Reverse information about a registered gate.
+	 */
+	private static class Entry
+	{
+		public Entry(GateID pID, ForwardingElement pNextNode)
+		{
+			mID = pID;
+			mNextNode = pNextNode;
+		}
+		
+		private final GateID mID;
+		private final ForwardingElement mNextNode;
+	}
+	
+	
+	public GateTable()
+	{
+		mValues = new AbstractGate[INITIAL_CAPACITY];
+	}
+	
+	/**
+	 * Stores a gate with a gate number. If another gate was stored with
+	 * the same number, it is replaced.
+	 *
+	 * @param pID Gate ID of the gate (!= null, gate number >= 0)
+	 * @param pGate Gate (!= null)
+	 */
+	public void put(GateID pID, AbstractGate pGate)
+	{
+		int tNumber = pID.GetID();
+		
+		if(tNumber < 0) {
+			throw new IllegalArgumentException("Invalid gate number " +tNumber +" for gate " +pGate +".");
+		}
+		
+		if(tNumber >= mValues.length) {
+			AbstractGate[] tValues = new AbstractGate[Math.max(tNumber +1, mValues.length *2)];
+			
+			System.arraycopy(mValues, 0, tValues, 0, mValues.length);
+			mValues = tValues;
+		}
+		
+		if(mValues[tNumber] != null) {
+			removeReverse(mValues[tNumber]);
+		} else {
+			mSize++;
+		}
+		
+		mValues[tNumber] = pGate;
+		mModifications++;
+		
+		Entry tEntry = new Entry(pID, pGate.getNextNode());
+		mReverse.put(pGate, tEntry);
+		
+		if(tEntry.mNextNode != null) {
+			LinkedList<AbstractGate> tGates = mNextNodes.get(tEntry.mNextNode);
+			
+			if(tGates == null) {
+				tGates = new LinkedList<AbstractGate>();
+				mNextNodes.put(tEntry.mNextNode, tGates);
+			}
+			tGates.add(pGate);
+		}
+	}
+	
+	/**
+	 * @param pGateNumber Gate number
+	 * @return Gate registered with the number or null if not known
+	 */
+	public AbstractGate get(int pGateNumber)
+	{
+		if((pGateNumber >= 0) && (pGateNumber < mValues.length)) {
+			return mValues[pGateNumber];
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Searches for the gate ID of a gate. Comparison is based on the reference.
+	 *
+	 * @param pGate Element to search for
+	 * @return Gate ID or null, if the element is not stored in the table
+	 */
+	public GateID getID(ForwardingElement pGate)
+	{
+		Entry tEntry = mReverse.get(pGate);
+		
+		if(tEntry != null) return tEntry.mID;
+		else return null;
+	}
+	
+	/**
+	 * @param pGate Gate
+	 * @return true, if the gate is stored in the table; false otherwise
+	 */
+	public boolean contains(AbstractGate pGate)
+	{
+		return mReverse.containsKey(pGate);
+	}
+	
+	/**
+	 * @param pNextNode Next node
+	 * @return Copy of the list of gates pointing to the next node (!= null)
+	 */
+	public LinkedList<AbstractGate> getGatesTo(ForwardingElement pNextNode)
+	{
+		LinkedList<AbstractGate> tGates = mNextNodes.get(pNextNode);
+		
+		if(tGates != null) return new LinkedList<AbstractGate>(tGates);
+		else return new LinkedList<AbstractGate>();
+	}
+	
+	/**
+	 * @return List with all gates of the table (!= null)
+	 */
+	public LinkedList<AbstractGate> getGates()
+	{
+		LinkedList<AbstractGate> tGates = new LinkedList<AbstractGate>();
+		
+		for(AbstractGate tGate : mValues) {
+			if(tGate != null) tGates.add(tGate);
+		}
+		
+		return tGates;
+	}
+	
+	/**
+	 * Removes a gate from the table.
+	 *
+	 * @param pGate Gate to remove
+	 * @return Gate ID of the removed gate or null, if the gate was not stored in the table
+	 */
+	public GateID remove(AbstractGate pGate)
+	{
+		Entry tEntry = mReverse.get(pGate);
+		
+		if(tEntry != null) {
+			mValues[tEntry.mID.GetID()] = null;
+			mSize--;
+			mModifications++;
+			
+			removeReverse(pGate);
+			return tEntry.mID;
+		}
+		
+		return null;
+	}
+	
+	public int size()
+	{
+		return mSize;
+	}
+	
+	/**
+	 * @return Iterator over all gates; it does not support removals
+	 */
+	@Override
+	public Iterator<AbstractGate> iterator()
+	{
+		return new Iterator<AbstractGate>() {
+			@Override
+			public boolean hasNext()
+			{
+				checkModifications();
+				
+				while((mSlot < mValues.length) && (mValues[mSlot] == null)) {
+					mSlot++;
+				}
+				return mSlot < mValues.length;
+			}
+			
+			@Override
+			public AbstractGate next()
+			{
+				if(!hasNext()) throw new NoSuchElementException();
+				
+				AbstractGate tGate = mValues[mSlot];
+				mSlot++;
+				return tGate;
+			}
+			
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+			
+			private void checkModifications()
+			{
+				if(mExpectedModifications != mModifications) {
+					throw new ConcurrentModificationException();
+				}
+			}
+			
+			private int mSlot = 0;
+			private final int mExpectedModifications = mModifications;
+		};
+	}
+	
+	private void removeReverse(AbstractGate pGate)
+	{
+		Entry tEntry = mReverse.remove(pGate);
+		
+		if((tEntry != null) && (tEntry.mNextNode != null)) {
+			LinkedList<AbstractGate> tGates = mNextNodes.get(tEntry.mNextNode);
+			
+			if(tGates != null) {
+				Iterator<AbstractGate> tIter = tGates.iterator();
+				while(tIter.hasNext()) {
+					if(tIter.next() == pGate) {
+						tIter.remove();
+						break;
+					}
+				}
+				
+				if(tGates.isEmpty()) mNextNodes.remove(tEntry.mNextNode);
+			}
+		}
+	}
+	
+	
+	private AbstractGate[] mValues;
+	private int mSize = 0;
+	private int mModifications = 0;
+	
+	private IdentityHashMap<ForwardingElement, Entry> mReverse = new IdentityHashMap<ForwardingElement, Entry>();
+	private IdentityHashMap<ForwardingElement, LinkedList<AbstractGate>> mNextNodes = new IdentityHashMap<ForwardingElement, LinkedList<AbstractGate>>();
+}
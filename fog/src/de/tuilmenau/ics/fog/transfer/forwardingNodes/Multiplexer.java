@@ -28,6 +28,7 @@
 import de.tuilmenau.ics.fog.transfer.gates.TransparentGate;
 import de.tuilmenau.ics.fog.transfer.manager.Controller;
 import de.tuilmenau.ics.fog.ui.PacketLogger;
+import de.tuilmenau.ics.fog.ui.Logging.Level;
 import de.tuilmenau.ics.fog.ui.Viewable;
 
 
@@ -251,15 +252,15 @@ protected void handlePacket(Packet packet)
 		if(packet.getData() instanceof Signalling) {
 			Signalling tSig = (Signalling) packet.getData();
 			
-			mLogger.debug(this, "Executing signalling packet " +packet);
+			mLogger.logFormat(Level.DEBUG, this, "Executing signalling packet %s", packet);
 			
 			boolean tRes = tSig.execute(this, packet);
 			
-			mLogger.trace(this, "Signalling packet " +packet +" execution result = " +tRes);
+			mLogger.logFormat(Level.TRACE, this, "Signalling packet %s execution result = %s", packet, tRes);
 		}
 		else if(packet.getData() instanceof Invisible) {
 			// ignore it; had been handled before
-			mLogger.trace(this, "Received invisible " + packet +" and ignoring it.");
+			mLogger.logFormat(Level.TRACE, this, "Received invisible %s and ignoring it.", packet);
 		}
 		else {
 			handleDataPacket(packet);
@@ -92,7 +92,7 @@ public static AbstractGate createGate(FoGEntity entity, IFunctionDescriptor func
 	 *  
 	 * @return gate factory of null, if no factory available
 	 */
-	public static GateFactory findGateFactory(String typeName)
+	public static synchronized GateFactory findGateFactory(String typeName)
 	{
 		GateFactory factory = null;
 		
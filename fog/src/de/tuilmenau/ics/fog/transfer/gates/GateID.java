@@ -21,7 +21,7 @@
 public class GateID implements Serializable
 {
 	private static final long serialVersionUID = -5131034925771682114L;
-	private int id = -1;
+	private final int id;
 	
 	public static final int GATE_NUMBER_SIZE_BYTES = 1;
 	
@@ -29,6 +29,24 @@ public GateID(int pID)
 	{
 		id = pID;
 	}
+	
+	/**
+	 * Returns a gate ID object for a gate number. Since gate IDs are not
+	 * changeable, the objects for small gate numbers are shared. They are
+	 * created when the class is loaded, so that threads can use the cache
+	 * without synchronization.
+	 * 
+	 * @param pID Gate number
+	 * @return Gate ID (!= null)
+	 */
+	public static GateID valueOf(int pID)
+	{
+		if((pID >= 0) && (pID < CACHE_SIZE)) {
+			return sCache[pID];
+		} else {
+			return new GateID(pID);
+		}
+	}
 
 	public int GetID()
 	{
@@ -59,4 +77,13 @@ public GateID clone()
 	{
 		return new GateID(id);
 	}
+	
+	private static final int CACHE_SIZE = 1024;
+	private static final GateID[] sCache = new GateID[CACHE_SIZE];
+	
+	static {
+		for(int i = 0; i < CACHE_SIZE; i++) {
+			sCache[i] = new GateID(i);
+		}
+	}
 }
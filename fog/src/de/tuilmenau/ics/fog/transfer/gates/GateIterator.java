@@ -55,6 +55,16 @@ public GateIterator(HashMap<Integer, AbstractGate> pContainer, Class<?> pGateCla
 		mNextBuffer = null;
 	}
 	
+	public GateIterator(Iterable<AbstractGate> pContainer, Class<?> pGateClassFilter)
+	{
+		mClassFilter = pGateClassFilter;
+		
+		if(pContainer != null)
+			mIterator = pContainer.iterator();
+		
+		mNextBuffer = null;
+	}
+	
 	public boolean hasNext()
 	{
 		// if there is no next element => try to get one
@@ -234,7 +234,7 @@ private boolean ackPacket(int pPacketNumber)
 
 			while(tIter.hasNext()) {
 				PacketQueueEntry tPacket = tIter.next();
-				int tNumber = ((NumberingHeader) tPacket.packet.getData()).getCounter();
+				int tNumber = ((NumberingHeader) tPacket.getPacket().getData()).getCounter();
 				
 				if(tSmallestNumber < 0) {
 					tSmallestNumber = tNumber;
@@ -283,19 +283,19 @@ private void sendPacket(double pNow, PacketQueueEntry pPacket)
 		
 		if(DEBUG_OUTPUT_NUMBERING_GATE) {
 			if(tRetransmission) {
-				mLogger.debug(this, "Re-sending packet " +pPacket.packet +" (inFlight=" +mPacketsInFlight +", timeout=" +(pNow -pPacket.lastSendTime) +" sec, delay=" +(pNow -pPacket.queueingTime) +")");
+				mLogger.debug(this, "Re-sending packet " +pPacket.getPacket() +" (inFlight=" +mPacketsInFlight +", timeout=" +(pNow -pPacket.lastSendTime) +" sec, delay=" +(pNow -pPacket.queueingTime) +")");
 			} else {
-				mLogger.debug(this, "Sending packet " +pPacket.packet +" (inFlight=" +mPacketsInFlight +")");
+				mLogger.debug(this, "Sending packet " +pPacket.getPacket() +" (inFlight=" +mPacketsInFlight +")");
 			}
 		}
 	
 		// set send time to time of retransmission
 		pPacket.lastSendTime = pNow;
 		
-		NumberingHeader header = (NumberingHeader) pPacket.packet.getData();
+		NumberingHeader header = (NumberingHeader) pPacket.getPacket().getData();
 		header.setSendTime(pNow);
 	
-		getNextNode().handlePacket(pPacket.packet.clone(), this);
+		getNextNode().handlePacket(pPacket.getPacket().clone(), this);
 		
 		if(!tRetransmission) {
 			mPacketsInFlight++;
@@ -321,7 +321,7 @@ public synchronized void fire()
 
 		while(tIter.hasNext()) {
 			PacketQueueEntry tPacket = tIter.next();
-			int tNumber = ((NumberingHeader) tPacket.packet.getData()).getCounter();
+			int tNumber = ((NumberingHeader) tPacket.getPacket().getData()).getCounter();
 
 			if(tLowestNoOverall == null) {
 				tLowestNoOverall = tPacket;
@@ -33,6 +33,7 @@
 import net.rapi.properties.PropertyException;
 
 import de.tuilmenau.ics.fog.Config;
+import de.tuilmenau.ics.fog.EventHandler;
 import de.tuilmenau.ics.fog.FoGEntity;
 import de.tuilmenau.ics.fog.IContinuation;
 import de.tuilmenau.ics.fog.IEvent;
@@ -951,6 +952,8 @@ public int getNumberLowerLayers()
 	
 	public static Name generateRoutingServiceName()
 	{
+		// counter is shared by all partitions of a parallel simulation
+		EventHandler.accessSharedState();
 		sName++;
 		return new SimpleName(Node.NAMESPACE_HOST, "__" +sName);
 	}
@@ -16,11 +16,18 @@
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import net.rapi.Description;
 import net.rapi.properties.Property;
@@ -49,6 +56,12 @@
 	
 	private static final boolean DEBUG_WORD_CREATION = true;
 	
+	/**
+	 * Maximum number of requirements, which are not in the index, for that
+	 * the selected solution is stored.
+	 */
+	private static final int MAXIMUM_MEMO_SIZE = 256;
+	
 	private static RequirementsToGatesMapper sGlobalInstance = null;
 	
 	/**
@@ -392,6 +405,22 @@ public int getNumberRulesTotal()
 			return numberRulesTotal;
 		}
 		
+		/**
+		 * @return Sorted names of the named rules used for deriving the word (!= null)
+		 */
+		public TreeSet<String> getNamedRuleNames()
+		{
+			TreeSet<String> names = new TreeSet<String>();
+			
+			for(Object obj : word) {
+				if((obj instanceof Rule) && ((Rule) obj).isNamed()) {
+					names.add(((Rule) obj).getRuleName());
+				}
+			}
+			
+			return names;
+		}
+		
 		public double satisfies(Description requirements)
 		{
 			int nonFunctionalSatisfyCounter = 0;
@@ -635,10 +664,151 @@ private static boolean addSolution(LinkedList<Word> solutionList, Word solution)
 		}
 	}
 	
-	public Word getSolutionFor(Description requirements)
+	/**
+	 * Canonical form of requirements containing everything the selection of
+	 * a solution depends on. Functional requirements are represented by
+	 * the names of their rules. Non-functional requirements are represented
+	 * by their names only if they are used as optimisation criterions.
+	 */
+	private static class RequirementsKey
+	{
+		public RequirementsKey(Description requirements)
+		{
+			ArrayList<String> functional = new ArrayList<String>();
+			ArrayList<String> nonFunctional = new ArrayList<String>();
+			boolean onlyNamedRules = true;
+			
+			if(requirements != null) {
+				for(Property requ : requirements.getFunctional()) {
+					String name = requ.getClass().getSimpleName().replaceAll(PROPERTY_CLASS_NAME_POST_FIX +"$", "");
+					
+					// other requirements never match a rule; mark them in order to distinguish them from rule names
+					if(!(requ instanceof FunctionalRequirementProperty)) {
+						name = "?" +name;
+						onlyNamedRules = false;
+					}
+					functional.add(name);
+				}
+				
+				if(Config.Connection.OPTIMISATION_CRITERIONS_ACTIVATED) {
+					for(Property requ : requirements.getNonFunctional()) {
+						String name = requ.toString();
+						int index = name.indexOf(PROPERTY_CLASS_NAME_POST_FIX);
+						
+						nonFunctional.add((index >= 0) ? name.substring(0, index) : name);
+					}
+				}
+			}
+			
+			this.functional = toSortedArray(functional);
+			this.nonFunctional = toSortedArray(nonFunctional);
+			
+			// duplicates count more than once during matching
+			canonical = onlyNamedRules && nonFunctional.isEmpty() && (new HashSet<String>(functional).size() == functional.size());
+		}
+		
+		public RequirementsKey(Collection<String> ruleNames)
+		{
+			functional = toSortedArray(ruleNames);
+			nonFunctional = new String[0];
+			canonical = true;
+		}
+		
+		private static String[] toSortedArray(Collection<String> names)
+		{
+			String[] array = names.toArray(new String[names.size()]);
+			
+			Arrays.sort(array);
+			return array;
+		}
+		
+		/**
+		 * @return true, if the key consists of different rule names only
+		 */
+		public boolean isCanonical()
+		{
+			return canonical;
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(obj == this) return true;
+			
+			if(obj instanceof RequirementsKey) {
+				RequirementsKey key = (RequirementsKey) obj;
+				
+				return Arrays.equals(functional, key.functional) && Arrays.equals(nonFunctional, key.nonFunctional);
+			}
+			
+			return false;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return Arrays.hashCode(functional) *31 +Arrays.hashCode(nonFunctional);
+		}
+		
+		@Override
+		public String toString()
+		{
+			return Arrays.toString(functional) +Arrays.toString(nonFunctional);
+		}
+		
+		private String[] functional;
+		private String[] nonFunctional;
+		private boolean canonical;
+	}
+	
+	/**
+	 * Selects the solution for requirements. Solutions matching the
+	 * requirements exactly are taken from an index created by {@link #init()}.
+	 * For other requirements, all solutions are searched and the result
+	 * is stored for subsequent requests with equal requirements. The
+	 * selection depends only on the language and the requirements, not on
+	 * the registered gate factories. Thus, the index and the stored results
+	 * stay valid until the language changes and are rebuilt by {@link #init()}.
+	 * 
+	 * @param requirements Requirements of a connection
+	 * @return Solution or null, if no solution satisfies the requirements
+	 */
+	public synchronized Word getSolutionFor(Description requirements)
+	{
+		RequirementsKey key = new RequirementsKey(requirements);
+		
+		if(key.isCanonical()) {
+			LinkedList<Word> ranked = index.get(key);
+			
+			if(ranked != null) {
+				indexHits++;
+				return ranked.getFirst();
+			}
+		}
+		
+		if(memo.containsKey(key)) {
+			memoHits++;
+			return memo.get(key);
+		} else {
+			Word solution = searchSolutionFor(requirements);
+			
+			memoMisses++;
+			memo.put(key, solution);
+			return solution;
+		}
+	}
+	
+	/**
+	 * Selects the solution for requirements by checking all solutions.
+	 */
+	Word searchSolutionFor(Description requirements)
 	{
 		LinkedList<Word> res = new LinkedList<Word>();
 		
+		if(requirements == null) {
+			requirements = new Description();
+		}
+		
 		// find all solution satisfying the requirements
 		for(Word sol : solutions) {
 			double match = sol.satisfies(requirements);
@@ -668,7 +838,7 @@ else if(match > 1.0d) {
 	}
 	
 	
-	public void init()
+	public synchronized void init()
 	{
 		rules.clear();
 		solutions.clear();
@@ -682,6 +852,73 @@ public void init()
 		
 		createTree(0, word);
 		logger.info(this, "Number possible solutions: " +solutions.size());
+		
+		createIndex();
+		logger.info(this, "Number requirements in index: " +index.size());
+	}
+	
+	/**
+	 * Creates the index of solutions matching requirements exactly. A
+	 * solution matches exactly, if it contains each requested named rule
+	 * exactly once and no other named rules. The order of the solutions
+	 * per requirements is the same as the one of the search in
+	 * {@link #searchSolutionFor(Description)}.
+	 */
+	private synchronized void createIndex()
+	{
+		index.clear();
+		memo.clear();
+		indexHits = 0;
+		memoHits = 0;
+		memoMisses = 0;
+		
+		for(Word sol : solutions) {
+			TreeSet<String> names = sol.getNamedRuleNames();
+			
+			if(names.size() == sol.getNumberNamedRules()) {
+				RequirementsKey key = new RequirementsKey(names);
+				LinkedList<Word> ranked = index.get(key);
+				
+				if(ranked == null) {
+					ranked = new LinkedList<Word>();
+					index.put(key, ranked);
+				}
+				
+				// search prefers the last exact match
+				ranked.addFirst(sol);
+			}
+		}
+	}
+	
+	/**
+	 * @return Names of all named rules of the language (!= null)
+	 */
+	public synchronized Set<String> getRuleNames()
+	{
+		TreeSet<String> names = new TreeSet<String>();
+		
+		for(LinkedList<Rule> tos : rules.values()) {
+			for(Rule rule : tos) {
+				if(rule.isNamed()) names.add(rule.getRuleName());
+			}
+		}
+		
+		return Collections.unmodifiableSet(names);
+	}
+	
+	public long getIndexHits()
+	{
+		return indexHits;
+	}
+	
+	public long getMemoHits()
+	{
+		return memoHits;
+	}
+	
+	public long getMemoMisses()
+	{
+		return memoMisses;
 	}
 	
 	private int readLanguage(String filename)
@@ -847,4 +1084,23 @@ private int createTree(int recursion, Word word)
 	private HashMap<Variable, LinkedList<Rule>> rules = new HashMap<Variable, LinkedList<Rule>>();
 	private LinkedList<Word> solutions = new LinkedList<Word>();
 	private boolean warnInfiniteRecursion = true;
+	
+	/**
+	 * Solutions matching requirements exactly; best solution first
+	 */
+	private HashMap<RequirementsKey, LinkedList<Word>> index = new HashMap<RequirementsKey, LinkedList<Word>>();
+	
+	/**
+	 * Selected solutions for requirements not in the index in the order of their usage
+	 */
+	private LinkedHashMap<RequirementsKey, Word> memo = new LinkedHashMap<RequirementsKey, Word>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<RequirementsKey, Word> eldest)
+		{
+			return size() > MAXIMUM_MEMO_SIZE;
+		}
+	};
+	private long indexHits = 0;
+	private long memoHits = 0;
+	private long memoMisses = 0;
 }
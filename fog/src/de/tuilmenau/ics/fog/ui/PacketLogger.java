@@ -13,7 +13,9 @@
  ******************************************************************************/
 package de.tuilmenau.ics.fog.ui;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 
 import de.tuilmenau.ics.fog.Config;
@@ -23,6 +25,19 @@
 import de.tuilmenau.ics.fog.ui.IPacketObserver.EventType;
 
 
+/**
+ * Stores the last packets logged at a measurement point. The loggers are
+ * organized in a hierarchy and each packet is logged by the parents, too.
+ * 
+ * In recording mode (see {@link Config.Logging#PACKET_LOGGER_RECORDING}),
+ * a logger stores the entries in a ring buffer allocated once. An entry
+ * stores a snapshot of the packet (ID, route gates, payload type, time and
+ * location) plus a reference to the packet. It is shared by all loggers in
+ * the hierarchy and lists are displayed based on the snapshot.
+ * The packet is copied only if an observer requests it via
+ * {@link PacketQueueEntry#getPacket()}. Entries older than the history
+ * are removed when the logger is accessed, which avoids timer events.
+ */
 public class PacketLogger extends PacketQueue
 {
 	private static final int MAX_BUFFER_SIZE = 10;
@@ -36,6 +51,10 @@ private PacketLogger(Object key, int bufferSize, EventHandler timeBase, PacketLo
 		this.logKey = key;
 		this.parent = parent;
 		this.eventHandler = timeBase;
+		
+		if(Config.Logging.PACKET_LOGGER_RECORDING) {
+			records = new PacketQueueEntry[Math.max(1, bufferSize)];
+		}
 	}
 	
 	/**
@@ -155,19 +174,30 @@ public void scheduleIt()
 	public void add(Object key, Packet packet)
 	{
 		if(Config.Logging.PACKET_LOGGER_ENABLED) {
-			Packet copy = packet.clone();
-			super.add(key, copy);
-			
-			if(Config.Logging.PACKET_LOGGER_HISTORY_SEC >= 0) {
-				if(timer == null) {
-					timer = new RemoveTimer();
-					
-					timer.scheduleIt();
+			if(records != null) {
+				PacketQueueEntry entry = new PacketQueueEntry(key, packet, eventHandler.now(), true);
+				
+				// entry is shared by all loggers in the hierarchy
+				PacketLogger logger = this;
+				while(logger != null) {
+					logger.record(entry);
+					logger = logger.parent;
+				}
+			} else {
+				Packet copy = packet.clone();
+				super.add(key, copy);
+				
+				if(Config.Logging.PACKET_LOGGER_HISTORY_SEC >= 0) {
+					if(timer == null) {
+						timer = new RemoveTimer();
+						
+						timer.scheduleIt();
+					}
+				}
+				
+				if(parent != null) {
+					parent.addFromChild(key, copy);
 				}
-			}
-			
-			if(parent != null) {
-				parent.addFromChild(key, copy);
 			}
 		}
 	}
@@ -197,6 +227,152 @@ private void addFromChild(Object key, Packet packet)
 		}
 	}
 	
+	/**
+	 * Stores an entry in the ring buffer. If the buffer is full,
+	 * the oldest entry is overwritten.
+	 */
+	private synchronized void record(PacketQueueEntry entry)
+	{
+		removeExpired(entry.queueingTime);
+		
+		if(numberRecords == records.length) {
+			removeOldestRecord();
+		}
+		
+		records[nextRecord] = entry;
+		nextRecord = (nextRecord +1) % records.length;
+		numberRecords++;
+		recordCounter++;
+		
+		added(entry);
+	}
+	
+	private void removeOldestRecord()
+	{
+		int oldest = (nextRecord -numberRecords +records.length) % records.length;
+		PacketQueueEntry del = records[oldest];
+		
+		records[oldest] = null;
+		numberRecords--;
+		removed(del);
+	}
+	
+	/**
+	 * Removes the entries, which are older than the history of the logger.
+	 */
+	private void removeExpired(double now)
+	{
+		if(Config.Logging.PACKET_LOGGER_HISTORY_SEC >= 0) {
+			removeRecordsOlder(now -Config.Logging.PACKET_LOGGER_HISTORY_SEC);
+		}
+	}
+	
+	private void removeRecordsOlder(double timeThreshold)
+	{
+		// entries are sorted by their queueing time
+		while(numberRecords > 0) {
+			int oldest = (nextRecord -numberRecords +records.length) % records.length;
+			
+			if(records[oldest].queueingTime <= timeThreshold) {
+				removeOldestRecord();
+			} else {
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * @return Copy of the recorded entries starting with the newest one
+	 */
+	private synchronized PacketQueueEntry[] getRecords()
+	{
+		removeExpired(eventHandler.now());
+		
+		PacketQueueEntry[] result = new PacketQueueEntry[numberRecords];
+		for(int i = 0; i < numberRecords; i++) {
+			result[i] = records[(nextRecord -1 -i +records.length) % records.length];
+		}
+		
+		return result;
+	}
+	
+	@Override
+	public int size()
+	{
+		if(records != null) {
+			synchronized(this) {
+				removeExpired(eventHandler.now());
+				return numberRecords;
+			}
+		} else {
+			return super.size();
+		}
+	}
+	
+	@Override
+	public int getPacketCounter()
+	{
+		if(records != null) {
+			return recordCounter;
+		} else {
+			return super.getPacketCounter();
+		}
+	}
+	
+	@Override
+	public Iterator<PacketQueueEntry> iterator()
+	{
+		if(records != null) {
+			return Arrays.asList(getRecords()).iterator();
+		} else {
+			return super.iterator();
+		}
+	}
+	
+	@Override
+	public Iterator<PacketQueueEntry> descendingIterator()
+	{
+		if(records != null) {
+			LinkedList<PacketQueueEntry> entries = new LinkedList<PacketQueueEntry>(Arrays.asList(getRecords()));
+			
+			return entries.descendingIterator();
+		} else {
+			return super.descendingIterator();
+		}
+	}
+	
+	@Override
+	public synchronized Object[] toArray()
+	{
+		if(records != null) {
+			return getRecords();
+		} else {
+			return super.toArray();
+		}
+	}
+	
+	@Override
+	public synchronized void removePacketsOlder(double timeThreshold)
+	{
+		if(records != null) {
+			removeRecordsOlder(timeThreshold);
+		} else {
+			super.removePacketsOlder(timeThreshold);
+		}
+	}
+	
+	@Override
+	public synchronized void clear()
+	{
+		if(records != null) {
+			Arrays.fill(records, null);
+			nextRecord = 0;
+			numberRecords = 0;
+		}
+		
+		super.clear();
+	}
+	
 	@Override
 	protected void added(PacketQueueEntry newEntry)
 	{
@@ -278,5 +454,13 @@ public Object getKey()
 	/**
 	 * Timer for removing packets from logger after a time period.
 	 */
-	private RemoveTimer timer = null;	
+	private RemoveTimer timer = null;
+	
+	/**
+	 * Ring buffer for the recording mode; null if mode is disabled.
+	 */
+	private PacketQueueEntry[] records = null;
+	private int nextRecord = 0;
+	private int numberRecords = 0;
+	private int recordCounter = 0;
 }
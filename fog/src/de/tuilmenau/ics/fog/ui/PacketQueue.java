@@ -13,6 +13,7 @@
  ******************************************************************************/
 package de.tuilmenau.ics.fog.ui;
 
+import java.lang.ref.SoftReference;
 import java.util.Iterator;
 import java.util.LinkedList;
 
@@ -156,19 +157,123 @@ public synchronized void removePacketsOlder(double timeThreshold)
 	 */
 	public class PacketQueueEntry {
 		public PacketQueueEntry(Object obj, Packet pack, double now)
+		{
+			this(obj, pack, now, false);
+		}
+		
+		/**
+		 * Creates an entry, which might store just a reference to the packet.
+		 * In such a case, the packet is copied on the first call to
+		 * {@link #getPacket()}. Thus, the copy reflects the state of the packet
+		 * at this time and not at the time the entry was created.
+		 * The reference is a soft one. Thus, the entries do not keep the
+		 * packets alive if memory runs short.
+		 * 
+		 * Independent of the copy mode, the entry stores a snapshot of the
+		 * packet ID, the number of gates in the route, the payload type,
+		 * the adding time and the data object. {@link #toString()} describes
+		 * the entry based on this snapshot.
+		 * 
+		 * @param obj Additional data object
+		 * @param pack Packet
+		 * @param now Adding time
+		 * @param lazyCopy true, if the packet should be copied on demand; false, if the entry stores the given packet
+		 */
+		public PacketQueueEntry(Object obj, Packet pack, double now, boolean lazyCopy)
 		{
 			number = globalEntryCounter++;
 			lastSendTime = -1;
 			queueingTime = now;
 			object = obj;
-			packet = pack;
+			packetId = pack.getId();
+			
+			if(pack.getRoute() != null) {
+				routeGates = pack.getRoute().sizeNumberGates();
+			} else {
+				routeGates = 0;
+			}
+			
+			if(pack.getData() != null) {
+				payloadType = pack.getData().getClass();
+			} else {
+				payloadType = null;
+			}
+			
+			if(lazyCopy) {
+				original = new SoftReference<Packet>(pack);
+			} else {
+				packet = pack;
+			}
+		}
+		
+		/**
+		 * Returns the full packet. For lazy entries, the packet is copied
+		 * during the first call. Views, which just list the entries, should
+		 * use {@link #toString()} in order to avoid the copy.
+		 * 
+		 * @return Packet of the entry; for lazy entries a copy created during the first call;
+		 *         null, if the packet of a lazy entry can not be copied (anymore)
+		 */
+		public synchronized Packet getPacket()
+		{
+			if((packet == null) && (original != null)) {
+				Packet tOriginal = original.get();
+				
+				if(tOriginal != null) {
+					// The live packet is never returned, since callers might modify it.
+					try {
+						packet = tOriginal.clone();
+					}
+					catch(RuntimeException exc) {
+						Logging.warn(this, "Can not copy packet " +packetId +" of queue entry " +number, exc);
+					}
+					original = null;
+				} else {
+					Logging.log(this, "Packet " +packetId +" of queue entry " +number +" was released due to memory demand");
+					original = null;
+				}
+			}
+			
+			return packet;
+		}
+		
+		/**
+		 * @return ID of the packet; available without copying the packet
+		 */
+		public long getPacketId()
+		{
+			return packetId;
+		}
+		
+		/**
+		 * @return Number of gates in the route of the packet at the adding time
+		 */
+		public int getRouteGates()
+		{
+			return routeGates;
+		}
+		
+		/**
+		 * Describes the entry based on the snapshot taken at the adding time.
+		 * The packet itself is not accessed.
+		 */
+		@Override
+		public String toString()
+		{
+			String tType = (payloadType != null) ? payloadType.getSimpleName() : "no payload";
+			
+			return "Packet " +packetId +" (" +tType +", " +routeGates +" gates in route) at " +object +" @ " +queueingTime;
 		}
 		
 		public final int number;
 		public double lastSendTime;
 		public final double queueingTime;
 		public final Object object;
-		public final Packet packet;
+		private final long packetId;
+		private final int routeGates;
+		private final Class<?> payloadType;
+		private Packet packet;
+		private SoftReference<Packet> original;
 	}
 	
 	private static int globalEntryCounter = 0;
@@ -15,13 +15,17 @@
 
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 
 import de.tuilmenau.ics.fog.Config;
+import de.tuilmenau.ics.fog.EventHandler;
 import de.tuilmenau.ics.fog.topology.Simulation;
+import de.tuilmenau.ics.fog.util.BinaryStatisticWriter;
 import de.tuilmenau.ics.fog.util.CSVWriter;
+import de.tuilmenau.ics.fog.util.StatisticSchema;
 
 
 /**
@@ -35,22 +39,31 @@
 	private Statistic(Simulation pSim)
 	{
 		mFilename = null;
-		mStatsFile = null;
 	}
 	
-	private Statistic(Simulation pSim, String pName) throws IOException
+	private Statistic(Simulation pSim, String pName, StatisticSchema pSchema) throws IOException
 	{
+		String tExtension = ".csv";
+		
+		if((pSchema != null) && pSim.getConfig().logging.WRITE_BINARY_STATISTIC) {
+			tExtension = ".bin";
+		}
+		
 		if(pName == null) {
-			mFilename = pSim.getBaseDirectory() +"stats-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv";
+			mFilename = pSim.getBaseDirectory() +"stats-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + tExtension;
 		}
 		else if(!Config.STATISTIC_FILE.equals("")) {
-			mFilename = pSim.getBaseDirectory() +pName + ".csv";
+			mFilename = pSim.getBaseDirectory() +pName + tExtension;
 		}
 		else {
-			mFilename = pSim.getBaseDirectory() +pName +"-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv";
+			mFilename = pSim.getBaseDirectory() +pName +"-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + tExtension;
 		}
 		
-		mStatsFile = new CSVWriter(mFilename, true, "\t");
+		if((pSchema != null) && pSim.getConfig().logging.WRITE_BINARY_STATISTIC) {
+			mBinaryFile = new BinaryStatisticWriter(mFilename, pSchema);
+		} else {
+			mStatsFile = new CSVWriter(mFilename, true, "\t");
+		}
 	}
 	
 	/**
@@ -61,6 +74,23 @@ else if(!Config.STATISTIC_FILE.equals("")) {
 	 * @throws Exception On error
 	 */
 	public static Statistic getInstance(Simulation pSim, Object pForObj) throws Exception
+	{
+		return getInstance(pSim, pForObj, null);
+	}
+	
+	/**
+	 * Returns instance for logging statistics for a key object. If a schema
+	 * is given, the statistic might be written in a binary format. The
+	 * values of an entry are written with the write methods and the entry
+	 * is finished with {@link #finishEntry()}. Callers have to synchronize
+	 * on the instance while writing an entry.
+	 * 
+	 * @param pForObj Key for which statistic is collected
+	 * @param pSchema Schema of the entries; null if unknown
+	 * @return != null
+	 * @throws Exception On error
+	 */
+	public static synchronized Statistic getInstance(Simulation pSim, Object pForObj, StatisticSchema pSchema) throws Exception
 	{
 		// get/create central repository for statistics
 		if(sInstances == null) {
@@ -81,7 +111,7 @@ public void run()
 		
 		if(tStat == null) {
 			try {
-				tStat = (Config.STATISTIC_FILE.equals("")) ? new Statistic(pSim, pForObj.toString()) : new Statistic(pSim, Config.STATISTIC_FILE) ;
+				tStat = (Config.STATISTIC_FILE.equals("")) ? new Statistic(pSim, pForObj.toString(), pSchema) : new Statistic(pSim, Config.STATISTIC_FILE, pSchema) ;
 			}
 			catch(IOException exc) {
 				// Only first exception will be reported!
@@ -96,7 +126,7 @@ public void run()
 		return tStat;
 	}
 	
-	public void close()
+	public synchronized void close()
 	{
 		if(mStatsFile != null) {
 			try {
@@ -108,23 +138,193 @@ public void close()
 			
 			mStatsFile = null;
 		}
+		
+		if(mBinaryFile != null) {
+			try {
+				mBinaryFile.close();
+			}
+			catch(IOException exc) {
+				
+			}
+			
+			mBinaryFile = null;
+		}
 	}
 	
-	public void log(LinkedList<String> pColumns)
+	public synchronized void log(LinkedList<String> pColumns)
 	{
 		if(pColumns != null) {
-			if(mStatsFile != null) {
-				try {
+			if(EventHandler.isOutputDeferred()) {
+				// parallel simulation: write it in the order of the
+				// sequential simulation at the end of the time window
+				final LinkedList<String> tColumns = new LinkedList<String>(pColumns);
+				
+				EventHandler.deferOutput(new Runnable() {
+					@Override
+					public void run()
+					{
+						log(tColumns);
+					}
+				});
+				return;
+			}
+			
+			try {
+				if(mStatsFile != null) {
 					mStatsFile.write(pColumns);
 					mStatsFile.finishEntry();
-				} catch (IOException exc) {
-					Logging.getInstance().err(this, "Unable to write statistics to file.", exc);
 				}
+				else if(mBinaryFile != null) {
+					for(String tColumn : pColumns) {
+						mBinaryFile.write(tColumn);
+					}
+					mBinaryFile.finishEntry();
+				}
+			} catch (IOException exc) {
+				Logging.getInstance().err(this, "Unable to write statistics to file.", exc);
+			}
+		}
+	}
+	
+	public void write(long pValue)
+	{
+		if(defer(pValue)) return;
+		
+		try {
+			if(mBinaryFile != null) mBinaryFile.write(pValue);
+			// without locale specific grouping like for the other columns written as strings
+			else if(mStatsFile != null) mStatsFile.write(Long.toString(pValue));
+		} catch (IOException exc) {
+			Logging.getInstance().err(this, "Unable to write statistics to file.", exc);
+		}
+	}
+	
+	public void write(double pValue)
+	{
+		if(defer(pValue)) return;
+		
+		try {
+			if(mBinaryFile != null) mBinaryFile.write(pValue);
+			else if(mStatsFile != null) mStatsFile.write(pValue);
+		} catch (IOException exc) {
+			Logging.getInstance().err(this, "Unable to write statistics to file.", exc);
+		}
+	}
+	
+	public void write(String pValue)
+	{
+		if(defer(pValue)) return;
+		
+		try {
+			if(mBinaryFile != null) mBinaryFile.write(pValue);
+			else if(mStatsFile != null) mStatsFile.write((pValue != null) ? pValue : "");
+		} catch (IOException exc) {
+			Logging.getInstance().err(this, "Unable to write statistics to file.", exc);
+		}
+	}
+	
+	/**
+	 * Writes a list of strings. For CSV files, each string is written in its
+	 * own column. For binary files, the list is written to a column of type
+	 * {@link StatisticSchema.Type#STRING_LIST}, which is expanded to
+	 * columns again by the CSV converter.
+	 */
+	public void write(Iterable<String> pValues)
+	{
+		if(EventHandler.isOutputDeferred()) {
+			LinkedList<String> tValues = new LinkedList<String>();
+			
+			for(String tString : pValues) {
+				tValues.add(tString);
+			}
+			defer(tValues.toArray(new String[tValues.size()]));
+		}
+		else if(mBinaryFile != null) {
+			try {
+				mBinaryFile.write(pValues);
+			} catch (IOException exc) {
+				Logging.getInstance().err(this, "Unable to write statistics to file.", exc);
+			}
+		} else {
+			for(String tString : pValues) {
+				write(tString);
+			}
+		}
+	}
+	
+	/**
+	 * Writes a missing value.
+	 */
+	public void writeEmpty()
+	{
+		if(defer(EMPTY)) return;
+		
+		try {
+			if(mBinaryFile != null) mBinaryFile.writeEmpty();
+			else if(mStatsFile != null) mStatsFile.write("");
+		} catch (IOException exc) {
+			Logging.getInstance().err(this, "Unable to write statistics to file.", exc);
+		}
+	}
+	
+	/**
+	 * Finishes an entry started with the write methods.
+	 */
+	public void finishEntry()
+	{
+		if(mDeferredEntry != null) {
+			// parallel simulation: write the entry in the order of the
+			// sequential simulation at the end of the time window
+			final LinkedList<Object> tEntry = mDeferredEntry;
+			
+			mDeferredEntry = null;
+			EventHandler.deferOutput(new Runnable() {
+				@Override
+				public void run()
+				{
+					synchronized(Statistic.this) {
+						for(Object tValue : tEntry) {
+							if(tValue == EMPTY) writeEmpty();
+							else if(tValue instanceof Long) write(((Long) tValue).longValue());
+							else if(tValue instanceof Double) write(((Double) tValue).doubleValue());
+							else if(tValue instanceof String[]) write(Arrays.asList((String[]) tValue));
+							else write((String) tValue);
+						}
+						finishEntry();
+					}
+				}
+			});
+			return;
+		}
+		
+		try {
+			if(mBinaryFile != null) mBinaryFile.finishEntry();
+			else if(mStatsFile != null) mStatsFile.finishEntry();
+		} catch (IOException exc) {
+			Logging.getInstance().err(this, "Unable to write statistics to file.", exc);
+		}
+	}
+	
+	/**
+	 * Buffers a value of the current entry if outputs are deferred by the
+	 * parallel simulation.
+	 * 
+	 * @return true, if the value was buffered
+	 */
+	private boolean defer(Object pValue)
+	{
+		if(EventHandler.isOutputDeferred()) {
+			if(mDeferredEntry == null) {
+				mDeferredEntry = new LinkedList<Object>();
 			}
+			mDeferredEntry.add(pValue);
+			return true;
 		}
+		
+		return false;
 	}
 	
-	public static void closeAll()
+	public static synchronized void closeAll()
 	{
 		if(sInstances != null) {
 			if(sInstances.size() > 0) {
@@ -139,7 +339,11 @@ public static void closeAll()
 	
 	
 	private String mFilename;
-	private CSVWriter mStatsFile;
+	private CSVWriter mStatsFile = null;
+	private BinaryStatisticWriter mBinaryFile = null;
+	private LinkedList<Object> mDeferredEntry = null;
+	
+	private static final Object EMPTY = new Object();
 	
 	private static HashMap<Object, Statistic> sInstances = null;
 }
@@ -0,0 +1,358 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.tuilmenau.ics.fog.util.StatisticSchema.Type;
+
+
+/**
+ * Reads statistic files written by {@link BinaryStatisticWriter}.
+ * 
+ * The file is mapped into memory window by window and read entry by
+ * entry:
+ * <pre>
+ *   while(reader.next()) {
+ *     long id = reader.getLong(0);
+ *     ...
+ *   }
+ * </pre>
+ * The main method converts a binary file to a CSV file. The reader has
+ * to be closed after usage.
+ */
+public class BinaryStatisticReader
+{
+	public BinaryStatisticReader(String pFilename) throws IOException
+	{
+		mFile = new RandomAccessFile(pFilename, "r");
+		
+		try {
+			mChannel = mFile.getChannel();
+			mFileSize = mChannel.size();
+			map(0, WINDOW_SIZE);
+			
+			readHeader(pFilename);
+		}
+		catch(BufferUnderflowException exc) {
+			close();
+			throw new IOException(this +" - File " +pFilename +" is truncated.", exc);
+		}
+		catch(IOException exc) {
+			close();
+			throw exc;
+		}
+	}
+	
+	public void close() throws IOException
+	{
+		mBuffer = null;
+		mFile.close();
+	}
+	
+	public StatisticSchema getSchema()
+	{
+		return mSchema;
+	}
+	
+	/**
+	 * Moves to the next entry of the file.
+	 * 
+	 * @return true, if an entry is available; false if end of file was reached
+	 * @throws IOException On a corrupted file
+	 */
+	public boolean next() throws IOException
+	{
+		mRow++;
+		
+		if(mRow >= mRows) {
+			if(mBufferStart +mBuffer.position() >= mFileSize) {
+				return false;
+			}
+			
+			readBlock();
+		}
+		
+		return true;
+	}
+	
+	public long getLong(int pColumn)
+	{
+		return mLongs[pColumn][mRow];
+	}
+	
+	public double getDouble(int pColumn)
+	{
+		return mDoubles[pColumn][mRow];
+	}
+	
+	/**
+	 * @return String value or null, if the value is missing
+	 */
+	public String getString(int pColumn)
+	{
+		int tIndex = mStrings[pColumn][mRow];
+		
+		if(tIndex != BinaryStatisticWriter.EMPTY_STRING) return mDictionary.get(tIndex);
+		else return null;
+	}
+	
+	/**
+	 * @return Strings of a column of type {@link Type#STRING_LIST} or null, if the value is missing
+	 */
+	public List<String> getStringList(int pColumn)
+	{
+		String tValue = getString(pColumn);
+		
+		if(tValue != null) return Arrays.asList(tValue.split(String.valueOf(BinaryStatisticWriter.LIST_SEPARATOR), -1));
+		else return null;
+	}
+	
+	/**
+	 * @return true, if the value of the column is missing in the current entry
+	 */
+	public boolean isEmpty(int pColumn)
+	{
+		switch(mSchema.getType(pColumn)) {
+		case LONG:
+			return getLong(pColumn) == BinaryStatisticWriter.EMPTY_LONG;
+		case DOUBLE:
+			return Double.isNaN(getDouble(pColumn));
+		default:
+			return getString(pColumn) == null;
+		}
+	}
+	
+	/**
+	 * Converts a binary statistic file to a CSV file. The first row
+	 * contains the names of the columns. Missing values are written
+	 * as empty strings. Each string of a string list is written in its
+	 * own column like {@link de.tuilmenau.ics.fog.ui.Statistic} does it for
+	 * CSV files. Thus, the rows might have more columns than the header.
+	 * 
+	 * @param pInput Filename of binary file
+	 * @param pOutput Filename of CSV file
+	 * @param pSeparator Separator for CSV file
+	 * @return Number of converted entries
+	 */
+	public static long convertToCSV(String pInput, String pOutput, String pSeparator) throws IOException
+	{
+		BinaryStatisticReader tIn = new BinaryStatisticReader(pInput);
+		CSVWriter tOut = new CSVWriter(pOutput, false, pSeparator);
+		StatisticSchema tSchema = tIn.getSchema();
+		long tEntries = 0;
+		
+		try {
+			for(int i = 0; i < tSchema.size(); i++) {
+				tOut.write(tSchema.getName(i));
+			}
+			tOut.finishEntry();
+			
+			while(tIn.next()) {
+				for(int i = 0; i < tSchema.size(); i++) {
+					if(tIn.isEmpty(i)) {
+						tOut.write("");
+					} else {
+						switch(tSchema.getType(i)) {
+						case LONG:
+							// without locale specific grouping of digits
+							tOut.write(Long.toString(tIn.getLong(i)));
+							break;
+						case DOUBLE:
+							tOut.write(tIn.getDouble(i));
+							break;
+						case STRING_LIST:
+							for(String tString : tIn.getStringList(i)) {
+								tOut.write(tString);
+							}
+							break;
+						default:
+							tOut.write(tIn.getString(i));
+						}
+					}
+				}
+				tOut.finishEntry();
+				tEntries++;
+			}
+		}
+		finally {
+			tOut.close();
+			tIn.close();
+		}
+		
+		return tEntries;
+	}
+	
+	/**
+	 * Command line converter from binary statistic files to CSV files.
+	 * 
+	 * @param args Binary file and optionally the CSV file
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if((args.length < 1) || (args.length > 2)) {
+			System.err.println("Parameters: <binary statistic file> [<CSV file>]");
+			System.exit(1);
+		}
+		
+		String tOutput = (args.length > 1) ? args[1] : args[0] +".csv";
+		long tEntries = convertToCSV(args[0], tOutput, "\t");
+		
+		System.out.println("Converted " +tEntries +" entries from " +args[0] +" to " +tOutput);
+	}
+	
+	private void readHeader(String pFilename) throws IOException
+	{
+		for(int i = 0; i < BinaryStatisticWriter.MAGIC.length; i++) {
+			if(mBuffer.get() != BinaryStatisticWriter.MAGIC[i]) {
+				throw new IOException(this +" - File " +pFilename +" is not a binary statistic file.");
+			}
+		}
+		
+		int tColumns = mBuffer.getInt();
+		Type[] tTypes = Type.values();
+		
+		mSchema = new StatisticSchema();
+		for(int i = 0; i < tColumns; i++) {
+			int tType = mBuffer.get();
+			
+			if((tType < 0) || (tType >= tTypes.length)) {
+				throw new IOException(this +" - Invalid type " +tType +" for column " +i +".");
+			}
+			mSchema.add(readString(), tTypes[tType]);
+		}
+		
+		mLongs = new long[tColumns][];
+		mDoubles = new double[tColumns][];
+		mStrings = new int[tColumns][];
+	}
+	
+	/**
+	 * Maps a part of the file into memory.
+	 * 
+	 * @param pPosition Start of the window in the file
+	 * @param pSize Maximal size of the window
+	 */
+	private void map(long pPosition, long pSize) throws IOException
+	{
+		mBuffer = null;
+		mBufferStart = pPosition;
+		mBuffer = mChannel.map(FileChannel.MapMode.READ_ONLY, pPosition, Math.min(pSize, mFileSize -pPosition));
+	}
+	
+	/**
+	 * Reads the next block. If the block exceeds the current window, the
+	 * window is moved to the start of the block and enlarged, if required.
+	 */
+	private void readBlock() throws IOException
+	{
+		long tBlockStart = mBufferStart +mBuffer.position();
+		int tDictionarySize = mDictionary.size();
+		long tWindowSize = WINDOW_SIZE;
+		
+		while(true) {
+			try {
+				parseBlock();
+				return;
+			}
+			catch(BufferUnderflowException exc) {
+				if(mBufferStart +mBuffer.limit() >= mFileSize) {
+					throw new IOException(this +" - Block at " +tBlockStart +" is truncated.", exc);
+				}
+				
+				// block does not fit into the window
+				if(mBufferStart == tBlockStart) {
+					if(tWindowSize >= Integer.MAX_VALUE) {
+						throw new IOException(this +" - Block at " +tBlockStart +" is too large for mapping it.", exc);
+					}
+					tWindowSize = Math.min(tWindowSize *2, Integer.MAX_VALUE);
+				}
+				
+				// drop strings of the incomplete block
+				while(mDictionary.size() > tDictionarySize) {
+					mDictionary.remove(mDictionary.size() -1);
+				}
+				map(tBlockStart, tWindowSize);
+			}
+		}
+	}
+	
+	private void parseBlock()
+	{
+		mRows = mBuffer.getInt();
+		mRow = 0;
+		
+		int tNewStrings = mBuffer.getInt();
+		for(int i = 0; i < tNewStrings; i++) {
+			mDictionary.add(readString());
+		}
+		
+		for(int i = 0; i < mSchema.size(); i++) {
+			switch(mSchema.getType(i)) {
+			case LONG:
+				if((mLongs[i] == null) || (mLongs[i].length < mRows)) mLongs[i] = new long[mRows];
+				mBuffer.asLongBuffer().get(mLongs[i], 0, mRows);
+				mBuffer.position(mBuffer.position() +mRows *8);
+				break;
+			case DOUBLE:
+				if((mDoubles[i] == null) || (mDoubles[i].length < mRows)) mDoubles[i] = new double[mRows];
+				mBuffer.asDoubleBuffer().get(mDoubles[i], 0, mRows);
+				mBuffer.position(mBuffer.position() +mRows *8);
+				break;
+			default:
+				if((mStrings[i] == null) || (mStrings[i].length < mRows)) mStrings[i] = new int[mRows];
+				mBuffer.asIntBuffer().get(mStrings[i], 0, mRows);
+				mBuffer.position(mBuffer.position() +mRows *4);
+			}
+		}
+	}
+	
+	private String readString()
+	{
+		byte[] tBytes = new byte[mBuffer.getInt()];
+		
+		mBuffer.get(tBytes);
+		return new String(tBytes, BinaryStatisticWriter.CHARSET);
+	}
+	
+	
+	/**
+	 * Size of the part of the file mapped at once
+	 */
+	private static final long WINDOW_SIZE = 64 *1024 *1024;
+	
+	private RandomAccessFile mFile;
+	private FileChannel mChannel;
+	private long mFileSize;
+	
+	// current window and its position in the file
+	private MappedByteBuffer mBuffer;
+	private long mBufferStart = 0;
+	private StatisticSchema mSchema;
+	
+	private long[][] mLongs;
+	private double[][] mDoubles;
+	private int[][] mStrings;
+	private int mRows = 0;
+	private int mRow = -1;
+	
+	private ArrayList<String> mDictionary = new ArrayList<String>();
+}
@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import de.tuilmenau.ics.fog.util.StatisticSchema.Type;
+
+
+/**
+ * Writes statistic entries in a binary and column oriented format.
+ *
+ * The values of an entry are written one after the other like with the
+ * {@link CSVWriter}. They are stored in primitive arrays per column. If
+ * the arrays are full, they are written as one block to the file. Strings
+ * are replaced by indexes of a dictionary, which is written incrementally
+ * with the blocks. Thus, repeated node names are stored only once.
+ *
+ * File format (big endian):
+ * <pre>
+ *   header: magic (8 bytes), number columns (int), per column: type (byte), name (string)
+ *   block:  number rows (int), number new dictionary strings (int), strings,
+ *           per column: values (long, double or int dictionary index)
+ *   string: length in bytes (int), UTF-8 bytes
+ * </pre>
+ * Missing values are stored as {@link #EMPTY_LONG}, {@link #EMPTY_DOUBLE}
+ * and {@link #EMPTY_STRING}. The file can be read with {@link BinaryStatisticReader}.
+ * The strings of a string list are joined with {@link #LIST_SEPARATOR} and
+ * stored like a single string.
+ */
+public class BinaryStatisticWriter
+{
+	public static final byte[] MAGIC = { 'F', 'o', 'G', 'S', 'T', 'A', 'T', 1 };
+	public static final Charset CHARSET = Charset.forName("UTF-8");
+	
+	public static final long EMPTY_LONG = Long.MIN_VALUE;
+	public static final double EMPTY_DOUBLE = Double.NaN;
+	public static final int EMPTY_STRING = -1;
+	public static final char LIST_SEPARATOR = '\t';
+	
+	private static final int BLOCK_ROWS = 4096;
+	
+	
+	public BinaryStatisticWriter(String pFilename, StatisticSchema pSchema) throws IOException
+	{
+		mSchema = pSchema;
+		mFile = new FileOutputStream(pFilename, false).getChannel();
+		
+		int tColumns = pSchema.size();
+		mLongs = new long[tColumns][];
+		mDoubles = new double[tColumns][];
+		mStrings = new int[tColumns][];
+		
+		for(int i = 0; i < tColumns; i++) {
+			switch(pSchema.getType(i)) {
+			case LONG:
+				mLongs[i] = new long[BLOCK_ROWS];
+				break;
+			case DOUBLE:
+				mDoubles[i] = new double[BLOCK_ROWS];
+				break;
+			default:
+				mStrings[i] = new int[BLOCK_ROWS];
+			}
+		}
+		
+		writeHeader();
+	}
+	
+	public StatisticSchema getSchema()
+	{
+		return mSchema;
+	}
+	
+	public void write(long pValue) throws IOException
+	{
+		mLongs[nextColumn(Type.LONG)][mRows] = pValue;
+	}
+	
+	public void write(double pValue) throws IOException
+	{
+		mDoubles[nextColumn(Type.DOUBLE)][mRows] = pValue;
+	}
+	
+	public void write(String pValue) throws IOException
+	{
+		writeString(nextColumn(Type.STRING), pValue);
+	}
+	
+	/**
+	 * Writes a list of strings to a column of type {@link Type#STRING_LIST}.
+	 * The strings must not contain {@link #LIST_SEPARATOR}.
+	 */
+	public void write(Iterable<String> pValues) throws IOException
+	{
+		int tColumn = nextColumn(Type.STRING_LIST);
+		StringBuilder tValue = new StringBuilder();
+		boolean tFirst = true;
+		
+		for(String tString : pValues) {
+			if(!tFirst) tValue.append(LIST_SEPARATOR);
+			tValue.append((tString != null) ? tString : "");
+			tFirst = false;
+		}
+		
+		writeString(tColumn, tValue.toString());
+	}
+	
+	private void writeString(int pColumn, String pValue)
+	{
+		if(pValue != null) {
+			Integer tIndex = mDictionary.get(pValue);
+			
+			if(tIndex == null) {
+				tIndex = mDictionary.size();
+				mDictionary.put(pValue, tIndex);
+				mNewStrings.add(pValue);
+			}
+			mStrings[pColumn][mRows] = tIndex;
+		} else {
+			mStrings[pColumn][mRows] = EMPTY_STRING;
+		}
+	}
+	
+	/**
+	 * Writes a missing value for the next column.
+	 */
+	public void writeEmpty() throws IOException
+	{
+		if(mColumn >= mSchema.size()) {
+			throw new IOException(this +" - Entry has more values than columns in schema " +mSchema);
+		}
+		
+		switch(mSchema.getType(mColumn)) {
+		case LONG:
+			write(EMPTY_LONG);
+			break;
+		case DOUBLE:
+			write(EMPTY_DOUBLE);
+			break;
+		default:
+			writeString(nextColumn(mSchema.getType(mColumn)), null);
+		}
+	}
+	
+	/**
+	 * Finishes an entry. Columns without values are filled with missing values.
+	 */
+	public void finishEntry() throws IOException
+	{
+		checkOpen();
+		
+		while(mColumn < mSchema.size()) {
+			writeEmpty();
+		}
+		
+		mColumn = 0;
+		mRows++;
+		
+		if(mRows >= BLOCK_ROWS) {
+			flush();
+		}
+	}
+	
+	/**
+	 * Writes all finished entries to the file.
+	 */
+	public void flush() throws IOException
+	{
+		checkOpen();
+		
+		if(mRows > 0) {
+			ArrayList<byte[]> tNewStrings = new ArrayList<byte[]>(mNewStrings.size());
+			int tSize = 8;
+			
+			for(String tString : mNewStrings) {
+				byte[] tBytes = tString.getBytes(CHARSET);
+				
+				tNewStrings.add(tBytes);
+				tSize += 4 +tBytes.length;
+			}
+			
+			for(int i = 0; i < mSchema.size(); i++) {
+				tSize += mRows * ((mStrings[i] != null) ? 4 : 8);
+			}
+			
+			ByteBuffer tBuffer = getBuffer(tSize);
+			tBuffer.putInt(mRows);
+			tBuffer.putInt(tNewStrings.size());
+			for(byte[] tBytes : tNewStrings) {
+				tBuffer.putInt(tBytes.length);
+				tBuffer.put(tBytes);
+			}
+			
+			for(int i = 0; i < mSchema.size(); i++) {
+				if(mLongs[i] != null) {
+					tBuffer.asLongBuffer().put(mLongs[i], 0, mRows);
+					tBuffer.position(tBuffer.position() +mRows *8);
+				}
+				else if(mDoubles[i] != null) {
+					tBuffer.asDoubleBuffer().put(mDoubles[i], 0, mRows);
+					tBuffer.position(tBuffer.position() +mRows *8);
+				}
+				else {
+					tBuffer.asIntBuffer().put(mStrings[i], 0, mRows);
+					tBuffer.position(tBuffer.position() +mRows *4);
+				}
+			}
+			
+			tBuffer.flip();
+			writeBuffer(tBuffer);
+			
+			mNewStrings.clear();
+			mRows = 0;
+		}
+	}
+	
+	/**
+	 * Writes the finished entries and closes the file.
+	 * An unfinished entry is discarded.
+	 */
+	public void close() throws IOException
+	{
+		if(mFile != null) {
+			try {
+				mColumn = 0;
+				flush();
+			}
+			finally {
+				mFile.close();
+				mFile = null;
+			}
+		}
+	}
+	
+	private int nextColumn(Type pType) throws IOException
+	{
+		checkOpen();
+		
+		if(mColumn >= mSchema.size()) {
+			throw new IOException(this +" - Entry has more values than columns in schema " +mSchema);
+		}
+		
+		if(mSchema.getType(mColumn) != pType) {
+			throw new IOException(this +" - Column " +mSchema.getName(mColumn) +" has type " +mSchema.getType(mColumn) +" and not " +pType);
+		}
+		
+		int tColumn = mColumn;
+		mColumn++;
+		return tColumn;
+	}
+	
+	private void writeHeader() throws IOException
+	{
+		int tSize = MAGIC.length +4;
+		ArrayList<byte[]> tNames = new ArrayList<byte[]>(mSchema.size());
+		
+		for(int i = 0; i < mSchema.size(); i++) {
+			byte[] tBytes = mSchema.getName(i).getBytes(CHARSET);
+			
+			tNames.add(tBytes);
+			tSize += 1 +4 +tBytes.length;
+		}
+		
+		ByteBuffer tBuffer = getBuffer(tSize);
+		tBuffer.put(MAGIC);
+		tBuffer.putInt(mSchema.size());
+		for(int i = 0; i < mSchema.size(); i++) {
+			tBuffer.put((byte) mSchema.getType(i).ordinal());
+			tBuffer.putInt(tNames.get(i).length);
+			tBuffer.put(tNames.get(i));
+		}
+		
+		tBuffer.flip();
+		writeBuffer(tBuffer);
+	}
+	
+	private ByteBuffer getBuffer(int pSize)
+	{
+		if((mBuffer == null) || (mBuffer.capacity() < pSize)) {
+			mBuffer = ByteBuffer.allocateDirect(Math.max(pSize, 64 *1024));
+		}
+		
+		mBuffer.clear();
+		return mBuffer;
+	}
+	
+	private void writeBuffer(ByteBuffer pBuffer) throws IOException
+	{
+		while(pBuffer.hasRemaining()) {
+			mFile.write(pBuffer);
+		}
+	}
+	
+	private void checkOpen() throws IOException
+	{
+		if(mFile == null) {
+			throw new IOException(this +" - Can not write; file not open.");
+		}
+	}
+	
+	
+	private final StatisticSchema mSchema;
+	private FileChannel mFile;
+	private ByteBuffer mBuffer;
+	
+	// column buffers; only the array matching the type of a column is allocated
+	private final long[][] mLongs;
+	private final double[][] mDoubles;
+	private final int[][] mStrings;
+	private int mRows = 0;
+	private int mColumn = 0;
+	
+	private HashMap<String, Integer> mDictionary = new HashMap<String, Integer>();
+	private ArrayList<String> mNewStrings = new ArrayList<String>();
+}
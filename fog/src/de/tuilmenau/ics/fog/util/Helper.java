@@ -15,6 +15,7 @@
 
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class Helper
@@ -50,6 +51,38 @@ public static <Key, Value> Key getKeyFromHashMap(HashMap<Key, Value> pHash, Valu
 		return null;
 	}
 	
+	/**
+	 * Checks if the hash code of an object is consistent with its equals
+	 * method. That is not the case, if a class overrides equals without
+	 * overriding hashCode. Such objects can not be used as keys in hash maps.
+	 * E.g. HRM addresses (HRMID) are hashable, but L2Address inherits equals
+	 * from HRMName without a hash code. The result is cached per class.
+	 * 
+	 * @param pObj Object to check (!= null)
+	 * @return true, if the object can be used as key in hash maps
+	 */
+	public static boolean isHashable(Object pObj)
+	{
+		Class<?> tClass = pObj.getClass();
+		Boolean tHashable = sHashableClasses.get(tClass);
+		
+		if(tHashable == null) {
+			try {
+				Class<?> tEquals = tClass.getMethod("equals", Object.class).getDeclaringClass();
+				Class<?> tHashCode = tClass.getMethod("hashCode").getDeclaringClass();
+				
+				// hashCode has to be implemented at the same level or below equals
+				tHashable = tEquals.isAssignableFrom(tHashCode);
+			}
+			catch(NoSuchMethodException exc) {
+				tHashable = false;
+			}
+			
+			sHashableClasses.put(tClass, tHashable);
+		}
+		
+		return tHashable;
+	}
 	
 	/**
 	 * Method intended for GUI usage. It converts an object to a string, which can be shown to
@@ -80,4 +113,6 @@ public static String toString(Object data)
 		return res;
 	}
 	
+	
+	private static ConcurrentHashMap<Class<?>, Boolean> sHashableClasses = new ConcurrentHashMap<Class<?>, Boolean>();
 }
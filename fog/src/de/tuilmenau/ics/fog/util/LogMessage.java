@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.util;
+
+
+/**
+ * Creates the text of a log message on demand. It is used by the
+ * {@link Logger} only if the logging level of the message is enabled.
+ * Thus, expensive string operations are avoided for disabled levels.
+ */
+public interface LogMessage
+{
+	/**
+	 * @return Text message to log
+	 */
+	public String create();
+}
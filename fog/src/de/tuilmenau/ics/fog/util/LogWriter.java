@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import de.tuilmenau.ics.fog.ui.Logging.Level;
+
+
+/**
+ * Thread passing log events to the log observers of the loggers.
+ *
+ * The loggers insert their events in a lock-free queue. The thread
+ * removes them in batches and informs the observers of the logger and
+ * its parents. Thus, a thread logging an event does not block on the
+ * I/O operations of the observers. The events store the string of the
+ * logging object and the time at which they were logged. Pending events
+ * are written when the JVM shuts down.
+ * 
+ * Flushing threads and the shutdown hook deliver events in their own
+ * thread. A lock serializes all deliveries, so that the observers are
+ * never called concurrently and see the events in the order of the queue.
+ */
+class LogWriter extends Thread
+{
+	private static final long WAIT_TIME_NSEC = 100 *1000 *1000;
+	private static final int MAX_BATCH_SIZE = 1024;
+	
+	private static class Record
+	{
+		public Record(Logger pLogger, long pTime, Level pLevel, String pObject, String pMessage)
+		{
+			mLogger = pLogger;
+			mTime = pTime;
+			mLevel = pLevel;
+			mObject = pObject;
+			mMessage = pMessage;
+		}
+		
+		private final Logger mLogger;
+		private final long mTime;
+		private final Level mLevel;
+		private final String mObject;
+		private final String mMessage;
+	}
+	
+	
+	private LogWriter()
+	{
+		super("LogWriter");
+		
+		setDaemon(true);
+		start();
+		
+		// daemon thread is not waited for; write remaining events on exit
+		Runtime.getRuntime().addShutdownHook(new Thread("LogWriterShutdown") {
+			@Override
+			public void run()
+			{
+				flush();
+			}
+		});
+	}
+	
+	public static synchronized LogWriter getInstance()
+	{
+		if(sInstance == null) {
+			sInstance = new LogWriter();
+		}
+		
+		return sInstance;
+	}
+	
+	/**
+	 * Inserts a log event into the queue. The method does not block.
+	 * 
+	 * @param pTime Time of the log event in milliseconds
+	 * @param pObject String representation of the logging object; null if none
+	 */
+	public void add(Logger pLogger, long pTime, Level pLevel, String pObject, String pMessage)
+	{
+		mQueue.add(new Record(pLogger, pTime, pLevel, pObject, pMessage));
+		
+		if(mWaiting) {
+			LockSupport.unpark(this);
+		}
+	}
+	
+	/**
+	 * Passes all queued events to the observers in the calling thread.
+	 */
+	public void flush()
+	{
+		while(writeBatch() > 0) {
+			// continue until queue is empty
+		}
+	}
+	
+	@Override
+	public void run()
+	{
+		while(true) {
+			if(writeBatch() == 0) {
+				mWaiting = true;
+				
+				// re-check in order to avoid missing the wake up of an add
+				if(mQueue.isEmpty()) {
+					LockSupport.parkNanos(this, WAIT_TIME_NSEC);
+				}
+				mWaiting = false;
+			}
+		}
+	}
+	
+	/**
+	 * Removes and delivers up to {@link #MAX_BATCH_SIZE} events. Polling
+	 * and delivering is done under the delivery lock, since the writer
+	 * thread, {@link #flush()} and the shutdown hook might call it at the
+	 * same time.
+	 * 
+	 * @return Number of events written
+	 */
+	private int writeBatch()
+	{
+		int tNumber = 0;
+		Record tRecord;
+		
+		synchronized(mDeliveryLock) {
+			while((tNumber < MAX_BATCH_SIZE) && ((tRecord = mQueue.poll()) != null)) {
+				try {
+					tRecord.mLogger.deliver(tRecord.mTime, tRecord.mLevel, tRecord.mObject, tRecord.mMessage);
+				}
+				catch(Exception exc) {
+					// log exception not with normal logging, since this might
+					// cause exceptions in a recursive way
+					exc.printStackTrace(System.err);
+				}
+				tNumber++;
+			}
+			
+			if(tNumber > 0) {
+				System.out.flush();
+			}
+		}
+		
+		return tNumber;
+	}
+	
+	
+	private static LogWriter sInstance = null;
+	
+	private final ConcurrentLinkedQueue<Record> mQueue = new ConcurrentLinkedQueue<Record>();
+	private final Object mDeliveryLock = new Object();
+	private volatile boolean mWaiting = false;
+}
@@ -17,6 +17,7 @@
 import java.util.LinkedList;
 
 import de.tuilmenau.ics.fog.Config;
+import de.tuilmenau.ics.fog.EventHandler;
 import de.tuilmenau.ics.fog.ui.LogObserver;
 import de.tuilmenau.ics.fog.ui.Logging;
 import de.tuilmenau.ics.fog.ui.Logging.Level;
@@ -30,6 +31,9 @@
 	private static final String DATE_FORMAT_NOW = "yyyy-MM-dd HH:mm:ss";
 	private static SimpleDateFormat sdf = null;
 	
+	// time of the log event delivered by the log writer thread
+	private static final ThreadLocal<Long> sEventTime = new ThreadLocal<Long>();
+	
 	/**
 	 * Constructor for the root instance of
 	 * the logger hierarchy.
@@ -101,6 +105,9 @@ private synchronized void closeLogObservers()
 			if(mLogObserver.size() > 0) {
 				log(this, "Closing loggers");
 				
+				// write pending log events before closing the observers
+				LogWriter.getInstance().flush();
+				
 				for(LogObserver obs : mLogObserver) {
 					try {
 						obs.close();
@@ -125,7 +132,14 @@ public synchronized void removeLogObserver(LogObserver observer)
 	public static String formatLog(Level level, Object object, String message)
 	{
 		StringBuffer buf = new StringBuffer();
-		if(Config.Logging.LOG_WITH_DATE_AND_TIME) buf.append(sdf.format(System.currentTimeMillis()) + " ");
+		if(Config.Logging.LOG_WITH_DATE_AND_TIME) {
+			// SimpleDateFormat is not thread-safe and log writer threads might call this method in parallel
+			Long time = sEventTime.get();
+			
+			synchronized(sdf) {
+				buf.append(sdf.format((time != null) ? time : System.currentTimeMillis()) + " ");
+			}
+		}
 		buf.append(level);
 		buf.append(" - ");
 		if (object != null) {
@@ -137,7 +151,78 @@ public static String formatLog(Level level, Object object, String message)
 		return buf.toString();
 	}
 	
-	public synchronized void log(Level level, Object object, String message)
+	public void log(final Level level, Object object, final String message)
+	{
+		if(isLevelAtLeast(level)) {
+			if(EventHandler.isOutputDeferred()) {
+				// parallel simulation: write it in the order of the
+				// sequential simulation at the end of the time window
+				final String objectString = toObjectString(object);
+				
+				EventHandler.deferOutput(new Runnable() {
+					@Override
+					public void run()
+					{
+						log(level, objectString, message);
+					}
+				});
+			}
+			else if(Config.Logging.LOG_ASYNCHRONOUSLY) {
+				// the state of the object might change until the event is
+				// written; furthermore, toString is not thread-safe for all objects
+				LogWriter.getInstance().add(this, System.currentTimeMillis(), level, toObjectString(object), message);
+			} else {
+				deliver(level, object, message);
+			}
+		}
+	}
+	
+	private static String toObjectString(Object object)
+	{
+		try {
+			return (object != null) ? object.toString() : null;
+		}
+		catch(Exception exc) {
+			return object.getClass().getName();
+		}
+	}
+	
+	/**
+	 * Logs a message, which is created only if the level is enabled.
+	 * 
+	 * @param level Logging level of event
+	 * @param object Object, which is doing the logging
+	 * @param message Creator for the text message
+	 */
+	public void log(Level level, Object object, LogMessage message)
+	{
+		if(isLevelAtLeast(level)) {
+			log(level, object, message.create());
+		}
+	}
+	
+	/**
+	 * Logs a message, which is formatted with {@link String#format(String, Object...)}
+	 * only if the level is enabled.
+	 * 
+	 * @param level Logging level of event
+	 * @param object Object, which is doing the logging
+	 * @param format Format string
+	 * @param args Arguments for the format string
+	 */
+	public void logFormat(Level level, Object object, String format, Object... args)
+	{
+		if(isLevelAtLeast(level)) {
+			log(level, object, String.format(format, args));
+		}
+	}
+	
+	/**
+	 * Informs the observers of this logger and of its parents about
+	 * a log event. It is called by the log writer thread if the logging
+	 * is done asynchronously.
+	 */
+	synchronized void deliver(Level level, Object object, String message)
 	{
 		if(isLevelAtLeast(level)) {
 			if(mLogObserver != null) {
@@ -156,7 +241,7 @@ public synchronized void log(Level level, Object object, String message)
 			}
 			
 			if(mParentLogger != null) {
-				mParentLogger.log(level, object, message);
+				mParentLogger.deliver(level, object, message);
 			} else {
 				// Do that in root logger only. Otherwise we might get
 				// multiple outputs for a single log entry.
@@ -167,6 +252,24 @@ public synchronized void log(Level level, Object object, String message)
 		}
 	}
 	
+	/**
+	 * Informs the observers like {@link #deliver(Level, Object, String)}.
+	 * Dates in formatted log events show the given time of the event
+	 * instead of the time of the delivery.
+	 * 
+	 * @param time Time of the log event in milliseconds
+	 */
+	void deliver(long time, Level level, Object object, String message)
+	{
+		sEventTime.set(time);
+		try {
+			deliver(level, object, message);
+		}
+		finally {
+			sEventTime.remove();
+		}
+	}
+	
 	private static String formatLogExc(Throwable exception)
 	{
 		StringBuffer buf = new StringBuffer();
@@ -201,10 +304,20 @@ public void trace(Object from, String logoutput)
 		log(Level.TRACE, from, logoutput);
 	}
 	
+	public void trace(Object from, LogMessage logoutput)
+	{
+		log(Level.TRACE, from, logoutput);
+	}
+	
 	public void debug(Object from, String logoutput)
 	{
 		log(Level.DEBUG, from, logoutput);
 	}
+	
+	public void debug(Object from, LogMessage logoutput)
+	{
+		log(Level.DEBUG, from, logoutput);
+	}
 		
 	public void log(String logoutput)
 	{
@@ -216,6 +329,11 @@ public void log(Object from, String logoutput)
 		log(Level.LOG, from, logoutput);
 	}
 	
+	public void log(Object from, LogMessage logoutput)
+	{
+		log(Level.LOG, from, logoutput);
+	}
+	
 	public void info(Object from, String logoutput)
 	{
 		log(Level.INFO, from, logoutput);
@@ -14,41 +14,52 @@
 package de.tuilmenau.ics.fog.util;
 
 import java.lang.reflect.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.tuilmenau.ics.fog.transfer.gates.headers.ProtocolHeader;
 
 
 public class Size {
 	private static final int sSizeReference = 4;
+	
+	/**
+	 * Size descriptors per class. The size of an object depends on the
+	 * primitive fields of its class only. Therefore, it is calculated
+	 * once per class via reflection.
+	 */
+	private static final ConcurrentHashMap<Class<?>, Integer> sClassSizes = new ConcurrentHashMap<Class<?>, Integer>();
 
 	private static int sizeOfObject(Object pObject)
 	{
-        Field tDeclaredFields[] = pObject.getClass().getDeclaredFields();
+		Class<?> tClass = pObject.getClass();
+		Integer tSize = sClassSizes.get(tClass);
+		
+		if(tSize == null) {
+			tSize = sizeOfClass(tClass);
+			sClassSizes.put(tClass, tSize);
+		}
+		
+		return tSize;
+	}
+	
+	private static int sizeOfClass(Class<?> pClass)
+	{
+        Field tDeclaredFields[] = pClass.getDeclaredFields();
         int tResult = 0;
 
 		// check for all fields inside the object that are annotated
-		Class<?> checkedClass = pObject.getClass();
+		Class<?> checkedClass = pClass;
 		while(checkedClass != null) {
 			for (Field tField : tDeclaredFields) 
 	        {
-				boolean isAccessible = tField.isAccessible();
-				
 				if(tField.getType().isPrimitive())
 				{
 					tResult += sizeOfPrimitive(tField.getType());
 				}
-				else {
-					if(isAccessible)
-					{
-						try {
-							Object valueObj = tField.get(pObject);
-							tResult += sizeOf(valueObj);
-						} catch (Exception tExc) {
-							// ignore it and move on to next element
-						}
-					}
-					// else ignore it, because it is not accessible.
-					//      if we recursively evaluate them, we might
-					//      end up with a stack overflow
-				}
+				// else ignore it, because it is not accessible and
+				//      the size of the object does not depend on it.
+				//      if we recursively evaluate them, we might
+				//      end up with a stack overflow
 	        }
 			checkedClass = checkedClass.getSuperclass();
 		}
@@ -110,6 +121,16 @@ public static int sizeOf(Object pObject)
         if (pObject == null)
             return 0;
 
+        // fast paths for common payloads
+        if (pObject instanceof byte[])
+        {
+        	return ((byte[]) pObject).length;
+        }
+        if (pObject instanceof ProtocolHeader)
+        {
+        	return ((ProtocolHeader) pObject).getSerialisedSize();
+        }
+        
         Class<?> tClass = pObject.getClass();
 
         if (tClass.isPrimitive())
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.fog.util;
+
+import java.util.ArrayList;
+
+
+/**
+ * Names and types of the columns of a statistic.
+ * 
+ * A column of type {@link Type#STRING_LIST} contains a variable number of
+ * strings per entry. It has to be the last column of a schema, since CSV
+ * files store each string of the list in its own column.
+ */
+public class StatisticSchema
+{
+	public enum Type { LONG, DOUBLE, STRING, STRING_LIST };
+	
+	
+	public StatisticSchema()
+	{
+	}
+	
+	/**
+	 * Appends a column to the schema.
+	 * 
+	 * @param pName Name of the column
+	 * @param pType Type of the values in the column
+	 * @return Reference to the schema itself
+	 * @throws IllegalArgumentException If a column is appended after a string list
+	 */
+	public StatisticSchema add(String pName, Type pType)
+	{
+		if(!mTypes.isEmpty() && (mTypes.get(mTypes.size() -1) == Type.STRING_LIST)) {
+			throw new IllegalArgumentException(this +" - Column " +pName +" can not be appended after a string list.");
+		}
+		
+		mNames.add(pName);
+		mTypes.add(pType);
+		
+		return this;
+	}
+	
+	public int size()
+	{
+		return mNames.size();
+	}
+	
+	public String getName(int pColumn)
+	{
+		return mNames.get(pColumn);
+	}
+	
+	public Type getType(int pColumn)
+	{
+		return mTypes.get(pColumn);
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder tRes = new StringBuilder();
+		
+		for(int i = 0; i < size(); i++) {
+			if(i > 0) tRes.append(", ");
+			tRes.append(mNames.get(i)).append(':').append(mTypes.get(i));
+		}
+		
+		return tRes.toString();
+	}
+	
+	
+	private ArrayList<String> mNames = new ArrayList<String>();
+	private ArrayList<Type> mTypes = new ArrayList<Type>();
+}
@@ -0,0 +1,579 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.graph;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import edu.uci.ics.jung.graph.Graph;
+
+
+/**
+ * Routing engine for a {@link RoutableGraph} based on primitive arrays.
+ *
+ * The graph is converted into the compressed sparse row format: The out
+ * links of node i are stored at the positions mOffsets[i] to mOffsets[i+1]-1
+ * of the link arrays. Weights are stored as primitive doubles. Shortest
+ * path trees are calculated with a Dijkstra algorithm using an indexed
+ * binary heap. Thus, a route calculation does not require any objects
+ * per node or link.
+ *
+ * Nodes and links added to the graph are appended to the arrays. The
+ * appended links of a node are chained and the Dijkstra algorithm visits
+ * them after the links of the node in the sparse row format. Removed
+ * links are marked in the arrays. Such changes are collected and merged
+ * in one batch into the sparse row format, if they exceed the size of
+ * it. Cached trees are repaired if possible. Other changes (e.g. removed
+ * nodes) mark the arrays as outdated and they are rebuilt before the next
+ * route calculation. Weight changes are applied directly to the arrays
+ * and the cached trees.
+ */
+class CompactRoutingEngine<NodeObject, LinkObject>
+{
+	private static final int NO_LINK = -1;
+	
+	/**
+	 * Minimal number of changes since the last rebuild before the arrays are merged
+	 */
+	private static final int MIN_CHANGES_FOR_REBUILD = 1024;
+	
+	/**
+	 * Shortest path tree of a source node.
+	 */
+	private static class Tree
+	{
+		public Tree(int pSource, int pNumberNodes)
+		{
+			mSource = pSource;
+			mDistances = new double[pNumberNodes];
+			mIncomingLinks = new int[pNumberNodes];
+			
+			Arrays.fill(mDistances, Double.POSITIVE_INFINITY);
+			Arrays.fill(mIncomingLinks, NO_LINK);
+			mDistances[pSource] = 0;
+		}
+		
+		public boolean isReached(int pNode)
+		{
+			return (pNode == mSource) || (mIncomingLinks[pNode] != NO_LINK);
+		}
+		
+		/**
+		 * Enlarges the tree for nodes added to the graph. New nodes are not reached.
+		 */
+		public void ensureCapacity(int pNumberNodes)
+		{
+			int tOldSize = mDistances.length;
+			
+			if(tOldSize < pNumberNodes) {
+				int tNewSize = Math.max(pNumberNodes, tOldSize *2);
+				
+				mDistances = Arrays.copyOf(mDistances, tNewSize);
+				mIncomingLinks = Arrays.copyOf(mIncomingLinks, tNewSize);
+				Arrays.fill(mDistances, tOldSize, tNewSize, Double.POSITIVE_INFINITY);
+				Arrays.fill(mIncomingLinks, tOldSize, tNewSize, NO_LINK);
+			}
+		}
+		
+		/**
+		 * @return true, if the tree reaches a node via the link
+		 */
+		public boolean uses(int pTarget, int pLink)
+		{
+			return (pTarget < mIncomingLinks.length) && (mIncomingLinks[pTarget] == pLink);
+		}
+		
+		private final int mSource;
+		private double[] mDistances;
+		private int[] mIncomingLinks;
+	}
+	
+	/**
+	 * Binary min heap of node indexes ordered by the distances of a tree.
+	 * The position of each node in the heap is stored, which enables
+	 * the decrease of a key in O(log n).
+	 */
+	private static class IndexedHeap
+	{
+		public IndexedHeap(int pNumberNodes)
+		{
+			mHeap = new int[pNumberNodes];
+			mPositions = new int[pNumberNodes];
+			Arrays.fill(mPositions, -1);
+		}
+		
+		/**
+		 * Inserts a node or moves it up, if its key was decreased.
+		 */
+		public void update(int pNode, double[] pKeys)
+		{
+			int tPos = mPositions[pNode];
+			
+			if(tPos < 0) {
+				tPos = mSize;
+				mSize++;
+			}
+			
+			// sift up
+			while(tPos > 0) {
+				int tParent = (tPos -1) >>> 1;
+				
+				if(pKeys[mHeap[tParent]] <= pKeys[pNode]) break;
+				
+				mHeap[tPos] = mHeap[tParent];
+				mPositions[mHeap[tPos]] = tPos;
+				tPos = tParent;
+			}
+			mHeap[tPos] = pNode;
+			mPositions[pNode] = tPos;
+		}
+		
+		public int poll(double[] pKeys)
+		{
+			int tResult = mHeap[0];
+			
+			mPositions[tResult] = -1;
+			mSize--;
+			
+			if(mSize > 0) {
+				int tLast = mHeap[mSize];
+				int tPos = 0;
+				
+				// sift down
+				while(true) {
+					int tChild = 2 *tPos +1;
+					
+					if(tChild >= mSize) break;
+					if((tChild +1 < mSize) && (pKeys[mHeap[tChild +1]] < pKeys[mHeap[tChild]])) tChild++;
+					if(pKeys[tLast] <= pKeys[mHeap[tChild]]) break;
+					
+					mHeap[tPos] = mHeap[tChild];
+					mPositions[mHeap[tPos]] = tPos;
+					tPos = tChild;
+				}
+				mHeap[tPos] = tLast;
+				mPositions[tLast] = tPos;
+			}
+			
+			return tResult;
+		}
+		
+		public boolean isEmpty()
+		{
+			return mSize == 0;
+		}
+		
+		private final int[] mHeap;
+		private final int[] mPositions;
+		private int mSize = 0;
+	}
+	
+	
+	public CompactRoutingEngine(RoutableGraph<NodeObject, LinkObject> pGraph)
+	{
+		mGraph = pGraph;
+	}
+	
+	/**
+	 * Marks the arrays as outdated. They are rebuilt before the next route calculation.
+	 */
+	public void topologyChanged()
+	{
+		mValid = false;
+		mTrees.clear();
+	}
+	
+	/**
+	 * Appends a node added to the graph. It does not have any links.
+	 * 
+	 * @param pNode Node object stored in the graph
+	 */
+	public void nodeAdded(NodeObject pNode)
+	{
+		if(!mValid) return;
+		
+		if(mNodeIndexes.containsKey(pNode)) {
+			topologyChanged();
+			return;
+		}
+		
+		int tNode = mNumberNodes;
+		
+		if(mFirstAppendedLinks.length <= tNode) {
+			int tOldSize = mFirstAppendedLinks.length;
+			
+			mFirstAppendedLinks = Arrays.copyOf(mFirstAppendedLinks, Math.max(tNode +1, tOldSize *2));
+			Arrays.fill(mFirstAppendedLinks, tOldSize, mFirstAppendedLinks.length, NO_LINK);
+		}
+		
+		mNodeIndexes.put(pNode, tNode);
+		mNumberNodes++;
+		mNumberGraphNodes++;
+		// cached trees are enlarged on demand
+	}
+	
+	/**
+	 * Appends a directed link added to the graph and repairs the cached trees.
+	 * 
+	 * @param pLink Link object stored in the graph
+	 */
+	public void linkAdded(LinkObject pLink)
+	{
+		if(!mValid) return;
+		
+		Graph<NodeObject, LinkObject> tGraph = mGraph.mNodes;
+		NodeObject tFromObj = tGraph.getSource(pLink);
+		NodeObject tToObj = tGraph.getDest(pLink);
+		Integer tFrom = (tFromObj != null) ? mNodeIndexes.get(tFromObj) : null;
+		Integer tTo = (tToObj != null) ? mNodeIndexes.get(tToObj) : null;
+		
+		if((tFrom == null) || (tTo == null) || mLinkIndexes.containsKey(pLink)) {
+			// undirected or unknown
+			topologyChanged();
+			return;
+		}
+		
+		int tLink = mNumberLinks;
+		
+		if(mSources.length <= tLink) {
+			int tNewSize = Math.max(tLink +1, mSources.length *2);
+			
+			mSources = Arrays.copyOf(mSources, tNewSize);
+			mTargets = Arrays.copyOf(mTargets, tNewSize);
+			mWeights = Arrays.copyOf(mWeights, tNewSize);
+			mLinks = Arrays.copyOf(mLinks, tNewSize);
+			mNextAppendedLinks = Arrays.copyOf(mNextAppendedLinks, tNewSize);
+		}
+		
+		mSources[tLink] = tFrom;
+		mTargets[tLink] = tTo;
+		mWeights[tLink] = mGraph.getWeight(pLink);
+		mLinks[tLink] = pLink;
+		mNextAppendedLinks[tLink] = mFirstAppendedLinks[tFrom];
+		mFirstAppendedLinks[tFrom] = tLink;
+		mLinkIndexes.put(pLink, tLink);
+		
+		mNumberLinks++;
+		mNumberGraphLinks++;
+		mNumberChanges++;
+		
+		// new link might offer shorter routes
+		for(Tree tTree : mTrees.values()) {
+			tTree.ensureCapacity(mNumberNodes);
+			relax(tTree, tLink);
+		}
+	}
+	
+	/**
+	 * Marks a link removed from the graph as removed. Cached trees using the
+	 * link are dropped.
+	 * 
+	 * @param pLink Link object, which was stored in the graph
+	 */
+	public void linkRemoved(LinkObject pLink)
+	{
+		if(!mValid) return;
+		
+		Integer tLinkIndex = mLinkIndexes.remove(pLink);
+		
+		if((tLinkIndex == null) || mLinksWithSeveralIndexes) {
+			topologyChanged();
+			return;
+		}
+		
+		int tLink = tLinkIndex.intValue();
+		
+		mLinks[tLink] = null;
+		mNumberGraphLinks--;
+		mNumberChanges++;
+		
+		Iterator<Tree> tIter = mTrees.values().iterator();
+		while(tIter.hasNext()) {
+			if(tIter.next().uses(mTargets[tLink], tLink)) {
+				tIter.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Updates the weight of a link. Cached trees using the link are dropped,
+	 * if the weight increased. If it decreased, the trees are repaired.
+	 *
+	 * @param pLink Link with changed weight
+	 */
+	public void weightChanged(LinkObject pLink)
+	{
+		if(!mValid) return;
+		
+		Integer tLinkIndex = mLinkIndexes.get(pLink);
+		
+		if((tLinkIndex == null) || mLinksWithSeveralIndexes) {
+			topologyChanged();
+			return;
+		}
+		
+		int tLink = tLinkIndex.intValue();
+		double tOldWeight = mWeights[tLink];
+		double tNewWeight = mGraph.getWeight(pLink);
+		
+		mWeights[tLink] = tNewWeight;
+		
+		Iterator<Tree> tIter = mTrees.values().iterator();
+		while(tIter.hasNext()) {
+			Tree tTree = tIter.next();
+			
+			if(tNewWeight > tOldWeight) {
+				if(tTree.uses(mTargets[tLink], tLink)) {
+					tIter.remove();
+				}
+				// else: link not used by tree; longer link does not change it
+			}
+			else if(tNewWeight < tOldWeight) {
+				tTree.ensureCapacity(mNumberNodes);
+				relax(tTree, tLink);
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the shortest path between two nodes of the graph.
+	 *
+	 * @param pFrom Source node (object stored in graph)
+	 * @param pTo Destination node (object stored in graph)
+	 * @param pCacheSize Maximum number of cached trees
+	 * @return List of links (empty, if destination not reachable or equal to source)
+	 */
+	@SuppressWarnings("unchecked")
+	public List<LinkObject> getRoute(NodeObject pFrom, NodeObject pTo, int pCacheSize)
+	{
+		if(!mValid || (mNumberGraphNodes != mGraph.mNodes.getVertexCount()) || (mNumberGraphLinks != mGraph.mNodes.getEdgeCount())
+			|| (mNumberChanges > Math.max(MIN_CHANGES_FOR_REBUILD, mNumberBaseLinks))) {
+			rebuild();
+		}
+		
+		LinkedList<LinkObject> tPath = new LinkedList<LinkObject>();
+		Integer tFrom = mNodeIndexes.get(pFrom);
+		Integer tTo = mNodeIndexes.get(pTo);
+		
+		if((tFrom != null) && (tTo != null)) {
+			Tree tTree = mTrees.get(tFrom);
+			
+			mLastFromCache = (tTree != null);
+			if(tTree != null) {
+				tTree.ensureCapacity(mNumberNodes);
+			} else {
+				tTree = new Tree(tFrom, mNumberNodes);
+				run(tTree, tFrom);
+				
+				if(pCacheSize > 0) {
+					mTrees.put(tFrom, tTree);
+					
+					while(mTrees.size() > pCacheSize) {
+						mTrees.remove(mTrees.keySet().iterator().next());
+					}
+				}
+			}
+			
+			int tNode = tTo;
+			if(tTree.isReached(tNode)) {
+				while(tNode != tTree.mSource) {
+					int tLink = tTree.mIncomingLinks[tNode];
+					
+					tPath.addFirst((LinkObject) mLinks[tLink]);
+					tNode = mSources[tLink];
+				}
+			}
+		} else {
+			mLastFromCache = false;
+		}
+		
+		return tPath;
+	}
+	
+	/**
+	 * @return true, if the last route was calculated from a cached tree
+	 */
+	public boolean wasLastRouteFromCache()
+	{
+		return mLastFromCache;
+	}
+	
+	/**
+	 * Dijkstra algorithm starting with a single node, which is already
+	 * part of the tree.
+	 */
+	private void run(Tree pTree, int pStart)
+	{
+		IndexedHeap tHeap = new IndexedHeap(mNumberNodes);
+		double[] tDistances = pTree.mDistances;
+		
+		tHeap.update(pStart, tDistances);
+		
+		while(!tHeap.isEmpty()) {
+			int tNode = tHeap.poll(tDistances);
+			boolean tBaseNode = (tNode < mNumberBaseNodes);
+			int tBaseLink = tBaseNode ? mOffsets[tNode] : 0;
+			int tBaseEnd = tBaseNode ? mOffsets[tNode +1] : 0;
+			int tAppendedLink = mFirstAppendedLinks[tNode];
+			
+			while(true) {
+				// links in sparse row format first, appended ones afterwards
+				int tLink;
+				
+				if(tBaseLink < tBaseEnd) {
+					tLink = tBaseLink++;
+				}
+				else if(tAppendedLink != NO_LINK) {
+					tLink = tAppendedLink;
+					tAppendedLink = mNextAppendedLinks[tLink];
+				}
+				else {
+					break;
+				}
+				
+				if(mLinks[tLink] == null) continue; // removed
+				
+				int tNext = mTargets[tLink];
+				double tNewDistance = tDistances[tNode] +mWeights[tLink];
+				
+				if(!pTree.isReached(tNext) || (tNewDistance < tDistances[tNext])) {
+					tDistances[tNext] = tNewDistance;
+					pTree.mIncomingLinks[tNext] = tLink;
+					tHeap.update(tNext, tDistances);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Repairs a tree after the weight of a link decreased.
+	 */
+	private void relax(Tree pTree, int pLink)
+	{
+		int tFrom = mSources[pLink];
+		int tTo = mTargets[pLink];
+		
+		if((mLinks[pLink] != null) && pTree.isReached(tFrom)) {
+			double tNewDistance = pTree.mDistances[tFrom] +mWeights[pLink];
+			
+			if(!pTree.isReached(tTo) || (tNewDistance < pTree.mDistances[tTo])) {
+				pTree.mDistances[tTo] = tNewDistance;
+				pTree.mIncomingLinks[tTo] = pLink;
+				run(pTree, tTo);
+			}
+		}
+	}
+	
+	/**
+	 * Converts the graph in the compressed sparse row format.
+	 */
+	@SuppressWarnings("unchecked")
+	private void rebuild()
+	{
+		Graph<NodeObject, LinkObject> tGraph = mGraph.mNodes;
+		
+		mTrees.clear();
+		mNodeIndexes.clear();
+		mLinkIndexes.clear();
+		mLinksWithSeveralIndexes = false;
+		
+		mNumberNodes = tGraph.getVertexCount();
+		mNumberBaseNodes = mNumberNodes;
+		mNumberGraphNodes = mNumberNodes;
+		mNumberGraphLinks = tGraph.getEdgeCount();
+		mNumberChanges = 0;
+		
+		Object[] tNodes = tGraph.getVertices().toArray();
+		for(int i = 0; i < tNodes.length; i++) {
+			mNodeIndexes.put(tNodes[i], i);
+		}
+		
+		// count links per node; undirected links are out links of both nodes
+		mOffsets = new int[tNodes.length +1];
+		for(int i = 0; i < tNodes.length; i++) {
+			mOffsets[i +1] = mOffsets[i] +tGraph.getOutEdges((NodeObject) tNodes[i]).size();
+		}
+		
+		int tNumberLinks = mOffsets[tNodes.length];
+		mSources = new int[tNumberLinks];
+		mTargets = new int[tNumberLinks];
+		mWeights = new double[tNumberLinks];
+		mLinks = new Object[tNumberLinks];
+		mNextAppendedLinks = new int[tNumberLinks];
+		mFirstAppendedLinks = new int[tNodes.length];
+		Arrays.fill(mFirstAppendedLinks, NO_LINK);
+		mNumberLinks = tNumberLinks;
+		mNumberBaseLinks = tNumberLinks;
+		
+		for(int i = 0; i < tNodes.length; i++) {
+			int tLink = mOffsets[i];
+			
+			for(LinkObject tLinkObj : tGraph.getOutEdges((NodeObject) tNodes[i])) {
+				mSources[tLink] = i;
+				mTargets[tLink] = mNodeIndexes.get(tGraph.getOpposite((NodeObject) tNodes[i], tLinkObj));
+				mWeights[tLink] = mGraph.getWeight(tLinkObj);
+				mLinks[tLink] = tLinkObj;
+				
+				if(mLinkIndexes.put(tLinkObj, tLink) != null) {
+					mLinksWithSeveralIndexes = true;
+				}
+				tLink++;
+			}
+		}
+		
+		mValid = true;
+	}
+	
+	
+	private final RoutableGraph<NodeObject, LinkObject> mGraph;
+	private boolean mValid = false;
+	private boolean mLastFromCache = false;
+	
+	// number of indexes used for nodes and links (including removed links)
+	private int mNumberNodes = 0;
+	private int mNumberLinks = 0;
+	
+	// number of nodes and links of the graph; used for consistency checks
+	private int mNumberGraphNodes = 0;
+	private int mNumberGraphLinks = 0;
+	
+	// number of appended and removed links since last rebuild
+	private int mNumberChanges = 0;
+	
+	private IdentityHashMap<Object, Integer> mNodeIndexes = new IdentityHashMap<Object, Integer>();
+	private IdentityHashMap<Object, Integer> mLinkIndexes = new IdentityHashMap<Object, Integer>();
+	private boolean mLinksWithSeveralIndexes = false;
+	
+	// compressed sparse row format of the graph; covers the first nodes and links
+	private int mNumberBaseNodes = 0;
+	private int mNumberBaseLinks = 0;
+	private int[] mOffsets;
+	private int[] mSources;
+	private int[] mTargets;
+	private double[] mWeights;
+	private Object[] mLinks;
+	
+	// chains of links appended since the last rebuild per node
+	private int[] mFirstAppendedLinks;
+	private int[] mNextAppendedLinks;
+	
+	/**
+	 * Cached shortest path trees per source node in the order of their usage.
+	 */
+	private LinkedHashMap<Integer, Tree> mTrees = new LinkedHashMap<Integer, Tree>(16, 0.75f, true);
+}
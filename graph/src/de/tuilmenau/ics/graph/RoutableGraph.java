@@ -14,14 +14,18 @@
 package de.tuilmenau.ics.graph;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.PriorityQueue;
 
 import org.apache.commons.collections15.Transformer;
 
-import edu.uci.ics.jung.algorithms.shortestpath.DijkstraShortestPath;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.SparseMultigraph;
 import edu.uci.ics.jung.graph.util.EdgeType;
@@ -35,11 +39,11 @@
 	public enum EventType { ADDED, REMOVED, UPDATED };
 	
 	/**
-	 * Enables the caching of routing decisions. The caching leads to
-	 * high memory consumption in large networks. Therefore, it should
-	 * only be activated if the scenario is reasonable small.
+	 * Default number of shortest path trees cached by getRoute. Each tree
+	 * requires memory linear to the number of nodes. Therefore, the number
+	 * of trees is limited and the least recently used tree is dropped.
 	 */
-	private static final boolean ENABLE_CACHING = false; 
+	public static final int DEFAULT_ROUTE_CACHE_SIZE = 16;
 	
 	public class Event
 	{
@@ -145,15 +149,10 @@ public NodeObject getSource(LinkObject pLink)
 	
 	public synchronized Collection<LinkObject> getOutEdges(NodeObject pNode)
 	{
-		Collection<LinkObject> tEdges = null;
-		for(NodeObject tNode : mNodes.getVertices()) {
-			if(pNode.equals(tNode)) {
-				tEdges = mNodes.getOutEdges(tNode);
-				break;
-			}
-		}
+		NodeObject tNode = containsVertex(pNode);
 		
-		return tEdges;
+		if(tNode != null) return mNodes.getOutEdges(tNode);
+		else return null;
 	}
 
 	/**
@@ -177,6 +176,8 @@ public void cleanup()
 			NodeObject tNode = tNodes.iterator().next();
 			mNodes.removeVertex(tNode);
 		}
+		
+		topologyChanged();
 	}
 	
 	/**
@@ -194,7 +195,8 @@ public synchronized NodeObject add(NodeObject pNode)
 			
 			if(tRes == null) {
 				mNodes.addVertex(pNode);
-				mResetRouting = true;
+				addToVertexIndex(pNode);
+				if(mCompactEngine != null) mCompactEngine.nodeAdded(pNode);
 				tRes = pNode;
 				
 				// register map as an observer of object
@@ -222,7 +224,12 @@ public synchronized boolean remove(NodeObject pNode)
 		if(tUsedObj != null) {
 			boolean tRes = mNodes.removeVertex(tUsedObj);
 			
-			mResetRouting = true;
+			if(tRes) removeFromVertexIndex(tUsedObj);
+			
+			// routes via the node are no longer valid
+			mRouteCache.remove(tUsedObj);
+			invalidateRoutesContaining(tUsedObj);
+			if(mCompactEngine != null) mCompactEngine.topologyChanged();
 			
 			// remove map as an observer from object
 			if(pNode instanceof Observable) {
@@ -254,7 +261,8 @@ public synchronized void link(NodeObject pFrom, NodeObject pTo, LinkObject pLink
 			pTo = add(pTo);
 			
 			if(mNodes.addEdge(pLinkValue, pFrom, pTo, EdgeType.DIRECTED)) {
-				mResetRouting = true;
+				invalidateRoutes(pLinkValue, false);
+				if(mCompactEngine != null) mCompactEngine.linkAdded(pLinkValue);
 				notifyObservers(new Event(EventType.ADDED, pLinkValue));
 			}
 		}
@@ -287,13 +295,13 @@ public synchronized LinkObject getEdge(NodeObject pFrom, NodeObject pTo, LinkObj
 	{
 		if((pFrom != null) && (pTo != null)) {
 			// get equivalent object used for map for pFrom and pTo:
-			Collection<LinkObject> tOutEdges = getOutEdges(pFrom);
+			pFrom = containsVertex(pFrom);
+			pTo = containsVertex(pTo);
 			
-			for(LinkObject tLink : tOutEdges) {
-				NodeObject tTo = getDest(tLink);
-				
-				if(tTo != null) {
-					if(tTo.equals(pTo)) {
+			if((pFrom != null) && (pTo != null)) {
+				for(LinkObject tLink : mNodes.getOutEdges(pFrom)) {
+					// both are objects of the map; no need for equals
+					if(getDest(tLink) == pTo) {
 						// check optional link object; if not available
 						// we just look for the nodes
 						if(pLinkValueTemplate != null) {
@@ -304,7 +312,7 @@ public synchronized LinkObject getEdge(NodeObject pFrom, NodeObject pTo, LinkObj
 							return tLink;
 						}
 					}
-					// else: strange; ignore it
+					// else: other destination or strange; ignore it
 				}
 			}
 		}
@@ -314,21 +322,47 @@ public synchronized LinkObject getEdge(NodeObject pFrom, NodeObject pTo, LinkObj
 	
 	public synchronized boolean unlink(LinkObject pLinkValue)
 	{
+		if(mNodes.containsEdge(pLinkValue)) {
+			invalidateRoutesUsing(pLinkValue);
+		}
+		
 		boolean tRes = mNodes.removeEdge(pLinkValue);
 		
 		if(tRes) {
-			mResetRouting = true;
+			if(mCompactEngine != null) mCompactEngine.linkRemoved(pLinkValue);
 			notifyObservers(new Event(EventType.REMOVED, pLinkValue));
 		}
 
 		return tRes;
 	}
 	
+	/**
+	 * Informs the graph about a changed weight of a link. Cached routes
+	 * using the link are dropped. Other cached routes are repaired, if the
+	 * link offers shorter routes now.
+	 * 
+	 * @param pLink Link with changed weight; null, if weights of several links changed
+	 */
 	public synchronized void edgeWeightChanged(LinkObject pLink)
 	{
-		mResetRouting = true;
+		if(pLink != null) {
+			invalidateRoutes(pLink, true);
+			if(mCompactEngine != null) mCompactEngine.weightChanged(pLink);
+		} else {
+			mRouteCache.clear();
+			if(mCompactEngine != null) mCompactEngine.topologyChanged();
+		}
 	}
 	
+	/**
+	 * Calculates the shortest path between two nodes. The shortest path tree
+	 * of the source is cached and used for further requests from the same
+	 * source.
+	 * 
+	 * @param pFrom Source node
+	 * @param pTo Destination node
+	 * @return List of links from source to destination (empty list, if no route available); null, if nodes are not known
+	 */
 	public synchronized List<LinkObject> getRoute(NodeObject pFrom, NodeObject pTo)
 	{
 		List<LinkObject> tPath = null;
@@ -337,35 +371,319 @@ public synchronized List<LinkObject> getRoute(NodeObject pFrom, NodeObject pTo)
 		pTo = containsVertex(pTo);
 		
 		if((pFrom != null) && (pTo != null)) {
-			// is there an old algorithm object, which can be reused?
-			if(mRoutingAlg == null) {
-				mResetRouting = false;
-				
-				// either Dijkstra with variable link weights or constant link weights equal to 1
-				if(mLinkToValueTransformer != null) mRoutingAlg = new DijkstraShortestPath<NodeObject, LinkObject>(mNodes, mLinkToValueTransformer, ENABLE_CACHING);
-				else mRoutingAlg = new DijkstraShortestPath<NodeObject, LinkObject>(mNodes, ENABLE_CACHING);
+			boolean tFromCache;
+			
+			if(mCompactEngine != null) {
+				tPath = mCompactEngine.getRoute(pFrom, pTo, mRouteCacheSize);
+				tFromCache = mCompactEngine.wasLastRouteFromCache();
 			} else {
-				// are there any changes and we have to remove the cached values?
-				if(ENABLE_CACHING) {
-					if(mResetRouting) {
-						mRoutingAlg.reset();
-						mResetRouting = false;
+				ShortestPathTree tTree = mRouteCache.get(pFrom);
+				tFromCache = (tTree != null);
+				
+				if(tTree == null) {
+					tTree = new ShortestPathTree(pFrom);
+					
+					if(mRouteCacheSize > 0) {
+						mRouteCache.put(pFrom, tTree);
 					}
 				}
+				
+				tPath = tTree.getPath(pTo);
 			}
 			
-			tPath = mRoutingAlg.getPath(pFrom, pTo);
-
-			if(!ENABLE_CACHING) {
-				// cleanup data structure; somehow that does not work, if
-				// "chached" is turned of in constructor only.
-				mRoutingAlg.reset();
+			if(tFromCache) mRouteCacheHits++;
+			else mRouteCacheMisses++;
+			
+			if(mRouteCacheListener != null) {
+				mRouteCacheListener.routeCalculated(tFromCache);
 			}
 		}
 		
 		return tPath;
 	}
 	
+	/**
+	 * Enables or disables the compact routing engine for getRoute. The
+	 * engine converts the graph into primitive arrays, which are updated
+	 * after topology changes. It is faster for graphs, which are queried
+	 * more often than they are changed. The JUNG graph itself is still
+	 * maintained for the GUI.
+	 * 
+	 * @param pEnabled true=use compact routing engine; false=calculate routes on the graph objects
+	 */
+	public synchronized void setCompactRouting(boolean pEnabled)
+	{
+		if(pEnabled) {
+			if(mCompactEngine == null) {
+				mCompactEngine = new CompactRoutingEngine<NodeObject, LinkObject>(this);
+			}
+		} else {
+			mCompactEngine = null;
+		}
+	}
+	
+	/**
+	 * @param pSize Maximum number of cached shortest path trees (0 disables the cache)
+	 */
+	public synchronized void setRouteCacheSize(int pSize)
+	{
+		mRouteCacheSize = Math.max(0, pSize);
+		
+		while(mRouteCache.size() > mRouteCacheSize) {
+			mRouteCache.remove(mRouteCache.keySet().iterator().next());
+		}
+	}
+	
+	/**
+	 * @param pListener Listener informed about the usage of the route cache (null for removing it)
+	 */
+	public synchronized void setRouteCacheListener(RouteCacheListener pListener)
+	{
+		mRouteCacheListener = pListener;
+	}
+	
+	/**
+	 * @return Number of routes calculated from a cached shortest path tree
+	 */
+	public synchronized long getRouteCacheHits()
+	{
+		return mRouteCacheHits;
+	}
+	
+	/**
+	 * @return Number of routes, which required the calculation of a shortest path tree
+	 */
+	public synchronized long getRouteCacheMisses()
+	{
+		return mRouteCacheMisses;
+	}
+	
+	/**
+	 * Drops all cached routes and the vertex index. Subclasses modifying
+	 * the graph directly (without add, remove, link or unlink) have to call
+	 * it after each modification.
+	 */
+	protected synchronized void topologyChanged()
+	{
+		rebuildVertexIndex();
+		mRouteCache.clear();
+		if(mCompactEngine != null) mCompactEngine.topologyChanged();
+	}
+	
+	/**
+	 * Updates the cached shortest path trees after a link was added, removed
+	 * or changed its weight. Trees using the link are dropped, if the link
+	 * was removed or if it might have a higher weight now. In all other cases,
+	 * the trees are repaired incrementally.
+	 * 
+	 * @param pLink Link, which is still part of the graph
+	 * @param pDropIfUsed true, if trees using the link have to be dropped
+	 */
+	private void invalidateRoutes(LinkObject pLink, boolean pDropIfUsed)
+	{
+		if(mRouteCache.isEmpty()) return;
+		
+		NodeObject tFrom = mNodes.getSource(pLink);
+		NodeObject tTo = mNodes.getDest(pLink);
+		
+		if((tFrom == null) || (tTo == null)) {
+			// undirected or unknown link; repair not supported
+			mRouteCache.clear();
+			return;
+		}
+		
+		Iterator<ShortestPathTree> tIter = mRouteCache.values().iterator();
+		while(tIter.hasNext()) {
+			ShortestPathTree tTree = tIter.next();
+			
+			if(pDropIfUsed && tTree.uses(tTo, pLink)) {
+				tIter.remove();
+			} else {
+				tTree.relax(tFrom, tTo, pLink);
+			}
+		}
+	}
+	
+	/**
+	 * Drops all cached shortest path trees using a link. Must be called before
+	 * the link is removed from the graph.
+	 */
+	private void invalidateRoutesUsing(LinkObject pLink)
+	{
+		if(mRouteCache.isEmpty()) return;
+		
+		NodeObject tTo = mNodes.getDest(pLink);
+		
+		if(tTo == null) {
+			mRouteCache.clear();
+			return;
+		}
+		
+		Iterator<ShortestPathTree> tIter = mRouteCache.values().iterator();
+		while(tIter.hasNext()) {
+			if(tIter.next().uses(tTo, pLink)) {
+				tIter.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Drops all cached shortest path trees containing a node. Trees not
+	 * containing it are not affected, since its links are not used by them.
+	 */
+	private void invalidateRoutesContaining(NodeObject pNode)
+	{
+		Iterator<ShortestPathTree> tIter = mRouteCache.values().iterator();
+		while(tIter.hasNext()) {
+			if(tIter.next().contains(pNode)) {
+				tIter.remove();
+			}
+		}
+	}
+	
+	double getWeight(LinkObject pLink)
+	{
+		if(mLinkToValueTransformer != null) {
+			double tWeight = mLinkToValueTransformer.transform(pLink).doubleValue();
+			
+			if(tWeight < 0) {
+				throw new IllegalArgumentException("Edge weights must be non-negative (" +pLink +" has " +tWeight +").");
+			}
+			return tWeight;
+		} else {
+			// constant link weights equal to 1
+			return 1.0d;
+		}
+	}
+	
+	/**
+	 * Entry of the priority queue used by the Dijkstra algorithm.
+	 */
+	private class Candidate implements Comparable<Candidate>
+	{
+		public Candidate(NodeObject pNode, double pDistance)
+		{
+			mNode = pNode;
+			mDistance = pDistance;
+		}
+		
+		@Override
+		public int compareTo(Candidate pOther)
+		{
+			return Double.compare(mDistance, pOther.mDistance);
+		}
+		
+		private final NodeObject mNode;
+		private final double mDistance;
+	}
+	
+	/**
+	 * Shortest path tree of a source node calculated with the Dijkstra
+	 * algorithm. The tree stores the distance and the incoming link of each
+	 * reachable node.
+	 */
+	private class ShortestPathTree
+	{
+		public ShortestPathTree(NodeObject pSource)
+		{
+			mSource = pSource;
+			
+			PriorityQueue<Candidate> tQueue = new PriorityQueue<Candidate>();
+			
+			mDistances.put(pSource, 0.0d);
+			tQueue.add(new Candidate(pSource, 0.0d));
+			run(tQueue);
+		}
+		
+		/**
+		 * Dijkstra algorithm for all nodes in the queue. The distances of
+		 * them must already be stored in the tree.
+		 */
+		private void run(PriorityQueue<Candidate> pQueue)
+		{
+			while(!pQueue.isEmpty()) {
+				Candidate tCandidate = pQueue.poll();
+				Double tDistance = mDistances.get(tCandidate.mNode);
+				
+				// outdated entry of the queue?
+				if(tDistance.doubleValue() < tCandidate.mDistance) continue;
+				
+				for(LinkObject tLink : mNodes.getOutEdges(tCandidate.mNode)) {
+					NodeObject tNext = mNodes.getOpposite(tCandidate.mNode, tLink);
+					double tNewDistance = tCandidate.mDistance +getWeight(tLink);
+					Double tOldDistance = mDistances.get(tNext);
+					
+					if((tOldDistance == null) || (tNewDistance < tOldDistance.doubleValue())) {
+						mDistances.put(tNext, tNewDistance);
+						mIncomingLinks.put(tNext, tLink);
+						pQueue.add(new Candidate(tNext, tNewDistance));
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Repairs the tree after a link was added or its weight decreased.
+		 */
+		public void relax(NodeObject pFrom, NodeObject pTo, LinkObject pLink)
+		{
+			Double tFromDistance = mDistances.get(pFrom);
+			
+			// link reachable from source at all?
+			if(tFromDistance != null) {
+				double tNewDistance = tFromDistance.doubleValue() +getWeight(pLink);
+				Double tOldDistance = mDistances.get(pTo);
+				
+				if((tOldDistance == null) || (tNewDistance < tOldDistance.doubleValue())) {
+					PriorityQueue<Candidate> tQueue = new PriorityQueue<Candidate>();
+					
+					mDistances.put(pTo, tNewDistance);
+					mIncomingLinks.put(pTo, pLink);
+					tQueue.add(new Candidate(pTo, tNewDistance));
+					run(tQueue);
+				}
+			}
+		}
+		
+		/**
+		 * @return true, if the link is the incoming link of a node in the tree
+		 */
+		public boolean uses(NodeObject pTo, LinkObject pLink)
+		{
+			return mIncomingLinks.get(pTo) == pLink;
+		}
+		
+		public boolean contains(NodeObject pNode)
+		{
+			return mDistances.containsKey(pNode);
+		}
+		
+		/**
+		 * @return List of links from the source to the destination (empty, if destination not reachable)
+		 */
+		public List<LinkObject> getPath(NodeObject pTo)
+		{
+			LinkedList<LinkObject> tPath = new LinkedList<LinkObject>();
+			
+			if(mDistances.containsKey(pTo)) {
+				NodeObject tNode = pTo;
+				
+				while((tNode != mSource) && (tPath.size() < mIncomingLinks.size())) {
+					LinkObject tLink = mIncomingLinks.get(tNode);
+					
+					tPath.addFirst(tLink);
+					tNode = mNodes.getOpposite(tNode, tLink);
+				}
+			}
+			
+			return tPath;
+		}
+		
+		private NodeObject mSource;
+		private HashMap<NodeObject, Double> mDistances = new HashMap<NodeObject, Double>();
+		private HashMap<NodeObject, LinkObject> mIncomingLinks = new HashMap<NodeObject, LinkObject>();
+	}
+	
 	/**
 	 * Method is called by objects observed by the map. It is triggering an
 	 * update event for the observers of the map. In special, this mechanism
@@ -382,6 +700,11 @@ public void update(Observable observable, Object parameter)
 	 * Replaces mNodes.containsVertex because we have to use equals to compare the
 	 * objects. This is needed due to the usage with RMI.
 	 * 
+	 * Nodes with a hash code consistent to their equals method are searched
+	 * via a hash index. For all other nodes, the vertex list is searched
+	 * linearly. Subclasses modifying mNodes directly are detected by a changed
+	 * number of vertices, which triggers a rebuild of the index.
+	 * 
 	 * Note: In order to avoid parallel changes in the vertex list, the access
 	 *       to that list (add, contains, remove) must by synchronized.
 	 * 
@@ -393,6 +716,30 @@ protected NodeObject containsVertex(NodeObject pNewNode)
 		if(pNewNode == null) {
 			throw new NullPointerException("TopologyMap.containsVertex with null argument (" +this +")");
 		}
+		
+		if(isHashable(pNewNode)) {
+			if(mIndexedVertices != mNodes.getVertexCount()) {
+				rebuildVertexIndex();
+			}
+			
+			NodeObject tNode = mVertexIndex.get(pNewNode);
+			if(tNode != null) {
+				if(mNodes.containsVertex(tNode)) {
+					return tNode;
+				} else {
+					// index outdated due to direct modification of mNodes
+					rebuildVertexIndex();
+					
+					tNode = mVertexIndex.get(pNewNode);
+					if(tNode != null) return tNode;
+				}
+			}
+			
+			// nodes without index might be equal to pNewNode, too
+			if(mNumberUnhashedVertices <= 0) {
+				return null;
+			}
+		}
 
 		// replaces mNode.containsVertex, which is doing only a reference comparison
 		for(NodeObject tNode : mNodes.getVertices()) {
@@ -404,6 +751,71 @@ protected NodeObject containsVertex(NodeObject pNewNode)
 		return null;
 	}	
 	
+	private void addToVertexIndex(NodeObject pNode)
+	{
+		if(isHashable(pNode)) {
+			mVertexIndex.put(pNode, pNode);
+		} else {
+			mNumberUnhashedVertices++;
+		}
+		mIndexedVertices++;
+	}
+	
+	private void removeFromVertexIndex(NodeObject pNode)
+	{
+		if(isHashable(pNode)) {
+			mVertexIndex.remove(pNode);
+		} else {
+			mNumberUnhashedVertices--;
+		}
+		mIndexedVertices--;
+	}
+	
+	private void rebuildVertexIndex()
+	{
+		mVertexIndex.clear();
+		mNumberUnhashedVertices = 0;
+		mIndexedVertices = 0;
+		
+		for(NodeObject tNode : mNodes.getVertices()) {
+			addToVertexIndex(tNode);
+		}
+	}
+	
+	/**
+	 * Checks if the hash code of an object is consistent with its equals
+	 * method. That is not the case, if a class overrides equals without
+	 * overriding hashCode.
+	 * 
+	 * @param pObj Object to check (!= null)
+	 * @return true, if the object can be used as key in hash maps
+	 */
+	private static boolean isHashable(Object pObj)
+	{
+		Class<?> tClass = pObj.getClass();
+		
+		synchronized(sHashableClasses) {
+			Boolean tHashable = sHashableClasses.get(tClass);
+			
+			if(tHashable == null) {
+				try {
+					Class<?> tEquals = tClass.getMethod("equals", Object.class).getDeclaringClass();
+					Class<?> tHashCode = tClass.getMethod("hashCode").getDeclaringClass();
+					
+					// hashCode has to be implemented at the same level or below equals
+					tHashable = tEquals.isAssignableFrom(tHashCode);
+				}
+				catch(NoSuchMethodException exc) {
+					tHashable = false;
+				}
+				
+				sHashableClasses.put(tClass, tHashable);
+			}
+			
+			return tHashable;
+		}
+	}
+	
     /**
 	 * Checks whether two nodes are directly linked with each other. Optionally, the
 	 * link between both can be checked, too.
@@ -415,33 +827,7 @@ protected NodeObject containsVertex(NodeObject pNewNode)
 	 */
 	public synchronized boolean isLinked(NodeObject pFrom, NodeObject pTo, LinkObject pLinkValue)
 	{
-		boolean tRes = false;
-	
-		if((pFrom != null) && (pTo != null)) {
-			// get equivalent object used for map for pFrom and pTo:
-			Collection<LinkObject> tOutEdges = getOutEdges(pFrom);
-			if(tOutEdges != null) {
-				for(LinkObject tLink : tOutEdges) {
-	                NodeObject tTo = getDest(tLink);
-	
-	                if(tTo != null) {
-		                if(tTo.equals(pTo)) {
-	                        // check optional link object; if not available
-	                        // we just look for the nodes
-	                        if(pLinkValue != null) {
-                                if(pLinkValue.equals(tLink)) {
-                                    return true;
-                                }
-	                        } else {
-                                return true;
-	                        }
-		                }
-	                }
-	                // else: strange; ignore it
-				}
-			}
-		}
-		return tRes;
+		return (getEdge(pFrom, pTo, pLinkValue) != null);
 	}
 	
 	public synchronized boolean isLinked(NodeObject pFrom, NodeObject pTo)
@@ -456,8 +842,28 @@ public synchronized void notifyObservers(Object pEvent)
 	}
 	
 	protected Graph<NodeObject, LinkObject> mNodes = null;
+	
+	// index for nodes with consistent hash code; key and value are the same object
+	private HashMap<NodeObject, NodeObject> mVertexIndex = new HashMap<NodeObject, NodeObject>();
+	private int mNumberUnhashedVertices = 0;
+	private int mIndexedVertices = 0;
+	
+	private static HashMap<Class<?>, Boolean> sHashableClasses = new HashMap<Class<?>, Boolean>();
 	private Transformer<LinkObject, Number> mLinkToValueTransformer = null;
 
-	private DijkstraShortestPath<NodeObject, LinkObject> mRoutingAlg = null;
-	private boolean mResetRouting = false;
+	/**
+	 * Cached shortest path trees per source node in the order of their usage.
+	 */
+	private LinkedHashMap<NodeObject, ShortestPathTree> mRouteCache = new LinkedHashMap<NodeObject, ShortestPathTree>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<NodeObject, ShortestPathTree> pEldest)
+		{
+			return size() > mRouteCacheSize;
+		}
+	};
+	private int mRouteCacheSize = DEFAULT_ROUTE_CACHE_SIZE;
+	private CompactRoutingEngine<NodeObject, LinkObject> mCompactEngine = null;
+	private RouteCacheListener mRouteCacheListener = null;
+	private long mRouteCacheHits = 0;
+	private long mRouteCacheMisses = 0;
 }
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Forwarding on Gates Simulator/Emulator
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.graph;
+
+/**
+ * Informs the user of a graph about the usage of its route cache.
+ * Enables statistics without dependency of the graph to them.
+ */
+public interface RouteCacheListener
+{
+	/**
+	 * Called for each route calculated by {@link RoutableGraph#getRoute}.
+	 * 
+	 * @param pFromCache true, if the route was taken from a cached shortest path tree; false, if the tree had to be calculated
+	 */
+	public void routeCalculated(boolean pFromCache);
+}
@@ -68,7 +68,9 @@ public byte[] toBytes(Object object) throws IOException
 	}
 
 	/**
-	 * Converts a byte stream to Java objects by using std Java deserializing procedures.
+	 * Converts a byte stream to Java objects. Streams created by the
+	 * {@link WireCodec} are decoded by it; all others by using std Java
+	 * deserializing procedures.
 	 * 
 	 * @param bytes Byte array
 	 * @return Java object
@@ -78,6 +80,10 @@ public byte[] toBytes(Object object) throws IOException
 	 */
 	public Object toObject(byte[] bytes) throws IOException, StreamCorruptedException, ClassNotFoundException
 	{
+		if(WireCodec.isEncoded(bytes)) {
+			return WireCodec.getInstance().toObject(bytes);
+		}
+		
 		ObjectInputStream objectStream = null;
 		
 		try {
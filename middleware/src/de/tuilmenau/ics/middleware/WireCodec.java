@@ -0,0 +1,429 @@
+/*******************************************************************************
+ * Middleware
+ * Copyright (C) 2012, Integrated Communication Systems Group, TU Ilmenau.
+ * 
+ * This program and the accompanying materials are dual-licensed under either
+ * the terms of the Eclipse Public License v1.0 as published by the Eclipse
+ * Foundation
+ *  
+ *   or (per the licensee's choosing)
+ *  
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ ******************************************************************************/
+package de.tuilmenau.ics.middleware;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Binary codec for objects, which are sent very often (e.g. packets). The
+ * encoding of a class is defined by an {@link Encoder} registered for it
+ * with a type ID. Objects without encoder are stored with the standard Java
+ * serialization. Thus, the codec can encode all objects supported by the
+ * {@link Serializer}.
+ *
+ * Format (big endian):
+ * <pre>
+ *   header: magic (byte), version (byte), object
+ *   object: type ID (byte), data
+ *     NULL:         -
+ *     SERIALIZED:   length (var int), Java serialization stream
+ *     STRING:       string
+ *     OBJECT_ARRAY: length (var int), objects; just for Object[]
+ *     others:       data written by the encoder of the type
+ *   string:  length +1 (var int; 0 for null), UTF-8 bytes
+ *   var int: zig-zag encoded, 7 bits per byte, lowest bits first
+ * </pre>
+ * The magic differs from the first byte of Java serialization streams.
+ */
+public class WireCodec
+{
+	public static final byte MAGIC = (byte) 0xF0;
+	public static final byte VERSION = 1;
+	
+	/**
+	 * Type IDs below are reserved for the codec itself.
+	 */
+	public static final int FIRST_USER_TYPE = 16;
+	public static final int MAX_TYPE = 127;
+	
+	private static final byte TYPE_NULL = 0;
+	private static final byte TYPE_SERIALIZED = 1;
+	private static final byte TYPE_STRING = 2;
+	private static final byte TYPE_OBJECT_ARRAY = 3;
+	
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	
+	
+	/**
+	 * Encodes and decodes the objects of one class.
+	 */
+	public interface Encoder<T>
+	{
+		/**
+		 * Writes the object. Referenced objects can be written with
+		 * {@link WireCodec#writeObject(DataOutput, Object)}.
+		 */
+		public void write(WireCodec pCodec, DataOutput pOut, T pObject) throws IOException;
+		
+		/**
+		 * Reads an object written by {@link #write}.
+		 */
+		public T read(WireCodec pCodec, DataInput pIn) throws IOException, ClassNotFoundException;
+	}
+	
+	
+	private static WireCodec sInstance = null;
+	
+	/**
+	 * @return Singleton object (!= null)
+	 */
+	public static synchronized WireCodec getInstance()
+	{
+		if(sInstance == null) {
+			sInstance = new WireCodec();
+		}
+		
+		return sInstance;
+	}
+	
+	/**
+	 * Registers an encoder for a class. Objects of sub classes are not
+	 * encoded with it. Registering the same encoder twice has no effect.
+	 *
+	 * @param pTypeID ID of the type on the wire; must be the same for all peers
+	 * @param pClass Class of the objects
+	 * @param pEncoder Encoder for the objects
+	 * @throws IllegalArgumentException On invalid type ID or if ID or class are already registered
+	 */
+	public synchronized <T> void register(int pTypeID, Class<T> pClass, Encoder<T> pEncoder)
+	{
+		if((pTypeID < FIRST_USER_TYPE) || (pTypeID > MAX_TYPE)) {
+			throw new IllegalArgumentException(this +" - Type ID " +pTypeID +" is out of range.");
+		}
+		
+		Registration tExisting = mTypes[pTypeID];
+		if(tExisting != null) {
+			if((tExisting.mClass == pClass) && (tExisting.mEncoder == pEncoder)) {
+				return;
+			}
+			throw new IllegalArgumentException(this +" - Type ID " +pTypeID +" is already used for " +tExisting.mClass);
+		}
+		if(mClasses.containsKey(pClass)) {
+			throw new IllegalArgumentException(this +" - " +pClass +" is already registered.");
+		}
+		
+		Registration tRegistration = new Registration((byte) pTypeID, pClass, pEncoder);
+		Registration[] tTypes = mTypes.clone();
+		
+		tTypes[pTypeID] = tRegistration;
+		mTypes = tTypes;
+		mClasses.put(pClass, tRegistration);
+	}
+	
+	/**
+	 * @return true, if there is a specific encoding for the object
+	 */
+	public boolean canEncode(Object pObject)
+	{
+		if(pObject != null) {
+			return (pObject.getClass() == Object[].class) || (pObject instanceof String) || mClasses.containsKey(pObject.getClass());
+		} else {
+			return false;
+		}
+	}
+	
+	/**
+	 * @return true, if the bytes had been created by a codec
+	 */
+	public static boolean isEncoded(byte[] pBytes)
+	{
+		return (pBytes != null) && (pBytes.length >= 2) && (pBytes[0] == MAGIC);
+	}
+	
+	public byte[] toBytes(Object pObject) throws IOException
+	{
+		ByteArrayOutputStream tBytes = new ByteArrayOutputStream(128);
+		DataOutputStream tOut = new DataOutputStream(tBytes);
+		
+		encode(tOut, pObject);
+		tOut.flush();
+		
+		return tBytes.toByteArray();
+	}
+	
+	/**
+	 * Writes the header and the object. Can be used for writing to reusable
+	 * buffers instead of {@link #toBytes(Object)}.
+	 */
+	public void encode(DataOutput pOut, Object pObject) throws IOException
+	{
+		pOut.writeByte(MAGIC);
+		pOut.writeByte(VERSION);
+		writeObject(pOut, pObject);
+	}
+	
+	public Object toObject(byte[] pBytes) throws IOException, ClassNotFoundException
+	{
+		return toObject(pBytes, 0, pBytes.length);
+	}
+	
+	/**
+	 * Decodes an object from a part of an array.
+	 */
+	public Object toObject(byte[] pBytes, int pOffset, int pLength) throws IOException, ClassNotFoundException
+	{
+		if((pLength < 2) || (pBytes[pOffset] != MAGIC)) {
+			throw new IOException(this +" - Bytes are not encoded by a codec.");
+		}
+		if(pBytes[pOffset +1] != VERSION) {
+			throw new IOException(this +" - Version " +pBytes[pOffset +1] +" is not supported.");
+		}
+		
+		DataInputStream tIn = new DataInputStream(new ByteArrayInputStream(pBytes, pOffset +2, pLength -2));
+		
+		return readObject(tIn);
+	}
+	
+	/**
+	 * Writes an object with its type ID. Objects without encoder are
+	 * serialized by Java.
+	 */
+	@SuppressWarnings("unchecked")
+	public void writeObject(DataOutput pOut, Object pObject) throws IOException
+	{
+		if(pObject == null) {
+			pOut.writeByte(TYPE_NULL);
+			return;
+		}
+		
+		Registration tRegistration = mClasses.get(pObject.getClass());
+		
+		if(tRegistration != null) {
+			pOut.writeByte(tRegistration.mTypeID);
+			((Encoder<Object>) tRegistration.mEncoder).write(this, pOut, pObject);
+		}
+		else if(pObject instanceof String) {
+			pOut.writeByte(TYPE_STRING);
+			writeString(pOut, (String) pObject);
+		}
+		else if(pObject.getClass() == Object[].class) {
+			Object[] tObjects = (Object[]) pObject;
+			
+			pOut.writeByte(TYPE_OBJECT_ARRAY);
+			writeVarInt(pOut, tObjects.length);
+			for(Object tObject : tObjects) {
+				writeObject(pOut, tObject);
+			}
+		}
+		else {
+			ByteArrayOutputStream tBytes = new ByteArrayOutputStream();
+			ObjectOutputStream tObjectStream = new ObjectOutputStream(tBytes);
+			
+			try {
+				tObjectStream.writeObject(pObject);
+				tObjectStream.flush();
+			}
+			finally {
+				tObjectStream.close();
+			}
+			
+			pOut.writeByte(TYPE_SERIALIZED);
+			writeVarInt(pOut, tBytes.size());
+			pOut.write(tBytes.toByteArray());
+		}
+	}
+	
+	/**
+	 * Reads an object written by {@link #writeObject(DataOutput, Object)}.
+	 */
+	public Object readObject(DataInput pIn) throws IOException, ClassNotFoundException
+	{
+		byte tType = pIn.readByte();
+		
+		switch(tType) {
+		case TYPE_NULL:
+			return null;
+		case TYPE_SERIALIZED:
+			byte[] tBytes = new byte[readLength(pIn)];
+			
+			pIn.readFully(tBytes);
+			
+			ObjectInputStream tObjectStream = new ObjectInputStream(new ByteArrayInputStream(tBytes));
+			try {
+				return tObjectStream.readObject();
+			}
+			finally {
+				tObjectStream.close();
+			}
+		case TYPE_STRING:
+			return readString(pIn);
+		case TYPE_OBJECT_ARRAY:
+			Object[] tObjects = new Object[readLength(pIn)];
+			
+			for(int i = 0; i < tObjects.length; i++) {
+				tObjects[i] = readObject(pIn);
+			}
+			return tObjects;
+		default:
+			Registration tRegistration = null;
+			
+			if((tType >= FIRST_USER_TYPE) && (tType <= MAX_TYPE)) {
+				tRegistration = mTypes[tType];
+			}
+			if(tRegistration == null) {
+				throw new IOException(this +" - Unknown type ID " +tType +".");
+			}
+			
+			return tRegistration.mEncoder.read(this, pIn);
+		}
+	}
+	
+	/**
+	 * Writes a string, which might be null.
+	 */
+	public static void writeString(DataOutput pOut, String pValue) throws IOException
+	{
+		if(pValue != null) {
+			byte[] tBytes = pValue.getBytes(CHARSET);
+			
+			writeVarInt(pOut, tBytes.length +1);
+			pOut.write(tBytes);
+		} else {
+			writeVarInt(pOut, 0);
+		}
+	}
+	
+	public static String readString(DataInput pIn) throws IOException
+	{
+		int tLength = readVarInt(pIn);
+		
+		if(tLength > 0) {
+			if(tLength > MAX_LENGTH) {
+				throw new IOException("Invalid string length " +(tLength -1) +".");
+			}
+			
+			byte[] tBytes = new byte[tLength -1];
+			
+			pIn.readFully(tBytes);
+			return new String(tBytes, CHARSET);
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Writes an integer with 1 to 5 bytes. Values near zero need less bytes.
+	 */
+	public static void writeVarInt(DataOutput pOut, int pValue) throws IOException
+	{
+		int tValue = (pValue << 1) ^ (pValue >> 31);
+		
+		while((tValue & ~0x7F) != 0) {
+			pOut.writeByte((tValue & 0x7F) | 0x80);
+			tValue >>>= 7;
+		}
+		pOut.writeByte(tValue);
+	}
+	
+	public static int readVarInt(DataInput pIn) throws IOException
+	{
+		int tValue = 0;
+		
+		for(int tShift = 0; tShift < 35; tShift += 7) {
+			int tByte = pIn.readUnsignedByte();
+			
+			tValue |= (tByte & 0x7F) << tShift;
+			if((tByte & 0x80) == 0) {
+				return (tValue >>> 1) ^ -(tValue & 1);
+			}
+		}
+		throw new IOException("Invalid variable length integer.");
+	}
+	
+	/**
+	 * Writes a long with 1 to 10 bytes. Values near zero need less bytes.
+	 */
+	public static void writeVarLong(DataOutput pOut, long pValue) throws IOException
+	{
+		long tValue = (pValue << 1) ^ (pValue >> 63);
+		
+		while((tValue & ~0x7FL) != 0) {
+			pOut.writeByte((int) ((tValue & 0x7F) | 0x80));
+			tValue >>>= 7;
+		}
+		pOut.writeByte((int) tValue);
+	}
+	
+	public static long readVarLong(DataInput pIn) throws IOException
+	{
+		long tValue = 0;
+		
+		for(int tShift = 0; tShift < 70; tShift += 7) {
+			int tByte = pIn.readUnsignedByte();
+			
+			tValue |= (long) (tByte & 0x7F) << tShift;
+			if((tByte & 0x80) == 0) {
+				return (tValue >>> 1) ^ -(tValue & 1);
+			}
+		}
+		throw new IOException("Invalid variable length long.");
+	}
+	
+	/**
+	 * Reads a length for an array. It is checked in order to avoid huge
+	 * allocations due to corrupted data.
+	 */
+	private static int readLength(DataInput pIn) throws IOException
+	{
+		int tLength = readVarInt(pIn);
+		
+		if((tLength < 0) || (tLength > MAX_LENGTH)) {
+			throw new IOException("Invalid length " +tLength +".");
+		}
+		return tLength;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName();
+	}
+	
+	
+	private static class Registration
+	{
+		public Registration(byte pTypeID, Class<?> pClass, Encoder<?> pEncoder)
+		{
+			mTypeID = pTypeID;
+			mClass = pClass;
+			mEncoder = pEncoder;
+		}
+		
+		private final byte mTypeID;
+		private final Class<?> mClass;
+		private final Encoder<?> mEncoder;
+	}
+	
+	/**
+	 * Upper limit for lengths read from the wire
+	 */
+	private static final int MAX_LENGTH = 64 *1024 *1024;
+	
+	/**
+	 * Registrations indexed by type ID; replaced on registration
+	 */
+	private volatile Registration[] mTypes = new Registration[MAX_TYPE +1];
+	private final ConcurrentHashMap<Class<?>, Registration> mClasses = new ConcurrentHashMap<Class<?>, Registration>();
+}